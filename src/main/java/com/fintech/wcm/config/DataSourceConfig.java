@@ -0,0 +1,46 @@
+package com.fintech.wcm.config;
+
+import com.fintech.wcm.service.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration for the database connection pools.
+ * Imports borrow from a pool of their own, so however many run they cannot take the
+ * connections dashboard requests need; both pools are reached through one routing data
+ * source, which the rest of the application uses.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource interactiveDataSource(DataSourceProperties properties, ConnectionPoolMetrics poolMetrics) {
+        return pool(properties, "interactive", poolMetrics);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.import.hikari")
+    public HikariDataSource importDataSource(DataSourceProperties properties, ConnectionPoolMetrics poolMetrics) {
+        return pool(properties, "import", poolMetrics);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource interactiveDataSource, HikariDataSource importDataSource) {
+        return new PoolRoutingDataSource(interactiveDataSource, importDataSource);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String name, ConnectionPoolMetrics poolMetrics) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(name);
+        dataSource.setMetricsTrackerFactory(poolMetrics);
+        return dataSource;
+    }
+}
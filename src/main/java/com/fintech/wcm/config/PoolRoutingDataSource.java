@@ -0,0 +1,71 @@
+package com.fintech.wcm.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool the current thread is bound to: the interactive pool
+ * unless the thread runs an import. JPA and JDBC both borrow through it, so a connection is
+ * taken from the import pool whenever a transaction starts on an import thread. A
+ * transaction keeps the connection it started with, whichever pool the thread moves to.
+ */
+public class PoolRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * The connection pools.
+     */
+    public enum Pool {
+        INTERACTIVE,
+        IMPORT
+    }
+
+    private static final ThreadLocal<Pool> CURRENT = new ThreadLocal<>();
+
+    public PoolRoutingDataSource(Object interactive, Object imports) {
+        setTargetDataSources(Map.of(Pool.INTERACTIVE, interactive, Pool.IMPORT, imports));
+        setDefaultTargetDataSource(interactive);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Bind the current thread to a pool until the returned scope is closed.
+     *
+     * @param pool the pool
+     * @return the scope, which binds the thread back to its previous pool when closed
+     */
+    public static Scope use(Pool pool) {
+        Pool previous = CURRENT.get();
+        CURRENT.set(pool);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the pool the current thread borrows from
+     */
+    public static Pool currentPool() {
+        Pool pool = CURRENT.get();
+        return pool == null ? Pool.INTERACTIVE : pool;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentPool();
+    }
+
+    /**
+     * A binding of the current thread to a pool.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -1,9 +1,13 @@
 package com.fintech.wcm.controller;
 
+import com.fintech.wcm.dto.AlertInboxDto;
 import com.fintech.wcm.dto.DashboardSummaryDto;
 import com.fintech.wcm.model.Alert;
+import com.fintech.wcm.service.AlertInboxService;
 import com.fintech.wcm.service.AlertService;
+import com.fintech.wcm.service.CacheStatisticsService;
 import com.fintech.wcm.service.WorkingCapitalService;
+import com.fintech.wcm.util.VersionedCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -27,6 +31,8 @@ public class DashboardController {
 
     private final WorkingCapitalService workingCapitalService;
     private final AlertService alertService;
+    private final AlertInboxService alertInboxService;
+    private final CacheStatisticsService cacheStatisticsService;
 
     /**
      * Endpoint to get the dashboard summary for a company.
@@ -56,6 +62,20 @@ public class DashboardController {
         return ResponseEntity.ok(alerts);
     }
 
+    /**
+     * Endpoint to get the alert inbox of a company: alert counts and the most recent open alerts.
+     * 
+     * @param companyId the company ID
+     * @return the alert inbox
+     */
+    @GetMapping("/alerts/{companyId}/inbox")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "Get alert inbox", description = "Retrieves alert counts by severity, type and state with the most recent open alerts")
+    public ResponseEntity<AlertInboxDto> getAlertInbox(@PathVariable Long companyId) {
+        AlertInboxDto inbox = alertInboxService.getInbox(companyId);
+        return ResponseEntity.ok(inbox);
+    }
+
     /**
      * Endpoint to get unread alerts for a company.
      * 
@@ -189,4 +209,16 @@ public class DashboardController {
         int alertsGenerated = alertService.generateCCCAlerts(companyId);
         return ResponseEntity.ok(Map.of("alertsGenerated", alertsGenerated));
     }
+
+    /**
+     * Endpoint to get the hit, miss and eviction counters of the dashboard caches.
+     * 
+     * @return a map of cache names to their counters
+     */
+    @GetMapping("/cache/statistics")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get cache statistics", description = "Retrieves the counters of the metrics and dashboard summary caches")
+    public ResponseEntity<Map<String, VersionedCache.Stats>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getCacheStatistics());
+    }
 }
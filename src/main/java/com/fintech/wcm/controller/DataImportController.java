@@ -1,17 +1,33 @@
 package com.fintech.wcm.controller;
 
+import com.fintech.wcm.dto.ImportCapacityDto;
+import com.fintech.wcm.dto.ImportJobDto;
 import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.dto.ScheduledImportRunDto;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
 import com.fintech.wcm.service.DataImportService;
+import com.fintech.wcm.service.ImportJobService;
+import com.fintech.wcm.service.RejectedRowsStore;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,11 +41,14 @@ import java.util.Map;
 public class DataImportController {
 
     private final DataImportService dataImportService;
+    private final ImportJobService importJobService;
+    private final RejectedRowsStore rejectedRowsStore;
 
     /**
      * Endpoint to import cash transactions from a CSV file.
      * 
      * @param companyId the company ID
+     * @param mode APPEND rejects rows already imported as duplicates; SKIP_EXISTING skips them
      * @param file the CSV file
      * @return the import result
      */
@@ -38,8 +57,9 @@ public class DataImportController {
     @Operation(summary = "Import cash transactions", description = "Imports cash transactions from a CSV file")
     public ResponseEntity<ImportResultDto> importCashTransactions(
             @PathVariable Long companyId,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
             @RequestParam("file") MultipartFile file) {
-        ImportResultDto result = dataImportService.importCashTransactions(companyId, file);
+        ImportResultDto result = dataImportService.importFile(companyId, ImportType.CASH_TRANSACTIONS, mode, file);
         return ResponseEntity.ok(result);
     }
 
@@ -47,6 +67,7 @@ public class DataImportController {
      * Endpoint to import invoices from a CSV file.
      * 
      * @param companyId the company ID
+     * @param mode APPEND rejects rows already imported as duplicates; SKIP_EXISTING skips them
      * @param file the CSV file
      * @return the import result
      */
@@ -55,8 +76,9 @@ public class DataImportController {
     @Operation(summary = "Import invoices", description = "Imports invoices from a CSV file")
     public ResponseEntity<ImportResultDto> importInvoices(
             @PathVariable Long companyId,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
             @RequestParam("file") MultipartFile file) {
-        ImportResultDto result = dataImportService.importInvoices(companyId, file);
+        ImportResultDto result = dataImportService.importFile(companyId, ImportType.INVOICES, mode, file);
         return ResponseEntity.ok(result);
     }
 
@@ -64,6 +86,7 @@ public class DataImportController {
      * Endpoint to import accounts receivable from a CSV file.
      * 
      * @param companyId the company ID
+     * @param mode APPEND rejects rows already imported as duplicates; SKIP_EXISTING skips them
      * @param file the CSV file
      * @return the import result
      */
@@ -72,8 +95,9 @@ public class DataImportController {
     @Operation(summary = "Import accounts receivable", description = "Imports accounts receivable from a CSV file")
     public ResponseEntity<ImportResultDto> importAccountsReceivable(
             @PathVariable Long companyId,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
             @RequestParam("file") MultipartFile file) {
-        ImportResultDto result = dataImportService.importAccountsReceivable(companyId, file);
+        ImportResultDto result = dataImportService.importFile(companyId, ImportType.ACCOUNTS_RECEIVABLE, mode, file);
         return ResponseEntity.ok(result);
     }
 
@@ -81,6 +105,7 @@ public class DataImportController {
      * Endpoint to import accounts payable from a CSV file.
      * 
      * @param companyId the company ID
+     * @param mode APPEND rejects rows already imported as duplicates; SKIP_EXISTING skips them
      * @param file the CSV file
      * @return the import result
      */
@@ -89,8 +114,9 @@ public class DataImportController {
     @Operation(summary = "Import accounts payable", description = "Imports accounts payable from a CSV file")
     public ResponseEntity<ImportResultDto> importAccountsPayable(
             @PathVariable Long companyId,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
             @RequestParam("file") MultipartFile file) {
-        ImportResultDto result = dataImportService.importAccountsPayable(companyId, file);
+        ImportResultDto result = dataImportService.importFile(companyId, ImportType.ACCOUNTS_PAYABLE, mode, file);
         return ResponseEntity.ok(result);
     }
 
@@ -111,6 +137,177 @@ public class DataImportController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Endpoint to bulk load a CSV file with PostgreSQL COPY.
+     * 
+     * @param companyId the company ID
+     * @param type the ledger to load
+     * @param mode APPEND rejects rows already imported as duplicates; SKIP_EXISTING skips them;
+     *             UPSERT updates them from the file
+     * @param file the CSV file
+     * @return the import result
+     */
+    @PostMapping("/bulk/{companyId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "Bulk import", description = "Loads a large CSV file of any ledger with PostgreSQL COPY, bypassing JPA")
+    public ResponseEntity<ImportResultDto> bulkImport(
+            @PathVariable Long companyId,
+            @RequestParam("type") ImportType type,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
+            @RequestParam("file") MultipartFile file) {
+        ImportResultDto result = dataImportService.bulkImport(companyId, type, mode, file);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Endpoint to import a ZIP bundle of CSV files of several ledgers, such as those of a
+     * month-end close.
+     * 
+     * @param companyId the company ID
+     * @param mode APPEND rejects rows already imported as duplicates; SKIP_EXISTING skips them
+     * @param file the ZIP file, holding files named after their ledger, such as cash_accounts.csv
+     * @return the combined import result
+     */
+    @PostMapping("/bundle/{companyId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "Import bundle", description = "Imports a ZIP bundle of cash account, cash transaction, invoice, receivable, payable and inventory CSV files in dependency order")
+    public ResponseEntity<ImportResultDto> importBundle(
+            @PathVariable Long companyId,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
+            @RequestParam("file") MultipartFile file) {
+        ImportResultDto result = dataImportService.importBundle(companyId, mode, file);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Endpoint to import a CSV file streamed in the request body, beyond the multipart size limit.
+     * 
+     * @param companyId the company ID
+     * @param type the ledger to import
+     * @param bulk whether to load the file with PostgreSQL COPY instead of JPA
+     * @param mode how rows already imported are treated; UPSERT needs a bulk load
+     * @param charset the charset of the CSV
+     * @param fileName the name of the file, for the result
+     * @param contentEncoding gzip or zstd if the body is compressed
+     * @param request the request whose body is the CSV file
+     * @return the import result
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/stream/{companyId}", consumes = {"text/csv", "text/plain", "application/csv",
+            "application/octet-stream", "application/gzip", "application/zstd"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "Stream import", description = "Imports a CSV file of any size from the request body while it arrives, optionally gzip or zstd compressed")
+    public ResponseEntity<ImportResultDto> streamImport(
+            @PathVariable Long companyId,
+            @RequestParam("type") ImportType type,
+            @RequestParam(value = "bulk", defaultValue = "false") boolean bulk,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
+            @RequestParam(value = "charset", defaultValue = "UTF-8") String charset,
+            @RequestParam(value = "fileName", required = false) String fileName,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            HttpServletRequest request) throws IOException {
+        ImportResultDto result = dataImportService.importStream(companyId, type, mode, bulk, fileName,
+                request.getInputStream(), request.getContentLengthLong(), contentEncoding, charset);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Endpoint to submit a CSV file for import in the background.
+     * 
+     * @param companyId the company ID
+     * @param type the ledger to import
+     * @param bulk whether to load the file with PostgreSQL COPY instead of JPA
+     * @param mode how rows already imported are treated; UPSERT needs a bulk load
+     * @param file the CSV file
+     * @return the queued job
+     */
+    @PostMapping("/jobs/{companyId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "Submit import job", description = "Stores a CSV file and imports it in the background; returns the job to poll")
+    public ResponseEntity<ImportJobDto> submitImportJob(
+            @PathVariable Long companyId,
+            @RequestParam("type") ImportType type,
+            @RequestParam(value = "bulk", defaultValue = "false") boolean bulk,
+            @RequestParam(value = "mode", defaultValue = "APPEND") ImportMode mode,
+            @RequestParam("file") MultipartFile file) {
+        ImportJobDto job = importJobService.submit(companyId, type, bulk, mode, file);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * Endpoint to get the state and progress of an import job.
+     * 
+     * @param jobId the job ID
+     * @return the job
+     */
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get import job", description = "Gets the state, rows parsed, written and failed, rows/sec and ETA of an import job")
+    public ResponseEntity<ImportJobDto> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(jobId));
+    }
+
+    /**
+     * Endpoint to list the recent import jobs of a company.
+     * 
+     * @param companyId the company ID
+     * @param limit the maximum number of jobs
+     * @return the jobs, newest first
+     */
+    @GetMapping("/jobs/company/{companyId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "List import jobs", description = "Lists the recent import jobs of a company, newest first")
+    public ResponseEntity<List<ImportJobDto>> getImportJobs(
+            @PathVariable Long companyId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(importJobService.getJobs(companyId, limit));
+    }
+
+    /**
+     * Endpoint to get the result of a finished import job.
+     * 
+     * @param jobId the job ID
+     * @return the import result
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Get import job result", description = "Gets the stored result of a finished import job")
+    public ResponseEntity<ImportResultDto> getImportJobResult(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getResult(jobId));
+    }
+
+    /**
+     * Endpoint to download the rows an import rejected.
+     * 
+     * @param companyId the company ID
+     * @param rejectedRowsId the rejected rows ID from the import result
+     * @return a CSV file of the record number, error type, error and line of each rejected row
+     */
+    @GetMapping(value = "/rejected/{companyId}/{rejectedRowsId}", produces = "text/csv")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "Download rejected rows", description = "Downloads the rows an import rejected, with the reason for each")
+    public ResponseEntity<Resource> getRejectedRows(@PathVariable Long companyId, @PathVariable String rejectedRowsId) {
+        FileSystemResource file = new FileSystemResource(rejectedRowsStore.find(companyId, rejectedRowsId));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("rejected-rows-" + rejectedRowsId + ".csv").build().toString())
+                .body(file);
+    }
+
+    /**
+     * Endpoint to cancel an import job.
+     * 
+     * @param jobId the job ID
+     * @return the job
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO') or hasRole('ACCOUNTANT')")
+    @Operation(summary = "Cancel import job", description = "Cancels a queued import job, or stops a running one at the next record")
+    public ResponseEntity<ImportJobDto> cancelImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.cancel(jobId));
+    }
+
     /**
      * Endpoint to import data from QuickBooks.
      * 
@@ -189,4 +386,30 @@ public class DataImportController {
         dataImportService.cancelScheduledImportJob(jobId);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Endpoint to get the run history of a scheduled import job.
+     * 
+     * @param jobId the job ID
+     * @return the most recent runs, newest first
+     */
+    @GetMapping("/schedule/{jobId}/runs")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CFO')")
+    @Operation(summary = "Get scheduled import runs", description = "Gets the most recent runs of a scheduled import job")
+    public ResponseEntity<List<ScheduledImportRunDto>> getScheduledImportRuns(@PathVariable String jobId) {
+        return ResponseEntity.ok(dataImportService.getScheduledImportRuns(jobId));
+    }
+
+    /**
+     * Endpoint to get how many imports are running and queued, and how saturated the
+     * interactive and import connection pools are.
+     * 
+     * @return the import capacity
+     */
+    @GetMapping("/capacity")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get import capacity", description = "Gets the running and queued imports and the saturation of the connection pools")
+    public ResponseEntity<ImportCapacityDto> getImportCapacity() {
+        return ResponseEntity.ok(dataImportService.getImportCapacity());
+    }
 }
@@ -1,17 +1,28 @@
 package com.fintech.wcm.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.wcm.dto.BatchMetricsRequestDto;
+import com.fintech.wcm.dto.ConcentrationAnalyticsDto;
 import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
 import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.service.CompanyBalanceService;
+import com.fintech.wcm.service.ConcentrationAnalyticsService;
 import com.fintech.wcm.service.WorkingCapitalService;
+import com.fintech.wcm.service.WorkingCapitalSnapshotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.Map;
 
@@ -25,7 +36,21 @@ import java.util.Map;
 @Tag(name = "Working Capital", description = "Working Capital Management API")
 public class WorkingCapitalController {
 
+    /**
+     * Largest number of company IDs accepted by one batch metrics request.
+     */
+    private static final int MAX_BATCH_COMPANY_IDS = 10_000;
+
+    /**
+     * Largest number of customers and of vendors listed by one concentration request.
+     */
+    private static final int MAX_CONCENTRATION_LIMIT = 100;
+
     private final WorkingCapitalService workingCapitalService;
+    private final WorkingCapitalSnapshotService workingCapitalSnapshotService;
+    private final CompanyBalanceService companyBalanceService;
+    private final ConcentrationAnalyticsService concentrationAnalyticsService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Endpoint to calculate working capital metrics for a company.
@@ -41,6 +66,27 @@ public class WorkingCapitalController {
         return ResponseEntity.ok(metrics);
     }
 
+    /**
+     * Endpoint to get the largest customers and vendors of a company together with
+     * how concentrated its open receivables and payables are.
+     * 
+     * @param companyId the company ID
+     * @param limit the number of customers and of vendors to list
+     * @return the concentration analytics
+     */
+    @GetMapping("/concentration/{companyId}")
+    @PreAuthorize("hasRole('ADMIN') or @securityService.hasCompanyAccess(authentication, #companyId)")
+    @Operation(summary = "Get concentration analytics", description = "Retrieves top customers and vendors with top-5 share, Herfindahl index and long-tail count")
+    public ResponseEntity<ConcentrationAnalyticsDto> getConcentrationAnalytics(
+            @PathVariable Long companyId,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_CONCENTRATION_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_CONCENTRATION_LIMIT);
+        }
+        ConcentrationAnalyticsDto analytics = concentrationAnalyticsService.getConcentrationAnalytics(companyId, limit);
+        return ResponseEntity.ok(analytics);
+    }
+
     /**
      * Endpoint to calculate working capital metrics for a company as of a specific date.
      * 
@@ -58,6 +104,52 @@ public class WorkingCapitalController {
         return ResponseEntity.ok(metrics);
     }
 
+    /**
+     * Endpoint to calculate current working capital metrics for many companies at once.
+     * Metrics are streamed back as newline-delimited JSON, one company per line, as soon
+     * as each one is assembled.
+     * 
+     * @param request the company IDs or the company type to include
+     * @return the stream of working capital metrics
+     */
+    @PostMapping(value = "/metrics/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Calculate batch metrics", description = "Calculates working capital metrics for a list of companies or every company of a type")
+    public ResponseEntity<StreamingResponseBody> calculateBatchMetrics(@RequestBody BatchMetricsRequestDto request) {
+        boolean hasIds = request.getCompanyIds() != null && !request.getCompanyIds().isEmpty();
+        boolean hasType = request.getCompanyType() != null;
+        if (hasIds == hasType) {
+            throw new BadRequestException("Either company IDs or a company type must be given");
+        }
+        if (hasIds && request.getCompanyIds().size() > MAX_BATCH_COMPANY_IDS) {
+            throw new BadRequestException("At most " + MAX_BATCH_COMPANY_IDS + " company IDs can be requested at once");
+        }
+        
+        Company.CompanyType companyType = null;
+        if (hasType) {
+            try {
+                companyType = Company.CompanyType.valueOf(request.getCompanyType());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid company type: " + request.getCompanyType() + ". Valid types are SME and MNE");
+            }
+        }
+        
+        Company.CompanyType selectedType = companyType;
+        StreamingResponseBody body = outputStream -> workingCapitalService.streamBatchMetrics(
+                request.getCompanyIds(), selectedType, metrics -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(metrics));
+                        outputStream.write('\n');
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Endpoint to calculate Days Sales Outstanding (DSO) for a company.
      * 
@@ -175,4 +267,34 @@ public class WorkingCapitalController {
         int alertsGenerated = workingCapitalService.generateAlerts(companyId);
         return ResponseEntity.ok(Map.of("alertsGenerated", alertsGenerated));
     }
+
+    /**
+     * Endpoint to backfill daily working capital snapshots for all companies.
+     * 
+     * @param startDate the first date to backfill
+     * @param endDate the last date to backfill; must be in the past
+     * @return the number of snapshots created
+     */
+    @PostMapping("/snapshots/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Backfill snapshots", description = "Creates missing daily working capital snapshots for all companies")
+    public ResponseEntity<Map<String, Integer>> backfillSnapshots(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        int snapshotsCreated = workingCapitalSnapshotService.backfillSnapshots(startDate, endDate);
+        return ResponseEntity.ok(Map.of("snapshotsCreated", snapshotsCreated));
+    }
+
+    /**
+     * Endpoint to check the company balance counters against the ledgers.
+     * 
+     * @return the number of companies whose counters were repaired
+     */
+    @PostMapping("/balances/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reconcile balances", description = "Repairs company balance counters that drifted from the ledgers")
+    public ResponseEntity<Map<String, Integer>> reconcileBalances() {
+        int companiesRepaired = companyBalanceService.reconcile();
+        return ResponseEntity.ok(Map.of("companiesRepaired", companiesRepaired));
+    }
 }
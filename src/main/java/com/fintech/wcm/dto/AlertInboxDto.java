@@ -0,0 +1,40 @@
+package com.fintech.wcm.dto;
+
+import com.fintech.wcm.model.AlertInbox;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the alert inbox of a company.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertInboxDto {
+    
+    private Long companyId;
+    
+    // Alert counts
+    private long totalCount;
+    private long unreadCount;
+    private long dismissedCount;
+    private Map<String, Long> severityCounts;  // all alerts by severity
+    private Map<String, Long> typeCounts;      // all alerts by type
+    
+    // Most recent alerts that are not dismissed, newest first
+    private List<AlertInbox.RecentAlert> recentAlerts;
+    
+    /**
+     * @param severity the severity name
+     * @return the number of alerts of that severity
+     */
+    public long getSeverityCount(String severity) {
+        return severityCounts != null ? severityCounts.getOrDefault(severity, 0L) : 0L;
+    }
+}
@@ -0,0 +1,22 @@
+package com.fintech.wcm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object selecting the companies of a batch metrics request.
+ * Exactly one of the company IDs or the company type is expected.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchMetricsRequestDto {
+    
+    private List<Long> companyIds;
+    private String companyType;  // SME, MNE
+}
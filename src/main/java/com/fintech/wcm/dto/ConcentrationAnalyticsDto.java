@@ -0,0 +1,26 @@
+package com.fintech.wcm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object for the customer and vendor concentration of a company.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConcentrationAnalyticsDto {
+    
+    private Long companyId;
+    private String companyName;
+    private String currencyCode;
+    private LocalDate asOfDate;
+    
+    private CounterpartyConcentrationDto customers;
+    private CounterpartyConcentrationDto vendors;
+}
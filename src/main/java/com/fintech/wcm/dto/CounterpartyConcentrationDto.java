@@ -0,0 +1,45 @@
+package com.fintech.wcm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Data Transfer Object for how concentrated a company's open receivables or payables are.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CounterpartyConcentrationDto {
+    
+    private long counterpartyCount;
+    private BigDecimal totalAmount;
+    
+    // Concentration metrics
+    private BigDecimal topFiveShare;      // fraction of the total held by the five largest
+    private BigDecimal herfindahlIndex;   // sum of squared shares, 1/n (even) to 1 (single)
+    private long longTailCount;           // counterparties after the ones holding 80% of the total
+    
+    // Largest counterparties, in rank order
+    private List<Counterparty> topCounterparties;
+    
+    /**
+     * One of the largest counterparties.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Counterparty {
+        
+        private int rank;
+        private String name;
+        private BigDecimal amount;
+        private BigDecimal share;
+    }
+}
@@ -60,4 +60,8 @@ public class DashboardSummaryDto {
     
     // Recommended actions
     private List<Map<String, Object>> recommendations;
+    
+    // Sections left empty because their queries failed or timed out
+    private boolean partial;
+    private List<String> unavailableSections;
 }
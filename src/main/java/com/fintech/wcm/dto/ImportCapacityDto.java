@@ -0,0 +1,23 @@
+package com.fintech.wcm.dto;
+
+import com.fintech.wcm.service.ConnectionPoolMetrics;
+import com.fintech.wcm.service.ImportAdmission;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object for how saturated the import bulkhead and the connection pools are.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportCapacityDto {
+    
+    private ImportAdmission.Stats admission;
+    private Map<String, ConnectionPoolMetrics.Stats> connectionPools;  // by pool name
+}
@@ -0,0 +1,47 @@
+package com.fintech.wcm.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fintech.wcm.model.ImportJob;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for the state and progress of a background import job.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobDto {
+    
+    private String id;
+    private Long companyId;
+    private ImportType importType;
+    private boolean bulk;
+    private ImportMode mode;
+    private ImportJob.ImportJobStatus status;
+    private String fileName;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Integer queuePosition;  // place in the import queue, from 1, while the job waits to start
+    private String node;  // the node holding the job while it is queued or running
+    private boolean cancelRequested;
+    
+    // Progress; live while the job runs, final once it has finished
+    private long fileSize;
+    private Long bytesRead;
+    private long rowsParsed;
+    private long rowsWritten;
+    private long rowsFailed;
+    private Double rowsPerSecond;
+    private Double percentComplete;
+    private Long estimatedSecondsRemaining;
+}
@@ -1,6 +1,7 @@
 package com.fintech.wcm.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fintech.wcm.model.ImportErrorType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,7 +9,9 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Transfer Object for data import results.
@@ -20,6 +23,9 @@ import java.util.List;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class ImportResultDto {
     
+    /** Errors kept in the result; the rest are only counted */
+    public static final int MAX_ERRORS = 100;
+    
     private String importType;
     private String source;
     private String fileName;
@@ -27,23 +33,84 @@ public class ImportResultDto {
     private int totalRecords;
     private int successfulRecords;
     private int failedRecords;
+    private int skippedRecords;  // rows whose natural key was already imported
     private String status;  // COMPLETED, PARTIALLY_COMPLETED, FAILED
-    private List<String> errors = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();  // the first MAX_ERRORS errors
+    private int errorCount;  // all errors, including those beyond the sample
+    private Map<ImportErrorType, Integer> errorCounts;  // errors by kind
+    private String rejectedRowsId;  // download ID of the file of rejected rows, if any were
     private List<String> warnings = new ArrayList<>();
     private String summary;
+    private List<ImportResultDto> parts;  // the result of each file of a bundle
     
     /**
-     * Add an error message to the list of errors.
+     * Add an error that is not about one row, such as a file that could not be read, to the
+     * list of errors.
      * 
      * @param error the error message
      */
     public void addError(String error) {
+        addError(ImportErrorType.OTHER, error);
+    }
+    
+    /**
+     * Count an error of a kind, and add its message to the list of errors while it has room.
+     * 
+     * @param type the kind of error
+     * @param error the error message
+     */
+    public void addError(ImportErrorType type, String error) {
         if (this.errors == null) {
             this.errors = new ArrayList<>();
         }
-        this.errors.add(error);
+        if (this.errorCounts == null) {
+            this.errorCounts = new EnumMap<>(ImportErrorType.class);
+        }
+        this.errorCount++;
+        this.errorCounts.merge(type, 1, Integer::sum);
+        if (this.errors.size() < MAX_ERRORS) {
+            this.errors.add(error);
+        }
     }
     
+    /**
+     * Add the counts, errors and warnings of one part of an import, such as one ledger of a
+     * sync, to this result. The status and summary are left to the caller.
+     *
+     * @param part the result of the part
+     */
+    public void add(ImportResultDto part) {
+        this.totalRecords += part.getTotalRecords();
+        this.successfulRecords += part.getSuccessfulRecords();
+        this.failedRecords += part.getFailedRecords();
+        this.skippedRecords += part.getSkippedRecords();
+        if (part.getErrorCounts() != null) {
+            if (this.errors == null) {
+                this.errors = new ArrayList<>();
+            }
+            if (this.errorCounts == null) {
+                this.errorCounts = new EnumMap<>(ImportErrorType.class);
+            }
+            this.errorCount += part.getErrorCount();
+            part.getErrorCounts().forEach((type, count) -> this.errorCounts.merge(type, count, Integer::sum));
+            for (String error : part.getErrors()) {
+                if (this.errors.size() < MAX_ERRORS) {
+                    this.errors.add(error);
+                }
+            }
+        }
+        if (part.getRejectedRowsId() != null) {
+            if (this.rejectedRowsId == null) {
+                this.rejectedRowsId = part.getRejectedRowsId();
+            } else {
+                addWarning("Rejected " + part.getImportType() + " rows can be downloaded with ID " + part.getRejectedRowsId());
+            }
+        }
+        if (part.getWarnings() != null) {
+            part.getWarnings().forEach(this::addWarning);
+        }
+    }
+
     /**
      * Add a warning message to the list of warnings.
      * 
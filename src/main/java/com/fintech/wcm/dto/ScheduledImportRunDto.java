@@ -0,0 +1,30 @@
+package com.fintech.wcm.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fintech.wcm.model.ScheduledImportRun;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for one run of a scheduled import job.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScheduledImportRunDto {
+    
+    private Long id;
+    private LocalDateTime scheduledFor;
+    private int missedFires;
+    private String node;
+    private ScheduledImportRun.RunStatus status;
+    private String summary;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -149,6 +149,29 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.UNAUTHORIZED);
     }
 
+    /**
+     * Handle ServiceUnavailableException.
+     * 
+     * @param ex the exception
+     * @param request the web request
+     * @return the error response entity
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<?> handleServiceUnavailableException(
+            ServiceUnavailableException ex, WebRequest request) {
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false));
+        
+        logger.warn("Service unavailable: {}", ex.getMessage());
+        
+        return new ResponseEntity<>(body, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handle MaxUploadSizeExceededException.
      * 
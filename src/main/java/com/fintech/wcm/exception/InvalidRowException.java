@@ -0,0 +1,26 @@
+package com.fintech.wcm.exception;
+
+import com.fintech.wcm.model.ImportErrorType;
+
+/**
+ * Exception thrown when a row of an import cannot be mapped, carrying the kind of error the
+ * row is rejected for.
+ */
+public class InvalidRowException extends BadRequestException {
+
+    private final ImportErrorType errorType;
+
+    public InvalidRowException(ImportErrorType errorType, String message) {
+        super(message);
+        this.errorType = errorType;
+    }
+
+    public InvalidRowException(ImportErrorType errorType, String message, Throwable cause) {
+        super(message, cause);
+        this.errorType = errorType;
+    }
+
+    public ImportErrorType getErrorType() {
+        return errorType;
+    }
+}
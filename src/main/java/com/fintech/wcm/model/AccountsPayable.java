@@ -3,7 +3,9 @@ package com.fintech.wcm.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,15 +18,19 @@ import java.time.LocalDateTime;
  * Represents an accounts payable entry - money owed by the company to vendors or suppliers.
  */
 @Entity
-@Table(name = "accounts_payable")
+@Table(name = "accounts_payable", uniqueConstraints = {
+        // Natural key that deduplicating imports match rows on
+        @UniqueConstraint(name = "uk_accounts_payable_natural_key", columnNames = {"company_id", "invoice_number"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
-public class AccountsPayable {
+@EntityListeners({AuditingEntityListener.class, CompanyBalanceListener.class})
+public class AccountsPayable implements CompanyBalanceContributor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_payable_id_seq")
+    @SequenceGenerator(name = "accounts_payable_id_seq", sequenceName = "accounts_payable_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -76,6 +82,25 @@ public class AccountsPayable {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BalanceContribution loadedBalanceContribution;
+
+    @Override
+    public BalanceContribution currentBalanceContribution() {
+        return BalanceContribution.of(CompanyBalance.Counter.PAYABLES, company,
+                countsTowardsBalance() ? amountBaseCurrency : null);
+    }
+
+    /**
+     * Whether the entry still counts towards open payables.
+     */
+    private boolean countsTowardsBalance() {
+        return status == PayableStatus.PENDING || status == PayableStatus.APPROVED
+                || status == PayableStatus.PARTIALLY_PAID || status == PayableStatus.OVERDUE;
+    }
+
     /**
      * Enum representing the status of an accounts payable entry.
      */
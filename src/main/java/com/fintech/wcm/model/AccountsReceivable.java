@@ -3,7 +3,9 @@ package com.fintech.wcm.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,15 +18,19 @@ import java.time.LocalDateTime;
  * Represents an accounts receivable entry - money owed to the company by customers.
  */
 @Entity
-@Table(name = "accounts_receivable")
+@Table(name = "accounts_receivable", uniqueConstraints = {
+        // Natural key that deduplicating imports match rows on
+        @UniqueConstraint(name = "uk_accounts_receivable_natural_key", columnNames = {"company_id", "invoice_number"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
-public class AccountsReceivable {
+@EntityListeners({AuditingEntityListener.class, CompanyBalanceListener.class})
+public class AccountsReceivable implements CompanyBalanceContributor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_receivable_id_seq")
+    @SequenceGenerator(name = "accounts_receivable_id_seq", sequenceName = "accounts_receivable_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -73,6 +79,25 @@ public class AccountsReceivable {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BalanceContribution loadedBalanceContribution;
+
+    @Override
+    public BalanceContribution currentBalanceContribution() {
+        return BalanceContribution.of(CompanyBalance.Counter.RECEIVABLES, company,
+                countsTowardsBalance() ? amountBaseCurrency : null);
+    }
+
+    /**
+     * Whether the entry still counts towards open receivables.
+     */
+    private boolean countsTowardsBalance() {
+        return status == ReceivableStatus.OPEN || status == ReceivableStatus.OVERDUE
+                || status == ReceivableStatus.PARTIALLY_PAID || status == ReceivableStatus.DISPUTED;
+    }
+
     /**
      * Enum representing the status of an accounts receivable entry.
      */
@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
  * Represents a system alert to users about working capital issues.
  */
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts",
+        indexes = @Index(name = "idx_alerts_company_open_created",
+                columnList = "company_id, is_dismissed, created_at DESC"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
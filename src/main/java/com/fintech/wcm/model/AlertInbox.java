@@ -0,0 +1,87 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alert inbox read model of a company: alert counts and the most recent open alerts,
+ * kept in step with every alert change so the dashboard never scans the alerts table.
+ */
+@Entity
+@Table(name = "alert_inbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertInbox {
+
+    @Id
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(name = "total_count", nullable = false)
+    private long totalCount;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    @Column(name = "dismissed_count", nullable = false)
+    private long dismissedCount;
+
+    // Counts of all alerts, keyed by severity and by type name
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "severity_counts", nullable = false, columnDefinition = "jsonb")
+    private Map<String, Long> severityCounts = new HashMap<>();
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "type_counts", nullable = false, columnDefinition = "jsonb")
+    private Map<String, Long> typeCounts = new HashMap<>();
+
+    // Most recent alerts that are not dismissed, newest first
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "recent_alerts", nullable = false, columnDefinition = "jsonb")
+    private List<RecentAlert> recentAlerts = new ArrayList<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Copy of an alert held in the recent alert ring.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecentAlert {
+
+        private Long id;
+        private String title;
+        private String message;
+        private Alert.AlertType alertType;
+        private Alert.AlertSeverity severity;
+        private boolean read;
+        private LocalDateTime createdAt;
+
+        public static RecentAlert of(Alert alert) {
+            return RecentAlert.builder()
+                    .id(alert.getId())
+                    .title(alert.getTitle())
+                    .message(alert.getMessage())
+                    .alertType(alert.getAlertType())
+                    .severity(alert.getSeverity())
+                    .read(alert.isRead())
+                    .createdAt(alert.getCreatedAt())
+                    .build();
+        }
+    }
+}
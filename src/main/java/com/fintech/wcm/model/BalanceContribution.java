@@ -0,0 +1,51 @@
+package com.fintech.wcm.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * The amount a single ledger row adds to one of its company's balance counters.
+ * Rows that are closed or inactive contribute zero.
+ */
+@Value
+public class BalanceContribution {
+
+    CompanyBalance.Counter counter;
+    Long companyId;
+
+    /**
+     * Currency the amount is held in, or null when it is already in the company's base
+     * currency. Only inventory is counted in its own currency.
+     */
+    String currencyCode;
+
+    BigDecimal amount;
+
+    /**
+     * Create a contribution in the company's base currency.
+     *
+     * @param counter the counter the row belongs to
+     * @param company the company owning the row
+     * @param amount the amount, or null when the row does not count
+     * @return the contribution
+     */
+    public static BalanceContribution of(CompanyBalance.Counter counter, Company company, BigDecimal amount) {
+        return of(counter, company, null, amount);
+    }
+
+    /**
+     * Create a contribution in a specific currency.
+     *
+     * @param counter the counter the row belongs to
+     * @param company the company owning the row
+     * @param currencyCode the currency of the amount
+     * @param amount the amount, or null when the row does not count
+     * @return the contribution
+     */
+    public static BalanceContribution of(CompanyBalance.Counter counter, Company company,
+                                         String currencyCode, BigDecimal amount) {
+        return new BalanceContribution(counter, company != null ? company.getId() : null, currencyCode,
+                amount != null ? amount : BigDecimal.ZERO);
+    }
+}
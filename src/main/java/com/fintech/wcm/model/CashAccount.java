@@ -3,7 +3,9 @@ package com.fintech.wcm.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -15,12 +17,15 @@ import java.time.LocalDateTime;
  * Represents a cash account for a company.
  */
 @Entity
-@Table(name = "cash_accounts")
+@Table(name = "cash_accounts", uniqueConstraints = {
+        // Natural key that deduplicating imports match rows on
+        @UniqueConstraint(name = "uk_cash_accounts_natural_key", columnNames = {"company_id", "account_number"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
-public class CashAccount {
+@EntityListeners({AuditingEntityListener.class, CompanyBalanceListener.class})
+public class CashAccount implements CompanyBalanceContributor {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -69,6 +74,17 @@ public class CashAccount {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BalanceContribution loadedBalanceContribution;
+
+    @Override
+    public BalanceContribution currentBalanceContribution() {
+        return BalanceContribution.of(CompanyBalance.Counter.CASH, company,
+                active ? balanceBaseCurrency : null);
+    }
+
     /**
      * Enum representing cash account types.
      */
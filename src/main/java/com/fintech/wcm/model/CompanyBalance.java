@@ -0,0 +1,54 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running ledger totals of a company, kept in step with the ledger rows so the
+ * balance sheet can be read without summing every ledger.
+ */
+@Entity
+@Table(name = "company_balances")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompanyBalance {
+
+    @Id
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(name = "receivables", nullable = false, precision = 19, scale = 4)
+    private BigDecimal receivables;
+
+    @Column(name = "payables", nullable = false, precision = 19, scale = 4)
+    private BigDecimal payables;
+
+    @Column(name = "cash_balance", nullable = false, precision = 19, scale = 4)
+    private BigDecimal cashBalance;
+
+    @Column(name = "inventory_value", nullable = false, precision = 19, scale = 4)
+    private BigDecimal inventoryValue;
+
+    @Column(name = "short_term_debt", nullable = false, precision = 19, scale = 4)
+    private BigDecimal shortTermDebt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Enum representing the ledger totals held per company.
+     */
+    public enum Counter {
+        RECEIVABLES,
+        PAYABLES,
+        CASH,
+        INVENTORY,
+        SHORT_TERM_DEBT
+    }
+}
@@ -0,0 +1,21 @@
+package com.fintech.wcm.model;
+
+/**
+ * A ledger entity whose rows feed one of the company balance counters.
+ * Implementations register {@link CompanyBalanceListener} so every insert, update and
+ * delete moves the counter by the difference between the old and new contribution.
+ */
+public interface CompanyBalanceContributor {
+
+    /**
+     * @return what the row contributes in its current state
+     */
+    BalanceContribution currentBalanceContribution();
+
+    /**
+     * @return what the row contributed when it was loaded or last written, or null if it is new
+     */
+    BalanceContribution getLoadedBalanceContribution();
+
+    void setLoadedBalanceContribution(BalanceContribution contribution);
+}
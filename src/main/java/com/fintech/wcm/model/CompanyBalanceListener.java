@@ -0,0 +1,50 @@
+package com.fintech.wcm.model;
+
+import com.fintech.wcm.service.CompanyBalanceService;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that turns ledger row changes into company balance deltas.
+ *
+ * The contribution of each row is remembered when it is loaded, so an update only moves
+ * the counter by the difference. Instances are created through Hibernate's Spring bean
+ * container; the service is looked up lazily because the listener is built while the
+ * entity manager factory itself is still being created.
+ */
+public class CompanyBalanceListener {
+
+    private final ObjectProvider<CompanyBalanceService> companyBalanceService;
+
+    public CompanyBalanceListener(ObjectProvider<CompanyBalanceService> companyBalanceService) {
+        this.companyBalanceService = companyBalanceService;
+    }
+
+    @PostLoad
+    public void onLoad(Object entity) {
+        if (entity instanceof CompanyBalanceContributor contributor) {
+            contributor.setLoadedBalanceContribution(contributor.currentBalanceContribution());
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Object entity) {
+        if (entity instanceof CompanyBalanceContributor contributor) {
+            BalanceContribution current = contributor.currentBalanceContribution();
+            companyBalanceService.getObject().recordChange(contributor.getLoadedBalanceContribution(), current);
+            contributor.setLoadedBalanceContribution(current);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof CompanyBalanceContributor contributor) {
+            companyBalanceService.getObject().recordChange(contributor.getLoadedBalanceContribution(), null);
+            contributor.setLoadedBalanceContribution(null);
+        }
+    }
+}
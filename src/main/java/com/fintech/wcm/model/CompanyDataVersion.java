@@ -0,0 +1,25 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data version of a company that its cached read models are keyed on. Rows are written by
+ * {@link com.fintech.wcm.service.CompanyDataVersions} only.
+ */
+@Entity
+@Table(name = "company_data_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompanyDataVersion {
+
+    @Id
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,52 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * The connection of a company to an accounting system it syncs from, kept so scheduled syncs
+ * can call the system without the user.
+ */
+@Entity
+@Table(name = "connector_connections", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_connector_connections_company_source", columnNames = {"company_id", "source_type"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectorConnection {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    // QUICKBOOKS, XERO, etc.
+    @Column(name = "source_type", nullable = false, length = 30)
+    private String sourceType;
+
+    // The QuickBooks realm ID or Xero tenant ID
+    @Column(name = "tenant_id", nullable = false, length = 100)
+    private String tenantId;
+
+    @ToString.Exclude
+    @Column(name = "access_token", nullable = false, columnDefinition = "TEXT")
+    private String accessToken;
+
+    @ToString.Exclude
+    @Column(name = "refresh_token", columnDefinition = "TEXT")
+    private String refreshToken;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
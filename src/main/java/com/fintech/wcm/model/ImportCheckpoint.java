@@ -0,0 +1,70 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far the import of one file has got. The checkpoint is advanced in the transaction
+ * of every committed chunk, so the rows before it are saved exactly once, and an import of
+ * the same file resumes after it.
+ */
+@Entity
+@Table(name = "import_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_import_checkpoints_file", columnNames = {"company_id", "import_type", "file_hash"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "import_type", nullable = false, length = 30)
+    @Enumerated(EnumType.STRING)
+    private ImportType importType;
+
+    // SHA-256 of the file contents, in hex
+    @Column(name = "file_hash", nullable = false, length = 64)
+    private String fileHash;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_size", nullable = false)
+    private long fileSize;
+
+    // Where the record after the last one handled starts
+    @Column(name = "byte_offset", nullable = false)
+    private long byteOffset;
+
+    // The number of the last record handled, saved or failed
+    @Column(name = "row_number", nullable = false)
+    private long rowNumber;
+
+    @Column(name = "successful_records", nullable = false)
+    private long successfulRecords;
+
+    @Column(name = "failed_records", nullable = false)
+    private long failedRecords;
+
+    @Column(name = "skipped_records", nullable = false)
+    private long skippedRecords;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,46 @@
+package com.fintech.wcm.model;
+
+import com.fintech.wcm.exception.InvalidRowException;
+
+import java.time.DateTimeException;
+
+/**
+ * Why a row of an import was rejected, for counting the errors of an import by kind.
+ */
+public enum ImportErrorType {
+    /** The file has no column the row is read from */
+    MISSING_COLUMN,
+    /** A required value is empty or the record is shorter than the header */
+    MISSING_VALUE,
+    /** A value is not a number, or too large for its column */
+    INVALID_NUMBER,
+    /** A value is not a yyyy-MM-dd date */
+    INVALID_DATE,
+    /** A value is not one the column accepts, such as an unknown type or status */
+    INVALID_VALUE,
+    /** The row refers to a cash account or currency that does not exist */
+    UNKNOWN_REFERENCE,
+    /** The row's natural key is already in the ledger or earlier in the file, and the import appends */
+    DUPLICATE_KEY,
+    /** The database rejected the row when it was saved */
+    REJECTED_BY_DATABASE,
+    OTHER;
+
+    /**
+     * @param e the exception mapping a row threw
+     * @return the kind of error the row was rejected with, or else the one the exception's
+     *         type tells
+     */
+    public static ImportErrorType of(Throwable e) {
+        if (e instanceof InvalidRowException invalidRow) {
+            return invalidRow.getErrorType();
+        }
+        if (e instanceof NumberFormatException || e instanceof ArithmeticException) {
+            return INVALID_NUMBER;
+        }
+        if (e instanceof DateTimeException) {
+            return INVALID_DATE;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,107 @@
+package com.fintech.wcm.model;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * A CSV import submitted to run in the background. The uploaded file is kept on disk until
+ * the job finishes; the final result is stored with the job. The node queuing or running the
+ * job holds a lease on it, which another node takes over once it runs out.
+ */
+@Entity
+@Table(name = "import_jobs", indexes = {
+        @Index(name = "idx_import_jobs_company_created", columnList = "company_id, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "import_type", nullable = false, length = 30)
+    @Enumerated(EnumType.STRING)
+    private ImportType importType;
+
+    // Loaded with PostgreSQL COPY instead of JPA
+    @Column(name = "bulk", nullable = false)
+    private boolean bulk;
+
+    @Column(name = "mode", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private ImportMode mode = ImportMode.APPEND;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private ImportJobStatus status;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_size", nullable = false)
+    private long fileSize;
+
+    @Column(name = "stored_path", length = 1024)
+    private String storedPath;
+
+    @Column(name = "rows_parsed", nullable = false)
+    private long rowsParsed;
+
+    @Column(name = "rows_written", nullable = false)
+    private long rowsWritten;
+
+    @Column(name = "rows_failed", nullable = false)
+    private long rowsFailed;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "result", columnDefinition = "jsonb")
+    private ImportResultDto result;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    // Set and renewed with the database clock only, so saving the job never moves it
+    @Column(name = "lease_expires_at", updatable = false)
+    private LocalDateTime leaseExpiresAt;
+
+    // Set by whichever node cancels the job; saving the job never clears it
+    @Column(name = "cancel_requested", nullable = false, updatable = false)
+    private boolean cancelRequested;
+
+    /**
+     * Enum representing the states of an import job.
+     */
+    public enum ImportJobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        PARTIALLY_COMPLETED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+}
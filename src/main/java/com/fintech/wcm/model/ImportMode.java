@@ -0,0 +1,16 @@
+package com.fintech.wcm.model;
+
+/**
+ * How a CSV import treats rows whose natural key is already in the ledger. The natural key
+ * is the invoice number and type for invoices, the invoice number for receivables and
+ * payables, the reference number, date and amount for cash transactions, and the account
+ * number for cash accounts; rows with a blank key, and inventory rows, are always inserted.
+ */
+public enum ImportMode {
+    /** Insert every new row; rows whose key is already in the ledger or earlier in the file are rejected as duplicates */
+    APPEND,
+    /** Skip rows whose key is already in the ledger or earlier in the file */
+    SKIP_EXISTING,
+    /** Update the row with the same key from the file; bulk imports only */
+    UPSERT
+}
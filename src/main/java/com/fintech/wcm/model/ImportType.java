@@ -0,0 +1,26 @@
+package com.fintech.wcm.model;
+
+/**
+ * The ledgers that can be imported from a CSV file.
+ */
+public enum ImportType {
+    CASH_ACCOUNTS("cash accounts"),
+    CASH_TRANSACTIONS("cash transactions"),
+    INVOICES("invoices"),
+    ACCOUNTS_RECEIVABLE("accounts receivable entries"),
+    ACCOUNTS_PAYABLE("accounts payable entries"),
+    INVENTORY("inventory items");
+
+    private final String description;
+
+    ImportType(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return the plural description used in import summaries
+     */
+    public String getDescription() {
+        return description;
+    }
+}
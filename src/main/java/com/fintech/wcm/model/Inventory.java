@@ -3,7 +3,9 @@ package com.fintech.wcm.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -20,11 +22,12 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
-public class Inventory {
+@EntityListeners({AuditingEntityListener.class, CompanyBalanceListener.class})
+public class Inventory implements CompanyBalanceContributor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_id_seq")
+    @SequenceGenerator(name = "inventory_id_seq", sequenceName = "inventory_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -77,6 +80,16 @@ public class Inventory {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BalanceContribution loadedBalanceContribution;
+
+    @Override
+    public BalanceContribution currentBalanceContribution() {
+        return BalanceContribution.of(CompanyBalance.Counter.INVENTORY, company, currencyCode, totalValue);
+    }
+
     /**
      * Enum representing inventory item types.
      */
@@ -18,7 +18,10 @@ import java.util.List;
  * Represents an invoice in the system.
  */
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", uniqueConstraints = {
+        // Natural key that deduplicating imports match rows on
+        @UniqueConstraint(name = "uk_invoices_natural_key", columnNames = {"company_id", "invoice_number", "invoice_type"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,7 +29,8 @@ import java.util.List;
 public class Invoice {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoices_id_seq")
+    @SequenceGenerator(name = "invoices_id_seq", sequenceName = "invoices_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,58 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A periodic import of a company, fired by its cron expression on whichever node of the
+ * cluster claims it first. The node holds a lease on it while it runs; a lease that runs out
+ * because the node died lets another node claim it again.
+ */
+@Entity
+@Table(name = "scheduled_imports", indexes = {
+        @Index(name = "idx_scheduled_imports_company", columnList = "company_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledImport {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    // CSV, QUICKBOOKS, XERO, etc.
+    @Column(name = "source_type", nullable = false, length = 30)
+    private String sourceType;
+
+    @Column(name = "cron_expression", nullable = false, length = 120)
+    private String cronExpression;
+
+    @Column(name = "active", nullable = false)
+    private boolean active = true;
+
+    @Column(name = "next_fire_at", nullable = false)
+    private LocalDateTime nextFireAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "last_fired_at")
+    private LocalDateTime lastFiredAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,67 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One run of a scheduled import. A fire time runs at most once across the cluster; fire
+ * times missed while no node was up are caught up with a single run of the latest of them.
+ */
+@Entity
+@Table(name = "scheduled_import_runs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_scheduled_import_runs_fire", columnNames = {"scheduled_import_id", "scheduled_for"})
+}, indexes = {
+        @Index(name = "idx_scheduled_import_runs_started", columnList = "scheduled_import_id, started_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledImportRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "scheduled_import_id", nullable = false, length = 36)
+    private String scheduledImportId;
+
+    // The fire time the run is for
+    @Column(name = "scheduled_for", nullable = false)
+    private LocalDateTime scheduledFor;
+
+    // Earlier fire times this run caught up on
+    @Column(name = "missed_fires", nullable = false)
+    private int missedFires;
+
+    @Column(name = "node", nullable = false, length = 100)
+    private String node;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private RunStatus status;
+
+    @Column(name = "summary", columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Enum representing the states of a scheduled import run.
+     */
+    public enum RunStatus {
+        RUNNING,
+        COMPLETED,
+        PARTIALLY_COMPLETED,
+        FAILED,
+        // No runner handles the source type on the node that claimed it
+        SKIPPED
+    }
+}
@@ -3,7 +3,9 @@ package com.fintech.wcm.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -20,8 +22,8 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
-public class ShortTermLiability {
+@EntityListeners({AuditingEntityListener.class, CompanyBalanceListener.class})
+public class ShortTermLiability implements CompanyBalanceContributor {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -74,6 +76,24 @@ public class ShortTermLiability {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BalanceContribution loadedBalanceContribution;
+
+    @Override
+    public BalanceContribution currentBalanceContribution() {
+        return BalanceContribution.of(CompanyBalance.Counter.SHORT_TERM_DEBT, company,
+                countsTowardsBalance() ? amountBaseCurrency : null);
+    }
+
+    /**
+     * Whether the entry still counts towards short-term debt.
+     */
+    private boolean countsTowardsBalance() {
+        return status == LiabilityStatus.ACTIVE;
+    }
+
     /**
      * Enum representing short-term liability types.
      */
@@ -0,0 +1,46 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far a company has synced a feed of an accounting system: the last-modified time of the
+ * newest record synced. The next sync asks only for records modified since then.
+ */
+@Entity
+@Table(name = "sync_cursors", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sync_cursors_company_source_feed", columnNames = {"company_id", "source_type", "feed"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCursor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "source_type", nullable = false, length = 30)
+    private String sourceType;
+
+    // The feed of the source, such as Invoice or Bill
+    @Column(name = "feed", nullable = false, length = 50)
+    private String feed;
+
+    // Null until the first sync, which fetches every record
+    @Column(name = "watermark")
+    private LocalDateTime watermark;
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt;
+
+    @Column(name = "records_synced", nullable = false)
+    private long recordsSynced;
+}
@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
  * Represents a financial transaction in the system.
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", uniqueConstraints = {
+        // Natural key that deduplicating imports match rows on
+        @UniqueConstraint(name = "uk_transactions_natural_key", columnNames = {"company_id", "reference_number", "transaction_date", "amount"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,7 +27,8 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
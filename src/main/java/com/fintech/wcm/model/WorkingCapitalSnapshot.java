@@ -0,0 +1,118 @@
+package com.fintech.wcm.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Represents the working capital metrics of a company at the end of a day.
+ */
+@Entity
+@Table(name = "working_capital_snapshots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wc_snapshots_company_date",
+                columnNames = {"company_id", "snapshot_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class WorkingCapitalSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id", nullable = false)
+    private Company company;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(name = "company_name")
+    private String companyName;
+
+    @Column(name = "total_current_assets", precision = 19, scale = 4)
+    private BigDecimal totalCurrentAssets;
+
+    @Column(name = "cash_and_equivalents", precision = 19, scale = 4)
+    private BigDecimal cashAndEquivalents;
+
+    @Column(name = "accounts_receivable", precision = 19, scale = 4)
+    private BigDecimal accountsReceivable;
+
+    @Column(name = "inventory", precision = 19, scale = 4)
+    private BigDecimal inventory;
+
+    @Column(name = "other_current_assets", precision = 19, scale = 4)
+    private BigDecimal otherCurrentAssets;
+
+    @Column(name = "total_current_liabilities", precision = 19, scale = 4)
+    private BigDecimal totalCurrentLiabilities;
+
+    @Column(name = "accounts_payable", precision = 19, scale = 4)
+    private BigDecimal accountsPayable;
+
+    @Column(name = "short_term_debt", precision = 19, scale = 4)
+    private BigDecimal shortTermDebt;
+
+    @Column(name = "other_current_liabilities", precision = 19, scale = 4)
+    private BigDecimal otherCurrentLiabilities;
+
+    @Column(name = "net_working_capital", precision = 19, scale = 4)
+    private BigDecimal netWorkingCapital;
+
+    @Column(name = "current_ratio", precision = 19, scale = 4)
+    private BigDecimal currentRatio;
+
+    @Column(name = "quick_ratio", precision = 19, scale = 4)
+    private BigDecimal quickRatio;
+
+    @Column(name = "working_capital_turnover", precision = 19, scale = 4)
+    private BigDecimal workingCapitalTurnover;
+
+    @Column(name = "days_inventory_outstanding", precision = 19, scale = 4)
+    private BigDecimal daysInventoryOutstanding;
+
+    @Column(name = "days_sales_outstanding", precision = 19, scale = 4)
+    private BigDecimal daysSalesOutstanding;
+
+    @Column(name = "days_payables_outstanding", precision = 19, scale = 4)
+    private BigDecimal daysPayablesOutstanding;
+
+    @Column(name = "cash_conversion_cycle", precision = 19, scale = 4)
+    private BigDecimal cashConversionCycle;
+
+    @Column(name = "cash_ratio", precision = 19, scale = 4)
+    private BigDecimal cashRatio;
+
+    @Column(name = "operating_cash_flow", precision = 19, scale = 4)
+    private BigDecimal operatingCashFlow;
+
+    @Column(name = "operating_cash_flow_ratio", precision = 19, scale = 4)
+    private BigDecimal operatingCashFlowRatio;
+
+    @Column(name = "working_capital_trend", length = 20)
+    private String workingCapitalTrend;
+
+    @Column(name = "cash_conversion_cycle_trend", length = 20)
+    private String cashConversionCycleTrend;
+
+    @Column(name = "liquidity_trend", length = 20)
+    private String liquidityTrend;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,8 @@ package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.AccountsPayable;
 import com.fintech.wcm.model.AccountsPayable.PayableStatus;
+import com.fintech.wcm.repository.projection.CounterpartyConcentrationRow;
+import com.fintech.wcm.repository.projection.LedgerEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -77,4 +80,40 @@ public interface AccountsPayableRepository extends JpaRepository<AccountsPayable
            "WHERE ap.company.id = :companyId AND ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE') " +
            "GROUP BY ap.vendorName ORDER BY total DESC")
     List<Object[]> findPayablesByVendor(@Param("companyId") Long companyId);
+    
+    /**
+     * Find the largest vendors by open amount, together with the concentration figures
+     * of all vendors. Grouping, ranking and scoring happen in the database, so only
+     * the requested rows are returned however many vendors the company has.
+     * 
+     * @param companyId the company ID
+     * @param limit the number of vendors to return
+     * @return the top vendors in rank order, or a single row without a vendor if there are none
+     */
+    @Query(value = "WITH counterparties AS (SELECT ap.vendor_name AS name, " +
+           "COALESCE(SUM(ap.amount_base_currency), 0) AS amount FROM accounts_payable ap " +
+           "WHERE ap.company_id = :companyId AND ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE') " +
+           "GROUP BY ap.vendor_name), " + CounterpartyConcentrationRow.CONCENTRATION_SELECT,
+           nativeQuery = true)
+    List<CounterpartyConcentrationRow> findVendorConcentration(@Param("companyId") Long companyId, @Param("limit") int limit);
+    
+    /**
+     * Find the payables that can count towards the balance at some point between two dates.
+     * Settled payables are returned only if they were settled after the window opened.
+     * 
+     * @param companyId the company ID
+     * @param endDate the last date of the window
+     * @param closedAfter the earliest settlement time still inside the window
+     * @return the ledger entries
+     */
+    @Query("SELECT ap.invoiceDate AS openDate, " +
+           "CASE WHEN ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE') THEN NULL " +
+           "ELSE COALESCE(ap.updatedAt, ap.createdAt) END AS closedAt, " +
+           "ap.amountBaseCurrency AS amount FROM AccountsPayable ap " +
+           "WHERE ap.company.id = :companyId AND ap.invoiceDate <= :endDate " +
+           "AND (ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE') " +
+           "OR COALESCE(ap.updatedAt, ap.createdAt) >= :closedAfter)")
+    List<LedgerEntry> findLedgerEntries(@Param("companyId") Long companyId,
+                                        @Param("endDate") LocalDate endDate,
+                                        @Param("closedAfter") LocalDateTime closedAfter);
 }
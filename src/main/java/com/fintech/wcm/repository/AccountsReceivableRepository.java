@@ -2,6 +2,8 @@ package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.AccountsReceivable;
 import com.fintech.wcm.model.AccountsReceivable.ReceivableStatus;
+import com.fintech.wcm.repository.projection.CounterpartyConcentrationRow;
+import com.fintech.wcm.repository.projection.LedgerEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -76,4 +79,40 @@ public interface AccountsReceivableRepository extends JpaRepository<AccountsRece
            "WHERE ar.company.id = :companyId AND ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED') " +
            "GROUP BY ar.customerName ORDER BY total DESC")
     List<Object[]> findReceivablesByCustomer(@Param("companyId") Long companyId);
+    
+    /**
+     * Find the largest customers by open amount, together with the concentration figures
+     * of all customers. Grouping, ranking and scoring happen in the database, so only
+     * the requested rows are returned however many customers the company has.
+     * 
+     * @param companyId the company ID
+     * @param limit the number of customers to return
+     * @return the top customers in rank order, or a single row without a customer if there are none
+     */
+    @Query(value = "WITH counterparties AS (SELECT ar.customer_name AS name, " +
+           "COALESCE(SUM(ar.amount_base_currency), 0) AS amount FROM accounts_receivable ar " +
+           "WHERE ar.company_id = :companyId AND ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED') " +
+           "GROUP BY ar.customer_name), " + CounterpartyConcentrationRow.CONCENTRATION_SELECT,
+           nativeQuery = true)
+    List<CounterpartyConcentrationRow> findCustomerConcentration(@Param("companyId") Long companyId, @Param("limit") int limit);
+    
+    /**
+     * Find the receivables that can count towards the balance at some point between two dates.
+     * Settled receivables are returned only if they were settled after the window opened.
+     * 
+     * @param companyId the company ID
+     * @param endDate the last date of the window
+     * @param closedAfter the earliest settlement time still inside the window
+     * @return the ledger entries
+     */
+    @Query("SELECT ar.invoiceDate AS openDate, " +
+           "CASE WHEN ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED') THEN NULL " +
+           "ELSE COALESCE(ar.updatedAt, ar.createdAt) END AS closedAt, " +
+           "ar.amountBaseCurrency AS amount FROM AccountsReceivable ar " +
+           "WHERE ar.company.id = :companyId AND ar.invoiceDate <= :endDate " +
+           "AND (ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED') " +
+           "OR COALESCE(ar.updatedAt, ar.createdAt) >= :closedAfter)")
+    List<LedgerEntry> findLedgerEntries(@Param("companyId") Long companyId,
+                                        @Param("endDate") LocalDate endDate,
+                                        @Param("closedAfter") LocalDateTime closedAfter);
 }
@@ -0,0 +1,29 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.AlertInbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for AlertInbox entity.
+ */
+@Repository
+public interface AlertInboxRepository extends JpaRepository<AlertInbox, Long> {
+
+    /**
+     * Find the alert inbox of a company and lock the row until the end of the transaction,
+     * so concurrent alert changes are applied one after the other.
+     *
+     * @param companyId the company ID
+     * @return the inbox if it has been seeded
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ai FROM AlertInbox ai WHERE ai.companyId = :companyId")
+    Optional<AlertInbox> findByCompanyIdForUpdate(@Param("companyId") Long companyId);
+}
@@ -1,7 +1,11 @@
 package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.Alert;
+import com.fintech.wcm.repository.projection.AlertCountRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -61,4 +65,25 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
      * @return the count of unread alerts
      */
     long countByCompanyIdAndReadFalse(Long companyId);
+    
+    /**
+     * Find the most recent alerts of a company that are not dismissed.
+     * 
+     * @param companyId the company ID
+     * @param pageable how many alerts to return
+     * @return the alerts, newest first
+     */
+    List<Alert> findByCompanyIdAndDismissedFalseOrderByCreatedAtDescIdDesc(Long companyId, Pageable pageable);
+    
+    /**
+     * Count the alerts of a company by severity and type, split by read and dismissed state.
+     * 
+     * @param companyId the company ID
+     * @return one row per severity and type that has alerts
+     */
+    @Query("SELECT a.severity AS severity, a.alertType AS alertType, COUNT(a) AS total, " +
+           "SUM(CASE WHEN a.read = false THEN 1 ELSE 0 END) AS unread, " +
+           "SUM(CASE WHEN a.dismissed = true THEN 1 ELSE 0 END) AS dismissed " +
+           "FROM Alert a WHERE a.company.id = :companyId GROUP BY a.severity, a.alertType")
+    List<AlertCountRow> countByCompanyIdGroupedBySeverityAndType(@Param("companyId") Long companyId);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -57,4 +58,22 @@ public interface CashAccountRepository extends JpaRepository<CashAccount, Long>
      * @return a list of matching cash accounts
      */
     List<CashAccount> findByCompanyIdAndAccountNumber(Long companyId, String accountNumber);
+    
+    /**
+     * Find the cash accounts of a company with any of the given account numbers.
+     * 
+     * @param companyId the company ID
+     * @param accountNumbers the account numbers
+     * @return a list of matching cash accounts
+     */
+    List<CashAccount> findByCompanyIdAndAccountNumberIn(Long companyId, Collection<String> accountNumbers);
+    
+    /**
+     * Find the cash accounts of a company with any of the given IDs.
+     * 
+     * @param companyId the company ID
+     * @param ids the cash account IDs
+     * @return a list of matching cash accounts
+     */
+    List<CashAccount> findByCompanyIdAndIdIn(Long companyId, Collection<Long> ids);
 }
@@ -0,0 +1,29 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.CompanyBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for CompanyBalance entity.
+ */
+@Repository
+public interface CompanyBalanceRepository extends JpaRepository<CompanyBalance, Long> {
+
+    /**
+     * Find the counters of a company and lock the row until the end of the transaction,
+     * so no other transaction can move them in the meantime.
+     *
+     * @param companyId the company ID
+     * @return the counters if they have been seeded
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT cb FROM CompanyBalance cb WHERE cb.companyId = :companyId")
+    Optional<CompanyBalance> findByCompanyIdForUpdate(@Param("companyId") Long companyId);
+}
@@ -1,10 +1,22 @@
 package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.Company;
+import com.fintech.wcm.repository.projection.BalanceSheetAggregate;
+import com.fintech.wcm.repository.projection.BatchMetricsRow;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Repository interface for Company entity.
@@ -12,6 +24,57 @@ import java.util.Optional;
 @Repository
 public interface CompanyRepository extends JpaRepository<Company, Long> {
     
+    /**
+     * Opening of the batch metrics query, up to the filter that selects the companies.
+     */
+    String BATCH_METRICS_SELECTION =
+            "WITH selected AS (SELECT c.id, c.name, c.type, c.currency_code FROM companies c WHERE ";
+    
+    /**
+     * Rest of the batch metrics query. Every ledger is summed once for all selected
+     * companies with a GROUP BY, using the same filters as the single-company aggregate.
+     */
+    String BATCH_METRICS_LEDGERS = "), " +
+            "cash AS (SELECT ca.company_id, SUM(ca.balance_base_currency) AS total FROM cash_accounts ca " +
+            "  JOIN selected s ON s.id = ca.company_id WHERE ca.is_active = TRUE GROUP BY ca.company_id), " +
+            "ar AS (SELECT ar.company_id, SUM(ar.amount_base_currency) AS total FROM accounts_receivable ar " +
+            "  JOIN selected s ON s.id = ar.company_id " +
+            "  WHERE ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED') GROUP BY ar.company_id), " +
+            "inv_stock AS (SELECT i.company_id, SUM(i.total_value) AS total FROM inventory i " +
+            "  JOIN selected s ON s.id = i.company_id AND i.currency_code = s.currency_code GROUP BY i.company_id), " +
+            "ap AS (SELECT ap.company_id, SUM(ap.amount_base_currency) AS total FROM accounts_payable ap " +
+            "  JOIN selected s ON s.id = ap.company_id " +
+            "  WHERE ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE') GROUP BY ap.company_id), " +
+            "stl AS (SELECT stl.company_id, SUM(stl.amount_base_currency) AS total FROM short_term_liabilities stl " +
+            "  JOIN selected s ON s.id = stl.company_id WHERE stl.status = 'ACTIVE' GROUP BY stl.company_id), " +
+            "sales AS (SELECT inv.company_id, SUM(inv.total_amount_base_currency) AS total FROM invoices inv " +
+            "  JOIN selected s ON s.id = inv.company_id WHERE inv.invoice_type = 'SALES' " +
+            "  AND inv.status IN ('SENT', 'OVERDUE', 'PARTIALLY_PAID') GROUP BY inv.company_id), " +
+            "purchases AS (SELECT inv.company_id, SUM(inv.total_amount_base_currency) AS total FROM invoices inv " +
+            "  JOIN selected s ON s.id = inv.company_id WHERE inv.invoice_type = 'PURCHASE' " +
+            "  AND inv.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE') GROUP BY inv.company_id) " +
+            "SELECT s.id AS \"companyId\", s.name AS \"companyName\", s.type AS \"companyType\", " +
+            "s.currency_code AS \"currencyCode\", " +
+            "COALESCE(cash.total, 0) AS \"cashBalance\", COALESCE(ar.total, 0) AS \"receivables\", " +
+            "COALESCE(inv_stock.total, 0) AS \"inventoryValue\", COALESCE(ap.total, 0) AS \"payables\", " +
+            "COALESCE(stl.total, 0) AS \"shortTermDebt\", COALESCE(sales.total, 0) AS \"openSalesInvoices\", " +
+            "COALESCE(purchases.total, 0) AS \"openPurchaseInvoices\", " +
+            "prev.net_working_capital AS \"previousNetWorkingCapital\", " +
+            "prev.cash_conversion_cycle AS \"previousCashConversionCycle\", " +
+            "prev.current_ratio AS \"previousCurrentRatio\" " +
+            "FROM selected s " +
+            "LEFT JOIN cash ON cash.company_id = s.id " +
+            "LEFT JOIN ar ON ar.company_id = s.id " +
+            "LEFT JOIN inv_stock ON inv_stock.company_id = s.id " +
+            "LEFT JOIN ap ON ap.company_id = s.id " +
+            "LEFT JOIN stl ON stl.company_id = s.id " +
+            "LEFT JOIN sales ON sales.company_id = s.id " +
+            "LEFT JOIN purchases ON purchases.company_id = s.id " +
+            "LEFT JOIN LATERAL (SELECT ws.net_working_capital, ws.cash_conversion_cycle, ws.current_ratio " +
+            "  FROM working_capital_snapshots ws WHERE ws.company_id = s.id AND ws.snapshot_date <= :baselineDate " +
+            "  ORDER BY ws.snapshot_date DESC LIMIT 1) prev ON TRUE " +
+            "ORDER BY s.id";
+    
     /**
      * Find a company by its name.
      * 
@@ -27,4 +90,70 @@ public interface CompanyRepository extends JpaRepository<Company, Long> {
      * @return true if exists
      */
     boolean existsByName(String name);
-}
\ No newline at end of file
+    
+    /**
+     * Find the IDs of all companies.
+     * 
+     * @return the company IDs
+     */
+    @Query("SELECT c.id FROM Company c ORDER BY c.id")
+    List<Long> findAllIds();
+    
+    /**
+     * Load every working capital input for a company in a single round trip.
+     * Ledger totals come from the company_balances counters when the company has
+     * been seeded; otherwise, and for the invoice totals, each is a correlated
+     * subquery using the same filters as the individual SUM queries on the ledger
+     * repositories. COALESCE only evaluates a subquery when the counter is missing.
+     * 
+     * @param companyId the company ID
+     * @return the balance sheet aggregate, or empty if the company does not exist
+     */
+    @Query(value = "SELECT c.id AS \"companyId\", c.name AS \"companyName\", c.type AS \"companyType\", " +
+           "c.currency_code AS \"currencyCode\", " +
+           "COALESCE(cb.cash_balance, (SELECT COALESCE(SUM(ca.balance_base_currency), 0) FROM cash_accounts ca " +
+           "  WHERE ca.company_id = c.id AND ca.is_active = TRUE)) AS \"cashBalance\", " +
+           "COALESCE(cb.receivables, (SELECT COALESCE(SUM(ar.amount_base_currency), 0) FROM accounts_receivable ar " +
+           "  WHERE ar.company_id = c.id AND ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED'))) AS \"receivables\", " +
+           "COALESCE(cb.inventory_value, (SELECT COALESCE(SUM(i.total_value), 0) FROM inventory i " +
+           "  WHERE i.company_id = c.id AND i.currency_code = c.currency_code)) AS \"inventoryValue\", " +
+           "COALESCE(cb.payables, (SELECT COALESCE(SUM(ap.amount_base_currency), 0) FROM accounts_payable ap " +
+           "  WHERE ap.company_id = c.id AND ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE'))) AS \"payables\", " +
+           "COALESCE(cb.short_term_debt, (SELECT COALESCE(SUM(stl.amount_base_currency), 0) FROM short_term_liabilities stl " +
+           "  WHERE stl.company_id = c.id AND stl.status = 'ACTIVE')) AS \"shortTermDebt\", " +
+           "(SELECT COALESCE(SUM(inv.total_amount_base_currency), 0) FROM invoices inv " +
+           "  WHERE inv.company_id = c.id AND inv.invoice_type = 'SALES' " +
+           "  AND inv.status IN ('SENT', 'OVERDUE', 'PARTIALLY_PAID')) AS \"openSalesInvoices\", " +
+           "(SELECT COALESCE(SUM(inv.total_amount_base_currency), 0) FROM invoices inv " +
+           "  WHERE inv.company_id = c.id AND inv.invoice_type = 'PURCHASE' " +
+           "  AND inv.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE')) AS \"openPurchaseInvoices\" " +
+           "FROM companies c LEFT JOIN company_balances cb ON cb.company_id = c.id WHERE c.id = :companyId",
+           nativeQuery = true)
+    Optional<BalanceSheetAggregate> findBalanceSheetAggregateByCompanyId(@Param("companyId") Long companyId);
+    
+    /**
+     * Stream the batch metrics inputs of the given companies in a single query.
+     * Unknown IDs are skipped. Must be consumed inside a transaction.
+     * 
+     * @param companyIds the company IDs
+     * @param baselineDate the latest date a trend baseline snapshot may have
+     * @return the rows in company ID order
+     */
+    @Query(value = BATCH_METRICS_SELECTION + "c.id IN (:companyIds)" + BATCH_METRICS_LEDGERS, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<BatchMetricsRow> streamBatchMetricsByCompanyIds(@Param("companyIds") Collection<Long> companyIds,
+                                                           @Param("baselineDate") LocalDate baselineDate);
+    
+    /**
+     * Stream the batch metrics inputs of every company of a type in a single query.
+     * Must be consumed inside a transaction.
+     * 
+     * @param companyType the company type name
+     * @param baselineDate the latest date a trend baseline snapshot may have
+     * @return the rows in company ID order
+     */
+    @Query(value = BATCH_METRICS_SELECTION + "c.type = :companyType" + BATCH_METRICS_LEDGERS, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<BatchMetricsRow> streamBatchMetricsByCompanyType(@Param("companyType") String companyType,
+                                                            @Param("baselineDate") LocalDate baselineDate);
+}
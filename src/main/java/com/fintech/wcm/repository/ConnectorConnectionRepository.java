@@ -0,0 +1,16 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.ConnectorConnection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for ConnectorConnection entity.
+ */
+@Repository
+public interface ConnectorConnectionRepository extends JpaRepository<ConnectorConnection, Long> {
+
+    Optional<ConnectorConnection> findByCompanyIdAndSourceType(Long companyId, String sourceType);
+}
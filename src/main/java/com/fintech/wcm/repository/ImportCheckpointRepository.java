@@ -0,0 +1,41 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.ImportCheckpoint;
+import com.fintech.wcm.model.ImportType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository interface for ImportCheckpoint entity.
+ */
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, Long> {
+
+    Optional<ImportCheckpoint> findByCompanyIdAndImportTypeAndFileHash(Long companyId, ImportType importType, String fileHash);
+
+    /**
+     * Move a checkpoint forward, in the transaction that saved the rows up to it.
+     *
+     * @return the number of checkpoints updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportCheckpoint c SET c.byteOffset = :byteOffset, c.rowNumber = :rowNumber, " +
+           "c.successfulRecords = :successful, c.failedRecords = :failed, c.skippedRecords = :skipped, " +
+           "c.updatedAt = :updatedAt " +
+           "WHERE c.id = :id AND c.rowNumber < :rowNumber")
+    int advance(@Param("id") Long id,
+                @Param("byteOffset") long byteOffset,
+                @Param("rowNumber") long rowNumber,
+                @Param("successful") long successful,
+                @Param("failed") long failed,
+                @Param("skipped") long skipped,
+                @Param("updatedAt") LocalDateTime updatedAt);
+}
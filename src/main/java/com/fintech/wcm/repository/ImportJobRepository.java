@@ -0,0 +1,64 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.ImportJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for ImportJob entity.
+ */
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+
+    List<ImportJob> findByCompanyIdOrderByCreatedAtDesc(Long companyId, Pageable pageable);
+
+    List<ImportJob> findByStatusInOrderByCreatedAtAsc(Collection<ImportJob.ImportJobStatus> statuses);
+
+    /**
+     * Lock the queued and running jobs no live node holds a lease on, oldest first: those of
+     * a node that died, and those queued before jobs had leases. Expiry is judged by the
+     * database clock, so nodes whose clocks differ agree on it. Rows another node has locked
+     * are skipped rather than waited for. Must run in a transaction, which holds the locks.
+     */
+    @Query(value = "SELECT * FROM import_jobs WHERE status IN ('QUEUED', 'RUNNING') " +
+                   "AND (lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP) " +
+                   "ORDER BY created_at FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ImportJob> lockOrphaned();
+
+    /**
+     * Lease jobs to a node, or extend the leases it holds, until the given number of seconds
+     * from now by the database clock.
+     *
+     * @return the number of leases taken or extended
+     */
+    @Modifying
+    @Query(value = "UPDATE import_jobs SET lease_owner = :owner, " +
+                   "lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :seconds) " +
+                   "WHERE id IN :ids AND (lease_owner = :owner OR lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP)",
+           nativeQuery = true)
+    int lease(@Param("owner") String owner, @Param("ids") Collection<String> ids, @Param("seconds") long seconds);
+
+    /**
+     * Ask the node holding a job to cancel it.
+     *
+     * @return the number of jobs asked, 0 if the job has finished
+     */
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.cancelRequested = true WHERE j.id = :id " +
+           "AND j.status IN (com.fintech.wcm.model.ImportJob.ImportJobStatus.QUEUED, " +
+           "com.fintech.wcm.model.ImportJob.ImportJobStatus.RUNNING)")
+    int requestCancel(@Param("id") String id);
+
+    /**
+     * @return the IDs among the given jobs whose cancellation has been requested
+     */
+    @Query("SELECT j.id FROM ImportJob j WHERE j.id IN :ids AND j.cancelRequested = true")
+    List<String> findCancelRequested(@Param("ids") Collection<String> ids);
+}
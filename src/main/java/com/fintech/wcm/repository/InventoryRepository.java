@@ -1,12 +1,14 @@
 package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.Inventory;
+import com.fintech.wcm.repository.projection.LedgerEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -69,4 +71,19 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Query("SELECT i.itemType, SUM(i.totalValue) FROM Inventory i WHERE i.company.id = :companyId " +
            "GROUP BY i.itemType ORDER BY SUM(i.totalValue) DESC")
     List<Object[]> sumInventoryValueByItemType(@Param("companyId") Long companyId);
+    
+    /**
+     * Find inventory items held in the company's currency that were acquired by a date.
+     * Items without an acquisition date count from the day they were recorded.
+     * 
+     * @param companyId the company ID
+     * @param endDate the last date of the window
+     * @return the ledger entries; inventory items are never closed
+     */
+    @Query("SELECT COALESCE(i.acquisitionDate, CAST(i.createdAt AS LocalDate)) AS openDate, " +
+           "CAST(NULL AS LocalDateTime) AS closedAt, i.totalValue AS amount FROM Inventory i " +
+           "WHERE i.company.id = :companyId " +
+           "AND i.currencyCode = (SELECT c.currencyCode FROM Company c WHERE c.id = :companyId) " +
+           "AND COALESCE(i.acquisitionDate, CAST(i.createdAt AS LocalDate)) <= :endDate")
+    List<LedgerEntry> findLedgerEntries(@Param("companyId") Long companyId, @Param("endDate") LocalDate endDate);
 }
@@ -1,6 +1,7 @@
 package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.Invoice;
+import com.fintech.wcm.repository.projection.LedgerEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -81,4 +83,48 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT SUM(i.totalAmountBaseCurrency) FROM Invoice i WHERE i.company.id = :companyId " +
            "AND i.invoiceType = 'PURCHASE' AND i.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE')")
     BigDecimal sumTotalOpenPurchaseInvoicesByCompanyId(@Param("companyId") Long companyId);
+    
+    /**
+     * Find the sales invoices that can count as open at some point between two dates.
+     * Draft and cancelled invoices never count; settled invoices are returned only if
+     * they were settled after the window opened.
+     * 
+     * @param companyId the company ID
+     * @param endDate the last date of the window
+     * @param closedAfter the earliest settlement time still inside the window
+     * @return the ledger entries
+     */
+    @Query("SELECT i.issueDate AS openDate, " +
+           "CASE WHEN i.status IN ('SENT', 'OVERDUE', 'PARTIALLY_PAID') THEN NULL " +
+           "ELSE COALESCE(i.updatedAt, i.createdAt) END AS closedAt, " +
+           "i.totalAmountBaseCurrency AS amount FROM Invoice i " +
+           "WHERE i.company.id = :companyId AND i.invoiceType = 'SALES' AND i.issueDate <= :endDate " +
+           "AND i.status NOT IN ('DRAFT', 'CANCELLED') " +
+           "AND (i.status IN ('SENT', 'OVERDUE', 'PARTIALLY_PAID') " +
+           "OR COALESCE(i.updatedAt, i.createdAt) >= :closedAfter)")
+    List<LedgerEntry> findSalesLedgerEntries(@Param("companyId") Long companyId,
+                                             @Param("endDate") LocalDate endDate,
+                                             @Param("closedAfter") LocalDateTime closedAfter);
+    
+    /**
+     * Find the purchase invoices that can count as open at some point between two dates.
+     * Draft and cancelled invoices never count; settled invoices are returned only if
+     * they were settled after the window opened.
+     * 
+     * @param companyId the company ID
+     * @param endDate the last date of the window
+     * @param closedAfter the earliest settlement time still inside the window
+     * @return the ledger entries
+     */
+    @Query("SELECT i.issueDate AS openDate, " +
+           "CASE WHEN i.status IN ('PARTIALLY_PAID', 'OVERDUE') THEN NULL " +
+           "ELSE COALESCE(i.updatedAt, i.createdAt) END AS closedAt, " +
+           "i.totalAmountBaseCurrency AS amount FROM Invoice i " +
+           "WHERE i.company.id = :companyId AND i.invoiceType = 'PURCHASE' AND i.issueDate <= :endDate " +
+           "AND i.status NOT IN ('DRAFT', 'CANCELLED') " +
+           "AND (i.status IN ('PARTIALLY_PAID', 'OVERDUE') " +
+           "OR COALESCE(i.updatedAt, i.createdAt) >= :closedAfter)")
+    List<LedgerEntry> findPurchaseLedgerEntries(@Param("companyId") Long companyId,
+                                                @Param("endDate") LocalDate endDate,
+                                                @Param("closedAfter") LocalDateTime closedAfter);
 }
@@ -0,0 +1,61 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.ScheduledImport;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for ScheduledImport entity.
+ */
+@Repository
+public interface ScheduledImportRepository extends JpaRepository<ScheduledImport, String> {
+
+    /**
+     * @return the current time by the database clock, the one leases and due times are judged by
+     */
+    @Query(value = "SELECT LOCALTIMESTAMP", nativeQuery = true)
+    LocalDateTime currentTimestamp();
+
+    /**
+     * Lock the active imports that are due and not leased by a live node, earliest first.
+     * Both are judged by the database clock, so nodes whose clocks differ agree on them.
+     * Rows another node has locked are skipped rather than waited for, so nodes polling at
+     * once claim different imports. Must run in a transaction, which holds the locks.
+     */
+    @Query(value = "SELECT * FROM scheduled_imports WHERE active AND next_fire_at <= LOCALTIMESTAMP " +
+                   "AND (lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP) " +
+                   "ORDER BY next_fire_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ScheduledImport> lockDue(@Param("limit") int limit);
+
+    /**
+     * Lock a scheduled import, waiting for the node holding it, to finish a run of it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ScheduledImport s WHERE s.id = :id")
+    Optional<ScheduledImport> lockById(@Param("id") String id);
+
+    List<ScheduledImport> findByCompanyIdAndActiveTrueOrderByCreatedAtAsc(Long companyId);
+
+    /**
+     * Extend the leases a node holds on the imports it is running until the given number of
+     * seconds from now by the database clock.
+     *
+     * @return the number of leases extended
+     */
+    @Modifying
+    @Query(value = "UPDATE scheduled_imports SET lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :seconds) " +
+                   "WHERE lease_owner = :owner AND id IN :ids", nativeQuery = true)
+    int renewLeases(@Param("owner") String owner,
+                    @Param("ids") Collection<String> ids,
+                    @Param("seconds") long seconds);
+}
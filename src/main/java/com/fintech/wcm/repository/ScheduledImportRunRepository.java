@@ -0,0 +1,21 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.ScheduledImportRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for ScheduledImportRun entity.
+ */
+@Repository
+public interface ScheduledImportRunRepository extends JpaRepository<ScheduledImportRun, Long> {
+
+    List<ScheduledImportRun> findByScheduledImportIdOrderByStartedAtDesc(String scheduledImportId, Pageable pageable);
+
+    Optional<ScheduledImportRun> findByScheduledImportIdAndScheduledFor(String scheduledImportId, LocalDateTime scheduledFor);
+}
@@ -1,6 +1,7 @@
 package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.ShortTermLiability;
+import com.fintech.wcm.repository.projection.LedgerEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -63,4 +65,24 @@ public interface ShortTermLiabilityRepository extends JpaRepository<ShortTermLia
            "WHERE stl.company.id = :companyId AND stl.status = 'ACTIVE' " +
            "GROUP BY stl.liabilityType ORDER BY SUM(stl.amountBaseCurrency) DESC")
     List<Object[]> sumLiabilitiesByType(@Param("companyId") Long companyId);
+    
+    /**
+     * Find the liabilities that can be active at some point between two dates. A liability
+     * counts from the day it was recorded; settled liabilities are returned only if they
+     * were settled after the window opened.
+     * 
+     * @param companyId the company ID
+     * @param endDate the last date of the window
+     * @param closedAfter the earliest settlement time still inside the window
+     * @return the ledger entries
+     */
+    @Query("SELECT CAST(stl.createdAt AS LocalDate) AS openDate, " +
+           "CASE WHEN stl.status = 'ACTIVE' THEN NULL " +
+           "ELSE COALESCE(stl.updatedAt, stl.createdAt) END AS closedAt, " +
+           "stl.amountBaseCurrency AS amount FROM ShortTermLiability stl " +
+           "WHERE stl.company.id = :companyId AND CAST(stl.createdAt AS LocalDate) <= :endDate " +
+           "AND (stl.status = 'ACTIVE' OR COALESCE(stl.updatedAt, stl.createdAt) >= :closedAfter)")
+    List<LedgerEntry> findLedgerEntries(@Param("companyId") Long companyId,
+                                        @Param("endDate") LocalDate endDate,
+                                        @Param("closedAfter") LocalDateTime closedAfter);
 }
@@ -0,0 +1,16 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.SyncCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for SyncCursor entity.
+ */
+@Repository
+public interface SyncCursorRepository extends JpaRepository<SyncCursor, Long> {
+
+    Optional<SyncCursor> findByCompanyIdAndSourceTypeAndFeed(Long companyId, String sourceType, String feed);
+}
@@ -1,6 +1,7 @@
 package com.fintech.wcm.repository;
 
 import com.fintech.wcm.model.Transaction;
+import com.fintech.wcm.repository.projection.CashMovement;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -82,4 +83,19 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             @Param("companyId") Long companyId, 
             @Param("startDate") LocalDate startDate, 
             @Param("endDate") LocalDate endDate);
+    
+    /**
+     * Find the cash movements dated after a given date. Transactions on inactive cash
+     * accounts are left out, matching the active-account cash balance.
+     * 
+     * @param companyId the company ID
+     * @param afterDate the exclusive lower bound on the transaction date
+     * @return the cash movements
+     */
+    @Query("SELECT t.transactionDate AS transactionDate, t.transactionType AS transactionType, " +
+           "t.amountBaseCurrency AS amount FROM Transaction t LEFT JOIN t.cashAccount ca " +
+           "WHERE t.company.id = :companyId AND t.transactionDate > :afterDate " +
+           "AND (ca IS NULL OR ca.active = TRUE)")
+    List<CashMovement> findCashMovementsAfter(@Param("companyId") Long companyId,
+                                              @Param("afterDate") LocalDate afterDate);
 }
@@ -0,0 +1,62 @@
+package com.fintech.wcm.repository;
+
+import com.fintech.wcm.model.WorkingCapitalSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for WorkingCapitalSnapshot entity.
+ */
+@Repository
+public interface WorkingCapitalSnapshotRepository extends JpaRepository<WorkingCapitalSnapshot, Long> {
+
+    /**
+     * Find the snapshots of a company within a date range, oldest first.
+     *
+     * @param companyId the company ID
+     * @param startDate the first date, inclusive
+     * @param endDate the last date, inclusive
+     * @return the snapshots ordered by date
+     */
+    List<WorkingCapitalSnapshot> findByCompanyIdAndSnapshotDateBetweenOrderBySnapshotDateAsc(
+            Long companyId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Find the snapshot of a company for a specific date.
+     *
+     * @param companyId the company ID
+     * @param snapshotDate the snapshot date
+     * @return the snapshot if present
+     */
+    Optional<WorkingCapitalSnapshot> findByCompanyIdAndSnapshotDate(Long companyId, LocalDate snapshotDate);
+
+    /**
+     * Find the latest snapshot of a company taken on or before a date.
+     *
+     * @param companyId the company ID
+     * @param date the latest acceptable snapshot date
+     * @return the snapshot if present
+     */
+    Optional<WorkingCapitalSnapshot> findFirstByCompanyIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(
+            Long companyId, LocalDate date);
+
+    /**
+     * Find the dates within a range that already have a snapshot for a company.
+     *
+     * @param companyId the company ID
+     * @param startDate the first date, inclusive
+     * @param endDate the last date, inclusive
+     * @return the snapshot dates
+     */
+    @Query("SELECT s.snapshotDate FROM WorkingCapitalSnapshot s WHERE s.company.id = :companyId " +
+           "AND s.snapshotDate BETWEEN :startDate AND :endDate")
+    List<LocalDate> findSnapshotDates(@Param("companyId") Long companyId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,19 @@
+package com.fintech.wcm.repository.projection;
+
+import com.fintech.wcm.model.Alert;
+
+/**
+ * Number of a company's alerts of one severity and type, split by read and dismissed state.
+ */
+public interface AlertCountRow {
+
+    Alert.AlertSeverity getSeverity();
+
+    Alert.AlertType getAlertType();
+
+    long getTotal();
+
+    long getUnread();
+
+    long getDismissed();
+}
@@ -0,0 +1,53 @@
+package com.fintech.wcm.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection holding every working capital input for a single company.
+ * All amounts are in the company's base currency and never null.
+ */
+public interface BalanceSheetAggregate {
+
+    Long getCompanyId();
+
+    String getCompanyName();
+
+    String getCompanyType();
+
+    String getCurrencyCode();
+
+    /**
+     * @return the total balance of active cash accounts
+     */
+    BigDecimal getCashBalance();
+
+    /**
+     * @return the total of open, overdue, partially paid and disputed receivables
+     */
+    BigDecimal getReceivables();
+
+    /**
+     * @return the total value of inventory held in the company's currency
+     */
+    BigDecimal getInventoryValue();
+
+    /**
+     * @return the total of pending, approved, partially paid and overdue payables
+     */
+    BigDecimal getPayables();
+
+    /**
+     * @return the total of active short-term liabilities
+     */
+    BigDecimal getShortTermDebt();
+
+    /**
+     * @return the total of open sales invoices, used as the sales base for DSO
+     */
+    BigDecimal getOpenSalesInvoices();
+
+    /**
+     * @return the total of open purchase invoices, used as the purchases/COGS base for DPO and DIO
+     */
+    BigDecimal getOpenPurchaseInvoices();
+}
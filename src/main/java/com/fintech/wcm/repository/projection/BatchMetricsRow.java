@@ -0,0 +1,16 @@
+package com.fintech.wcm.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance sheet aggregate of one company in a batch, together with the figures of its
+ * trend baseline snapshot. The baseline figures are null when there is no snapshot.
+ */
+public interface BatchMetricsRow extends BalanceSheetAggregate {
+
+    BigDecimal getPreviousNetWorkingCapital();
+
+    BigDecimal getPreviousCashConversionCycle();
+
+    BigDecimal getPreviousCurrentRatio();
+}
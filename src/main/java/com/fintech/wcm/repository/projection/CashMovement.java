@@ -0,0 +1,21 @@
+package com.fintech.wcm.repository.projection;
+
+import com.fintech.wcm.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projection of a transaction's effect on cash.
+ */
+public interface CashMovement {
+
+    LocalDate getTransactionDate();
+
+    Transaction.TransactionType getTransactionType();
+
+    /**
+     * @return the unsigned amount in base currency
+     */
+    BigDecimal getAmount();
+}
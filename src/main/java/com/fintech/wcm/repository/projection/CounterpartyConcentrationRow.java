@@ -0,0 +1,71 @@
+package com.fintech.wcm.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * One of the largest counterparties of a company's open ledger, together with the
+ * concentration figures of the whole ledger. When the ledger is empty a single row is
+ * returned whose counterparty columns are null.
+ */
+public interface CounterpartyConcentrationRow {
+
+    /**
+     * Ranks, sums and scores the (name, amount) rows of a {@code counterparties} CTE.
+     * Repositories prepend the CTE for their own ledger and bind {@code :limit}.
+     *
+     * The long tail is every counterparty ranked after the ones that together hold
+     * 80% of the open amount.
+     */
+    String CONCENTRATION_SELECT =
+            "ranked AS (SELECT cp.name, cp.amount, " +
+            "  ROW_NUMBER() OVER (ORDER BY cp.amount DESC, cp.name) AS cp_rank, " +
+            "  COALESCE(SUM(cp.amount) OVER (ORDER BY cp.amount DESC, cp.name " +
+            "    ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0) AS amount_before " +
+            "  FROM counterparties cp), " +
+            "totals AS (SELECT COUNT(*) AS counterparty_count, COALESCE(SUM(cp.amount), 0) AS total_amount " +
+            "  FROM counterparties cp), " +
+            "summary AS (SELECT t.counterparty_count, t.total_amount, " +
+            "  CASE WHEN t.total_amount > 0 THEN " +
+            "    (SELECT SUM(r.amount) FROM ranked r WHERE r.cp_rank <= 5) / t.total_amount ELSE 0 END AS top_five_share, " +
+            "  CASE WHEN t.total_amount > 0 THEN " +
+            "    (SELECT SUM(POWER(cp.amount / t.total_amount, 2)) FROM counterparties cp) ELSE 0 END AS herfindahl_index, " +
+            "  (SELECT COUNT(*) FROM ranked r WHERE t.total_amount > 0 " +
+            "    AND r.amount_before >= 0.8 * t.total_amount) AS long_tail_count " +
+            "  FROM totals t) " +
+            "SELECT r.name AS \"name\", r.amount AS \"amount\", r.cp_rank AS \"rank\", " +
+            "s.counterparty_count AS \"counterpartyCount\", s.total_amount AS \"totalAmount\", " +
+            "s.top_five_share AS \"topFiveShare\", s.herfindahl_index AS \"herfindahlIndex\", " +
+            "s.long_tail_count AS \"longTailCount\" " +
+            "FROM summary s LEFT JOIN ranked r ON r.cp_rank <= :limit ORDER BY r.cp_rank";
+
+    /**
+     * @return the counterparty name, or null on the row of an empty ledger
+     */
+    String getName();
+
+    /**
+     * @return the open amount of the counterparty in base currency
+     */
+    BigDecimal getAmount();
+
+    /**
+     * @return the 1-based rank by open amount, or null on the row of an empty ledger
+     */
+    Long getRank();
+
+    long getCounterpartyCount();
+
+    BigDecimal getTotalAmount();
+
+    /**
+     * @return the fraction of the open amount held by the five largest counterparties
+     */
+    BigDecimal getTopFiveShare();
+
+    /**
+     * @return the sum of squared shares, from 1/n for an even spread up to 1 for a single counterparty
+     */
+    BigDecimal getHerfindahlIndex();
+
+    long getLongTailCount();
+}
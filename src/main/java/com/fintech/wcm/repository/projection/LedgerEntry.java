@@ -0,0 +1,26 @@
+package com.fintech.wcm.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Projection describing when a ledger item started and stopped counting towards a balance.
+ */
+public interface LedgerEntry {
+
+    /**
+     * @return the date the item starts counting towards the balance
+     */
+    LocalDate getOpenDate();
+
+    /**
+     * @return when the item was settled, or null if it is still open
+     */
+    LocalDateTime getClosedAt();
+
+    /**
+     * @return the amount in base currency
+     */
+    BigDecimal getAmount();
+}
@@ -0,0 +1,42 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.AlertInboxDto;
+import com.fintech.wcm.model.Alert;
+
+/**
+ * Service interface maintaining the per-company alert inbox read model.
+ * 
+ * The record methods are called in the transaction that changed the alert, after the
+ * change has been saved, so the inbox commits or rolls back together with it.
+ */
+public interface AlertInboxService {
+    
+    /**
+     * Get the alert inbox of a company, seeding it from the alerts table the first time.
+     * 
+     * @param companyId the company ID
+     * @return the alert inbox
+     */
+    AlertInboxDto getInbox(Long companyId);
+    
+    /**
+     * Count a newly created alert.
+     * 
+     * @param alert the saved alert
+     */
+    void recordCreated(Alert alert);
+    
+    /**
+     * Count an alert that has just been marked as read.
+     * 
+     * @param alert the saved alert
+     */
+    void recordRead(Alert alert);
+    
+    /**
+     * Count an alert that has just been dismissed and drop it from the recent alerts.
+     * 
+     * @param alert the saved alert
+     */
+    void recordDismissed(Alert alert);
+}
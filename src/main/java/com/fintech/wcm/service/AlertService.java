@@ -104,4 +104,36 @@ public interface AlertService {
      * @return the number of alerts generated
      */
     int generateCCCAlerts(Long companyId);
+    
+    /**
+     * Generate cash gap alerts from an existing metrics context.
+     * 
+     * @param context the metrics context
+     * @return the number of alerts generated
+     */
+    int generateCashGapAlerts(MetricsContext context);
+    
+    /**
+     * Generate liquidity issue alerts from an existing metrics context.
+     * 
+     * @param context the metrics context
+     * @return the number of alerts generated
+     */
+    int generateLiquidityAlerts(MetricsContext context);
+    
+    /**
+     * Generate working capital ratio alerts from an existing metrics context.
+     * 
+     * @param context the metrics context
+     * @return the number of alerts generated
+     */
+    int generateWorkingCapitalRatioAlerts(MetricsContext context);
+    
+    /**
+     * Generate Cash Conversion Cycle (CCC) alerts from an existing metrics context.
+     * 
+     * @param context the metrics context
+     * @return the number of alerts generated
+     */
+    int generateCCCAlerts(MetricsContext context);
 }
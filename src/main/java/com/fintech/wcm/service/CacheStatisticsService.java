@@ -0,0 +1,18 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.util.VersionedCache;
+
+import java.util.Map;
+
+/**
+ * Service interface for inspecting the in-memory read model caches.
+ */
+public interface CacheStatisticsService {
+
+    /**
+     * Get the hit, miss and eviction counters of every cache.
+     *
+     * @return a map of cache names to their counters
+     */
+    Map<String, VersionedCache.Stats> getCacheStatistics();
+}
@@ -0,0 +1,306 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.model.CompanyBalanceContributor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Writes the entities of one import in chunks, each persisted in its own transaction.
+ *
+ * Entities are buffered until a chunk is full, then persisted together, so Hibernate sends
+ * them as JDBC batches, and committed. The persistence context is cleared after every
+ * chunk, so memory stays bounded by the chunk size however large the file is. If a chunk
+ * fails, its rows are retried one per transaction, so only the rows the database rejects
+ * are reported as failed. An optional {@link Checkpoint} is saved in the transaction of
+ * every commit, so it never runs ahead of or behind the rows saved. An optional
+ * {@link ImportReferences.Resolver} resolves the references of a chunk's rows before it is
+ * written and fails the rows whose references are unknown. An optional
+ * {@link NaturalKeyFilter} drops the rows of a chunk that are already in the ledger before
+ * it is written; they are counted as skipped, or failed as duplicates if the filter rejects
+ * them, so one duplicate never fails the whole chunk. Failed rows are handed to the
+ * import's {@link RejectedRows}.
+ *
+ * @param <T> the entity type
+ */
+public final class ChunkedImportWriter<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedImportWriter.class);
+
+    private static final String DUPLICATE_KEY_ERROR = "Duplicate key: already in the ledger or earlier in the file";
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CompanyDataVersions companyDataVersions;
+    private final Long companyId;
+    private final int chunkSize;
+    private final ImportResultDto result;
+    private final Checkpoint checkpoint;
+    private final NaturalKeyFilter<T> keyFilter;
+    private final ImportReferences.Resolver<T> references;
+    private final RejectedRows rejectedRows;
+
+    private final List<T> entities = new ArrayList<>();
+    private final List<Integer> recordNumbers = new ArrayList<>();
+    private final List<Long> endOffsets = new ArrayList<>();
+
+    /**
+     * Records how far an import has got. Called inside the transaction that saved the rows.
+     */
+    @FunctionalInterface
+    public interface Checkpoint {
+
+        /**
+         * @param recordNumber the last record handled; every record before it is saved or failed
+         * @param endOffset the byte offset after that record
+         * @param successfulRecords the records saved so far, including this transaction's
+         * @param skippedRecords the records skipped so far as already imported
+         */
+        void save(int recordNumber, long endOffset, int successfulRecords, int skippedRecords);
+    }
+
+    ChunkedImportWriter(EntityManager entityManager, TransactionTemplate transactionTemplate,
+                        CompanyDataVersions companyDataVersions, Long companyId, int chunkSize,
+                        ImportResultDto result) {
+        this(entityManager, transactionTemplate, companyDataVersions, companyId, chunkSize, result, null, null);
+    }
+
+    ChunkedImportWriter(EntityManager entityManager, TransactionTemplate transactionTemplate,
+                        CompanyDataVersions companyDataVersions, Long companyId, int chunkSize,
+                        ImportResultDto result, Checkpoint checkpoint, NaturalKeyFilter<T> keyFilter) {
+        this(entityManager, transactionTemplate, companyDataVersions, companyId, chunkSize, result, checkpoint,
+                keyFilter, null, RejectedRows.inMemory(result));
+    }
+
+    ChunkedImportWriter(EntityManager entityManager, TransactionTemplate transactionTemplate,
+                        CompanyDataVersions companyDataVersions, Long companyId, int chunkSize,
+                        ImportResultDto result, Checkpoint checkpoint, NaturalKeyFilter<T> keyFilter,
+                        ImportReferences.Resolver<T> references, RejectedRows rejectedRows) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.companyDataVersions = companyDataVersions;
+        this.companyId = companyId;
+        this.chunkSize = chunkSize;
+        this.result = result;
+        this.checkpoint = checkpoint;
+        this.keyFilter = keyFilter;
+        this.references = references;
+        this.rejectedRows = rejectedRows;
+    }
+
+    /**
+     * Queue an entity; the chunk is written once it is full.
+     *
+     * @param entity the new entity
+     * @param recordNumber the 1-based record number the entity was parsed from, for error messages
+     */
+    public void write(T entity, int recordNumber) {
+        write(entity, recordNumber, -1);
+    }
+
+    /**
+     * Queue an entity with the byte offset after its record, for the checkpoint.
+     *
+     * @param entity the new entity
+     * @param recordNumber the 1-based record number the entity was parsed from
+     * @param endOffset the byte offset after the record
+     */
+    public void write(T entity, int recordNumber, long endOffset) {
+        entities.add(entity);
+        recordNumbers.add(recordNumber);
+        endOffsets.add(endOffset);
+        if (entities.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the queued entities. Successful rows are added to the result's successful
+     * records, rejected rows to the rejected rows, and rows already imported to its skipped
+     * records.
+     */
+    public void flush() {
+        if (entities.isEmpty()) {
+            return;
+        }
+        // The checkpoint moves past the skipped rows too, even if none is left to save
+        int lastRecord = recordNumbers.get(recordNumbers.size() - 1);
+        long lastEndOffset = endOffsets.get(endOffsets.size() - 1);
+        if (references != null) {
+            failUnresolved();
+        }
+        if (keyFilter != null) {
+            dropDuplicates();
+        }
+        if (entities.isEmpty() && checkpoint == null) {
+            recordNumbers.clear();
+            endOffsets.clear();
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                persist(entities);
+                saveCheckpoint(lastRecord, lastEndOffset, result.getSuccessfulRecords() + entities.size());
+            });
+            result.setSuccessfulRecords(result.getSuccessfulRecords() + entities.size());
+        } catch (RuntimeException e) {
+            logger.warn("Import chunk of {} records failed, retrying them one by one: {}", entities.size(), e.getMessage());
+            retryOneByOne();
+        }
+        entities.clear();
+        recordNumbers.clear();
+        endOffsets.clear();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void retryOneByOne() {
+        for (int i = 0; i < entities.size(); i++) {
+            T entity = entities.get(i);
+            int index = i;
+            try {
+                resetForRetry(entity);
+                transactionTemplate.executeWithoutResult(status -> {
+                    persist(List.of(entity));
+                    saveCheckpoint(recordNumbers.get(index), endOffsets.get(index), result.getSuccessfulRecords() + 1);
+                });
+                result.setSuccessfulRecords(result.getSuccessfulRecords() + 1);
+            } catch (RuntimeException e) {
+                if (keyFilter != null && keyFilter.isDuplicateKeyViolation(e)) {
+                    // Inserted by a concurrent import since the chunk's keys were loaded
+                    if (keyFilter.isRejectingDuplicates()) {
+                        rejectedRows.reject(recordNumbers.get(i), ImportErrorType.DUPLICATE_KEY, DUPLICATE_KEY_ERROR, null);
+                    } else {
+                        result.setSkippedRecords(result.getSkippedRecords() + 1);
+                    }
+                    continue;
+                }
+                // The row was read long ago, so the rejected rows get its error without its line
+                rejectedRows.reject(recordNumbers.get(i), ImportErrorType.REJECTED_BY_DATABASE, rootMessage(e), null);
+            }
+        }
+    }
+
+    /**
+     * Drop the queued entities with an unknown reference and report them as failed.
+     */
+    private void failUnresolved() {
+        List<String> errors = references.resolve(entities);
+        keep(i -> {
+            if (errors.get(i) == null) {
+                return true;
+            }
+            rejectedRows.reject(recordNumbers.get(i), ImportErrorType.UNKNOWN_REFERENCE, errors.get(i), null);
+            return false;
+        });
+    }
+
+    /**
+     * Drop the queued entities whose natural key is already in the ledger or earlier in the
+     * chunk, and skip or reject them as the key filter says.
+     */
+    private void dropDuplicates() {
+        boolean[] duplicates = keyFilter.findDuplicates(entityManager, companyId, entities);
+        if (keyFilter.isRejectingDuplicates()) {
+            keep(i -> {
+                if (!duplicates[i]) {
+                    return true;
+                }
+                rejectedRows.reject(recordNumbers.get(i), ImportErrorType.DUPLICATE_KEY, DUPLICATE_KEY_ERROR, null);
+                return false;
+            });
+            return;
+        }
+        int skipped = keep(i -> !duplicates[i]);
+        if (skipped > 0) {
+            result.setSkippedRecords(result.getSkippedRecords() + skipped);
+            logger.debug("Skipped {} records already imported for company {}", skipped, companyId);
+        }
+    }
+
+    /**
+     * Keep the queued entities the test accepts, in order.
+     *
+     * @return the number of entities dropped
+     */
+    private int keep(IntPredicate test) {
+        int kept = 0;
+        for (int i = 0; i < entities.size(); i++) {
+            if (test.test(i)) {
+                entities.set(kept, entities.get(i));
+                recordNumbers.set(kept, recordNumbers.get(i));
+                endOffsets.set(kept, endOffsets.get(i));
+                kept++;
+            }
+        }
+        int dropped = entities.size() - kept;
+        entities.subList(kept, entities.size()).clear();
+        recordNumbers.subList(kept, recordNumbers.size()).clear();
+        endOffsets.subList(kept, endOffsets.size()).clear();
+        return dropped;
+    }
+
+    private void persist(List<T> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (T entity : chunk) {
+            entityManager.persist(entity);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        companyDataVersions.bumpOnCommit(companyId);
+    }
+
+    private void saveCheckpoint(int recordNumber, long endOffset, int successfulRecords) {
+        if (checkpoint != null) {
+            checkpoint.save(recordNumber, endOffset, successfulRecords, result.getSkippedRecords());
+        }
+    }
+
+    /**
+     * Undo what the rolled back persist left on the entity: the generated ID and the
+     * balance contribution recorded by the listener.
+     */
+    private void resetForRetry(T entity) {
+        if (entity instanceof CompanyBalanceContributor contributor) {
+            contributor.setLoadedBalanceContribution(null);
+        }
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass(entity));
+        SingularAttribute<? super T, ?> id = entityType.getId(entityType.getIdType().getJavaType());
+        if (id.getJavaMember() instanceof Field field) {
+            try {
+                field.setAccessible(true);
+                field.set(entity, null);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot reset the ID of " + entity.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> entityClass(T entity) {
+        return (Class<T>) entity.getClass();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
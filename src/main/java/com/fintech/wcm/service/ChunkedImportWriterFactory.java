@@ -0,0 +1,70 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.model.ImportType;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates {@link ChunkedImportWriter} instances for the CSV imports.
+ */
+@Component
+public class ChunkedImportWriterFactory {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate chunkTransaction;
+    private final CompanyDataVersions companyDataVersions;
+    private final ImportReferences importReferences;
+    private final int chunkSize;
+
+    public ChunkedImportWriterFactory(EntityManager entityManager,
+                                      PlatformTransactionManager transactionManager,
+                                      CompanyDataVersions companyDataVersions,
+                                      ImportReferences importReferences,
+                                      @Value("${app.import.chunk-size:5000}") int chunkSize) {
+        this.entityManager = entityManager;
+        // Every chunk commits on its own, even when the import is called inside a transaction
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.companyDataVersions = companyDataVersions;
+        this.importReferences = importReferences;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Create a writer for one import.
+     *
+     * @param companyId the company the entities belong to
+     * @param importType the import type, whose references are resolved before each chunk is written
+     * @param result the import result that collects successful and failed records
+     * @param <T> the entity type
+     * @return the writer
+     */
+    public <T> ChunkedImportWriter<T> create(Long companyId, ImportType importType, ImportResultDto result) {
+        return create(companyId, importType, result, null, null, RejectedRows.inMemory(result));
+    }
+
+    /**
+     * Create a writer for one import that saves a checkpoint with every commit and skips the
+     * rows already imported.
+     *
+     * @param companyId the company the entities belong to
+     * @param importType the import type, whose references are resolved before each chunk is written
+     * @param result the import result that collects successful and skipped records
+     * @param checkpoint saved in the transaction of every commit, or null
+     * @param keyFilter finds the rows already imported, or null to write every row
+     * @param rejectedRows receives the rows the writer fails
+     * @param <T> the entity type
+     * @return the writer
+     */
+    public <T> ChunkedImportWriter<T> create(Long companyId, ImportType importType, ImportResultDto result,
+                                             ChunkedImportWriter.Checkpoint checkpoint, NaturalKeyFilter<T> keyFilter,
+                                             RejectedRows rejectedRows) {
+        return new ChunkedImportWriter<>(entityManager, chunkTransaction, companyDataVersions,
+                companyId, chunkSize, result, checkpoint, keyFilter, importReferences.forImport(companyId, importType), rejectedRows);
+    }
+}
@@ -0,0 +1,47 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.BalanceContribution;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Service interface for the per-company balance counters read by the balance sheet aggregate.
+ */
+public interface CompanyBalanceService {
+    
+    /**
+     * Record the change of a ledger row. The counters are moved by the difference in the
+     * current transaction, just before it commits.
+     * 
+     * @param before what the row contributed before the change, or null if it is new
+     * @param after what the row contributes after the change, or null if it was deleted
+     */
+    void recordChange(BalanceContribution before, BalanceContribution after);
+    
+    /**
+     * Recompute the counters of a company from the ledgers. Used after writes that
+     * bypass the entity listeners.
+     * 
+     * @param companyId the company ID
+     */
+    void recalculate(Long companyId);
+    
+    /**
+     * Recompute the counters of a company from the ledgers on the connection of a load that
+     * wrote the ledger over JDBC, so the counters commit with the rows.
+     * 
+     * @param connection the connection, inside the transaction of the load
+     * @param companyId the company ID
+     * @throws SQLException if the counters cannot be written
+     */
+    void recalculate(Connection connection, Long companyId) throws SQLException;
+    
+    /**
+     * Compare the counters of every company with the ledger SUM queries and repair
+     * any that have drifted.
+     * 
+     * @return the number of companies whose counters were repaired
+     */
+    int reconcile();
+}
@@ -0,0 +1,129 @@
+package com.fintech.wcm.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Per-company data version that cached read models are keyed on.
+ *
+ * Anything that changes the data behind a company's metrics or dashboard bumps the version,
+ * which makes every cached value computed from the older data unreachable. The version is
+ * kept in {@code company_data_versions}, so a bump on one node reaches the caches of every
+ * node. Inside a transaction the bump is written just before it commits, in that same
+ * transaction, so a reader never sees the new version before the data it stands for.
+ */
+@Component
+public class CompanyDataVersions {
+
+    private static final String CURRENT_SQL = "SELECT version FROM company_data_versions WHERE company_id = ?";
+
+    private static final String BUMP_SQL =
+            "INSERT INTO company_data_versions (company_id, version) VALUES (?, 1) " +
+            "ON CONFLICT (company_id) DO UPDATE SET version = company_data_versions.version + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CompanyDataVersions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Get the current data version of a company.
+     *
+     * @param companyId the company ID
+     * @return the version, 0 if the company's data has never changed
+     */
+    public long current(Long companyId) {
+        List<Long> versions = jdbcTemplate.queryForList(CURRENT_SQL, Long.class, companyId);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+
+    /**
+     * Bump the data version of a company as the current transaction commits, once however
+     * often the transaction asks, or immediately when there is no transaction.
+     *
+     * @param companyId the company ID
+     */
+    public void bumpOnCommit(Long companyId) {
+        if (companyId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(companyId);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new BumpSynchronization(pending));
+        }
+        pending.add(companyId);
+    }
+
+    /**
+     * Bump the data version of a company on the connection of a load that wrote its data over
+     * JDBC, so the bump commits with the data.
+     *
+     * @param connection the connection, inside the transaction of the load
+     * @param companyId the company ID
+     * @throws SQLException if the version cannot be written
+     */
+    public void bump(Connection connection, Long companyId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(BUMP_SQL)) {
+            statement.setLong(1, companyId);
+            statement.executeUpdate();
+        }
+    }
+
+    private void bump(Long companyId) {
+        jdbcTemplate.update(BUMP_SQL, companyId);
+    }
+
+    /**
+     * Writes the bumps of a transaction before it commits and keeps them bound to that
+     * transaction only, including across suspension by a nested transaction.
+     */
+    private final class BumpSynchronization implements TransactionSynchronization {
+
+        private final Set<Long> pending;
+
+        private BumpSynchronization(Set<Long> pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CompanyDataVersions.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CompanyDataVersions.this, pending);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Companies are bumped in ID order so concurrent commits lock rows in the same order
+            for (Long companyId : pending) {
+                bump(companyId);
+            }
+            pending.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CompanyDataVersions.this);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ConcentrationAnalyticsDto;
+
+/**
+ * Service interface for customer and vendor concentration analytics.
+ */
+public interface ConcentrationAnalyticsService {
+    
+    /**
+     * Get the largest customers and vendors of a company with the concentration
+     * metrics of its open receivables and payables.
+     * 
+     * @param companyId the company ID
+     * @param limit the number of customers and of vendors to list
+     * @return the concentration analytics
+     */
+    ConcentrationAnalyticsDto getConcentrationAnalytics(Long companyId, int limit);
+}
@@ -0,0 +1,110 @@
+package com.fintech.wcm.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent read-only queries concurrently, each on its own virtual thread and in
+ * its own read-only transaction, so each holds its own pooled connection. All queries
+ * share one deadline counted from when the scope is opened.
+ *
+ * A required query that fails or misses the deadline fails the caller. An optional one
+ * yields null and marks its section as unavailable, so the caller can return a partial
+ * result. Closing the scope cancels whatever is still running without waiting for it.
+ */
+public final class ConcurrentQueries implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentQueries.class);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final TransactionTemplate transactionTemplate;
+    private final long deadline;
+    private final Set<String> unavailableSections = new LinkedHashSet<>();
+
+    /**
+     * Open a scope.
+     *
+     * @param transactionManager the transaction manager used for every query
+     * @param timeout how long any query may take; also applied as the transaction timeout
+     */
+    public ConcurrentQueries(PlatformTransactionManager transactionManager, Duration timeout) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Transaction timeouts are whole seconds; round up so the database never cuts a query short
+        this.transactionTemplate.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+        this.deadline = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Start a query.
+     *
+     * @param query the query
+     * @param <T> the result type
+     * @return the pending result
+     */
+    public <T> Future<T> fork(Supplier<T> query) {
+        return executor.submit(() -> transactionTemplate.execute(status -> query.get()));
+    }
+
+    /**
+     * Wait for a query the caller cannot do without.
+     *
+     * @param query the pending result
+     * @param <T> the result type
+     * @return the result
+     * @throws RuntimeException the query's own exception, or an IllegalStateException if it timed out
+     */
+    public <T> T join(Future<T> query) {
+        try {
+            return query.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Query failed", e.getCause());
+        } catch (TimeoutException e) {
+            query.cancel(true);
+            throw new IllegalStateException("Query timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a query", e);
+        }
+    }
+
+    /**
+     * Wait for a query whose section can be left out of the result.
+     *
+     * @param section the section the query belongs to
+     * @param query the pending result
+     * @param <T> the result type
+     * @return the result, or null if the query failed or timed out
+     */
+    public <T> T join(String section, Future<T> query) {
+        try {
+            return join(query);
+        } catch (RuntimeException e) {
+            logger.warn("Section {} is unavailable: {}", section, e.toString());
+            unavailableSections.add(section);
+            return null;
+        }
+    }
+
+    /**
+     * @return the sections with a failed or timed out query, in the order they failed
+     */
+    public List<String> getUnavailableSections() {
+        return new ArrayList<>(unavailableSections);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,127 @@
+package com.fintech.wcm.service;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks how saturated each connection pool is, to size the pools by: the connections in use
+ * and the threads waiting for one now, and since startup how long borrowers waited, how long
+ * they held their connections and how often they gave up waiting.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolStats);
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    /**
+     * Get the statistics of every pool that has started.
+     *
+     * @return a map of pool names to their statistics
+     */
+    public Map<String, Stats> getStatistics() {
+        Map<String, Stats> statistics = new TreeMap<>();
+        trackers.forEach((poolName, tracker) -> statistics.put(poolName, tracker.stats()));
+        return statistics;
+    }
+
+    /**
+     * The saturation of a pool: its connections now, and its borrowing since startup.
+     */
+    @Value
+    public static class Stats {
+        int maxConnections;
+        int activeConnections;
+        int idleConnections;
+        int pendingThreads;
+        double utilization;  // the share of the maximum connections in use
+        long acquisitions;
+        double meanAcquireMillis;
+        double maxAcquireMillis;
+        long timeouts;  // borrowers that gave up waiting for a connection
+        double meanUsageMillis;
+        long maxUsageMillis;
+        int maxPendingThreads;  // the most threads seen waiting at once, sampled on each borrow
+    }
+
+    private static final class Tracker implements IMetricsTracker {
+
+        private final PoolStats poolStats;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder usages = new LongAdder();
+        private final LongAdder usageMillis = new LongAdder();
+        private final LongAccumulator maxUsageMillis = new LongAccumulator(Math::max, 0);
+        private final AtomicLong maxPendingThreads = new AtomicLong();
+
+        private Tracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+            if (elapsedAcquiredNanos > 0) {
+                maxPendingThreads.accumulateAndGet(poolStats.getPendingThreads(), Math::max);
+            }
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usages.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+            maxUsageMillis.accumulate(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+            maxPendingThreads.accumulateAndGet(poolStats.getPendingThreads(), Math::max);
+        }
+
+        private Stats stats() {
+            int max = poolStats.getMaxConnections();
+            int active = poolStats.getActiveConnections();
+            long acquired = acquisitions.sum();
+            long used = usages.sum();
+            return new Stats(
+                    max,
+                    active,
+                    poolStats.getIdleConnections(),
+                    poolStats.getPendingThreads(),
+                    max == 0 ? 0 : (double) active / max,
+                    acquired,
+                    acquired == 0 ? 0 : millis(acquireNanos.sum()) / acquired,
+                    millis(maxAcquireNanos.get()),
+                    timeouts.sum(),
+                    used == 0 ? 0 : (double) usageMillis.sum() / used,
+                    maxUsageMillis.get(),
+                    (int) maxPendingThreads.get());
+        }
+
+        private static double millis(long nanos) {
+            return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
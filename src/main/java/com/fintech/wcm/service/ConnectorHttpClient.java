@@ -0,0 +1,88 @@
+package com.fintech.wcm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Calls the JSON APIs of the accounting systems the connectors sync from.
+ */
+@Component
+public class ConnectorHttpClient {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public ConnectorHttpClient(ObjectMapper objectMapper,
+                               @Value("${app.import.connectors.timeout:30s}") Duration timeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    /**
+     * GET a JSON document.
+     *
+     * @param uri the URI
+     * @param headers the request headers besides Accept
+     * @return the document
+     * @throws ImportConnector.RetryLaterException if the API answers 429 or 503
+     * @throws IOException if the call fails or the API answers with another error
+     */
+    public JsonNode get(URI uri, Map<String, String> headers) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET();
+        headers.forEach(request::header);
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + uri.getHost());
+        }
+
+        try (InputStream body = response.body()) {
+            int status = response.statusCode();
+            if (status == 429 || status == 503) {
+                throw new ImportConnector.RetryLaterException(uri.getHost() + " answered " + status, retryAfter(response));
+            }
+            if (status == 401) {
+                throw new IOException(uri.getHost() + " rejected the access token; the company must connect again");
+            }
+            if (status >= 300) {
+                String error = new String(body.readNBytes(MAX_ERROR_LENGTH));
+                throw new IOException(uri.getHost() + " answered " + status + ": " + error);
+            }
+            return objectMapper.readTree(body);
+        }
+    }
+
+    private static Duration retryAfter(HttpResponse<?> response) {
+        // Only the delay-seconds form; an HTTP date falls back to the default
+        return response.headers().firstValue("Retry-After")
+                .filter(value -> value.matches("\\d{1,6}"))
+                .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+                .orElse(DEFAULT_RETRY_AFTER);
+    }
+}
@@ -0,0 +1,257 @@
+package com.fintech.wcm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process stand-in for the QuickBooks query API and the Xero Invoices endpoint, serving
+ * records put into it, so the connectors can be run without the network: point a connector's
+ * base URL at {@link #getBaseUrl()}. It answers only the requests the connectors make, filters
+ * and pages them as the real APIs do, checks the access token, and can be told to throttle.
+ */
+public final class ConnectorMockServer implements AutoCloseable {
+
+    private static final Pattern QUICKBOOKS_QUERY = Pattern.compile(
+            "SELECT (COUNT\\(\\*\\)|\\*) FROM (\\w+) WHERE MetaData\\.LastUpdatedTime < '([^']+)'" +
+            "(?: AND MetaData\\.LastUpdatedTime >= '([^']+)')?" +
+            "(?: ORDERBY MetaData\\.LastUpdatedTime STARTPOSITION (\\d+) MAXRESULTS (\\d+))?");
+    private static final Pattern XERO_WHERE = Pattern.compile(
+            "UpdatedDateUTC<DateTime\\(([\\d,]+)\\)(?:&&UpdatedDateUTC>=DateTime\\(([\\d,]+)\\))?");
+    private static final DateTimeFormatter XERO_DATE_TIME = DateTimeFormatter.ofPattern("yyyy,MM,dd,HH,mm,ss");
+    private static final String XERO_INVOICES = "Xero:Invoices";
+
+    /**
+     * A record as served, with when it was last modified.
+     */
+    private record StoredRecord(String id, ObjectNode json, LocalDateTime modified) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final String accessToken;
+    private final Map<String, Map<String, StoredRecord>> collections = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    private volatile IntConsumer onRequest = request -> { };
+
+    private ConnectorMockServer(String accessToken) throws IOException {
+        this.accessToken = accessToken;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v3/company/", this::quickBooks);
+        server.createContext("/api.xro/2.0/Invoices", this::xero);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    /**
+     * Start a server on a free port of the loopback address.
+     *
+     * @param accessToken the only access token accepted
+     * @return the server, to be closed when done
+     * @throws IOException if it cannot be started
+     */
+    public static ConnectorMockServer start(String accessToken) throws IOException {
+        return new ConnectorMockServer(accessToken);
+    }
+
+    /**
+     * @return the base URL of both APIs
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Add or replace a QuickBooks transaction, such as an Invoice or a Bill.
+     *
+     * @param entity the entity name
+     * @param id the entity ID
+     * @param fields the fields besides Id and MetaData
+     * @param modified when it was last modified, UTC
+     */
+    public void putQuickBooks(String entity, String id, Map<String, ?> fields, LocalDateTime modified) {
+        ObjectNode json = objectMapper.valueToTree(fields);
+        json.put("Id", id);
+        json.putObject("MetaData").put("LastUpdatedTime", QuickBooksConnector.timestamp(modified));
+        collections.computeIfAbsent(entity, key -> new ConcurrentHashMap<>()).put(id, new StoredRecord(id, json, modified));
+    }
+
+    /**
+     * Add or replace a Xero invoice.
+     *
+     * @param id the invoice ID
+     * @param fields the fields besides InvoiceID and UpdatedDateUTC
+     * @param modified when it was last modified, UTC
+     */
+    public void putXeroInvoice(String id, Map<String, ?> fields, LocalDateTime modified) {
+        ObjectNode json = objectMapper.valueToTree(fields);
+        json.put("InvoiceID", id);
+        json.put("UpdatedDateUTC", XeroConnector.jsonDate(modified));
+        collections.computeIfAbsent(XERO_INVOICES, key -> new ConcurrentHashMap<>()).put(id, new StoredRecord(id, json, modified));
+    }
+
+    /**
+     * Answer the next requests with 429 Too Many Requests, asking to retry at once.
+     *
+     * @param responses the number of requests to throttle
+     */
+    public void throttle(int responses) {
+        throttled.set(responses);
+    }
+
+    /**
+     * Run a hook before answering each request, such as to modify records mid-sync.
+     *
+     * @param hook receives the number of the request, from 1
+     */
+    public void onRequest(IntConsumer hook) {
+        this.onRequest = hook;
+    }
+
+    /**
+     * @return the number of requests answered, including throttled ones
+     */
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void quickBooks(HttpExchange exchange) throws IOException {
+        if (!accept(exchange)) {
+            return;
+        }
+        Matcher query = QUICKBOOKS_QUERY.matcher(parameters(exchange).getOrDefault("query", ""));
+        if (!query.matches()) {
+            respond(exchange, 400, error("Unsupported query"));
+            return;
+        }
+        List<StoredRecord> records = window(query.group(2), QuickBooksConnector.utc(query.group(3)),
+                query.group(4) == null ? null : QuickBooksConnector.utc(query.group(4)));
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode queryResponse = response.putObject("QueryResponse");
+        if (query.group(1).startsWith("COUNT")) {
+            queryResponse.put("totalCount", records.size());
+        } else {
+            int start = Integer.parseInt(query.group(5));
+            int max = Integer.parseInt(query.group(6));
+            List<StoredRecord> page = records.subList(Math.min(start - 1, records.size()), Math.min(start - 1 + max, records.size()));
+            if (!page.isEmpty()) {
+                ArrayNode array = queryResponse.putArray(query.group(2));
+                page.forEach(record -> array.add(record.json()));
+                queryResponse.put("startPosition", start);
+                queryResponse.put("maxResults", page.size());
+            }
+        }
+        respond(exchange, 200, response);
+    }
+
+    private void xero(HttpExchange exchange) throws IOException {
+        if (!accept(exchange)) {
+            return;
+        }
+        Map<String, String> parameters = parameters(exchange);
+        Matcher where = XERO_WHERE.matcher(parameters.getOrDefault("where", ""));
+        if (!where.matches()) {
+            respond(exchange, 400, error("Unsupported where filter"));
+            return;
+        }
+        List<StoredRecord> records = window(XERO_INVOICES, LocalDateTime.parse(where.group(1), XERO_DATE_TIME),
+                where.group(2) == null ? null : LocalDateTime.parse(where.group(2), XERO_DATE_TIME));
+        int page = Integer.parseInt(parameters.getOrDefault("page", "1"));
+        int pageSize = Integer.parseInt(parameters.getOrDefault("pageSize", "100"));
+        int from = (int) Math.min((long) (page - 1) * pageSize, records.size());
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.putObject("pagination")
+                .put("page", page)
+                .put("pageSize", pageSize)
+                .put("pageCount", (records.size() + pageSize - 1) / pageSize)
+                .put("itemCount", records.size());
+        ArrayNode invoices = response.putArray("Invoices");
+        records.subList(from, Math.min(from + pageSize, records.size())).forEach(record -> invoices.add(record.json()));
+        respond(exchange, 200, response);
+    }
+
+    /**
+     * Count the request, run the hook, and answer it with an error if it is throttled or
+     * carries the wrong token.
+     *
+     * @return true if the request is to be served
+     */
+    private boolean accept(HttpExchange exchange) throws IOException {
+        onRequest.accept(requests.incrementAndGet());
+        if (throttled.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            exchange.getResponseHeaders().add("Retry-After", "0");
+            respond(exchange, 429, error("Too many requests"));
+            return false;
+        }
+        if (!("Bearer " + accessToken).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            respond(exchange, 401, error("Unauthorized"));
+            return false;
+        }
+        return true;
+    }
+
+    private List<StoredRecord> window(String collection, LocalDateTime modifiedBefore, LocalDateTime modifiedFrom) {
+        return collections.getOrDefault(collection, Map.of()).values().stream()
+                .filter(record -> record.modified().isBefore(modifiedBefore))
+                .filter(record -> modifiedFrom == null || !record.modified().isBefore(modifiedFrom))
+                .sorted(Comparator.comparing(StoredRecord::modified).thenComparing(StoredRecord::id))
+                .toList();
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                            URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private JsonNode error(String message) {
+        return objectMapper.createObjectNode().put("Message", message);
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.ConnectorConnection;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ScheduledImport;
+import com.fintech.wcm.model.SyncCursor;
+import com.fintech.wcm.repository.ConnectorConnectionRepository;
+import com.fintech.wcm.repository.SyncCursorRepository;
+import com.fintech.wcm.util.RateLimiter;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Syncs the records of the accounting systems companies are connected to, through the
+ * {@link ImportConnector} of each system, transferring only the records changed since the
+ * last sync.
+ *
+ * Each feed has a sync cursor per company: the last-modified time of the newest record
+ * synced. A sync counts the records modified from the cursor up to a little before now,
+ * fetches their pages concurrently, as many at once as the system allows a tenant and spaced
+ * out to its request rate, and streams them in order as CSV into the bulk loader, which
+ * upserts them by natural key in one transaction. The cursor only moves once that commits.
+ *
+ * Records modified in the last moments are left to the next sync, so clock skew and writes
+ * during the sync cannot slip behind the cursor. A record modified while its feed is fetched
+ * leaves the window and can shift another across a page boundary unseen; if the count of the
+ * window has dropped by the end, the cursor moves only to the end of the first page, which
+ * nothing can have shifted past.
+ */
+@Component
+public class ConnectorSync implements ScheduledImportRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectorSync.class);
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final Map<String, ImportConnector> connectors = new LinkedHashMap<>();
+    private final ConnectorConnectionRepository connectionRepository;
+    private final SyncCursorRepository cursorRepository;
+    private final CopyImportLoader copyImportLoader;
+    private final RejectedRowsStore rejectedRowsStore;
+    private final ImportAdmission importAdmission;
+    private final Duration settleTime;
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private Clock clock = Clock.systemUTC();
+
+    public ConnectorSync(List<ImportConnector> connectors,
+                         ConnectorConnectionRepository connectionRepository,
+                         SyncCursorRepository cursorRepository,
+                         CopyImportLoader copyImportLoader,
+                         RejectedRowsStore rejectedRowsStore,
+                         ImportAdmission importAdmission,
+                         @Value("${app.import.connectors.settle-time:5m}") Duration settleTime) {
+        connectors.forEach(connector -> this.connectors.put(connector.getSourceType(), connector));
+        this.connectionRepository = connectionRepository;
+        this.cursorRepository = cursorRepository;
+        this.copyImportLoader = copyImportLoader;
+        this.rejectedRowsStore = rejectedRowsStore;
+        this.importAdmission = importAdmission;
+        this.settleTime = settleTime;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Set<String> getSourceTypes() {
+        return connectors.keySet();
+    }
+
+    /**
+     * Scheduled syncs wait as long as it takes to be admitted, rather than fail the run.
+     */
+    @Override
+    public ImportResultDto run(ScheduledImport scheduledImport) {
+        Long companyId = scheduledImport.getCompanyId();
+        return importAdmission.run(companyId, null, () -> sync(companyId, scheduledImport.getSourceType()));
+    }
+
+    /**
+     * Connect a company to an accounting system, or replace the credentials of its connection.
+     *
+     * @param companyId the company ID
+     * @param sourceType the source type, such as QUICKBOOKS
+     * @param tenantId the ID of the company in the system, such as the QuickBooks realm ID
+     * @param accessToken the access token
+     * @param refreshToken the refresh token, or null
+     * @return the connection
+     * @throws BadRequestException if there is no connector for the source type or a credential is missing
+     */
+    public ConnectorConnection connect(Long companyId, String sourceType, String tenantId, String accessToken,
+                                       String refreshToken) {
+        ImportConnector connector = connector(sourceType);
+        if (tenantId == null || tenantId.isBlank() || accessToken == null || accessToken.isBlank()) {
+            throw new BadRequestException("The " + connector.getSourceType() + " tenant ID and access token are required");
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        ConnectorConnection connection = connectionRepository.findByCompanyIdAndSourceType(companyId, connector.getSourceType())
+                .orElseGet(() -> {
+                    ConnectorConnection created = new ConnectorConnection();
+                    created.setCompanyId(companyId);
+                    created.setSourceType(connector.getSourceType());
+                    created.setCreatedAt(now);
+                    return created;
+                });
+        connection.setTenantId(tenantId.trim());
+        connection.setAccessToken(accessToken);
+        connection.setRefreshToken(refreshToken);
+        connection.setUpdatedAt(now);
+        return connectionRepository.save(connection);
+    }
+
+    /**
+     * Sync every feed of the system a company is connected to. A feed that fails keeps its
+     * cursor, so the next sync fetches its changes again; the other feeds are still synced.
+     *
+     * @param companyId the company ID
+     * @param sourceType the source type, such as QUICKBOOKS
+     * @return the combined result of the feeds
+     */
+    public ImportResultDto sync(Long companyId, String sourceType) {
+        ImportConnector connector = connector(sourceType);
+        ImportResultDto result = ImportResultDto.builder()
+                .importType(connector.getSourceType() + "_DATA")
+                .source(connector.getSourceType() + "_API")
+                .importDate(LocalDateTime.now())
+                .status("COMPLETED")
+                .build();
+        ConnectorConnection connection = connectionRepository.findByCompanyIdAndSourceType(companyId, connector.getSourceType())
+                .orElse(null);
+        if (connection == null) {
+            result.setStatus("FAILED");
+            result.addError("Company " + companyId + " is not connected to " + connector.getSourceType());
+            result.setSummary(result.getErrors().get(0) + ".");
+            return result;
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        // Whole seconds, the finest precision every system filters on
+        LocalDateTime modifiedBefore = now.minus(settleTime).truncatedTo(ChronoUnit.SECONDS);
+        int failedFeeds = 0;
+        for (ImportConnector.Feed feed : connector.getFeeds()) {
+            ImportResultDto feedResult = syncFeed(connector, feed, connection, modifiedBefore, now);
+            if ("FAILED".equals(feedResult.getStatus())) {
+                failedFeeds++;
+            }
+            result.add(feedResult);
+        }
+
+        if (failedFeeds == connector.getFeeds().size()) {
+            result.setStatus("FAILED");
+        } else if (failedFeeds > 0 || result.getFailedRecords() > 0) {
+            result.setStatus("PARTIALLY_COMPLETED");
+        }
+        result.setSummary("Synced " + result.getTotalRecords() + " changed records from " + connector.getSourceType() +
+                ": " + result.getSuccessfulRecords() + " inserted or updated, " + result.getSkippedRecords() + " unchanged, " +
+                result.getFailedRecords() + " failed." +
+                (failedFeeds > 0 ? " " + failedFeeds + " of " + connector.getFeeds().size() + " feeds failed and will be retried." : ""));
+        logger.info("Synced {} for company {}: {}", connector.getSourceType(), companyId, result.getSummary());
+        return result;
+    }
+
+    /**
+     * Sync the records of a feed modified since its cursor.
+     */
+    ImportResultDto syncFeed(ImportConnector connector, ImportConnector.Feed feed, ConnectorConnection connection,
+                             LocalDateTime modifiedBefore, LocalDateTime now) {
+        Long companyId = connection.getCompanyId();
+        ImportResultDto result = ImportResultDto.builder()
+                .importType(feed.getImportType().name())
+                .source(connector.getSourceType() + "_API")
+                .fileName(feed.getName())
+                .importDate(LocalDateTime.now())
+                .status("COMPLETED")
+                .build();
+        SyncCursor cursor = cursorRepository.findByCompanyIdAndSourceTypeAndFeed(companyId, connector.getSourceType(), feed.getName())
+                .orElseGet(() -> {
+                    SyncCursor created = new SyncCursor();
+                    created.setCompanyId(companyId);
+                    created.setSourceType(connector.getSourceType());
+                    created.setFeed(feed.getName());
+                    return created;
+                });
+        if (cursor.getWatermark() != null && !cursor.getWatermark().isBefore(modifiedBefore)) {
+            return result;
+        }
+        ImportConnector.Window window = new ImportConnector.Window(cursor.getWatermark(), modifiedBefore);
+        ImportConnector.Limits limits = connector.getLimits();
+        RateLimiter rateLimiter = rateLimiters.computeIfAbsent(connector.getSourceType() + ":" + connection.getTenantId(),
+                key -> RateLimiter.perMinute(limits.requestsPerMinute(), limits.maxConcurrentRequests()));
+
+        try {
+            long count = call(rateLimiter, () -> feed.count(connection, window));
+            LocalDateTime watermark = cursor.getWatermark();
+            if (count > 0) {
+                int pages = (int) ((count + limits.pageSize() - 1) / limits.pageSize());
+                try (FeedReader csv = new FeedReader(feed, connection, window, pages, limits, rateLimiter);
+                     RejectedRows rejectedRows = rejectedRowsStore.open(companyId, feed.getImportType(), result)) {
+                    copyImportLoader.load(companyId, feed.getImportType(), ImportMode.UPSERT, csv, result, rejectedRows,
+                            new ImportProgress(0));
+                    long countAfter = call(rateLimiter, () -> feed.count(connection, window));
+                    LocalDateTime reached = countAfter == count ? csv.getLastModified() : csv.getFirstPageLastModified();
+                    if (countAfter != count) {
+                        logger.info("{} {} of company {} changed while syncing; the cursor moves to the end of the first page",
+                                connector.getSourceType(), feed.getName(), companyId);
+                    }
+                    if (reached != null && (watermark == null || reached.isAfter(watermark))) {
+                        watermark = reached;
+                    }
+                }
+            }
+            if (result.getFailedRecords() > 0) {
+                result.setStatus("PARTIALLY_COMPLETED");
+            }
+            cursor.setWatermark(watermark);
+            cursor.setLastSyncedAt(now);
+            cursor.setRecordsSynced(cursor.getRecordsSynced() + result.getSuccessfulRecords());
+            cursorRepository.save(cursor);
+        } catch (IOException | SQLException | CancellationException e) {
+            result.setStatus("FAILED");
+            result.addError("Failed to sync " + connector.getSourceType() + " " + feed.getName() + ": " + e.getMessage());
+            logger.error("Failed to sync {} {} for company {}: {}", connector.getSourceType(), feed.getName(), companyId,
+                    e.getMessage());
+        }
+        return result;
+    }
+
+    private ImportConnector connector(String sourceType) {
+        ImportConnector connector = sourceType == null ? null : connectors.get(sourceType.trim().toUpperCase(Locale.ROOT));
+        if (connector == null) {
+            throw new BadRequestException("No connector for source type: " + sourceType);
+        }
+        return connector;
+    }
+
+    /**
+     * A call to the API of a connector.
+     */
+    @FunctionalInterface
+    private interface ApiCall<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Make a call once the rate limiter allows, retrying it when the API asks to.
+     */
+    private static <T> T call(RateLimiter rateLimiter, ApiCall<T> call) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+            }
+            try {
+                return call.call();
+            } catch (ImportConnector.RetryLaterException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                // Every request to the tenant holds off, not just this one
+                rateLimiter.pause(e.getRetryAfter());
+            }
+        }
+    }
+
+    /**
+     * Reads the pages of a feed as one CSV file, with a header of the feed's columns. Up to
+     * the connector's concurrent requests are fetched ahead, each on its own virtual thread,
+     * and the pages are read in order, so a record modified twice is upserted as of the later
+     * page.
+     */
+    private static final class FeedReader extends Reader {
+
+        private final ImportConnector.Feed feed;
+        private final ConnectorConnection connection;
+        private final ImportConnector.Window window;
+        private final int pages;
+        private final int pageSize;
+        private final int concurrency;
+        private final RateLimiter rateLimiter;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final Deque<Future<ImportConnector.Page>> fetching = new ArrayDeque<>();
+        private final StringBuilder buffer = new StringBuilder();
+        private final CSVPrinter printer;
+        private int position;
+        private int nextPage;
+        private int pagesRead;
+        private LocalDateTime firstPageLastModified;
+        private LocalDateTime lastModified;
+
+        FeedReader(ImportConnector.Feed feed, ConnectorConnection connection, ImportConnector.Window window, int pages,
+                   ImportConnector.Limits limits, RateLimiter rateLimiter) throws IOException {
+            this.feed = feed;
+            this.connection = connection;
+            this.window = window;
+            this.pages = pages;
+            this.pageSize = limits.pageSize();
+            this.concurrency = Math.max(1, limits.maxConcurrentRequests());
+            this.rateLimiter = rateLimiter;
+            this.printer = new CSVPrinter(buffer, CSVFormat.DEFAULT);
+            printer.printRecord(feed.getColumns());
+            fetchAhead();
+        }
+
+        LocalDateTime getFirstPageLastModified() {
+            return firstPageLastModified;
+        }
+
+        LocalDateTime getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            while (position == buffer.length()) {
+                if (fetching.isEmpty()) {
+                    return -1;
+                }
+                buffer.setLength(0);
+                position = 0;
+                printPage(await(fetching.poll()));
+                fetchAhead();
+            }
+            int read = Math.min(length, buffer.length() - position);
+            buffer.getChars(position, position + read, chars, offset);
+            position += read;
+            return read;
+        }
+
+        private void fetchAhead() {
+            while (fetching.size() < concurrency && nextPage < pages) {
+                int page = nextPage++;
+                fetching.add(executor.submit(() -> call(rateLimiter, () -> feed.fetch(connection, window, page, pageSize))));
+            }
+        }
+
+        private void printPage(ImportConnector.Page page) throws IOException {
+            for (List<String> row : page.rows()) {
+                printer.printRecord(row);
+            }
+            if (pagesRead++ == 0) {
+                firstPageLastModified = page.lastModified();
+            }
+            if (page.lastModified() != null) {
+                lastModified = page.lastModified();
+            }
+        }
+
+        private static ImportConnector.Page await(Future<ImportConnector.Page> page) throws IOException {
+            try {
+                return page.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while fetching a page");
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+}
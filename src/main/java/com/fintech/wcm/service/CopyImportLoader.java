@@ -0,0 +1,269 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Loads CSV imports with PostgreSQL COPY instead of JPA.
+ *
+ * The parsed rows are streamed into a temporary staging table, checked and converted with
+ * set-based SQL and merged into the ledger with a single INSERT, all in one transaction on
+ * one connection. The temporary tables are dropped when it commits or rolls back.
+ */
+@Component
+public class CopyImportLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CopyImportLoader.class);
+
+    private static final String INCREMENT_SQL =
+            "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?";
+
+    private static final int ERROR_FETCH_SIZE = 1000;
+
+    /** No unique index matches the ON CONFLICT columns */
+    private static final String NO_ARBITER_INDEX = "42P10";
+
+    private final DataSource dataSource;
+    private final CompanyBalanceService companyBalanceService;
+    private final CompanyDataVersions companyDataVersions;
+
+    public CopyImportLoader(DataSource dataSource,
+                            CompanyBalanceService companyBalanceService,
+                            CompanyDataVersions companyDataVersions) {
+        this.dataSource = dataSource;
+        this.companyBalanceService = companyBalanceService;
+        this.companyDataVersions = companyDataVersions;
+    }
+
+    /**
+     * Load a CSV file into the ledger of an import type. Rows that fail a check are counted
+     * as failed and reported in the result's errors; all other rows are inserted.
+     *
+     * @param companyId the company the rows belong to
+     * @param importType the import type
+     * @param csv the CSV file, with a header record
+     * @param result the import result that collects the counts and errors
+     * @param progress receives the records staged; cancelling it rolls the load back
+     * @throws IOException if the file cannot be read
+     * @throws SQLException if loading fails; nothing is inserted then
+     * @throws CancellationException if the progress was cancelled; nothing is inserted then
+     */
+    public void load(Long companyId, ImportType importType, Reader csv, ImportResultDto result,
+                     ImportProgress progress) throws IOException, SQLException {
+        load(companyId, importType, ImportMode.APPEND, csv, result, RejectedRows.inMemory(result), progress);
+    }
+
+    /**
+     * Load a CSV file into the ledger of an import type, treating the rows already there as
+     * the mode says. Rows skipped as already imported, or left alone by an upsert because
+     * nothing would change, are counted as skipped; updated rows count as successful. An
+     * appending load fails the rows whose natural key is already taken as duplicates.
+     *
+     * @param companyId the company the rows belong to
+     * @param importType the import type
+     * @param mode how rows whose natural key is already in the ledger are treated
+     * @param csv the CSV file, with a header record
+     * @param result the import result that collects the counts
+     * @param rejectedRows receives the rows that fail a check, with their staged values as the line
+     * @param progress receives the records staged; cancelling it rolls the load back
+     * @throws IOException if the file cannot be read
+     * @throws SQLException if loading fails; nothing is inserted then
+     * @throws BadRequestException if the ledger has no natural key for the mode to match on
+     * @throws CancellationException if the progress was cancelled; nothing is inserted then
+     */
+    public void load(Long companyId, ImportType importType, ImportMode mode, Reader csv, ImportResultDto result,
+                     RejectedRows rejectedRows, ImportProgress progress) throws IOException, SQLException {
+        CopyImportTable table = CopyImportTable.forType(importType);
+        if (mode != ImportMode.APPEND && !table.hasNaturalKey()) {
+            throw new BadRequestException("There is no natural key to match existing " + importType.getDescription() + " on");
+        }
+        long started = System.nanoTime();
+
+        try (CSVParser csvParser = new CSVParser(csv, CSVFormat.DEFAULT.withFirstRecordAsHeader());
+             Connection connection = dataSource.getConnection()) {
+            List<String> missingColumns = table.missingColumns(csvParser.getHeaderNames());
+            if (!missingColumns.isEmpty()) {
+                throw new BadRequestException("Missing required columns: " + String.join(", ", missingColumns));
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(table.createStagingSql());
+                }
+                long staged = copy(connection, table, csvParser, progress);
+                result.setTotalRecords((int) staged);
+
+                try (PreparedStatement statement = connection.prepareStatement(table.createCheckedSql())) {
+                    for (int i = 1; i <= table.getCompanyParameters(); i++) {
+                        statement.setLong(i, companyId);
+                    }
+                    statement.execute();
+                }
+                if (mode == ImportMode.APPEND && table.hasNaturalKey()) {
+                    try (PreparedStatement statement = connection.prepareStatement(table.duplicateKeysSql())) {
+                        statement.setLong(1, companyId);
+                        statement.executeUpdate();
+                    }
+                }
+                long failed = reportErrors(connection, table, rejectedRows);
+                long merged = merge(connection, table, companyId, staged - failed, mode);
+                if (merged > 0) {
+                    // The counters and the data version commit with the rows they stand for
+                    companyBalanceService.recalculate(connection, companyId);
+                    companyDataVersions.bump(connection, companyId);
+                }
+                connection.commit();
+
+                result.setSuccessfulRecords(result.getSuccessfulRecords() + (int) merged);
+                result.setSkippedRecords(result.getSkippedRecords() + (int) (staged - failed - merged));
+                progress.update(result);
+            } catch (IOException | SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        logger.info("Loaded {} of {} {} for company {} with COPY in {} ms", result.getSuccessfulRecords(),
+                result.getTotalRecords(), importType.getDescription(), companyId, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Stream the records into the staging table.
+     *
+     * @return the number of records staged
+     */
+    private long copy(Connection connection, CopyImportTable table, CSVParser csvParser, ImportProgress progress)
+            throws SQLException, IOException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (PGCopyOutputStream out = new PGCopyOutputStream(pgConnection, table.copySql());
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            long staged = writeStagingRows(csvParser, table.getStagedColumns(), writer, progress);
+            writer.flush();
+            return staged;
+        }
+    }
+
+    /**
+     * Write the records as PostgreSQL CSV rows of the staging table: the 1-based record
+     * number, then the staged columns. A column missing from the file or the record is
+     * written as NULL, an empty value as an empty string.
+     *
+     * @return the number of records written
+     * @throws CancellationException if the progress is cancelled
+     */
+    static long writeStagingRows(Iterable<CSVRecord> records, List<String> columns, Appendable out,
+                                 ImportProgress progress) throws IOException {
+        CSVPrinter printer = new CSVPrinter(out, CSVFormat.POSTGRESQL_CSV);
+        long recordNumber = 0;
+        for (CSVRecord record : records) {
+            if (progress.isCancelled()) {
+                throw new CancellationException("Import cancelled after " + recordNumber + " records");
+            }
+            recordNumber++;
+            printer.print(recordNumber);
+            for (String column : columns) {
+                printer.print(record.isSet(column) ? record.get(column) : null);
+            }
+            printer.println();
+            progress.update(recordNumber, 0, 0);
+        }
+        printer.flush();
+        return recordNumber;
+    }
+
+    /**
+     * Reject the failed rows, in record order.
+     *
+     * @return the number of failed rows
+     */
+    private long reportErrors(Connection connection, CopyImportTable table, RejectedRows rejectedRows) throws SQLException {
+        long before = rejectedRows.getRejected();
+        int columns = table.getStagedColumns().size();
+        Object[] values = new Object[columns];
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(ERROR_FETCH_SIZE);
+            try (ResultSet rows = statement.executeQuery(table.rejectedRowsSql())) {
+                while (rows.next()) {
+                    for (int i = 0; i < columns; i++) {
+                        values[i] = rows.getString(4 + i);
+                    }
+                    rejectedRows.reject(rows.getLong(1), ImportErrorType.valueOf(rows.getString(3)), rows.getString(2),
+                            CSVFormat.DEFAULT.format(values));
+                }
+            }
+        }
+        return rejectedRows.getRejected() - before;
+    }
+
+    /**
+     * Insert the rows without an error into the ledger.
+     *
+     * @return the number of rows inserted or updated
+     */
+    private long merge(Connection connection, CopyImportTable table, Long companyId, long validRows,
+                       ImportMode mode) throws SQLException {
+        if (validRows == 0) {
+            return 0;
+        }
+        int increment = 1;
+        try (PreparedStatement statement = connection.prepareStatement(INCREMENT_SQL)) {
+            statement.setString(1, table.getSequenceName());
+            try (ResultSet rows = statement.executeQuery()) {
+                if (rows.next()) {
+                    increment = Math.max(1, rows.getInt(1));
+                }
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(table.mergeSql(validRows, increment, mode))) {
+            statement.setLong(1, companyId);
+            if (!table.hasNaturalKey()) {
+                return statement.executeLargeUpdate();
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                rows.next();
+                long inserted = rows.getLong(1);
+                long updated = rows.getLong(2);
+                logger.debug("Merged {} rows into {}: {} inserted, {} updated", validRows, table.getTableName(),
+                        inserted, updated);
+                return inserted + updated;
+            }
+        } catch (SQLException e) {
+            if (NO_ARBITER_INDEX.equals(e.getSQLState())) {
+                throw new BadRequestException("Cannot " + (mode == ImportMode.UPSERT ? "upsert into "
+                        : mode == ImportMode.APPEND ? "append to " : "deduplicate ") +
+                        table.getTableName() + ": it holds duplicate keys, so its natural key index is missing");
+            }
+            throw e;
+        }
+    }
+}
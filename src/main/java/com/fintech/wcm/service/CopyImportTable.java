@@ -0,0 +1,490 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.AccountsPayable;
+import com.fintech.wcm.model.AccountsReceivable;
+import com.fintech.wcm.model.CashAccount;
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Inventory;
+import com.fintech.wcm.model.Invoice;
+import com.fintech.wcm.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * How the rows of one import type are staged, checked and merged by the {@link CopyImportLoader}.
+ *
+ * Every CSV column is staged as text, so COPY accepts any row. The checked table parses the
+ * staged columns with guarded casts, which yield null instead of failing, and records the
+ * first failed check of each row as its error, in the order the row-by-row import reports
+ * them. Only rows without an error are merged into the ledger; a table with a natural key
+ * can merge them skipping or updating the rows already there, or, when appending, fail the
+ * rows whose key is already taken.
+ */
+final class CopyImportTable {
+
+    static final String STAGING_TABLE = "import_staging";
+    static final String CHECKED_TABLE = "import_checked";
+
+    private static final String NUMBER_PATTERN = "'^[+-]?([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][+-]?[0-9]{1,3})?$'";
+    private static final String INTEGER_PATTERN = "'^[+-]?[0-9]{1,10}$'";
+    private static final String ID_PATTERN = "'^[+-]?[0-9]{1,18}$'";
+    private static final String DATE_PATTERN = "'^[0-9]{4}-[0-9]{2}-[0-9]{2}$'";
+
+    /** Digits before the decimal point of a DECIMAL(19, 4) column */
+    private static final int AMOUNT_DIGITS = 15;
+    /** Digits before the decimal point of a DECIMAL(19, 6) column */
+    private static final int RATE_DIGITS = 13;
+
+    private final String tableName;
+    private final Set<String> stagedColumns = new LinkedHashSet<>();
+    private final Set<String> requiredColumns = new LinkedHashSet<>();
+    private final List<String> checks = new ArrayList<>();
+    private final List<String> checkTypes = new ArrayList<>();
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private final List<String> joins = new ArrayList<>();
+    private final List<String> naturalKey = new ArrayList<>();
+    private int companyParameters;
+
+    private CopyImportTable(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * @param importType the import type
+     * @return the table definition of the import type
+     */
+    static CopyImportTable forType(ImportType importType) {
+        return switch (importType) {
+            case CASH_ACCOUNTS -> new CopyImportTable("cash_accounts")
+                    .text("account_name", 255, true)
+                    .enumeration("account_type", CashAccount.AccountType.values(), "Invalid account type: ")
+                    .decimal("balance", AMOUNT_DIGITS, true)
+                    .text("currency_code", 3, true)
+                    .text("account_number", 50, false)
+                    .text("bank_name", 255, false)
+                    .text("notes", 0, false)
+                    .baseCurrencyAmount("balance_base_currency", "balance")
+                    .naturalKey("account_number");
+            case CASH_TRANSACTIONS -> new CopyImportTable("transactions")
+                    .date("transaction_date", true)
+                    .decimal("amount", AMOUNT_DIGITS, true)
+                    .text("description", 255, true)
+                    .text("currency_code", 3, true)
+                    .enumeration("transaction_type", Transaction.TransactionType.values(), "Invalid transaction type: ")
+                    .text("reference_number", 50, false)
+                    .text("category", 100, false)
+                    .text("notes", 0, false)
+                    .baseCurrencyAmount("amount_base_currency", "amount")
+                    .cashAccount("cash_account_id", "cash_account_number")
+                    .naturalKey("reference_number", "transaction_date", "amount");
+            case INVOICES -> new CopyImportTable("invoices")
+                    .text("invoice_number", 50, true)
+                    .text("contact_name", 255, true)
+                    .date("issue_date", true)
+                    .date("due_date", true)
+                    .decimal("subtotal", AMOUNT_DIGITS, true)
+                    .taxAmount("tax_amount")
+                    .decimal("total_amount", AMOUNT_DIGITS, true)
+                    .text("currency_code", 3, true)
+                    .enumeration("invoice_type", Invoice.InvoiceType.values(), "Invalid invoice type: ")
+                    .text("contact_email", 255, false)
+                    .text("payment_terms", 100, false)
+                    .text("notes", 0, false)
+                    .enumerationOrDefault("status", Invoice.InvoiceStatus.values(), Invoice.InvoiceStatus.SENT)
+                    .baseCurrencyAmount("total_amount_base_currency", "total_amount")
+                    .naturalKey("invoice_number", "invoice_type");
+            case ACCOUNTS_RECEIVABLE -> new CopyImportTable("accounts_receivable")
+                    .text("customer_name", 255, true)
+                    .decimal("amount", AMOUNT_DIGITS, true)
+                    .text("currency_code", 3, true)
+                    .date("invoice_date", true)
+                    .date("due_date", true)
+                    .text("invoice_number", 50, true)
+                    .enumeration("status", AccountsReceivable.ReceivableStatus.values(), "Invalid receivable status: ")
+                    .text("notes", 0, false)
+                    .text("payment_terms", 100, false)
+                    .baseCurrencyAmount("amount_base_currency", "amount")
+                    .naturalKey("invoice_number");
+            case ACCOUNTS_PAYABLE -> new CopyImportTable("accounts_payable")
+                    .text("vendor_name", 255, true)
+                    .decimal("amount", AMOUNT_DIGITS, true)
+                    .text("currency_code", 3, true)
+                    .date("invoice_date", true)
+                    .date("due_date", true)
+                    .text("invoice_number", 50, true)
+                    .enumeration("status", AccountsPayable.PayableStatus.values(), "Invalid payable status: ")
+                    .text("category", 100, false)
+                    .text("notes", 0, false)
+                    .text("payment_terms", 100, false)
+                    .baseCurrencyAmount("amount_base_currency", "amount")
+                    .naturalKey("invoice_number");
+            case INVENTORY -> new CopyImportTable("inventory")
+                    .text("item_name", 255, true)
+                    .integer("quantity", true)
+                    .decimal("unit_cost", AMOUNT_DIGITS, true)
+                    .decimal("total_value", AMOUNT_DIGITS, true)
+                    .text("currency_code", 3, true)
+                    .enumeration("item_type", Inventory.ItemType.values(), "Invalid item type: ")
+                    .text("item_code", 50, false)
+                    .date("acquisition_date", false)
+                    .text("location", 255, false)
+                    .text("description", 0, false)
+                    .integer("reorder_level", false)
+                    .enumerationOrDefault("status", Inventory.InventoryStatus.values(), Inventory.InventoryStatus.IN_STOCK);
+        };
+    }
+
+    /**
+     * @return the ledger table the rows are merged into
+     */
+    String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return the sequence the IDs of the ledger table are drawn from
+     */
+    String getSequenceName() {
+        return tableName + "_id_seq";
+    }
+
+    /**
+     * @return whether rows can be matched to those already in the ledger
+     */
+    boolean hasNaturalKey() {
+        return !naturalKey.isEmpty();
+    }
+
+    /**
+     * @return the CSV columns that are staged, in staging table order
+     */
+    List<String> getStagedColumns() {
+        return List.copyOf(stagedColumns);
+    }
+
+    /**
+     * @param header the columns of the CSV header
+     * @return the required columns missing from the header, in definition order
+     */
+    List<String> missingColumns(Collection<String> header) {
+        return requiredColumns.stream()
+                .filter(column -> !header.contains(column))
+                .toList();
+    }
+
+    String createStagingSql() {
+        return "CREATE TEMP TABLE " + STAGING_TABLE + " (record_number BIGINT NOT NULL, " +
+                stagedColumns.stream().map(column -> column + " TEXT").collect(Collectors.joining(", ")) +
+                ") ON COMMIT DROP";
+    }
+
+    String copySql() {
+        return "COPY " + STAGING_TABLE + " (record_number, " + String.join(", ", stagedColumns) +
+                ") FROM STDIN WITH (FORMAT csv, ENCODING 'UTF8')";
+    }
+
+    /**
+     * @return the number of parameters of the checked table SQL, each of which is the company ID
+     */
+    int getCompanyParameters() {
+        return companyParameters;
+    }
+
+    String createCheckedSql() {
+        StringBuilder sql = new StringBuilder("CREATE TEMP TABLE " + CHECKED_TABLE + " ON COMMIT DROP AS ");
+        sql.append("SELECT s.record_number, CASE");
+        for (String check : checks) {
+            sql.append(' ').append(check);
+        }
+        sql.append(" END AS error, CASE");
+        for (String checkType : checkTypes) {
+            sql.append(' ').append(checkType);
+        }
+        sql.append(" END AS error_type");
+        values.forEach((column, value) -> sql.append(", ").append(value).append(" AS ").append(column));
+        sql.append(" FROM ").append(STAGING_TABLE).append(" s");
+        joins.forEach(join -> sql.append(' ').append(join));
+        return sql.toString();
+    }
+
+    /**
+     * Selects the rows with an error in record order: the record number, the error, the kind
+     * of error, then the staged columns as the file had them.
+     */
+    String rejectedRowsSql() {
+        return "SELECT c.record_number, c.error, c.error_type" +
+                stagedColumns.stream().map(column -> ", s." + column).collect(Collectors.joining()) +
+                " FROM " + CHECKED_TABLE + " c JOIN " + STAGING_TABLE + " s ON s.record_number = c.record_number" +
+                " WHERE c.error IS NOT NULL ORDER BY c.record_number";
+    }
+
+    /**
+     * Inserts the rows without an error, in record order, with IDs from reserved sequence
+     * blocks. Each {@code nextval} reserves the {@code increment} IDs up to and including the
+     * value, which is the range Hibernate's pooled optimizer assigns for it, so these IDs never
+     * collide with those of entities saved through JPA. A value below the increment would
+     * reach below 1 and is skipped, so one block more than needed is drawn.
+     *
+     * @param validRows the number of rows without an error
+     * @param increment the increment of the ID sequence
+     * @return the SQL, with the company ID as its only parameter
+     */
+    String mergeSql(long validRows, int increment) {
+        return mergeSql(validRows, increment, ImportMode.APPEND);
+    }
+
+    /**
+     * Fails the rows without an error whose natural key is already in the ledger, or repeats
+     * an earlier row of the file, as duplicates. Appending imports run it before the errors
+     * are reported, so one duplicate fails its own row rather than the whole merge.
+     *
+     * @return the SQL, with the company ID as its only parameter
+     * @throws IllegalStateException if the table has no natural key
+     */
+    String duplicateKeysSql() {
+        if (!hasNaturalKey()) {
+            throw new IllegalStateException(tableName + " has no natural key to find duplicates on");
+        }
+        String present = naturalKey.stream().map(column -> "c." + column + " IS NOT NULL").collect(Collectors.joining(" AND "));
+        return "UPDATE " + CHECKED_TABLE + " c SET error = 'Duplicate key (" + String.join(", ", naturalKey) +
+                "): already in the ledger or earlier in the file', " +
+                "error_type = '" + ImportErrorType.DUPLICATE_KEY.name() + "' " +
+                "WHERE c.error IS NULL AND " + present + " AND (" +
+                "EXISTS (SELECT 1 FROM " + tableName + " t WHERE t.company_id = ? AND " + keyMatch("t") + ") OR " +
+                "EXISTS (SELECT 1 FROM " + CHECKED_TABLE + " e WHERE e.error IS NULL AND " + keyMatch("e") +
+                " AND e.record_number < c.record_number))";
+    }
+
+    /**
+     * Merges the rows without an error as {@link #mergeSql(long, int)} does. A table with a
+     * natural key inserts through {@code ON CONFLICT} on it, so a key inserted by a concurrent
+     * import since its duplicates were failed is skipped rather than failing the merge. In
+     * the modes other than {@link ImportMode#APPEND}, a row whose natural key repeats an
+     * earlier one in the file is dropped first, or for {@link ImportMode#UPSERT} the earlier
+     * one is. The statement is then a query returning the numbers of rows inserted and
+     * updated; an upsert leaves rows that would not change alone.
+     *
+     * @param validRows the number of rows without an error
+     * @param increment the increment of the ID sequence
+     * @param mode how rows already in the ledger are treated
+     * @return the SQL, with the company ID as its only parameter
+     * @throws IllegalStateException if the mode needs a natural key and the table has none
+     */
+    String mergeSql(long validRows, int increment, ImportMode mode) {
+        if (mode != ImportMode.APPEND && !hasNaturalKey()) {
+            throw new IllegalStateException(tableName + " has no natural key to merge on");
+        }
+        long blocks = (validRows + increment - 1) / increment + 1;
+        String columns = String.join(", ", values.keySet());
+        String valid = CHECKED_TABLE + " c WHERE c.error IS NULL";
+        if (mode != ImportMode.APPEND) {
+            String keys = naturalKey.stream().map(column -> "c." + column).collect(Collectors.joining(", "));
+            String blankKey = naturalKey.stream().map(column -> "c." + column + " IS NULL").collect(Collectors.joining(" OR "));
+            valid = "(SELECT c.*, ROW_NUMBER() OVER (PARTITION BY " + keys + " ORDER BY c.record_number" +
+                    (mode == ImportMode.UPSERT ? " DESC" : "") + ") AS key_rank " +
+                    "  FROM " + valid + ") c WHERE c.key_rank = 1 OR " + blankKey;
+        }
+        String insert = "INSERT INTO " + tableName + " AS t (id, company_id, " + columns + ", created_at, updated_at) " +
+                "SELECT b.hi - " + (increment - 1) + " + c.rn % " + increment + ", ?, " +
+                values.keySet().stream().map(column -> "c." + column).collect(Collectors.joining(", ")) +
+                ", LOCALTIMESTAMP, LOCALTIMESTAMP " +
+                "FROM valid c JOIN blocks b ON b.block = c.rn / " + increment;
+        String sql = "WITH valid AS (SELECT c.*, ROW_NUMBER() OVER (ORDER BY c.record_number) - 1 AS rn " +
+                "  FROM " + valid + "), " +
+                "blocks AS (SELECT ROW_NUMBER() OVER (ORDER BY v.hi) - 1 AS block, v.hi " +
+                "  FROM (SELECT nextval('" + getSequenceName() + "') AS hi FROM generate_series(1, " + blocks + ")) v " +
+                "  WHERE v.hi >= " + increment + ") ";
+        if (!hasNaturalKey()) {
+            return sql + insert;
+        }
+        String conflict = " ON CONFLICT (company_id, " + String.join(", ", naturalKey) + ") ";
+        if (mode != ImportMode.UPSERT) {
+            conflict += "DO NOTHING";
+        } else {
+            List<String> updated = values.keySet().stream().filter(column -> !naturalKey.contains(column)).toList();
+            conflict += "DO UPDATE SET " +
+                    updated.stream().map(column -> column + " = EXCLUDED." + column).collect(Collectors.joining(", ")) +
+                    ", updated_at = LOCALTIMESTAMP " +
+                    "WHERE (" + updated.stream().map(column -> "t." + column).collect(Collectors.joining(", ")) + ") " +
+                    "IS DISTINCT FROM (" + updated.stream().map(column -> "EXCLUDED." + column).collect(Collectors.joining(", ")) + ")";
+        }
+        // xmax is only set on the row versions an upsert updated
+        return sql + ", merged AS (" + insert + conflict + " RETURNING (t.xmax = 0) AS inserted) " +
+                "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged";
+    }
+
+    /**
+     * @return the condition that the row of the alias has the natural key of the checked row
+     */
+    private String keyMatch(String alias) {
+        return naturalKey.stream().map(column -> alias + "." + column + " = c." + column).collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * The columns, after the company, of the unique index rows are matched on.
+     */
+    private CopyImportTable naturalKey(String... columns) {
+        naturalKey.addAll(List.of(columns));
+        return this;
+    }
+
+    private CopyImportTable stage(String column, boolean required) {
+        stagedColumns.add(column);
+        if (required) {
+            requiredColumns.add(column);
+            check(source(column) + " IS NULL", ImportErrorType.MISSING_VALUE, "'Missing value for column " + column + "'");
+        }
+        return this;
+    }
+
+    private void check(String condition, ImportErrorType type, String message) {
+        checks.add("WHEN " + condition + " THEN " + message);
+        checkTypes.add("WHEN " + condition + " THEN '" + type.name() + "'");
+    }
+
+    private CopyImportTable text(String column, int maxLength, boolean required) {
+        stage(column, required);
+        if (maxLength > 0) {
+            check("length(" + source(column) + ") > " + maxLength, ImportErrorType.INVALID_VALUE,
+                    "'Value too long for column " + column + " (maximum " + maxLength + " characters)'");
+        }
+        values.put(column, source(column));
+        return this;
+    }
+
+    private CopyImportTable decimal(String column, int integerDigits, boolean required) {
+        stage(column, required);
+        checkNumber(column, source(column), integerDigits);
+        values.put(column, number(source(column)));
+        return this;
+    }
+
+    private CopyImportTable integer(String column, boolean required) {
+        stage(column, required);
+        String value = "(CASE WHEN " + source(column) + " !~ " + INTEGER_PATTERN + " THEN NULL " +
+                "WHEN " + source(column) + "::BIGINT BETWEEN " + Integer.MIN_VALUE + " AND " + Integer.MAX_VALUE +
+                " THEN " + source(column) + "::INTEGER END)";
+        check(source(column) + " IS NOT NULL AND " + value + " IS NULL", ImportErrorType.INVALID_NUMBER,
+                "'Invalid integer: ' || " + source(column));
+        values.put(column, value);
+        return this;
+    }
+
+    /**
+     * Dates are parsed like the yyyy-MM-dd formatter of the row-by-row import, which clips a
+     * day past the end of the month to its last day.
+     */
+    private CopyImportTable date(String column, boolean required) {
+        stage(column, required);
+        String year = "substr(" + source(column) + ", 1, 4)::INTEGER";
+        String month = "substr(" + source(column) + ", 6, 2)::INTEGER";
+        String day = "substr(" + source(column) + ", 9, 2)::INTEGER";
+        String firstOfMonth = "make_date(" + year + ", " + month + ", 1)";
+        String value = "(CASE WHEN " + source(column) + " !~ " + DATE_PATTERN + " THEN NULL " +
+                "WHEN " + year + " = 0 OR " + month + " NOT BETWEEN 1 AND 12 OR " + day + " NOT BETWEEN 1 AND 31 THEN NULL " +
+                "ELSE LEAST(" + firstOfMonth + " + (" + day + " - 1), " +
+                "(" + firstOfMonth + " + INTERVAL '1 month - 1 day')::DATE) END)";
+        check(source(column) + " IS NOT NULL AND " + value + " IS NULL", ImportErrorType.INVALID_DATE,
+                "'Invalid date format: ' || " + source(column) + " || '. Expected format: yyyy-MM-dd'");
+        values.put(column, value);
+        return this;
+    }
+
+    private CopyImportTable enumeration(String column, Enum<?>[] constants, String message) {
+        stage(column, true);
+        check("upper(" + source(column) + ") NOT IN (" + names(constants) + ")", ImportErrorType.INVALID_VALUE,
+                "'" + message + "' || " + source(column));
+        values.put(column, "upper(" + source(column) + ")");
+        return this;
+    }
+
+    private CopyImportTable enumerationOrDefault(String column, Enum<?>[] constants, Enum<?> defaultValue) {
+        stage(column, false);
+        values.put(column, "CASE WHEN upper(" + source(column) + ") IN (" + names(constants) + ") " +
+                "THEN upper(" + source(column) + ") ELSE '" + defaultValue.name() + "' END");
+        return this;
+    }
+
+    /**
+     * An empty tax amount counts as zero, like a missing column.
+     */
+    private CopyImportTable taxAmount(String column) {
+        stagedColumns.add(column);
+        String present = "NULLIF(" + source(column) + ", '')";
+        checkNumber(column, present, AMOUNT_DIGITS);
+        values.put(column, "COALESCE(" + number(present) + ", 0)");
+        return this;
+    }
+
+    /**
+     * The amount in base currency is taken from its own column if the file has one, else
+     * converted with the exchange rate if the file has one, else the amount itself.
+     */
+    private CopyImportTable baseCurrencyAmount(String column, String amountColumn) {
+        decimal("exchange_rate", RATE_DIGITS, false);
+        stage(column, false);
+        checkNumber(column, source(column), AMOUNT_DIGITS);
+        String value = "COALESCE(" + number(source(column)) + ", " +
+                number(source(amountColumn)) + " * " + number(source("exchange_rate")) + ", " +
+                number(source(amountColumn)) + ")";
+        check("abs(" + value + ") >= 1e" + AMOUNT_DIGITS, ImportErrorType.INVALID_NUMBER,
+                "'Numeric field overflow for column " + column + "'");
+        values.put(column, value);
+        return this;
+    }
+
+    /**
+     * A blank cash account ID is skipped; any other must name a cash account of the company. A row
+     * without an ID may name one of the company's cash accounts by its account number instead,
+     * the first of them if the company repeats it.
+     */
+    private CopyImportTable cashAccount(String column, String numberColumn) {
+        stagedColumns.add(column);
+        stagedColumns.add(numberColumn);
+        String present = "(CASE WHEN btrim(" + source(column) + ") <> '' THEN " + source(column) + " END)";
+        String id = "(CASE WHEN " + present + " ~ " + ID_PATTERN + " THEN " + present + "::BIGINT END)";
+        String number = "NULLIF(btrim(" + source(numberColumn) + "), '')";
+        check(present + " IS NOT NULL AND " + id + " IS NULL", ImportErrorType.INVALID_NUMBER,
+                "'Invalid cash account id: ' || " + source(column));
+        check(id + " IS NOT NULL AND ca.id IS NULL", ImportErrorType.UNKNOWN_REFERENCE,
+                "'Cash account not found with id: ' || " + source(column));
+        check(present + " IS NULL AND " + number + " IS NOT NULL AND can.id IS NULL", ImportErrorType.UNKNOWN_REFERENCE,
+                "'Cash account not found with account number: ' || " + number);
+        joins.add("LEFT JOIN cash_accounts ca ON ca.id = " + id + " AND ca.company_id = ?");
+        joins.add("LEFT JOIN LATERAL (SELECT a.id FROM cash_accounts a WHERE a.company_id = ? AND a.account_number = " + number +
+                " AND " + present + " IS NULL ORDER BY a.id LIMIT 1) can ON TRUE");
+        companyParameters += 2;
+        values.put(column, "COALESCE(ca.id, can.id)");
+        return this;
+    }
+
+    private void checkNumber(String column, String value, int integerDigits) {
+        check(value + " !~ " + NUMBER_PATTERN, ImportErrorType.INVALID_NUMBER, "'Invalid number: ' || " + value);
+        check("abs(" + number(value) + ") >= 1e" + integerDigits, ImportErrorType.INVALID_NUMBER,
+                "'Numeric field overflow for column " + column + "'");
+    }
+
+    private static String number(String value) {
+        return "(CASE WHEN " + value + " ~ " + NUMBER_PATTERN + " THEN " + value + "::NUMERIC END)";
+    }
+
+    private static String source(String column) {
+        return "s." + column;
+    }
+
+    private static String names(Enum<?>[] constants) {
+        return Arrays.stream(constants)
+                .map(constant -> "'" + constant.name() + "'")
+                .collect(Collectors.joining(", "));
+    }
+}
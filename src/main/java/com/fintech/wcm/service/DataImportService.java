@@ -1,8 +1,17 @@
 package com.fintech.wcm.service;
 
+import com.fintech.wcm.dto.ImportCapacityDto;
 import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.dto.ScheduledImportRunDto;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.List;
+
 /**
  * Service interface for data import operations.
  */
@@ -54,7 +63,99 @@ public interface DataImportService {
     ImportResultDto importInventory(Long companyId, MultipartFile file);
     
     /**
-     * Connect to QuickBooks and import data.
+     * Import a CSV file of any ledger, treating rows already imported as the mode says.
+     * 
+     * @param companyId the company ID
+     * @param importType the ledger to import
+     * @param mode how rows whose natural key is already in the ledger are treated; the
+     *             row-by-row import cannot upsert
+     * @param file the CSV file
+     * @return the import result
+     */
+    ImportResultDto importFile(Long companyId, ImportType importType, ImportMode mode, MultipartFile file);
+    
+    /**
+     * Import a ZIP bundle of CSV files, one per ledger, each named after its ledger, such as
+     * cash_accounts.csv and invoices.csv. Every file is imported after the files of the
+     * ledgers its rows refer to, and the others at once, each row by row in chunks of its own.
+     * 
+     * @param companyId the company ID
+     * @param mode how rows whose natural key is already in a ledger are treated; the
+     *             row-by-row import cannot upsert
+     * @param file the ZIP file
+     * @return the combined result, with the result of each file as its parts
+     */
+    ImportResultDto importBundle(Long companyId, ImportMode mode, MultipartFile file);
+    
+    /**
+     * Import a CSV file streamed in a request body, parsing it while it arrives. The body may
+     * be compressed with gzip or zstd, as its content encoding says or its first bytes show.
+     * Nothing is buffered beyond a chunk of rows, so files of any size import in constant
+     * memory, but the import cannot be resumed.
+     * 
+     * @param companyId the company ID
+     * @param importType the ledger to import
+     * @param mode how rows whose natural key is already in the ledger are treated
+     * @param bulk whether to load the file with PostgreSQL COPY instead of JPA
+     * @param fileName the name of the file, for the result
+     * @param body the request body; not closed
+     * @param contentLength the length of the body, or -1 if unknown
+     * @param contentEncoding the content encoding of the body, or null
+     * @param charset the name of the charset of the CSV
+     * @return the import result
+     */
+    ImportResultDto importStream(Long companyId, ImportType importType, ImportMode mode, boolean bulk, String fileName,
+                                 InputStream body, long contentLength, String contentEncoding, String charset);
+    
+    /**
+     * Import a CSV file on disk of any ledger. Files above the parallel threshold are parsed
+     * on several cores. The import saves a checkpoint with every chunk it commits; importing
+     * the same file again resumes after the checkpoint, or saves nothing if the earlier
+     * import got through the whole file.
+     * 
+     * @param companyId the company ID
+     * @param importType the ledger to import
+     * @param mode how rows whose natural key is already in the ledger are treated; the
+     *             row-by-row import cannot upsert
+     * @param fileName the name of the file, for the result
+     * @param file the file
+     * @param progress receives the progress and carries cancellation
+     * @return the import result
+     */
+    ImportResultDto importCsvFile(Long companyId, ImportType importType, ImportMode mode, String fileName, Path file,
+                                  ImportProgress progress);
+    
+    /**
+     * Bulk load a CSV file with PostgreSQL COPY, bypassing JPA. Rows are checked and
+     * converted like the row-by-row imports and reported in the same result.
+     * 
+     * @param companyId the company ID
+     * @param importType the ledger to load
+     * @param mode how rows whose natural key is already in the ledger are treated
+     * @param file the CSV file
+     * @return the import result
+     */
+    ImportResultDto bulkImport(Long companyId, ImportType importType, ImportMode mode, MultipartFile file);
+    
+    /**
+     * Bulk load a CSV file with PostgreSQL COPY, publishing progress as records are read.
+     * Cancelling the progress rolls the whole load back.
+     * 
+     * @param companyId the company ID
+     * @param importType the ledger to load
+     * @param mode how rows whose natural key is already in the ledger are treated
+     * @param fileName the name of the file, for the result
+     * @param input the file contents; not closed
+     * @param charset the charset of the file
+     * @param progress receives the progress and carries cancellation
+     * @return the import result
+     */
+    ImportResultDto bulkImportCsv(Long companyId, ImportType importType, ImportMode mode, String fileName, InputStream input,
+                                  Charset charset, ImportProgress progress);
+    
+    /**
+     * Connect to QuickBooks and sync the invoices and bills changed since the last sync. The
+     * connection is kept for scheduled QUICKBOOKS imports.
      * 
      * @param companyId the company ID
      * @param accessToken the QuickBooks access token
@@ -65,7 +166,8 @@ public interface DataImportService {
     ImportResultDto importFromQuickBooks(Long companyId, String accessToken, String refreshToken, String realmId);
     
     /**
-     * Connect to Xero and import data.
+     * Connect to Xero and sync the invoices changed since the last sync. The connection is
+     * kept for scheduled XERO imports.
      * 
      * @param companyId the company ID
      * @param accessToken the Xero access token
@@ -90,4 +192,19 @@ public interface DataImportService {
      * @param jobId the job ID
      */
     void cancelScheduledImportJob(String jobId);
+    
+    /**
+     * Get the most recent runs of a scheduled import job.
+     * 
+     * @param jobId the job ID
+     * @return the runs, newest first
+     */
+    List<ScheduledImportRunDto> getScheduledImportRuns(String jobId);
+    
+    /**
+     * Get how many imports are running and queued, and how saturated the connection pools are.
+     * 
+     * @return the import capacity
+     */
+    ImportCapacityDto getImportCapacity();
 }
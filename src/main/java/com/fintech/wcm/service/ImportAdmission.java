@@ -0,0 +1,341 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.config.PoolRoutingDataSource;
+import com.fintech.wcm.config.PoolRoutingDataSource.Pool;
+import com.fintech.wcm.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead that admits imports to run: at most a number at once across all companies, and
+ * fewer for any one company, so one company's big import neither starves the others nor
+ * ties up the connections dashboard requests need. Imports over a cap wait in a bounded
+ * queue and are admitted in the order they arrived, except that those of a company at its
+ * cap are passed over until one of its imports finishes. An admitted import borrows its
+ * connections from the import pool.
+ */
+@Component
+public class ImportAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportAdmission.class);
+
+    private final int maxConcurrent;
+    private final int maxConcurrentPerCompany;
+    private final int queueCapacity;
+    private final Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition admitted = lock.newCondition();
+    private final LinkedList<Ticket> queue = new LinkedList<>();
+    private final Map<Long, Integer> runningByCompany = new HashMap<>();
+    private int running;
+    private long admissions;
+    private long rejections;
+    private long timeouts;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    public ImportAdmission(
+            @Value("${app.import.admission.max-concurrent:4}") int maxConcurrent,
+            @Value("${app.import.admission.max-concurrent-per-company:1}") int maxConcurrentPerCompany,
+            @Value("${app.import.admission.queue-capacity:20}") int queueCapacity,
+            @Value("${app.import.admission.max-wait:30s}") Duration maxWait) {
+        if (maxConcurrent <= 0 || maxConcurrentPerCompany <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Import admission limits must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxConcurrentPerCompany = Math.min(maxConcurrentPerCompany, maxConcurrent);
+        this.queueCapacity = queueCapacity;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * @return the most imports run at once
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Run an import on the calling thread once admitted, waiting at most the configured time.
+     *
+     * @param companyId the company importing
+     * @param work the import
+     * @return the result of the import
+     * @throws ServiceUnavailableException if the queue is full or the import is not admitted in time
+     */
+    public <T> T run(Long companyId, Supplier<T> work) {
+        return run(companyId, maxWait, work);
+    }
+
+    /**
+     * Run an import on the calling thread once admitted.
+     *
+     * @param companyId the company importing
+     * @param maxWait how long to wait to be admitted, or null to wait as long as it takes
+     * @param work the import
+     * @return the result of the import
+     * @throws ServiceUnavailableException if the queue is full or the import is not admitted in time
+     * @throws CancellationException if interrupted while waiting
+     */
+    public <T> T run(Long companyId, Duration maxWait, Supplier<T> work) {
+        Ticket ticket = enqueue(companyId, null, null);
+        if (ticket == null) {
+            throw new ServiceUnavailableException("Too many imports are queued; try again later");
+        }
+        try {
+            if (!await(ticket, maxWait)) {
+                throw new ServiceUnavailableException("Too many imports are running; try again later");
+            }
+        } catch (InterruptedException e) {
+            // Admitted after the interrupt but before the wait returned: give the slot back
+            if (!ticket.withdraw()) {
+                release(ticket);
+            }
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting to import");
+        }
+        return ticket.runAdmitted(work);
+    }
+
+    /**
+     * Queue an import to run on an executor once admitted.
+     *
+     * @param companyId the company importing
+     * @param executor the executor to run the import on, which must not turn it away
+     * @param work the import
+     * @return the ticket of the import, to follow its position in the queue by
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Ticket submit(Long companyId, Executor executor, Runnable work) {
+        Ticket ticket = enqueue(companyId, executor, work);
+        if (ticket == null) {
+            throw new RejectedExecutionException("Too many imports are queued");
+        }
+        return ticket;
+    }
+
+    /**
+     * Get the statistics of the imports admitted since startup and of those running and
+     * queued now.
+     *
+     * @return the statistics
+     */
+    public Stats getStatistics() {
+        lock.lock();
+        try {
+            return new Stats(maxConcurrent, maxConcurrentPerCompany, queueCapacity, running, queue.size(),
+                    admissions, rejections, timeouts,
+                    admissions == 0 ? 0 : millis(totalWaitNanos) / admissions, millis(maxWaitNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The state of the bulkhead.
+     */
+    @lombok.Value
+    public static class Stats {
+        int maxConcurrent;
+        int maxConcurrentPerCompany;
+        int queueCapacity;
+        int running;
+        int queued;
+        long admitted;
+        long rejected;  // turned away because the queue was full
+        long timedOut;  // gave up waiting to be admitted
+        double meanWaitMillis;
+        double maxWaitMillis;
+    }
+
+    private Ticket enqueue(Long companyId, Executor executor, Runnable work) {
+        List<Ticket> started;
+        Ticket ticket = new Ticket(companyId, executor, work);
+        lock.lock();
+        try {
+            if (queue.size() >= queueCapacity && !canAdmit(companyId)) {
+                rejections++;
+                logger.warn("Turned away an import for company {}: {} imports queued", companyId, queue.size());
+                return null;
+            }
+            queue.add(ticket);
+            started = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        started.forEach(Ticket::start);
+        return ticket;
+    }
+
+    private boolean await(Ticket ticket, Duration maxWait) throws InterruptedException {
+        long remaining = maxWait == null ? Long.MAX_VALUE : maxWait.toNanos();
+        lock.lock();
+        try {
+            while (ticket.state == State.QUEUED) {
+                if (maxWait == null) {
+                    admitted.await();
+                } else if (remaining <= 0) {
+                    queue.remove(ticket);
+                    ticket.state = State.WITHDRAWN;
+                    timeouts++;
+                    return false;
+                } else {
+                    remaining = admitted.awaitNanos(remaining);
+                }
+            }
+            return ticket.state == State.ADMITTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(Long companyId) {
+        return running < maxConcurrent && runningByCompany.getOrDefault(companyId, 0) < maxConcurrentPerCompany;
+    }
+
+    /**
+     * Admits the queued imports there is room for, in order, passing over those of companies
+     * at their cap. Called with the lock held; the imports admitted to run on an executor are
+     * returned to be started once it is released.
+     */
+    private List<Ticket> dispatch() {
+        List<Ticket> started = new ArrayList<>();
+        boolean any = false;
+        for (var iterator = queue.iterator(); iterator.hasNext() && running < maxConcurrent; ) {
+            Ticket ticket = iterator.next();
+            if (!canAdmit(ticket.companyId)) {
+                continue;
+            }
+            iterator.remove();
+            running++;
+            runningByCompany.merge(ticket.companyId, 1, Integer::sum);
+            long waited = System.nanoTime() - ticket.queuedAt;
+            admissions++;
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+            ticket.state = State.ADMITTED;
+            any = true;
+            if (ticket.executor != null) {
+                started.add(ticket);
+            }
+        }
+        if (any) {
+            admitted.signalAll();
+        }
+        return started;
+    }
+
+    private void release(Ticket ticket) {
+        List<Ticket> started;
+        lock.lock();
+        try {
+            if (ticket.state != State.ADMITTED) {
+                return;
+            }
+            ticket.state = State.RELEASED;
+            running--;
+            runningByCompany.computeIfPresent(ticket.companyId, (companyId, count) -> count == 1 ? null : count - 1);
+            started = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        started.forEach(Ticket::start);
+    }
+
+    private static double millis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private enum State {
+        QUEUED,
+        ADMITTED,
+        RELEASED,
+        WITHDRAWN
+    }
+
+    /**
+     * An import waiting for, or holding, a place among those running.
+     */
+    public final class Ticket {
+
+        private final Long companyId;
+        private final Executor executor;  // null if the import runs on the thread waiting for it
+        private final Runnable work;
+        private final long queuedAt = System.nanoTime();
+        private State state = State.QUEUED;
+
+        private Ticket(Long companyId, Executor executor, Runnable work) {
+            this.companyId = companyId;
+            this.executor = executor;
+            this.work = work;
+        }
+
+        /**
+         * @return the place of the import in the queue, from 1, or 0 once it has been admitted
+         */
+        public int getPosition() {
+            lock.lock();
+            try {
+                return state == State.QUEUED ? queue.indexOf(this) + 1 : 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Take the import out of the queue if it has not been admitted yet.
+         *
+         * @return true if it was still queued, and so will never run
+         */
+        public boolean withdraw() {
+            lock.lock();
+            try {
+                if (state != State.QUEUED) {
+                    return false;
+                }
+                queue.remove(this);
+                state = State.WITHDRAWN;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private <T> T runAdmitted(Supplier<T> work) {
+            try (PoolRoutingDataSource.Scope scope = PoolRoutingDataSource.use(Pool.IMPORT)) {
+                return work.get();
+            } finally {
+                release(this);
+            }
+        }
+
+        private void start() {
+            try {
+                executor.execute(() -> runAdmitted(() -> {
+                    work.run();
+                    return null;
+                }));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Import for company {} admitted but not started: {}", companyId, e.getMessage());
+                release(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.ImportType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The CSV files of an import bundle: a ZIP archive holding a file for each of some import
+ * types, such as the ledgers of a month-end close, each named after its type, such as
+ * {@code cash_accounts.csv} or {@code invoices.csv}. The files are extracted to a temporary
+ * directory, deleted when the bundle is closed.
+ *
+ * The files are imported in stages, so every file is imported after the files of the types
+ * its rows refer to, such as cash transactions after the cash accounts they name; the files
+ * of one stage refer to none of each other's rows and can be imported at once.
+ */
+public final class ImportBundle implements AutoCloseable {
+
+    /** The import types whose rows refer to rows of other types, and those types */
+    static final Map<ImportType, Set<ImportType>> DEPENDENCIES = Map.of(
+            ImportType.CASH_TRANSACTIONS, EnumSet.of(ImportType.CASH_ACCOUNTS));
+
+    /** Bytes extracted from a bundle before it is refused, however well it compresses */
+    static final long MAX_EXTRACTED_BYTES = 1L << 30;
+
+    /** File names, without the extension, that name an import type other than by its own name */
+    private static final Map<String, ImportType> ALIASES = Map.of(
+            "transactions", ImportType.CASH_TRANSACTIONS,
+            "ar", ImportType.ACCOUNTS_RECEIVABLE,
+            "ap", ImportType.ACCOUNTS_PAYABLE);
+
+    /**
+     * A file of the bundle.
+     *
+     * @param name the name of the file in the bundle
+     * @param path where it was extracted to
+     */
+    public record BundleFile(String name, Path path) {
+    }
+
+    private final Path directory;
+    private final Map<ImportType, BundleFile> files = new EnumMap<>(ImportType.class);
+    private final List<String> ignored = new ArrayList<>();
+
+    private ImportBundle(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Extract the CSV files of a bundle to a new temporary directory.
+     *
+     * @param zip the ZIP archive
+     * @return the bundle, to be closed when imported
+     * @throws IOException if the archive cannot be read or extracted
+     * @throws BadRequestException if it holds no file of an import type, two of one type, or too much
+     */
+    public static ImportBundle extract(InputStream zip) throws IOException {
+        return extract(zip, MAX_EXTRACTED_BYTES);
+    }
+
+    static ImportBundle extract(InputStream zip, long maxBytes) throws IOException {
+        ImportBundle bundle = new ImportBundle(Files.createTempDirectory("wcm-bundle-"));
+        try {
+            bundle.read(new ZipInputStream(zip), maxBytes);
+        } catch (IOException | RuntimeException e) {
+            bundle.close();
+            throw e;
+        }
+        if (bundle.files.isEmpty()) {
+            bundle.close();
+            throw new BadRequestException("The bundle holds no CSV file named after an import type, such as invoices.csv");
+        }
+        return bundle;
+    }
+
+    private void read(ZipInputStream zip, long maxBytes) throws IOException {
+        long extracted = 0;
+        byte[] buffer = new byte[64 * 1024];
+        for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+            String name = entry.getName();
+            if (entry.isDirectory() || name.startsWith("__MACOSX/") || baseName(name).startsWith(".")) {
+                continue;
+            }
+            ImportType importType = typeOf(name);
+            if (importType == null) {
+                ignored.add(name);
+                continue;
+            }
+            BundleFile earlier = files.get(importType);
+            if (earlier != null) {
+                throw new BadRequestException("The bundle holds two files of " + importType.getDescription() + ": " +
+                        earlier.name() + " and " + name);
+            }
+
+            // Written under a name of our own, so entry names cannot reach outside the directory
+            Path path = directory.resolve(importType.name().toLowerCase(Locale.ROOT) + ".csv");
+            try (OutputStream out = Files.newOutputStream(path)) {
+                for (int read; (read = zip.read(buffer)) > 0; ) {
+                    extracted += read;
+                    if (extracted > maxBytes) {
+                        throw new BadRequestException("The bundle extracts to more than " + maxBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            files.put(importType, new BundleFile(name, path));
+        }
+    }
+
+    /**
+     * @return the import type a file of the bundle is named after, ignoring case, directories
+     *         and whether words are joined by underscores, hyphens or spaces, or null if none
+     */
+    static ImportType typeOf(String entryName) {
+        String name = baseName(entryName).toLowerCase(Locale.ROOT);
+        if (!name.endsWith(".csv")) {
+            return null;
+        }
+        name = name.substring(0, name.length() - 4).replace('-', '_').replace(' ', '_');
+        for (ImportType importType : ImportType.values()) {
+            if (importType.name().toLowerCase(Locale.ROOT).equals(name)) {
+                return importType;
+            }
+        }
+        return ALIASES.get(name);
+    }
+
+    private static String baseName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * @return the files of the bundle, by import type
+     */
+    public Map<ImportType, BundleFile> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return the names of the files that are not named after an import type, and so are not imported
+     */
+    public List<String> getIgnored() {
+        return ignored;
+    }
+
+    /**
+     * @return the import types of the bundle in stages, each after those of the types its
+     *         rows refer to
+     */
+    public List<List<ImportType>> getStages() {
+        return stages(files.keySet());
+    }
+
+    /**
+     * Group import types into stages: the first holds the types that refer to none of the
+     * others, each later one the types that refer only to types of earlier stages. A type
+     * that refers to a type not among them refers to rows already imported, and so does
+     * not wait for it.
+     *
+     * @param importTypes the import types
+     * @return the stages, each in import type order
+     */
+    static List<List<ImportType>> stages(Set<ImportType> importTypes) {
+        List<List<ImportType>> stages = new ArrayList<>();
+        Set<ImportType> done = EnumSet.noneOf(ImportType.class);
+        Set<ImportType> remaining = importTypes.isEmpty() ? EnumSet.noneOf(ImportType.class) : EnumSet.copyOf(importTypes);
+        while (!remaining.isEmpty()) {
+            List<ImportType> stage = remaining.stream()
+                    .filter(importType -> dependenciesOf(importType).stream()
+                            .allMatch(dependency -> done.contains(dependency) || !importTypes.contains(dependency)))
+                    .toList();
+            if (stage.isEmpty()) {
+                throw new IllegalStateException("Import types refer to each other in a cycle: " + remaining);
+            }
+            stages.add(stage);
+            done.addAll(stage);
+            stage.forEach(remaining::remove);
+        }
+        return stages;
+    }
+
+    /**
+     * @param importType an import type
+     * @return the import types its rows refer to
+     */
+    public static Set<ImportType> dependenciesOf(ImportType importType) {
+        return DEPENDENCIES.getOrDefault(importType, Set.of());
+    }
+
+    /**
+     * Delete the extracted files.
+     */
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.ImportCheckpoint;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.repository.ImportCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the checkpoints of resumable CSV imports.
+ *
+ * A file is identified by the SHA-256 of its contents, per company and import type, so
+ * importing the same file again, under any name, picks up where the last import of it
+ * stopped. A checkpoint is claimed by one import at a time on this instance.
+ */
+@Component
+public class ImportCheckpoints {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportCheckpoints.class);
+
+    private final ImportCheckpointRepository importCheckpointRepository;
+    private final Set<Long> claimed = ConcurrentHashMap.newKeySet();
+
+    public ImportCheckpoints(ImportCheckpointRepository importCheckpointRepository) {
+        this.importCheckpointRepository = importCheckpointRepository;
+    }
+
+    /**
+     * Find the checkpoint of a file, or start one at its beginning, and claim it.
+     *
+     * @param companyId the company the file is imported for
+     * @param importType the import type
+     * @param fileName the name of the file
+     * @param file the file
+     * @return the claimed checkpoint; release it when the import ends
+     * @throws IOException if the file cannot be read
+     * @throws BadRequestException if the file is already being imported
+     */
+    public ImportCheckpoint claim(Long companyId, ImportType importType, String fileName, Path file) throws IOException {
+        String fileHash = sha256(file);
+        long fileSize = Files.size(file);
+        ImportCheckpoint checkpoint = importCheckpointRepository
+                .findByCompanyIdAndImportTypeAndFileHash(companyId, importType, fileHash)
+                .orElseGet(() -> start(companyId, importType, fileHash, fileName, fileSize));
+        if (!claimed.add(checkpoint.getId())) {
+            throw new BadRequestException("File " + fileName + " is already being imported");
+        }
+        if (checkpoint.getRowNumber() > 0 && !checkpoint.isCompleted()) {
+            logger.info("Resuming {} import of {} for company {} after record {}", importType, fileName,
+                    companyId, checkpoint.getRowNumber());
+        }
+        return checkpoint;
+    }
+
+    public void release(ImportCheckpoint checkpoint) {
+        claimed.remove(checkpoint.getId());
+    }
+
+    /**
+     * @return the checkpoint a {@link ChunkedImportWriter} advances with every commit
+     */
+    public ChunkedImportWriter.Checkpoint tracker(ImportCheckpoint checkpoint) {
+        Long id = checkpoint.getId();
+        return (recordNumber, endOffset, successfulRecords, skippedRecords) -> importCheckpointRepository.advance(id,
+                endOffset, recordNumber, successfulRecords, recordNumber - successfulRecords - skippedRecords,
+                skippedRecords, LocalDateTime.now());
+    }
+
+    /**
+     * Mark the whole file as imported, so importing it again saves nothing.
+     *
+     * @param checkpoint the claimed checkpoint
+     * @param result the result of the import
+     * @param fileSize the size of the file
+     */
+    public void complete(ImportCheckpoint checkpoint, ImportResultDto result, long fileSize) {
+        importCheckpointRepository.findById(checkpoint.getId()).ifPresent(stored -> {
+            stored.setByteOffset(fileSize);
+            stored.setRowNumber(result.getTotalRecords());
+            stored.setSuccessfulRecords(result.getSuccessfulRecords());
+            stored.setFailedRecords(result.getFailedRecords());
+            stored.setSkippedRecords(result.getSkippedRecords());
+            stored.setCompleted(true);
+            stored.setUpdatedAt(LocalDateTime.now());
+            importCheckpointRepository.save(stored);
+        });
+    }
+
+    private ImportCheckpoint start(Long companyId, ImportType importType, String fileHash, String fileName, long fileSize) {
+        ImportCheckpoint checkpoint = new ImportCheckpoint();
+        checkpoint.setCompanyId(companyId);
+        checkpoint.setImportType(importType);
+        checkpoint.setFileHash(fileHash);
+        checkpoint.setFileName(fileName);
+        checkpoint.setFileSize(fileSize);
+        checkpoint.setCreatedAt(LocalDateTime.now());
+        checkpoint.setUpdatedAt(checkpoint.getCreatedAt());
+        try {
+            return importCheckpointRepository.saveAndFlush(checkpoint);
+        } catch (DataIntegrityViolationException e) {
+            // Started concurrently by another import of the same file
+            return importCheckpointRepository.findByCompanyIdAndImportTypeAndFileHash(companyId, importType, fileHash)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * @return the SHA-256 of the file contents, in hex
+     */
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
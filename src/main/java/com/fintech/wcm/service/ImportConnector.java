@@ -0,0 +1,122 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.ConnectorConnection;
+import com.fintech.wcm.model.ImportType;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An accounting system, such as QuickBooks or Xero, that {@link ConnectorSync} pulls changed
+ * records from. A connector has feeds, each a kind of record it maps to the columns of a CSV
+ * import; the sync counts a feed's records modified in a window, fetches their pages
+ * concurrently and streams them into the bulk loader.
+ *
+ * Implementations are stateless beans; the connection of the company being synced is passed
+ * in. Times are UTC.
+ */
+public interface ImportConnector {
+
+    /**
+     * @return the source type, as scheduled, such as QUICKBOOKS
+     */
+    String getSourceType();
+
+    /**
+     * @return the feeds synced, in the order they are synced
+     */
+    List<Feed> getFeeds();
+
+    /**
+     * @return the page size and the request limits of the system's API, per tenant
+     */
+    Limits getLimits();
+
+    /**
+     * A kind of record of the accounting system.
+     */
+    interface Feed {
+
+        /**
+         * @return the name the sync cursor of the feed is kept under, such as Invoice
+         */
+        String getName();
+
+        /**
+         * @return the import type the records are loaded as
+         */
+        ImportType getImportType();
+
+        /**
+         * @return the CSV columns of the import type the fields of a record are mapped to
+         */
+        List<String> getColumns();
+
+        /**
+         * Count the records modified in a window.
+         *
+         * @param connection the company's connection
+         * @param window the window
+         * @return the number of records
+         * @throws RetryLaterException if the API is throttling or unavailable
+         * @throws IOException if the API cannot be called or rejects the call
+         */
+        long count(ConnectorConnection connection, Window window) throws IOException;
+
+        /**
+         * Fetch a page of the records modified in a window, least recently modified first.
+         *
+         * @param connection the company's connection
+         * @param window the window
+         * @param page the page, from 0
+         * @param pageSize the records per page
+         * @return the page
+         * @throws RetryLaterException if the API is throttling or unavailable
+         * @throws IOException if the API cannot be called or rejects the call
+         */
+        Page fetch(ConnectorConnection connection, Window window, int page, int pageSize) throws IOException;
+    }
+
+    /**
+     * The records modified at or after a time, or ever if it is null, and before another.
+     */
+    record Window(LocalDateTime modifiedFrom, LocalDateTime modifiedBefore) {
+    }
+
+    /**
+     * A page of records.
+     *
+     * @param rows the values of each record, in the order of the feed's columns
+     * @param lastModified when the last record was modified, or null if the page is empty
+     */
+    record Page(List<List<String>> rows, LocalDateTime lastModified) {
+    }
+
+    /**
+     * @param pageSize the records fetched per request
+     * @param maxConcurrentRequests the requests a tenant may have open at once
+     * @param requestsPerMinute the requests a tenant may make per minute
+     */
+    record Limits(int pageSize, int maxConcurrentRequests, int requestsPerMinute) {
+    }
+
+    /**
+     * The API asked for the request to be retried later, because it is throttling the tenant
+     * or briefly unavailable.
+     */
+    class RetryLaterException extends IOException {
+
+        private final Duration retryAfter;
+
+        public RetryLaterException(String message, Duration retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.ImportType;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The other names files may give the columns of each import type, such as the headers of the
+ * statement exports of different banks, from {@code app.import.header-aliases}: by import
+ * type, then by column, the list of aliases.
+ */
+@Component
+public class ImportHeaderAliases {
+
+    private final Map<ImportType, Map<String, List<String>>> aliases = new EnumMap<>(ImportType.class);
+
+    public ImportHeaderAliases(Environment environment) {
+        Binder binder = Binder.get(environment);
+        for (ImportType importType : ImportType.values()) {
+            String name = "app.import.header-aliases." + importType.name().toLowerCase().replace('_', '-');
+            Map<String, String[]> configured = binder.bind(name, Bindable.mapOf(String.class, String[].class))
+                    .orElse(Map.of());
+            if (configured.isEmpty()) {
+                continue;
+            }
+            Map<String, List<String>> columns = new HashMap<>();
+            for (String column : ImportMapping.forType(importType).getColumns()) {
+                // Map keys lose their underscores unless written in brackets
+                String[] names = configured.getOrDefault(column, configured.get(column.replace("_", "")));
+                if (names != null) {
+                    columns.put(column, Arrays.asList(names));
+                }
+            }
+            aliases.put(importType, Map.copyOf(columns));
+        }
+    }
+
+    /**
+     * @param importType the import type
+     * @return the aliases of its columns, by column name
+     */
+    public Map<String, List<String>> forType(ImportType importType) {
+        return aliases.getOrDefault(importType, Map.of());
+    }
+}
@@ -0,0 +1,60 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportJobDto;
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+/**
+ * Service interface for CSV imports that run in the background.
+ */
+public interface ImportJobService {
+    
+    /**
+     * Store an uploaded CSV file and queue its import.
+     * 
+     * @param companyId the company ID
+     * @param importType the ledger to import
+     * @param bulk whether to load the file with PostgreSQL COPY instead of JPA
+     * @param mode how rows whose natural key is already in the ledger are treated
+     * @param file the CSV file
+     * @return the queued job
+     */
+    ImportJobDto submit(Long companyId, ImportType importType, boolean bulk, ImportMode mode, MultipartFile file);
+    
+    /**
+     * Get a job with its live progress.
+     * 
+     * @param jobId the job ID
+     * @return the job
+     */
+    ImportJobDto getJob(String jobId);
+    
+    /**
+     * Get the most recent jobs of a company, newest first.
+     * 
+     * @param companyId the company ID
+     * @param limit the maximum number of jobs
+     * @return the jobs
+     */
+    List<ImportJobDto> getJobs(Long companyId, int limit);
+    
+    /**
+     * Get the stored result of a finished job.
+     * 
+     * @param jobId the job ID
+     * @return the import result
+     */
+    ImportResultDto getResult(String jobId);
+    
+    /**
+     * Cancel a job. A queued job never starts; a running job stops at the next record.
+     * 
+     * @param jobId the job ID
+     * @return the job
+     */
+    ImportJobDto cancel(String jobId);
+}
@@ -0,0 +1,413 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.InvalidRowException;
+import com.fintech.wcm.model.AccountsPayable;
+import com.fintech.wcm.model.AccountsReceivable;
+import com.fintech.wcm.model.CashAccount;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Inventory;
+import com.fintech.wcm.model.Invoice;
+import com.fintech.wcm.model.Transaction;
+import com.fintech.wcm.util.CsvHeader;
+import com.fintech.wcm.util.CsvRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * How the rows of a CSV file become the entities of one import type: for every field, the
+ * column it is read from, how the column is parsed, whether the file must have it and the
+ * value it takes when the file has not.
+ *
+ * A mapping is bound to the header of each file once, resolving every column to its position,
+ * by its name or else by one of the aliases other formats give it. The mapper it returns reads
+ * a row by those positions only, with no lookups by name and no reflection, and sets the
+ * fields through their setters. If the file lacks a required column, every row fails for the
+ * first one missing, as reading the column by name would.
+ *
+ * @param <T> the entity type
+ */
+public final class ImportMapping<T> {
+
+    /**
+     * Parses the value of a column of a row.
+     */
+    @FunctionalInterface
+    public interface ColumnParser<V> {
+        V parse(CsvRow row, int column);
+    }
+
+    public static final ColumnParser<String> TEXT = CsvRow::get;
+    /** Text whose blank value is stored as null, as the bulk import stores it, for natural key columns */
+    public static final ColumnParser<String> KEY_TEXT = (row, column) -> row.isBlank(column) ? null : row.get(column);
+    public static final ColumnParser<BigDecimal> DECIMAL = (row, column) -> {
+        try {
+            return row.getDecimal(column);
+        } catch (NumberFormatException e) {
+            throw invalidNumber(e);
+        }
+    };
+    public static final ColumnParser<Integer> INTEGER = (row, column) -> {
+        try {
+            return row.getInt(column);
+        } catch (NumberFormatException e) {
+            throw invalidNumber(e);
+        }
+    };
+    public static final ColumnParser<LocalDate> DATE = (row, column) -> {
+        try {
+            return row.getDate(column);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRowException(ImportErrorType.INVALID_DATE,
+                    "Invalid date format: " + row.get(column) + ". Expected format: yyyy-MM-dd");
+        }
+    };
+
+    private static final ImportMapping<CashAccount> CASH_ACCOUNTS = new ImportMapping<>(CashAccount::new, CashAccount::setCompany)
+            .required("account_name", TEXT, CashAccount::setAccountName)
+            .required("account_type", constant(CashAccount.AccountType.values(), "account type"), CashAccount::setAccountType)
+            .required("balance", DECIMAL, CashAccount::setBalance)
+            .required("currency_code", TEXT, CashAccount::setCurrencyCode)
+            .optional("account_number", KEY_TEXT, CashAccount::setAccountNumber)
+            .optional("bank_name", TEXT, CashAccount::setBankName)
+            .optional("notes", TEXT, CashAccount::setNotes)
+            .optional("exchange_rate", DECIMAL, CashAccount::setExchangeRate)
+            .optional("balance_base_currency", DECIMAL, CashAccount::setBalanceBaseCurrency)
+            .then(cashAccount -> {
+                if (cashAccount.getBalanceBaseCurrency() == null) {
+                    cashAccount.setBalanceBaseCurrency(baseCurrency(cashAccount.getBalance(), cashAccount.getExchangeRate()));
+                }
+            });
+
+    private static final ImportMapping<Transaction> CASH_TRANSACTIONS = new ImportMapping<>(Transaction::new, Transaction::setCompany)
+            .required("transaction_date", DATE, Transaction::setTransactionDate)
+            .required("amount", DECIMAL, Transaction::setAmount)
+            .required("description", TEXT, Transaction::setDescription)
+            .required("transaction_type", constant(Transaction.TransactionType.values(), "transaction type"), Transaction::setTransactionType)
+            .required("currency_code", TEXT, Transaction::setCurrencyCode)
+            .optional("reference_number", KEY_TEXT, Transaction::setReferenceNumber)
+            .optional("category", TEXT, Transaction::setCategory)
+            .optional("notes", TEXT, Transaction::setNotes)
+            .optional("exchange_rate", DECIMAL, Transaction::setExchangeRate)
+            .optional("amount_base_currency", DECIMAL, Transaction::setAmountBaseCurrency)
+            .optional("cash_account_number", ImportMapping::cashAccountNumber, Transaction::setCashAccount)
+            .optional("cash_account_id", ImportMapping::cashAccount, Transaction::setCashAccount)
+            .then(transaction -> {
+                if (transaction.getAmountBaseCurrency() == null) {
+                    transaction.setAmountBaseCurrency(baseCurrency(transaction.getAmount(), transaction.getExchangeRate()));
+                }
+            });
+
+    private static final ImportMapping<Invoice> INVOICES = new ImportMapping<>(Invoice::new, Invoice::setCompany)
+            .required("invoice_number", TEXT, Invoice::setInvoiceNumber)
+            .required("invoice_type", constant(Invoice.InvoiceType.values(), "invoice type"), Invoice::setInvoiceType)
+            .required("contact_name", TEXT, Invoice::setContactName)
+            .required("issue_date", DATE, Invoice::setIssueDate)
+            .required("due_date", DATE, Invoice::setDueDate)
+            .required("subtotal", DECIMAL, Invoice::setSubtotal)
+            .optional("tax_amount", DECIMAL, Invoice::setTaxAmount, BigDecimal.ZERO)
+            .required("total_amount", DECIMAL, Invoice::setTotalAmount)
+            .required("currency_code", TEXT, Invoice::setCurrencyCode)
+            .optional("contact_email", TEXT, Invoice::setContactEmail)
+            .optional("payment_terms", TEXT, Invoice::setPaymentTerms)
+            .optional("notes", TEXT, Invoice::setNotes)
+            .optional("status", constant(Invoice.InvoiceStatus.values()), Invoice::setStatus, Invoice.InvoiceStatus.SENT)
+            .optional("exchange_rate", DECIMAL, Invoice::setExchangeRate)
+            .optional("total_amount_base_currency", DECIMAL, Invoice::setTotalAmountBaseCurrency)
+            .then(invoice -> {
+                if (invoice.getTotalAmountBaseCurrency() == null) {
+                    invoice.setTotalAmountBaseCurrency(baseCurrency(invoice.getTotalAmount(), invoice.getExchangeRate()));
+                }
+            });
+
+    private static final ImportMapping<AccountsReceivable> ACCOUNTS_RECEIVABLE = new ImportMapping<>(AccountsReceivable::new, AccountsReceivable::setCompany)
+            .required("customer_name", TEXT, AccountsReceivable::setCustomerName)
+            .required("amount", DECIMAL, AccountsReceivable::setAmount)
+            .required("currency_code", TEXT, AccountsReceivable::setCurrencyCode)
+            .required("invoice_date", DATE, AccountsReceivable::setInvoiceDate)
+            .required("due_date", DATE, AccountsReceivable::setDueDate)
+            .required("invoice_number", TEXT, AccountsReceivable::setInvoiceNumber)
+            .required("status", constant(AccountsReceivable.ReceivableStatus.values(), "receivable status"), AccountsReceivable::setStatus)
+            .optional("notes", TEXT, AccountsReceivable::setNotes)
+            .optional("payment_terms", TEXT, AccountsReceivable::setPaymentTerms)
+            .optional("exchange_rate", DECIMAL, AccountsReceivable::setExchangeRate)
+            .optional("amount_base_currency", DECIMAL, AccountsReceivable::setAmountBaseCurrency)
+            .then(receivable -> {
+                if (receivable.getAmountBaseCurrency() == null) {
+                    receivable.setAmountBaseCurrency(baseCurrency(receivable.getAmount(), receivable.getExchangeRate()));
+                }
+            });
+
+    private static final ImportMapping<AccountsPayable> ACCOUNTS_PAYABLE = new ImportMapping<>(AccountsPayable::new, AccountsPayable::setCompany)
+            .required("vendor_name", TEXT, AccountsPayable::setVendorName)
+            .required("amount", DECIMAL, AccountsPayable::setAmount)
+            .required("currency_code", TEXT, AccountsPayable::setCurrencyCode)
+            .required("invoice_date", DATE, AccountsPayable::setInvoiceDate)
+            .required("due_date", DATE, AccountsPayable::setDueDate)
+            .required("invoice_number", TEXT, AccountsPayable::setInvoiceNumber)
+            .required("status", constant(AccountsPayable.PayableStatus.values(), "payable status"), AccountsPayable::setStatus)
+            .optional("category", TEXT, AccountsPayable::setCategory)
+            .optional("notes", TEXT, AccountsPayable::setNotes)
+            .optional("payment_terms", TEXT, AccountsPayable::setPaymentTerms)
+            .optional("exchange_rate", DECIMAL, AccountsPayable::setExchangeRate)
+            .optional("amount_base_currency", DECIMAL, AccountsPayable::setAmountBaseCurrency)
+            .then(payable -> {
+                if (payable.getAmountBaseCurrency() == null) {
+                    payable.setAmountBaseCurrency(baseCurrency(payable.getAmount(), payable.getExchangeRate()));
+                }
+            });
+
+    private static final ImportMapping<Inventory> INVENTORY = new ImportMapping<>(Inventory::new, Inventory::setCompany)
+            .required("item_name", TEXT, Inventory::setItemName)
+            .required("quantity", INTEGER, Inventory::setQuantity)
+            .required("unit_cost", DECIMAL, Inventory::setUnitCost)
+            .required("total_value", DECIMAL, Inventory::setTotalValue)
+            .required("currency_code", TEXT, Inventory::setCurrencyCode)
+            .required("item_type", constant(Inventory.ItemType.values(), "item type"), Inventory::setItemType)
+            .optional("item_code", TEXT, Inventory::setItemCode)
+            .optional("acquisition_date", DATE, Inventory::setAcquisitionDate)
+            .optional("location", TEXT, Inventory::setLocation)
+            .optional("description", TEXT, Inventory::setDescription)
+            .optional("reorder_level", INTEGER, Inventory::setReorderLevel)
+            .optional("status", constant(Inventory.InventoryStatus.values()), Inventory::setStatus, Inventory.InventoryStatus.IN_STOCK);
+
+    /**
+     * A field of the entity and the column it is read from.
+     *
+     * @param defaultValue the value when the file has no such column or the value is empty
+     *        or not one the parser reads, or null to leave the field alone then
+     */
+    private record Field<T, V>(String column, boolean required, ColumnParser<V> parser, BiConsumer<T, V> setter,
+                               V defaultValue) {
+
+        void read(T entity, CsvRow row, int column) {
+            if (column < 0) {
+                setDefault(entity);
+                return;
+            }
+            if (defaultValue != null && row.isEmpty(column)) {
+                setter.accept(entity, defaultValue);
+                return;
+            }
+            V value = parser.parse(row, column);
+            if (value != null) {
+                setter.accept(entity, value);
+            } else {
+                setDefault(entity);
+            }
+        }
+
+        private void setDefault(T entity) {
+            if (defaultValue != null) {
+                setter.accept(entity, defaultValue);
+            }
+        }
+    }
+
+    private final Supplier<T> factory;
+    private final BiConsumer<T, Company> owner;
+    private final List<Field<T, ?>> fields = new ArrayList<>();
+    private Consumer<T> completion = entity -> { };
+
+    /**
+     * @param factory creates an empty entity
+     * @param owner sets the company the entity belongs to
+     */
+    public ImportMapping(Supplier<T> factory, BiConsumer<T, Company> owner) {
+        this.factory = factory;
+        this.owner = owner;
+    }
+
+    /**
+     * @param importType the import type
+     * @param <T> the entity type of the import type
+     * @return the mapping of the import type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ImportMapping<T> forType(ImportType importType) {
+        ImportMapping<?> mapping = switch (importType) {
+            case CASH_ACCOUNTS -> CASH_ACCOUNTS;
+            case CASH_TRANSACTIONS -> CASH_TRANSACTIONS;
+            case INVOICES -> INVOICES;
+            case ACCOUNTS_RECEIVABLE -> ACCOUNTS_RECEIVABLE;
+            case ACCOUNTS_PAYABLE -> ACCOUNTS_PAYABLE;
+            case INVENTORY -> INVENTORY;
+        };
+        return (ImportMapping<T>) mapping;
+    }
+
+    /**
+     * Read a field from a column every file must have; a row without a value fails.
+     */
+    public <V> ImportMapping<T> required(String column, ColumnParser<V> parser, BiConsumer<T, V> setter) {
+        fields.add(new Field<>(column, true, parser, setter, null));
+        return this;
+    }
+
+    /**
+     * Read a field from a column a file may leave out; the field is set when the file has it.
+     */
+    public <V> ImportMapping<T> optional(String column, ColumnParser<V> parser, BiConsumer<T, V> setter) {
+        fields.add(new Field<>(column, false, parser, setter, null));
+        return this;
+    }
+
+    /**
+     * Read a field from a column a file may leave out, or leave empty, or fill with a value the
+     * parser does not read; the field takes the default value then.
+     */
+    public <V> ImportMapping<T> optional(String column, ColumnParser<V> parser, BiConsumer<T, V> setter, V defaultValue) {
+        fields.add(new Field<>(column, false, parser, setter, defaultValue));
+        return this;
+    }
+
+    /**
+     * Complete every entity once its fields are read, for fields derived from others.
+     */
+    public ImportMapping<T> then(Consumer<T> completion) {
+        this.completion = this.completion.andThen(completion);
+        return this;
+    }
+
+    /**
+     * @return the columns the mapping reads, in the order it reads them
+     */
+    public List<String> getColumns() {
+        return fields.stream().map(Field::column).toList();
+    }
+
+    /**
+     * Bind the mapping to the header of a file.
+     *
+     * @param header the header of the file
+     * @param aliases other names files may give a column, by column name; names match ignoring case
+     * @param company the company the entities belong to
+     * @return the mapper of the file's rows to new entities
+     */
+    public Function<CsvRow, T> bind(CsvHeader header, Map<String, List<String>> aliases, Company company) {
+        int[] columns = new int[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            Field<T, ?> field = fields.get(i);
+            columns[i] = indexOf(header, field.column(), aliases.getOrDefault(field.column(), List.of()));
+            if (columns[i] < 0 && field.required()) {
+                return row -> {
+                    throw new InvalidRowException(ImportErrorType.MISSING_COLUMN,
+                            "Mapping for " + field.column() + " not found, expected one of " + header);
+                };
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Field<T, ?>[] bound = fields.toArray(new Field[0]);
+        Consumer<T> complete = completion;
+        return row -> {
+            T entity = factory.get();
+            owner.accept(entity, company);
+            for (int i = 0; i < bound.length; i++) {
+                if (columns[i] >= row.size()) {
+                    throw new InvalidRowException(ImportErrorType.MISSING_VALUE, String.format(
+                            "Index for header '%s' is %d but the record only has %d values",
+                            header.name(columns[i]), columns[i], row.size()));
+                }
+                bound[i].read(entity, row, columns[i]);
+            }
+            complete.accept(entity);
+            return entity;
+        };
+    }
+
+    /**
+     * @return the position of the column by its name, else by the first alias the header has, or -1
+     */
+    private static int indexOf(CsvHeader header, String name, List<String> aliases) {
+        int column = header.indexOf(name);
+        for (int i = 0; column < 0 && i < aliases.size(); i++) {
+            for (int j = header.size() - 1; j >= 0 && column < 0; j--) {
+                // The last of repeated names, as by name
+                if (header.name(j).trim().equalsIgnoreCase(aliases.get(i).trim())) {
+                    column = j;
+                }
+            }
+        }
+        return column;
+    }
+
+    /**
+     * @param constants the constants of an enum
+     * @return a parser of the constant a value names, ignoring case, or null if it names none
+     */
+    public static <E extends Enum<E>> ColumnParser<E> constant(E[] constants) {
+        return (row, column) -> row.getEnum(column, constants);
+    }
+
+    /**
+     * @param constants the constants of an enum
+     * @param description what the constants are, for the error message
+     * @return a parser of the constant a value names, ignoring case, that fails the row if it names none
+     */
+    public static <E extends Enum<E>> ColumnParser<E> constant(E[] constants, String description) {
+        return (row, column) -> {
+            E constant = row.getEnum(column, constants);
+            if (constant == null) {
+                throw new InvalidRowException(ImportErrorType.INVALID_VALUE, "Invalid " + description + ": " + row.get(column));
+            }
+            return constant;
+        };
+    }
+
+    /**
+     * @return a cash account that stands in for the one the value is the ID of until the writer
+     *         resolves it with the rest of its chunk, or null if the value is blank
+     */
+    private static CashAccount cashAccount(CsvRow row, int column) {
+        if (row.isBlank(column)) {
+            return null;
+        }
+        CashAccount cashAccount = new CashAccount();
+        try {
+            cashAccount.setId(row.getLong(column));
+        } catch (NumberFormatException e) {
+            throw invalidNumber(e);
+        }
+        return cashAccount;
+    }
+
+    /**
+     * @return a cash account that stands in for the company's one the value is the account
+     *         number of, as {@link #cashAccount} does for an ID, or null if the value is blank;
+     *         a row with both refers to the account by its ID
+     */
+    private static CashAccount cashAccountNumber(CsvRow row, int column) {
+        if (row.isBlank(column)) {
+            return null;
+        }
+        CashAccount cashAccount = new CashAccount();
+        cashAccount.setAccountNumber(row.get(column).trim());
+        return cashAccount;
+    }
+
+    /**
+     * @return the rejection of a row for a value that is not a number, worded as the parser has it
+     */
+    private static InvalidRowException invalidNumber(NumberFormatException e) {
+        return new InvalidRowException(ImportErrorType.INVALID_NUMBER, String.valueOf(e.getMessage()), e);
+    }
+
+    /**
+     * @return the amount in the base currency at the exchange rate, or the amount itself if
+     *         it has none
+     */
+    private static BigDecimal baseCurrency(BigDecimal amount, BigDecimal exchangeRate) {
+        return exchangeRate != null ? amount.multiply(exchangeRate) : amount;
+    }
+}
@@ -0,0 +1,151 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of one import, written by the thread running it and read by pollers.
+ *
+ * The import checks {@link #isCancelled()} between records, so a cancellation takes
+ * effect mid-file.
+ */
+public class ImportProgress {
+
+    private final long totalBytes;
+    private final long startedNanos = System.nanoTime();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private volatile long rowsParsed;
+    private volatile long rowsWritten;
+    private volatile long rowsFailed;
+    private volatile boolean cancelled;
+
+    /**
+     * @param totalBytes the size of the file, or 0 if unknown
+     */
+    public ImportProgress(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Wrap the input of the import so the bytes read are counted.
+     *
+     * @param input the file contents
+     * @return the counting stream
+     */
+    public InputStream track(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Count bytes read outside a tracked stream, such as by parallel parsing.
+     *
+     * @param bytes the number of bytes read
+     */
+    public void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    /**
+     * Publish the counts of the import result.
+     *
+     * @param result the result of the running import
+     */
+    public void update(ImportResultDto result) {
+        update(result.getTotalRecords(), result.getSuccessfulRecords(), result.getFailedRecords());
+    }
+
+    public void update(long parsed, long written, long failed) {
+        this.rowsParsed = parsed;
+        this.rowsWritten = written;
+        this.rowsFailed = failed;
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * @return the rows parsed per second since the import started
+     */
+    public double getRowsPerSecond() {
+        double seconds = getElapsed().toNanos() / 1e9;
+        return seconds > 0 ? rowsParsed / seconds : 0;
+    }
+
+    /**
+     * @return the fraction of the file read so far, between 0 and 1, or null if the size is unknown
+     */
+    public Double getFractionComplete() {
+        if (totalBytes <= 0) {
+            return null;
+        }
+        return Math.min(1.0, (double) getBytesRead() / totalBytes);
+    }
+
+    /**
+     * Estimate the time left from the share of the file read so far, assuming the rest is
+     * read at the same rate.
+     *
+     * @return the estimated time left, or null before anything was read or if the size is unknown
+     */
+    public Duration getEstimatedRemaining() {
+        long read = getBytesRead();
+        if (totalBytes <= 0 || read <= 0) {
+            return null;
+        }
+        long remaining = Math.max(0, totalBytes - read);
+        return Duration.ofNanos((long) ((double) getElapsed().toNanos() * remaining / read));
+    }
+}
@@ -0,0 +1,207 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.AccountsPayable;
+import com.fintech.wcm.model.AccountsReceivable;
+import com.fintech.wcm.model.CashAccount;
+import com.fintech.wcm.model.Currency;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Inventory;
+import com.fintech.wcm.model.Invoice;
+import com.fintech.wcm.model.Transaction;
+import com.fintech.wcm.repository.CashAccountRepository;
+import com.fintech.wcm.repository.CurrencyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the references of imported rows to other entities, a chunk at a time.
+ *
+ * The record mappers only note the keys a row refers to, such as a cash account ID or
+ * account number on a stand-in entity, so parsing never waits on the database. Before a chunk is written, the
+ * keys of each kind of reference the chunk holds that are not known yet are looked up with
+ * one IN query, and what was found, or not found, is cached for the rest of the import. A
+ * row with an unknown reference is reported as failed with the same message a lookup per
+ * row would give.
+ */
+@Component
+public class ImportReferences {
+
+    private final CashAccountRepository cashAccountRepository;
+    private final CurrencyRepository currencyRepository;
+    private final boolean checkCurrencies;
+
+    public ImportReferences(CashAccountRepository cashAccountRepository,
+                            CurrencyRepository currencyRepository,
+                            @Value("${app.import.check-currencies:false}") boolean checkCurrencies) {
+        this.cashAccountRepository = cashAccountRepository;
+        this.currencyRepository = currencyRepository;
+        this.checkCurrencies = checkCurrencies;
+    }
+
+    /**
+     * Create the resolver of one import, which caches what it looked up until the import ends.
+     *
+     * @param companyId the company importing, whose cash accounts the rows refer to
+     * @param importType the import type
+     * @param <T> the entity type of the import type
+     * @return the resolver
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Resolver<T> forImport(Long companyId, ImportType importType) {
+        Function<?, String> currencyCode = switch (importType) {
+            case CASH_ACCOUNTS -> (Function<CashAccount, String>) CashAccount::getCurrencyCode;
+            case CASH_TRANSACTIONS -> (Function<Transaction, String>) Transaction::getCurrencyCode;
+            case INVOICES -> (Function<Invoice, String>) Invoice::getCurrencyCode;
+            case ACCOUNTS_RECEIVABLE -> (Function<AccountsReceivable, String>) AccountsReceivable::getCurrencyCode;
+            case ACCOUNTS_PAYABLE -> (Function<AccountsPayable, String>) AccountsPayable::getCurrencyCode;
+            case INVENTORY -> (Function<Inventory, String>) Inventory::getCurrencyCode;
+        };
+        return new Resolver<>(this, companyId, checkCurrencies ? (Function<T, String>) currencyCode : null);
+    }
+
+    /**
+     * The references of one import and the entities they were resolved to so far. Used by
+     * the one thread writing the import.
+     *
+     * @param <T> the entity type
+     */
+    public static final class Resolver<T> {
+
+        private final Cache<Long, CashAccount> cashAccounts;
+        private final Cache<String, CashAccount> cashAccountsByNumber;
+        private final Cache<String, Currency> currencies;
+        private final Function<T, String> currencyCode;
+
+        private Resolver(ImportReferences references, Long companyId, Function<T, String> currencyCode) {
+            // An ID of another company's account is as unknown as one that does not exist
+            this.cashAccounts = new Cache<>(ids -> references.cashAccountRepository
+                    .findByCompanyIdAndIdIn(companyId, ids).stream()
+                    .collect(Collectors.toMap(CashAccount::getId, Function.identity())));
+            // An account number the company repeats refers to the first of its accounts
+            this.cashAccountsByNumber = new Cache<>(numbers -> references.cashAccountRepository
+                    .findByCompanyIdAndAccountNumberIn(companyId, numbers).stream()
+                    .collect(Collectors.toMap(CashAccount::getAccountNumber, Function.identity(),
+                            (first, second) -> first.getId() <= second.getId() ? first : second)));
+            this.currencies = new Cache<>(codes -> references.currencyRepository.findAllById(codes).stream()
+                    .collect(Collectors.toMap(Currency::getCode, Function.identity())));
+            this.currencyCode = currencyCode;
+        }
+
+        /**
+         * Resolve the references of a chunk's entities, replacing stand-ins with the entities
+         * they refer to.
+         *
+         * @param chunk the new entities
+         * @return for each entity, the error of its first unknown reference, or null
+         */
+        public List<String> resolve(List<T> chunk) {
+            Set<Long> cashAccountIds = new HashSet<>();
+            Set<String> cashAccountNumbers = new HashSet<>();
+            Set<String> currencyCodes = new HashSet<>();
+            for (T entity : chunk) {
+                if (entity instanceof Transaction transaction && transaction.getCashAccount() != null) {
+                    CashAccount cashAccount = transaction.getCashAccount();
+                    if (cashAccount.getId() != null) {
+                        cashAccountIds.add(cashAccount.getId());
+                    } else {
+                        cashAccountNumbers.add(cashAccount.getAccountNumber());
+                    }
+                }
+                if (currencyCode != null && currencyCode.apply(entity) != null) {
+                    currencyCodes.add(currencyCode.apply(entity));
+                }
+            }
+            cashAccounts.load(cashAccountIds);
+            cashAccountsByNumber.load(cashAccountNumbers);
+            currencies.load(currencyCodes);
+
+            List<String> errors = new ArrayList<>(chunk.size());
+            for (T entity : chunk) {
+                errors.add(resolve(entity));
+            }
+            return errors;
+        }
+
+        private String resolve(T entity) {
+            if (entity instanceof Transaction transaction && transaction.getCashAccount() != null) {
+                Long id = transaction.getCashAccount().getId();
+                if (id != null) {
+                    CashAccount cashAccount = cashAccounts.get(id);
+                    if (cashAccount == null) {
+                        return "Cash account not found with id: " + id;
+                    }
+                    transaction.setCashAccount(cashAccount);
+                } else {
+                    String accountNumber = transaction.getCashAccount().getAccountNumber();
+                    CashAccount cashAccount = cashAccountsByNumber.get(accountNumber);
+                    if (cashAccount == null) {
+                        return "Cash account not found with account number: " + accountNumber;
+                    }
+                    transaction.setCashAccount(cashAccount);
+                }
+            }
+            if (currencyCode != null) {
+                String code = currencyCode.apply(entity);
+                if (code != null && currencies.get(code) == null) {
+                    return "Currency not found with code: " + code;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The entities of one kind looked up by key so far, and the keys that matched none.
+     */
+    private static final class Cache<K, E> {
+
+        private final Function<Collection<K>, Map<K, E>> loader;
+        private final Map<K, E> found = new HashMap<>();
+        private final Set<K> missing = new HashSet<>();
+
+        private Cache(Function<Collection<K>, Map<K, E>> loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * Look up the keys not known yet, with one query.
+         */
+        void load(Collection<K> keys) {
+            Set<K> unknown = new LinkedHashSet<>();
+            for (K key : keys) {
+                if (!found.containsKey(key) && !missing.contains(key)) {
+                    unknown.add(key);
+                }
+            }
+            if (unknown.isEmpty()) {
+                return;
+            }
+            Map<K, E> loaded = loader.apply(unknown);
+            found.putAll(loaded);
+            for (K key : unknown) {
+                if (!loaded.containsKey(key)) {
+                    missing.add(key);
+                }
+            }
+        }
+
+        /**
+         * @return the entity of the key, or null if there is none
+         */
+        E get(K key) {
+            load(List.of(key));
+            return found.get(key);
+        }
+    }
+}
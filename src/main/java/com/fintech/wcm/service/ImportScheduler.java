@@ -0,0 +1,336 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.ScheduledImport;
+import com.fintech.wcm.model.ScheduledImportRun;
+import com.fintech.wcm.model.ScheduledImportRun.RunStatus;
+import com.fintech.wcm.repository.ScheduledImportRepository;
+import com.fintech.wcm.repository.ScheduledImportRunRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires the scheduled imports, once per fire time across every node of the cluster.
+ *
+ * Scheduled imports are stored, so they survive restarts. Every node polls for due imports
+ * and claims at most as many as it has free run threads, locking them with FOR UPDATE SKIP
+ * LOCKED so nodes polling at once claim different ones, and spreading the imports over the
+ * nodes. A claimed import is leased to the node, which renews the lease while the run lasts;
+ * if the node dies, the lease runs out and another node runs the fire time again. Fire times
+ * missed while no node was up are caught up with one run of the latest of them. Each run is
+ * recorded in the run history.
+ */
+@Component
+public class ImportScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportScheduler.class);
+
+    private static final int MAX_RUNS_LISTED = 100;
+    /** Missed fire times counted before a catch-up run gives up counting */
+    private static final int MAX_MISSED_FIRES = 10_000;
+
+    private final ScheduledImportRepository scheduledImportRepository;
+    private final ScheduledImportRunRepository runRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ScheduledImportRunner> runners;
+    private final String node;
+    private final int threads;
+    private final Duration lease;
+    private final boolean schedulingEnabled;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * A fire time of a scheduled import claimed by this node.
+     *
+     * @param scheduledImport the scheduled import, as claimed
+     * @param fireTime the fire time the run is for
+     * @param missedFires the earlier fire times it catches up on
+     * @param runId the ID of the run in the history
+     */
+    record Claim(ScheduledImport scheduledImport, LocalDateTime fireTime, int missedFires, Long runId) {
+    }
+
+    public ImportScheduler(ScheduledImportRepository scheduledImportRepository,
+                           ScheduledImportRunRepository runRepository,
+                           PlatformTransactionManager transactionManager,
+                           ObjectProvider<ScheduledImportRunner> runners,
+                           @Value("${app.import.scheduler.node-id:}") String nodeId,
+                           @Value("${app.import.scheduler.threads:2}") int threads,
+                           @Value("${app.import.scheduler.lease:10m}") Duration lease,
+                           @Value("${app.scheduling.enable:true}") boolean schedulingEnabled) {
+        this.scheduledImportRepository = scheduledImportRepository;
+        this.runRepository = runRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runners = runners;
+        this.node = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.threads = threads;
+        this.lease = lease;
+        this.schedulingEnabled = schedulingEnabled;
+        AtomicInteger threadCount = new AtomicInteger();
+        // Never queues: the poll claims no more imports than there are free threads
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "scheduled-import-" + threadCount.incrementAndGet()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the name of this node in leases and run history
+     */
+    public String getNode() {
+        return node;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Schedule a periodic import.
+     *
+     * @param companyId the company ID
+     * @param sourceType the source type
+     * @param cronExpression when to run, as a Spring cron expression with seconds
+     * @return the scheduled import
+     * @throws BadRequestException if the source type is blank or the cron expression invalid
+     */
+    public ScheduledImport schedule(Long companyId, String sourceType, String cronExpression) {
+        if (sourceType == null || sourceType.isBlank()) {
+            throw new BadRequestException("Source type is required");
+        }
+        CronExpression cron = parse(cronExpression);
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        ScheduledImport scheduledImport = new ScheduledImport();
+        scheduledImport.setId(UUID.randomUUID().toString());
+        scheduledImport.setCompanyId(companyId);
+        scheduledImport.setSourceType(sourceType.trim().toUpperCase(Locale.ROOT));
+        scheduledImport.setCronExpression(cronExpression.trim());
+        scheduledImport.setNextFireAt(cron.next(now));
+        scheduledImport.setCreatedAt(now);
+        scheduledImport.setUpdatedAt(now);
+        return scheduledImportRepository.save(scheduledImport);
+    }
+
+    /**
+     * Stop firing a scheduled import. A run in progress finishes; the history is kept.
+     *
+     * @param id the scheduled import ID
+     */
+    public void cancel(String id) {
+        ScheduledImport scheduledImport = scheduledImportRepository.findById(id)
+                .filter(ScheduledImport::isActive)
+                .orElseThrow(() -> new ResourceNotFoundException("Scheduled import job not found with id: " + id));
+        scheduledImport.setActive(false);
+        scheduledImport.setUpdatedAt(LocalDateTime.now(clock));
+        scheduledImportRepository.save(scheduledImport);
+        logger.info("Cancelled scheduled import job: {}", id);
+    }
+
+    /**
+     * @param id the scheduled import ID
+     * @return its most recent runs, newest first
+     */
+    public List<ScheduledImportRun> getRuns(String id) {
+        if (!scheduledImportRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Scheduled import job not found with id: " + id);
+        }
+        return runRepository.findByScheduledImportIdOrderByStartedAtDesc(id, PageRequest.of(0, MAX_RUNS_LISTED));
+    }
+
+    /**
+     * Renew the leases of the runs in progress and claim the due imports there are free
+     * threads for. Leases and due times are judged by the database clock.
+     */
+    @Scheduled(fixedDelayString = "${app.import.scheduler.poll-interval:PT15S}")
+    public void poll() {
+        if (!schedulingEnabled) {
+            return;
+        }
+
+        if (!running.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    scheduledImportRepository.renewLeases(node, Set.copyOf(running), lease.toSeconds()));
+        }
+        int free = threads - running.size();
+        if (free <= 0) {
+            return;
+        }
+        List<Claim> claims = transactionTemplate.execute(status -> claim(free));
+        for (Claim claim : claims) {
+            running.add(claim.scheduledImport().getId());
+            executor.execute(() -> run(claim));
+        }
+    }
+
+    /**
+     * Lease the due imports to this node and start a run of each in the history. Fire times
+     * are caught up to, and leases run from, the time the database locked them at.
+     */
+    List<Claim> claim(int limit) {
+        LocalDateTime now = scheduledImportRepository.currentTimestamp();
+        List<Claim> claims = new ArrayList<>();
+        for (ScheduledImport scheduledImport : scheduledImportRepository.lockDue(limit)) {
+            CronExpression cron = parse(scheduledImport.getCronExpression());
+            // Catch up on the fire times missed while no node was up with one run of the latest
+            LocalDateTime fireTime = scheduledImport.getNextFireAt();
+            int missedFires = 0;
+            for (LocalDateTime next = cron.next(fireTime); next != null && !next.isAfter(now); next = cron.next(next)) {
+                fireTime = next;
+                if (++missedFires == MAX_MISSED_FIRES) {
+                    break;
+                }
+            }
+            if (missedFires > 0) {
+                logger.info("Catching up scheduled import {} after {} missed fire times", scheduledImport.getId(), missedFires);
+            }
+
+            scheduledImport.setNextFireAt(fireTime);
+            scheduledImport.setLeaseOwner(node);
+            scheduledImport.setLeaseExpiresAt(now.plus(lease));
+            scheduledImport.setUpdatedAt(now);
+
+            // A run whose node died is taken over rather than run twice in the history
+            ScheduledImportRun run = runRepository.findByScheduledImportIdAndScheduledFor(scheduledImport.getId(), fireTime)
+                    .orElseGet(ScheduledImportRun::new);
+            if (run.getId() != null) {
+                logger.warn("Taking over run of scheduled import {} for {} from node {}", scheduledImport.getId(),
+                        fireTime, run.getNode());
+            }
+            run.setScheduledImportId(scheduledImport.getId());
+            run.setScheduledFor(fireTime);
+            run.setMissedFires(missedFires);
+            run.setNode(node);
+            run.setStatus(RunStatus.RUNNING);
+            run.setStartedAt(now);
+            run = runRepository.save(run);
+            claims.add(new Claim(scheduledImport, fireTime, missedFires, run.getId()));
+        }
+        return claims;
+    }
+
+    private void run(Claim claim) {
+        ScheduledImport scheduledImport = claim.scheduledImport();
+        ScheduledImportRunner runner = runners.orderedStream()
+                .filter(candidate -> candidate.getSourceTypes().contains(scheduledImport.getSourceType()))
+                .findFirst()
+                .orElse(null);
+        RunStatus status;
+        String summary;
+        try {
+            if (runner == null) {
+                status = RunStatus.SKIPPED;
+                summary = "No runner for source type " + scheduledImport.getSourceType() + " on node " + node;
+                logger.warn("Skipped scheduled import {}: {}", scheduledImport.getId(), summary);
+            } else {
+                logger.info("Executing scheduled import job: {}", scheduledImport.getId());
+                ImportResultDto result = runner.run(scheduledImport);
+                status = runStatus(result.getStatus());
+                summary = result.getSummary();
+            }
+        } catch (RuntimeException e) {
+            status = RunStatus.FAILED;
+            summary = e.getMessage();
+            logger.error("Scheduled import {} failed: {}", scheduledImport.getId(), e.getMessage());
+        }
+
+        RunStatus finalStatus = status;
+        String finalSummary = summary;
+        try {
+            transactionTemplate.executeWithoutResult(tx -> complete(claim, finalStatus, finalSummary, LocalDateTime.now(clock)));
+        } catch (RuntimeException e) {
+            logger.error("Could not record the run of scheduled import {}: {}", scheduledImport.getId(), e.getMessage());
+        } finally {
+            running.remove(scheduledImport.getId());
+        }
+    }
+
+    /**
+     * Finish a run and release the import for its next fire time, unless another node took
+     * it over because the lease ran out.
+     */
+    void complete(Claim claim, RunStatus status, String summary, LocalDateTime now) {
+        ScheduledImport scheduledImport = scheduledImportRepository.lockById(claim.scheduledImport().getId()).orElse(null);
+        if (scheduledImport == null || !node.equals(scheduledImport.getLeaseOwner())
+                || !claim.fireTime().equals(scheduledImport.getNextFireAt())) {
+            logger.warn("Lost the lease on scheduled import {} while it ran; its run is left to the node that took it over",
+                    claim.scheduledImport().getId());
+            return;
+        }
+        runRepository.findById(claim.runId()).ifPresent(run -> {
+            run.setStatus(status);
+            run.setSummary(summary);
+            run.setFinishedAt(now);
+            runRepository.save(run);
+        });
+
+        // A fire time passed while the run lasted is caught up with the next poll
+        scheduledImport.setNextFireAt(parse(scheduledImport.getCronExpression()).next(claim.fireTime()));
+        scheduledImport.setLastFiredAt(claim.fireTime());
+        scheduledImport.setLeaseOwner(null);
+        scheduledImport.setLeaseExpiresAt(null);
+        scheduledImport.setUpdatedAt(now);
+        scheduledImportRepository.save(scheduledImport);
+    }
+
+    private static RunStatus runStatus(String resultStatus) {
+        if (resultStatus == null) {
+            return RunStatus.COMPLETED;
+        }
+        return switch (resultStatus) {
+            case "PARTIALLY_COMPLETED" -> RunStatus.PARTIALLY_COMPLETED;
+            case "FAILED", "CANCELLED" -> RunStatus.FAILED;
+            default -> RunStatus.COMPLETED;
+        };
+    }
+
+    private static CronExpression parse(String cronExpression) {
+        try {
+            return CronExpression.parse(cronExpression == null ? "" : cronExpression.trim());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cron expression: " + e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
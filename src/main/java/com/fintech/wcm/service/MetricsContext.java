@@ -0,0 +1,299 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
+import com.fintech.wcm.model.AccountsPayable;
+import com.fintech.wcm.model.AccountsReceivable;
+import com.fintech.wcm.repository.projection.BalanceSheetAggregate;
+import com.fintech.wcm.util.Lazy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Working capital inputs and derived figures for one company, shared across a single
+ * metrics, dashboard or alert-generation call.
+ *
+ * Every value is loaded or computed on first use and memoized, so the balance sheet
+ * aggregate, the upcoming cash flow lists and each ratio are computed at most once no
+ * matter how many consumers read them. A context is a snapshot for one invocation and
+ * must not be cached across requests.
+ */
+public class MetricsContext {
+
+    /**
+     * Length of the period used to derive average daily sales and purchases.
+     */
+    public static final double DAYS_IN_PERIOD = 90.0;
+
+    /**
+     * Length of the upcoming cash flow window, in days.
+     */
+    public static final int UPCOMING_WINDOW_DAYS = 30;
+
+    /**
+     * Payable statuses included in the upcoming payables window.
+     */
+    public static final List<AccountsPayable.PayableStatus> UPCOMING_PAYABLE_STATUSES = List.of(
+            AccountsPayable.PayableStatus.PENDING,
+            AccountsPayable.PayableStatus.APPROVED,
+            AccountsPayable.PayableStatus.PARTIALLY_PAID,
+            AccountsPayable.PayableStatus.OVERDUE
+    );
+
+    /**
+     * Receivable statuses counted as expected inflows in the upcoming window.
+     */
+    public static final List<AccountsReceivable.ReceivableStatus> UPCOMING_RECEIVABLE_STATUSES = List.of(
+            AccountsReceivable.ReceivableStatus.OPEN,
+            AccountsReceivable.ReceivableStatus.PARTIALLY_PAID
+    );
+
+    private final Long companyId;
+    private final LocalDate asOfDate;
+    private final Lazy<BalanceSheetAggregate> balanceSheet;
+    private final Lazy<List<AccountsPayable>> upcomingPayables;
+    private final Lazy<List<AccountsReceivable>> upcomingReceivables;
+
+    private final Lazy<BigDecimal> totalCurrentAssets = Lazy.of(() ->
+            getCashBalance().add(getReceivables()).add(getInventory()));
+    private final Lazy<BigDecimal> totalCurrentLiabilities = Lazy.of(() ->
+            getPayables().add(getShortTermDebt()));
+    private final Lazy<Map<String, Double>> liquidityRatios = Lazy.of(this::computeLiquidityRatios);
+    private final Lazy<Double> daysSalesOutstanding = Lazy.of(() ->
+            daysOutstanding(getReceivables(), getBalanceSheet().getOpenSalesInvoices()));
+    private final Lazy<Double> daysPayablesOutstanding = Lazy.of(() ->
+            daysOutstanding(getPayables(), getBalanceSheet().getOpenPurchaseInvoices()));
+    private final Lazy<Double> daysInventoryOutstanding = Lazy.of(() ->
+            daysOutstanding(getInventory(), getBalanceSheet().getOpenPurchaseInvoices()));
+
+    /**
+     * Create a context.
+     *
+     * @param companyId the company ID
+     * @param asOfDate the date the upcoming cash flow window starts from
+     * @param balanceSheetLoader loads the balance sheet aggregate
+     * @param upcomingPayablesLoader loads payables due in the upcoming window
+     * @param upcomingReceivablesLoader loads unpaid receivables due before the end of the upcoming window
+     */
+    public MetricsContext(Long companyId, LocalDate asOfDate,
+                          Supplier<BalanceSheetAggregate> balanceSheetLoader,
+                          Supplier<List<AccountsPayable>> upcomingPayablesLoader,
+                          Supplier<List<AccountsReceivable>> upcomingReceivablesLoader) {
+        this.companyId = companyId;
+        this.asOfDate = asOfDate;
+        this.balanceSheet = Lazy.of(balanceSheetLoader);
+        this.upcomingPayables = Lazy.of(upcomingPayablesLoader);
+        this.upcomingReceivables = Lazy.of(upcomingReceivablesLoader);
+    }
+
+    /**
+     * Create a context over an already loaded aggregate. The upcoming cash flow
+     * lists are empty, so it only serves balance sheet metrics and ratios.
+     *
+     * @param balanceSheet the balance sheet aggregate
+     * @param asOfDate the date the aggregate describes
+     * @return the context
+     */
+    public static MetricsContext of(BalanceSheetAggregate balanceSheet, LocalDate asOfDate) {
+        return new MetricsContext(balanceSheet.getCompanyId(), asOfDate,
+                () -> balanceSheet, Collections::emptyList, Collections::emptyList);
+    }
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public LocalDate getAsOfDate() {
+        return asOfDate;
+    }
+
+    /**
+     * @return the last day of the upcoming cash flow window
+     */
+    public LocalDate getUpcomingWindowEnd() {
+        return asOfDate.plusDays(UPCOMING_WINDOW_DAYS);
+    }
+
+    public BalanceSheetAggregate getBalanceSheet() {
+        return balanceSheet.get();
+    }
+
+    public String getCurrencyCode() {
+        return getBalanceSheet().getCurrencyCode();
+    }
+
+    public BigDecimal getCashBalance() {
+        return getBalanceSheet().getCashBalance();
+    }
+
+    public BigDecimal getReceivables() {
+        return getBalanceSheet().getReceivables();
+    }
+
+    public BigDecimal getInventory() {
+        return getBalanceSheet().getInventoryValue();
+    }
+
+    public BigDecimal getPayables() {
+        return getBalanceSheet().getPayables();
+    }
+
+    public BigDecimal getShortTermDebt() {
+        return getBalanceSheet().getShortTermDebt();
+    }
+
+    public BigDecimal getTotalCurrentAssets() {
+        return totalCurrentAssets.get();
+    }
+
+    /**
+     * @return accounts payable plus active short-term debt
+     */
+    public BigDecimal getTotalCurrentLiabilities() {
+        return totalCurrentLiabilities.get();
+    }
+
+    public BigDecimal getNetWorkingCapital() {
+        return getTotalCurrentAssets().subtract(getTotalCurrentLiabilities());
+    }
+
+    /**
+     * @return the current ratio at scale 2, or null when there are no current liabilities
+     */
+    public BigDecimal getCurrentRatio() {
+        return ratio(getTotalCurrentAssets());
+    }
+
+    /**
+     * @return the quick ratio at scale 2, or null when there are no current liabilities
+     */
+    public BigDecimal getQuickRatio() {
+        return ratio(getTotalCurrentAssets().subtract(getInventory()));
+    }
+
+    /**
+     * @return the cash ratio at scale 2, or null when there are no current liabilities
+     */
+    public BigDecimal getCashRatio() {
+        return ratio(getCashBalance());
+    }
+
+    /**
+     * @return current, quick and cash ratios keyed by name, defaulting to 0.0
+     */
+    public Map<String, Double> getLiquidityRatios() {
+        return liquidityRatios.get();
+    }
+
+    public double getDaysSalesOutstanding() {
+        return daysSalesOutstanding.get();
+    }
+
+    public double getDaysPayablesOutstanding() {
+        return daysPayablesOutstanding.get();
+    }
+
+    public double getDaysInventoryOutstanding() {
+        return daysInventoryOutstanding.get();
+    }
+
+    public double getCashConversionCycle() {
+        return getDaysInventoryOutstanding() + getDaysSalesOutstanding() - getDaysPayablesOutstanding();
+    }
+
+    /**
+     * @return payables due in the upcoming window, including overdue ones
+     */
+    public List<AccountsPayable> getUpcomingPayables() {
+        return upcomingPayables.get();
+    }
+
+    /**
+     * @return unpaid receivables due before the end of the upcoming window
+     */
+    public List<AccountsReceivable> getUpcomingReceivables() {
+        return upcomingReceivables.get();
+    }
+
+    /**
+     * Build the metrics DTO for this context. Trend indicators are left unset.
+     *
+     * @return the working capital metrics
+     */
+    public WorkingCapitalMetricsDto toMetricsDto() {
+        return WorkingCapitalMetricsDto.builder()
+                .companyId(companyId)
+                .companyName(getBalanceSheet().getCompanyName())
+                .calculationDate(asOfDate)
+                // Current assets
+                .totalCurrentAssets(getTotalCurrentAssets())
+                .cashAndEquivalents(getCashBalance())
+                .accountsReceivable(getReceivables())
+                .inventory(getInventory())
+                .otherCurrentAssets(BigDecimal.ZERO) // Placeholder for other assets
+                // Current liabilities
+                .totalCurrentLiabilities(getTotalCurrentLiabilities())
+                .accountsPayable(getPayables())
+                .shortTermDebt(getShortTermDebt())
+                .otherCurrentLiabilities(BigDecimal.ZERO) // Placeholder for other liabilities
+                .netWorkingCapital(getNetWorkingCapital())
+                // Financial ratios are null when there are no current liabilities
+                .currentRatio(getCurrentRatio())
+                .quickRatio(getQuickRatio())
+                // CCC components
+                .daysSalesOutstanding(toDays(getDaysSalesOutstanding()))
+                .daysPayablesOutstanding(toDays(getDaysPayablesOutstanding()))
+                .daysInventoryOutstanding(toDays(getDaysInventoryOutstanding()))
+                .cashConversionCycle(toDays(getCashConversionCycle()))
+                .build();
+    }
+
+    private static BigDecimal toDays(double days) {
+        return BigDecimal.valueOf(days).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal ratio(BigDecimal numerator) {
+        BigDecimal liabilities = getTotalCurrentLiabilities();
+        if (liabilities.compareTo(BigDecimal.ZERO) <= 0) {
+            return null;
+        }
+        return numerator.divide(liabilities, 2, RoundingMode.HALF_UP);
+    }
+
+    private Map<String, Double> computeLiquidityRatios() {
+        Map<String, Double> ratios = new HashMap<>();
+        ratios.put("currentRatio", doubleOrZero(getCurrentRatio()));
+        ratios.put("quickRatio", doubleOrZero(getQuickRatio()));
+        ratios.put("cashRatio", doubleOrZero(getCashRatio()));
+        return Collections.unmodifiableMap(ratios);
+    }
+
+    private static double doubleOrZero(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    /**
+     * Days outstanding of a balance against the average daily total of the period.
+     */
+    private static double daysOutstanding(BigDecimal balance, BigDecimal periodTotal) {
+        if (balance == null || balance.compareTo(BigDecimal.ZERO) == 0) {
+            return 0.0;
+        }
+        if (periodTotal == null || periodTotal.compareTo(BigDecimal.ZERO) == 0) {
+            return 0.0;
+        }
+
+        double averageDaily = periodTotal.doubleValue() / DAYS_IN_PERIOD;
+        if (averageDaily == 0.0) {
+            return 0.0;
+        }
+
+        return balance.doubleValue() / averageDaily;
+    }
+}
@@ -0,0 +1,53 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.AccountsReceivable;
+import com.fintech.wcm.repository.AccountsPayableRepository;
+import com.fintech.wcm.repository.AccountsReceivableRepository;
+import com.fintech.wcm.repository.CompanyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Creates {@link MetricsContext} instances backed by the ledger repositories.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsContextFactory {
+
+    private final CompanyRepository companyRepository;
+    private final AccountsReceivableRepository accountsReceivableRepository;
+    private final AccountsPayableRepository accountsPayableRepository;
+
+    /**
+     * Create a context for a company as of today.
+     *
+     * @param companyId the company ID
+     * @return the metrics context
+     */
+    public MetricsContext create(Long companyId) {
+        return create(companyId, LocalDate.now());
+    }
+
+    /**
+     * Create a context for a company as of a specific date. Nothing is loaded until
+     * a value is first read; a missing company surfaces as a
+     * {@link ResourceNotFoundException} on that first read.
+     *
+     * @param companyId the company ID
+     * @param asOfDate the date the upcoming cash flow window starts from
+     * @return the metrics context
+     */
+    public MetricsContext create(Long companyId, LocalDate asOfDate) {
+        LocalDate windowEnd = asOfDate.plusDays(MetricsContext.UPCOMING_WINDOW_DAYS);
+        return new MetricsContext(companyId, asOfDate,
+                () -> companyRepository.findBalanceSheetAggregateByCompanyId(companyId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId)),
+                () -> accountsPayableRepository.findByCompanyIdAndDueDateBetweenAndStatusIn(
+                        companyId, asOfDate, windowEnd, MetricsContext.UPCOMING_PAYABLE_STATUSES),
+                () -> accountsReceivableRepository.findByCompanyIdAndDueDateBeforeAndStatusNot(
+                        companyId, windowEnd, AccountsReceivable.ReceivableStatus.PAID));
+    }
+}
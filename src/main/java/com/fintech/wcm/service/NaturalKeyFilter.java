@@ -0,0 +1,185 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.AccountsPayable;
+import com.fintech.wcm.model.AccountsReceivable;
+import com.fintech.wcm.model.CashAccount;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Invoice;
+import com.fintech.wcm.model.Transaction;
+import jakarta.persistence.EntityManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Finds the entities of an import chunk whose natural key is already in the ledger, or that
+ * repeat a key earlier in the chunk, with one query per chunk.
+ *
+ * Only the keys matching the chunk's key values are loaded, into a set of flat strings, so
+ * memory stays bounded by the chunk size however large the ledger is. A later chunk sees the
+ * rows of earlier ones, which are committed by then. An entity with a blank key part is
+ * never a duplicate. A filter either skips the duplicates, for imports that skip the rows
+ * already imported, or rejects them, for appending imports, whose rows must all be new.
+ *
+ * @param <T> the entity type
+ */
+public final class NaturalKeyFilter<T> {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final String constraintName;
+    private final String existingKeysQuery;
+    private final Function<T, Object> lookupValue;
+    private final Function<T, List<Object>> key;
+    private final boolean rejectingDuplicates;
+
+    private NaturalKeyFilter(String table, String existingKeysQuery, Function<T, Object> lookupValue,
+                             Function<T, List<Object>> key) {
+        this("uk_" + table + "_natural_key", existingKeysQuery, lookupValue, key, false);
+    }
+
+    private NaturalKeyFilter(String constraintName, String existingKeysQuery, Function<T, Object> lookupValue,
+                             Function<T, List<Object>> key, boolean rejectingDuplicates) {
+        this.constraintName = constraintName;
+        this.existingKeysQuery = existingKeysQuery;
+        this.lookupValue = lookupValue;
+        this.key = key;
+        this.rejectingDuplicates = rejectingDuplicates;
+    }
+
+    /**
+     * @param importType the import type
+     * @param <T> the entity type of the import type
+     * @return the filter of the import type
+     * @throws BadRequestException if the ledger has no natural key
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> NaturalKeyFilter<T> forType(ImportType importType) {
+        NaturalKeyFilter<?> filter = switch (importType) {
+            case CASH_ACCOUNTS -> new NaturalKeyFilter<CashAccount>("cash_accounts",
+                    "SELECT a.accountNumber FROM CashAccount a " +
+                    "WHERE a.company.id = :companyId AND a.accountNumber IN :values",
+                    CashAccount::getAccountNumber,
+                    a -> Arrays.asList(a.getAccountNumber()));
+            case CASH_TRANSACTIONS -> new NaturalKeyFilter<Transaction>("transactions",
+                    "SELECT t.referenceNumber, t.transactionDate, t.amount FROM Transaction t " +
+                    "WHERE t.company.id = :companyId AND t.referenceNumber IN :values",
+                    Transaction::getReferenceNumber,
+                    t -> Arrays.asList(t.getReferenceNumber(), t.getTransactionDate(), t.getAmount()));
+            case INVOICES -> new NaturalKeyFilter<Invoice>("invoices",
+                    "SELECT i.invoiceNumber, i.invoiceType FROM Invoice i " +
+                    "WHERE i.company.id = :companyId AND i.invoiceNumber IN :values",
+                    Invoice::getInvoiceNumber,
+                    i -> Arrays.asList(i.getInvoiceNumber(), i.getInvoiceType()));
+            case ACCOUNTS_RECEIVABLE -> new NaturalKeyFilter<AccountsReceivable>("accounts_receivable",
+                    "SELECT r.invoiceNumber FROM AccountsReceivable r " +
+                    "WHERE r.company.id = :companyId AND r.invoiceNumber IN :values",
+                    AccountsReceivable::getInvoiceNumber,
+                    r -> Arrays.asList(r.getInvoiceNumber()));
+            case ACCOUNTS_PAYABLE -> new NaturalKeyFilter<AccountsPayable>("accounts_payable",
+                    "SELECT p.invoiceNumber FROM AccountsPayable p " +
+                    "WHERE p.company.id = :companyId AND p.invoiceNumber IN :values",
+                    AccountsPayable::getInvoiceNumber,
+                    p -> Arrays.asList(p.getInvoiceNumber()));
+            case INVENTORY -> throw new BadRequestException("Inventory imports have no natural key to deduplicate on");
+        };
+        return (NaturalKeyFilter<T>) filter;
+    }
+
+    /**
+     * @return a filter finding the same duplicates, which are rejected rather than skipped
+     */
+    public NaturalKeyFilter<T> rejectingDuplicates() {
+        return new NaturalKeyFilter<>(constraintName, existingKeysQuery, lookupValue, key, true);
+    }
+
+    /**
+     * @return whether the duplicates are rejected as errors rather than skipped
+     */
+    public boolean isRejectingDuplicates() {
+        return rejectingDuplicates;
+    }
+
+    /**
+     * Load the keys of the chunk that are already in the ledger and mark the duplicates.
+     *
+     * @param entityManager the entity manager to query with
+     * @param companyId the company the chunk belongs to
+     * @param chunk the new entities
+     * @return for each entity of the chunk, whether it is a duplicate
+     */
+    public boolean[] findDuplicates(EntityManager entityManager, Long companyId, List<T> chunk) {
+        Set<Object> values = new HashSet<>();
+        for (T entity : chunk) {
+            Object value = lookupValue.apply(entity);
+            if (isPresent(value)) {
+                values.add(value);
+            }
+        }
+        if (values.isEmpty()) {
+            return new boolean[chunk.size()];
+        }
+        List<?> existing = entityManager.createQuery(existingKeysQuery)
+                .setParameter("companyId", companyId)
+                .setParameter("values", values)
+                .getResultList();
+        return findDuplicates(chunk, existing);
+    }
+
+    /**
+     * @param existing the keys already in the ledger, as returned by the key query
+     */
+    boolean[] findDuplicates(List<T> chunk, List<?> existing) {
+        Set<String> seen = new HashSet<>(2 * (existing.size() + chunk.size()));
+        for (Object row : existing) {
+            seen.add(flatten(row instanceof Object[] parts ? Arrays.asList(parts) : List.of(row)));
+        }
+        boolean[] duplicates = new boolean[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            List<Object> parts = key.apply(chunk.get(i));
+            if (parts.stream().allMatch(NaturalKeyFilter::isPresent)) {
+                duplicates[i] = !seen.add(flatten(parts));
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return whether the exception was caused by a row violating the natural key, which a
+     * concurrent import inserted after the chunk's keys were loaded
+     */
+    public boolean isDuplicateKeyViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(constraintName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether a key part has a value; a blank one never matches another
+     */
+    private static boolean isPresent(Object part) {
+        return part != null && !(part instanceof String text && text.isBlank());
+    }
+
+    private static String flatten(List<?> parts) {
+        StringBuilder flat = new StringBuilder();
+        for (Object part : parts) {
+            if (!flat.isEmpty()) {
+                flat.append(SEPARATOR);
+            }
+            // 100.5 and 100.5000 are the same amount once stored at scale 4
+            flat.append(part instanceof BigDecimal amount ? amount.stripTrailingZeros().toPlainString()
+                    : part instanceof Enum<?> constant ? constant.name()
+                    : part.toString());
+        }
+        return flat.toString();
+    }
+}
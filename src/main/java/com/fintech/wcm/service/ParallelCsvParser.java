@@ -0,0 +1,408 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.util.CsvHeader;
+import com.fintech.wcm.util.CsvRangeSplitter;
+import com.fintech.wcm.util.CsvRecordRow;
+import com.fintech.wcm.util.CsvRow;
+import com.fintech.wcm.util.CsvRowDecoder;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Parses CSV files in byte ranges, on several cores for large files.
+ *
+ * The file is split into byte ranges on record boundaries by {@link CsvRangeSplitter}, and
+ * each range is parsed and mapped on a parse thread. The mapped rows are handed back to the
+ * calling thread, which stays the only one writing, either in file order or range by range
+ * as they finish. Record numbers are those of the whole file either way, and each row
+ * carries the byte offset where it ends, so an import can resume from there. Files below the
+ * threshold are parsed the same way, one range at a time on the calling thread.
+ */
+@Component
+public class ParallelCsvParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCsvParser.class);
+
+    private final long threshold;
+    private final long rangeSize;
+    private final int threads;
+    private final boolean ordered;
+    private final ExecutorService executor;
+
+    public ParallelCsvParser(@Value("${app.import.parallel.threshold:16MB}") DataSize threshold,
+                             @Value("${app.import.parallel.range-size:2MB}") DataSize rangeSize,
+                             @Value("${app.import.parallel.threads:0}") int threads,
+                             @Value("${app.import.parallel.ordered:true}") boolean ordered) {
+        this.threshold = threshold.toBytes();
+        this.rangeSize = Math.max(1, rangeSize.toBytes());
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.ordered = ordered;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "csv-parse-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A parsed record: the mapped value, or the message of the exception mapping it threw,
+     * its kind and the record as a CSV line.
+     *
+     * @param recordNumber the 1-based number of the record in the whole file, after the header
+     * @param value the mapped value, or null if mapping failed
+     * @param error the error message, or null if mapping succeeded
+     * @param errorType the kind of error, or null if mapping succeeded
+     * @param line the values of the record as a CSV line if mapping failed, or null
+     * @param endOffset the byte offset after the record, where the next one starts
+     */
+    public record ParsedRow<T>(long recordNumber, T value, String error, ImportErrorType errorType, String line,
+                               long endOffset) {
+
+        public boolean isFailed() {
+            return error != null;
+        }
+    }
+
+    /**
+     * @param fileSize the size of a file in bytes
+     * @return whether the file is large enough to be worth parsing in parallel
+     */
+    public boolean appliesTo(long fileSize) {
+        return threads > 1 && fileSize >= threshold;
+    }
+
+    /**
+     * @return whether rows are handed over in file order
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Parse a UTF-8 CSV file with a header record, mapping each record on a parse thread and
+     * passing the rows to the sink on the calling thread. Parsing stops between ranges once
+     * the progress is cancelled.
+     *
+     * @param file the CSV file
+     * @param progress receives the bytes parsed and carries cancellation
+     * @param mapper maps a record; an exception it throws fails only that record
+     * @param sink receives the parsed rows
+     * @param <T> the mapped type
+     * @throws IOException if the file cannot be read or is not valid CSV
+     */
+    public <T> void parse(Path file, ImportProgress progress, Function<CSVRecord, T> mapper,
+                          Consumer<ParsedRow<T>> sink) throws IOException {
+        parse(file, 0, 1, progress, mapper, sink);
+    }
+
+    /**
+     * Parse a UTF-8 CSV file from the end offset of an earlier row on.
+     *
+     * @param file the CSV file
+     * @param startOffset the end offset of the last row already handled, or 0 to parse the whole file
+     * @param firstRecordNumber the number of the first record to parse
+     * @param progress receives the bytes parsed and carries cancellation
+     * @param mapper maps a record; an exception it throws fails only that record
+     * @param sink receives the parsed rows
+     * @param <T> the mapped type
+     * @throws IOException if the file cannot be read or is not valid CSV
+     */
+    public <T> void parse(Path file, long startOffset, long firstRecordNumber, ImportProgress progress,
+                          Function<CSVRecord, T> mapper, Consumer<ParsedRow<T>> sink) throws IOException {
+        parseRanges(file, startOffset, firstRecordNumber, progress, header -> {
+            CSVFormat format = CSVFormat.DEFAULT.builder().setHeader(header.names()).build();
+            return (bytes, range) -> parseRecords(bytes, range, format, mapper);
+        }, sink);
+    }
+
+    /**
+     * Parse a UTF-8 CSV file from the end offset of an earlier row on, reading each record by
+     * column position. The columns are bound once from the header, and the records are
+     * decoded by {@link CsvRowDecoder}. A file whose header names a column twice, or a range
+     * the decoder rejects, is read by the CSV parser instead, so its errors are the parser's.
+     *
+     * @param file the CSV file
+     * @param startOffset the end offset of the last row already handled, or 0 to parse the whole file
+     * @param firstRecordNumber the number of the first record to parse
+     * @param progress receives the bytes parsed and carries cancellation
+     * @param binder binds the columns of the header to the mapper of a row; an exception the
+     *               mapper throws fails only that record
+     * @param sink receives the parsed rows
+     * @param <T> the mapped type
+     * @throws IOException if the file cannot be read or is not valid CSV
+     */
+    public <T> void parseRows(Path file, long startOffset, long firstRecordNumber, ImportProgress progress,
+                              Function<CsvHeader, Function<CsvRow, T>> binder, Consumer<ParsedRow<T>> sink) throws IOException {
+        parseRanges(file, startOffset, firstRecordNumber, progress, header -> {
+            Function<CsvRow, T> mapper = binder.apply(header);
+            CSVFormat format = CSVFormat.DEFAULT.builder().setHeader(header.names()).build();
+            Function<CSVRecord, T> recordMapper = record -> mapper.apply(new CsvRecordRow(record, header));
+            if (!header.isDistinct()) {
+                return (bytes, range) -> parseRecords(bytes, range, format, recordMapper);
+            }
+            return (bytes, range) -> {
+                try {
+                    return decodeRows(bytes, range, header, mapper);
+                } catch (IOException e) {
+                    return parseRecords(bytes, range, format, recordMapper);
+                }
+            };
+        }, sink);
+    }
+
+    /**
+     * Parses the records of one range of the file into mapped rows.
+     */
+    @FunctionalInterface
+    private interface RangeParser<T> {
+        List<ParsedRow<T>> parse(byte[] bytes, CsvRangeSplitter.Range range) throws IOException;
+    }
+
+    private <T> void parseRanges(Path file, long startOffset, long firstRecordNumber, ImportProgress progress,
+                                 Function<CsvHeader, RangeParser<T>> parsers, Consumer<ParsedRow<T>> sink) throws IOException {
+        long started = System.nanoTime();
+        CsvRangeSplitter.Layout layout = CsvRangeSplitter.split(file, startOffset, firstRecordNumber, rangeSize);
+        progress.addBytesRead(Math.max(startOffset, layout.headerEnd()));
+        if (layout.ranges().isEmpty()) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            RangeParser<T> parser = parsers.apply(readHeader(channel, layout.headerEnd()));
+
+            if (!appliesTo(channel.size())) {
+                for (CsvRangeSplitter.Range range : layout.ranges()) {
+                    if (progress.isCancelled()) {
+                        break;
+                    }
+                    parseRange(channel, range, parser, progress).forEach(sink);
+                }
+                return;
+            }
+
+            // Bounds the parsed rows held in memory while the sink catches up
+            int window = threads * 2;
+            Iterator<CsvRangeSplitter.Range> ranges = layout.ranges().iterator();
+            Deque<Future<List<ParsedRow<T>>>> inFlight = new ArrayDeque<>();
+            CompletionService<List<ParsedRow<T>>> completion = new ExecutorCompletionService<>(executor);
+            try {
+                while (!progress.isCancelled()) {
+                    while (inFlight.size() < window && ranges.hasNext()) {
+                        CsvRangeSplitter.Range range = ranges.next();
+                        Callable<List<ParsedRow<T>>> task = () -> parseRange(channel, range, parser, progress);
+                        inFlight.add(ordered ? executor.submit(task) : completion.submit(task));
+                    }
+                    if (inFlight.isEmpty()) {
+                        break;
+                    }
+
+                    Future<List<ParsedRow<T>>> next;
+                    if (ordered) {
+                        next = inFlight.removeFirst();
+                    } else {
+                        next = completion.take();
+                        inFlight.remove(next);
+                    }
+                    for (ParsedRow<T> row : await(next)) {
+                        sink.accept(row);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing " + file.getFileName());
+            } finally {
+                inFlight.forEach(future -> future.cancel(true));
+            }
+        }
+
+        logger.info("Parsed {} records in {} ranges on {} threads in {} ms", layout.recordCount(),
+                layout.ranges().size(), threads, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private CsvHeader readHeader(FileChannel channel, long headerEnd) throws IOException {
+        byte[] bytes = read(channel, 0, headerEnd);
+        try (CSVParser parser = new CSVParser(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8),
+                CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+            return CsvHeader.of(parser.getHeaderNames());
+        }
+    }
+
+    /**
+     * Reads one range and parses its records on a parse thread.
+     */
+    private <T> List<ParsedRow<T>> parseRange(FileChannel channel, CsvRangeSplitter.Range range, RangeParser<T> parser,
+                                              ImportProgress progress) throws IOException {
+        if (progress.isCancelled()) {
+            return new ArrayList<>();
+        }
+
+        List<ParsedRow<T>> rows = parser.parse(read(channel, range.start(), range.length()), range);
+        progress.addBytesRead(range.length());
+        return rows;
+    }
+
+    /**
+     * Parses and maps the records of a range with the CSV parser.
+     */
+    private static <T> List<ParsedRow<T>> parseRecords(byte[] bytes, CsvRangeSplitter.Range range, CSVFormat format,
+                                                       Function<CSVRecord, T> mapper) throws IOException {
+        List<ParsedRow<T>> rows = new ArrayList<>((int) range.recordCount());
+        Utf8Offsets offsets = new Utf8Offsets(bytes);
+        try (CSVParser parser = new CSVParser(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), format)) {
+            // A record ends where the next one starts, so each is mapped once the next is read
+            long recordNumber = range.firstRecordNumber();
+            CSVRecord previous = null;
+            for (CSVRecord record : parser) {
+                if (previous != null) {
+                    long endOffset = range.start() + offsets.byteOffset(record.getCharacterPosition());
+                    rows.add(map(previous, recordNumber++, endOffset, mapper, ParallelCsvParser::line));
+                }
+                previous = record;
+            }
+            if (previous != null) {
+                rows.add(map(previous, recordNumber, range.end(), mapper, ParallelCsvParser::line));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    /**
+     * Decodes and maps the records of a range by column position. The decoder reuses its
+     * row, so each record is mapped before the next is decoded; the decoder's position after
+     * a record is where it ends.
+     */
+    private static <T> List<ParsedRow<T>> decodeRows(byte[] bytes, CsvRangeSplitter.Range range, CsvHeader header,
+                                                     Function<CsvRow, T> mapper) throws IOException {
+        List<ParsedRow<T>> rows = new ArrayList<>((int) range.recordCount());
+        Utf8Offsets offsets = new Utf8Offsets(bytes);
+        CsvRowDecoder decoder = new CsvRowDecoder(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), header);
+        long recordNumber = range.firstRecordNumber();
+        while (decoder.next()) {
+            long endOffset = range.start() + offsets.byteOffset(decoder.position());
+            rows.add(map(decoder, recordNumber++, endOffset, mapper, CsvRow::toLine));
+        }
+        return rows;
+    }
+
+    private static <R, T> ParsedRow<T> map(R record, long recordNumber, long endOffset, Function<R, T> mapper,
+                                           Function<R, String> line) {
+        try {
+            return new ParsedRow<>(recordNumber, mapper.apply(record), null, null, null, endOffset);
+        } catch (Exception e) {
+            return new ParsedRow<>(recordNumber, null, String.valueOf(e.getMessage()), ImportErrorType.of(e),
+                    line.apply(record), endOffset);
+        }
+    }
+
+    /**
+     * @return the values of a record as a CSV line
+     */
+    private static String line(CSVRecord record) {
+        return CSVFormat.DEFAULT.format(record.toList().toArray());
+    }
+
+    /**
+     * Reads a part of the file. Positional reads let the parse threads share one channel.
+     */
+    private static byte[] read(FileChannel channel, long start, long length) throws IOException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("CSV record too large at offset " + start);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        long position = start;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("CSV file ended at offset " + position + " while it was parsed");
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Translates the character positions the CSV parser reports into byte offsets of the
+     * UTF-8 bytes it decoded. Positions must be asked for in increasing order.
+     */
+    private static final class Utf8Offsets {
+
+        private final byte[] bytes;
+        private int byteOffset;
+        private long charPosition;
+
+        private Utf8Offsets(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long byteOffset(long position) {
+            while (charPosition < position && byteOffset < bytes.length) {
+                int lead = bytes[byteOffset] & 0xFF;
+                int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+                byteOffset = Math.min(bytes.length, byteOffset + length);
+                // Four-byte characters are decoded into a surrogate pair
+                charPosition += length == 4 ? 2 : 1;
+            }
+            return byteOffset;
+        }
+    }
+
+    private static <T> List<ParsedRow<T>> await(Future<List<ParsedRow<T>>> future)
+            throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.repository.projection.BalanceSheetAggregate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Balance sheet aggregate reconstructed for a past or future date.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class PointInTimeBalanceSheet implements BalanceSheetAggregate {
+
+    private final LocalDate asOfDate;
+    private final Long companyId;
+    private final String companyName;
+    private final String companyType;
+    private final String currencyCode;
+    private final BigDecimal cashBalance;
+    private final BigDecimal receivables;
+    private final BigDecimal inventoryValue;
+    private final BigDecimal payables;
+    private final BigDecimal shortTermDebt;
+    private final BigDecimal openSalesInvoices;
+    private final BigDecimal openPurchaseInvoices;
+}
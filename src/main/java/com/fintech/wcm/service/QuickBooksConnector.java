@@ -0,0 +1,196 @@
+package com.fintech.wcm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fintech.wcm.model.ConnectorConnection;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Invoice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Syncs the invoices and bills of a QuickBooks Online company, found by its realm ID, with
+ * the query API: a WHERE on the last-updated time selects the window, and STARTPOSITION and
+ * MAXRESULTS the page.
+ */
+@Component
+public class QuickBooksConnector implements ImportConnector {
+
+    public static final String SOURCE_TYPE = "QUICKBOOKS";
+
+    static final List<String> COLUMNS = List.of("invoice_number", "invoice_type", "contact_name", "contact_email",
+            "issue_date", "due_date", "subtotal", "tax_amount", "total_amount", "currency_code", "exchange_rate", "status");
+
+    private static final String MINOR_VERSION = "70";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx");
+
+    private final ConnectorHttpClient httpClient;
+    private final String baseUrl;
+    private final Limits limits;
+    private final List<Feed> feeds = List.of(
+            new EntityFeed("Invoice", Invoice.InvoiceType.SALES, "CustomerRef"),
+            new EntityFeed("Bill", Invoice.InvoiceType.PURCHASE, "VendorRef"));
+
+    public QuickBooksConnector(ConnectorHttpClient httpClient,
+                               @Value("${app.import.connectors.quickbooks.base-url:https://quickbooks.api.intuit.com}") String baseUrl,
+                               @Value("${app.import.connectors.quickbooks.page-size:500}") int pageSize,
+                               @Value("${app.import.connectors.quickbooks.max-concurrent-requests:10}") int maxConcurrentRequests,
+                               @Value("${app.import.connectors.quickbooks.requests-per-minute:500}") int requestsPerMinute) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.limits = new Limits(pageSize, maxConcurrentRequests, requestsPerMinute);
+    }
+
+    @Override
+    public String getSourceType() {
+        return SOURCE_TYPE;
+    }
+
+    @Override
+    public List<Feed> getFeeds() {
+        return feeds;
+    }
+
+    @Override
+    public Limits getLimits() {
+        return limits;
+    }
+
+    /**
+     * A QuickBooks transaction entity loaded as invoices of one type.
+     */
+    private final class EntityFeed implements Feed {
+
+        private final String entity;
+        private final Invoice.InvoiceType invoiceType;
+        private final String contactRef;
+
+        EntityFeed(String entity, Invoice.InvoiceType invoiceType, String contactRef) {
+            this.entity = entity;
+            this.invoiceType = invoiceType;
+            this.contactRef = contactRef;
+        }
+
+        @Override
+        public String getName() {
+            return entity;
+        }
+
+        @Override
+        public ImportType getImportType() {
+            return ImportType.INVOICES;
+        }
+
+        @Override
+        public List<String> getColumns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public long count(ConnectorConnection connection, Window window) throws IOException {
+            JsonNode response = query(connection, "SELECT COUNT(*) FROM " + entity + where(window));
+            return response.path("QueryResponse").path("totalCount").asLong();
+        }
+
+        @Override
+        public Page fetch(ConnectorConnection connection, Window window, int page, int pageSize) throws IOException {
+            JsonNode response = query(connection, "SELECT * FROM " + entity + where(window) +
+                    " ORDERBY MetaData.LastUpdatedTime STARTPOSITION " + ((long) page * pageSize + 1) + " MAXRESULTS " + pageSize);
+            List<List<String>> rows = new ArrayList<>();
+            LocalDateTime lastModified = null;
+            for (JsonNode record : response.path("QueryResponse").path(entity)) {
+                rows.add(row(record));
+                lastModified = utc(record.path("MetaData").path("LastUpdatedTime").asText());
+            }
+            return new Page(rows, lastModified);
+        }
+
+        private List<String> row(JsonNode record) {
+            BigDecimal total = decimal(record.path("TotalAmt"));
+            BigDecimal tax = decimal(record.path("TxnTaxDetail").path("TotalTax"));
+            BigDecimal subtotal = total == null ? null : tax == null ? total : total.subtract(tax);
+            // Bills need not have a number; their ID is unique per company
+            String number = text(record.path("DocNumber"));
+            if (number == null) {
+                number = entity.toUpperCase() + "-" + text(record.path("Id"));
+            }
+            return Arrays.asList(
+                    number,
+                    invoiceType.name(),
+                    text(record.path(contactRef).path("name")),
+                    text(record.path("BillEmail").path("Address")),
+                    text(record.path("TxnDate")),
+                    text(record.path("DueDate")),
+                    plain(subtotal),
+                    plain(tax),
+                    plain(total),
+                    text(record.path("CurrencyRef").path("value")),
+                    plain(decimal(record.path("ExchangeRate"))),
+                    status(total, decimal(record.path("Balance")), text(record.path("DueDate"))).name());
+        }
+    }
+
+    private JsonNode query(ConnectorConnection connection, String query) throws IOException {
+        URI uri = URI.create(baseUrl + "/v3/company/" + URLEncoder.encode(connection.getTenantId(), StandardCharsets.UTF_8) +
+                "/query?minorversion=" + MINOR_VERSION + "&query=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
+        return httpClient.get(uri, Map.of("Authorization", "Bearer " + connection.getAccessToken()));
+    }
+
+    private static String where(Window window) {
+        String where = " WHERE MetaData.LastUpdatedTime < '" + timestamp(window.modifiedBefore()) + "'";
+        if (window.modifiedFrom() != null) {
+            where += " AND MetaData.LastUpdatedTime >= '" + timestamp(window.modifiedFrom()) + "'";
+        }
+        return where;
+    }
+
+    private static Invoice.InvoiceStatus status(BigDecimal total, BigDecimal balance, String dueDate) {
+        if (total == null || balance == null) {
+            return Invoice.InvoiceStatus.SENT;
+        }
+        if (balance.signum() == 0 && total.signum() != 0) {
+            return Invoice.InvoiceStatus.PAID;
+        }
+        if (balance.compareTo(total) < 0) {
+            return Invoice.InvoiceStatus.PARTIALLY_PAID;
+        }
+        if (dueDate != null && LocalDate.parse(dueDate).isBefore(LocalDate.now(ZoneOffset.UTC))) {
+            return Invoice.InvoiceStatus.OVERDUE;
+        }
+        return Invoice.InvoiceStatus.SENT;
+    }
+
+    static String timestamp(LocalDateTime utc) {
+        return utc.atOffset(ZoneOffset.UTC).format(TIMESTAMP);
+    }
+
+    static LocalDateTime utc(String timestamp) {
+        return OffsetDateTime.parse(timestamp).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    private static String text(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+
+    private static BigDecimal decimal(JsonNode node) {
+        return node.isNumber() ? node.decimalValue() : null;
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? null : value.toPlainString();
+    }
+}
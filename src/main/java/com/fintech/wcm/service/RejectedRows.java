@@ -0,0 +1,175 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.model.ImportErrorType;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rows one import rejects.
+ *
+ * Each rejected row is counted as failed on the import result, which keeps only a sample of
+ * the error messages and a count per kind of error, and is written with its record number,
+ * kind, error and line to a CSV file the user can download, so however many rows a file has
+ * wrong, neither the result nor the log grows with them. The first rows rejected are logged
+ * one by one; after that a summary is logged at most every ten seconds and when the import
+ * closes. The file is created with the first rejected row.
+ *
+ * Not thread-safe: rows are rejected on the thread that writes the import.
+ */
+public final class RejectedRows implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectedRows.class);
+
+    static final String[] HEADER = {"record_number", "error_type", "error", "line"};
+
+    /** Rejected rows logged one by one */
+    private static final int LOGGED_ROWS = 10;
+    private static final long SUMMARY_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final ImportResultDto result;
+    private final String description;
+    private final String id;
+    private final Path file;
+
+    private CSVPrinter printer;
+    private boolean unwritable;
+    private long rejected;
+    private long unlogged;
+    private long lastSummary;
+
+    /**
+     * @param result the import result that counts the rejected rows
+     * @param description what is imported, for the log
+     * @param id the download ID of the file
+     * @param file where the rejected rows are written, or null to only count them
+     */
+    RejectedRows(ImportResultDto result, String description, String id, Path file) {
+        this.result = result;
+        this.description = description;
+        this.id = id;
+        this.file = file;
+    }
+
+    /**
+     * @param result the import result that counts the rejected rows
+     * @return rejected rows that are counted and logged but not written to a file
+     */
+    public static RejectedRows inMemory(ImportResultDto result) {
+        return new RejectedRows(result, "import", null, null);
+    }
+
+    /**
+     * Reject a row whose mapping threw.
+     *
+     * @param recordNumber the 1-based record number of the row
+     * @param failure what the mapping threw
+     * @param line the row as a CSV line, or null if it is not known
+     */
+    public void reject(long recordNumber, Throwable failure, String line) {
+        reject(recordNumber, ImportErrorType.of(failure), String.valueOf(failure.getMessage()), line);
+    }
+
+    /**
+     * Reject a row.
+     *
+     * @param recordNumber the 1-based record number of the row
+     * @param type the kind of error
+     * @param error the error message
+     * @param line the row as a CSV line, or null if it is not known
+     */
+    public void reject(long recordNumber, ImportErrorType type, String error, String line) {
+        rejected++;
+        result.setFailedRecords(result.getFailedRecords() + 1);
+        result.addError(type, "Error processing record " + recordNumber + ": " + error);
+        write(recordNumber, type, error, line);
+
+        if (rejected <= LOGGED_ROWS) {
+            logger.warn("Rejected record {} of {}: {}", recordNumber, description, error);
+            if (rejected == LOGGED_ROWS) {
+                lastSummary = System.nanoTime();
+                logger.warn("Further rejected rows of {} are only logged in summary", description);
+            }
+            return;
+        }
+        unlogged++;
+        long now = System.nanoTime();
+        if (now - lastSummary >= SUMMARY_INTERVAL) {
+            logSummary();
+            lastSummary = now;
+        }
+    }
+
+    /**
+     * @return the number of rows rejected
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Close the file and set its download ID on the result, if any row was written to it.
+     */
+    @Override
+    public void close() {
+        if (unlogged > 0) {
+            logSummary();
+        }
+        if (printer == null) {
+            return;
+        }
+        try {
+            printer.close();
+        } catch (IOException e) {
+            unwritable(e);
+        }
+        if (!unwritable) {
+            result.setRejectedRowsId(id);
+        }
+    }
+
+    private void write(long recordNumber, ImportErrorType type, String error, String line) {
+        if (file == null || unwritable) {
+            return;
+        }
+        try {
+            if (printer == null) {
+                Files.createDirectories(file.getParent());
+                printer = new CSVPrinter(Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+                        CSVFormat.DEFAULT.builder().setHeader(HEADER).build());
+            }
+            printer.printRecord(recordNumber, type, error, line == null ? "" : line);
+        } catch (IOException e) {
+            unwritable(e);
+        }
+    }
+
+    /**
+     * Stop writing the file, which would be missing rows, and delete it. Rows are still counted.
+     */
+    private void unwritable(IOException e) {
+        unwritable = true;
+        logger.warn("Cannot write the rejected rows of {} to {}: {}", description, file, e.getMessage());
+        try {
+            if (printer != null) {
+                printer.close();
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Purged with the other old files
+        }
+    }
+
+    private void logSummary() {
+        logger.warn("{} more rows of {} rejected, {} so far", unlogged, description, rejected);
+        unlogged = 0;
+    }
+}
@@ -0,0 +1,106 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.ImportType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the files of rows the imports rejected, one per import in a directory per company,
+ * for download until they are older than the retention.
+ */
+@Component
+public class RejectedRowsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectedRowsStore.class);
+
+    private final Path directory;
+    private final Duration retention;
+    private final boolean schedulingEnabled;
+
+    public RejectedRowsStore(@Value("${app.import.rejected-rows.directory:${java.io.tmpdir}/wcm-rejected-rows}") String directory,
+                             @Value("${app.import.rejected-rows.retention:7d}") Duration retention,
+                             @Value("${app.scheduling.enable:true}") boolean schedulingEnabled) {
+        this.directory = Paths.get(directory);
+        this.retention = retention;
+        this.schedulingEnabled = schedulingEnabled;
+    }
+
+    /**
+     * Start collecting the rows an import rejects.
+     *
+     * @param companyId the company importing
+     * @param importType the import type
+     * @param result the import result that counts the rejected rows and gets the file's download ID
+     * @return the rejected rows of the import, to be closed when it finishes
+     */
+    public RejectedRows open(Long companyId, ImportType importType, ImportResultDto result) {
+        String id = UUID.randomUUID().toString();
+        return new RejectedRows(result, importType.getDescription() + " import for company " + companyId, id,
+                file(companyId, id));
+    }
+
+    /**
+     * @param companyId the company that imported
+     * @param id the download ID from the import result
+     * @return the file of the rows the import rejected
+     * @throws ResourceNotFoundException if there is no such file, or it was purged
+     */
+    public Path find(Long companyId, String id) {
+        Path file;
+        try {
+            // Only IDs this store made name a file, so an ID cannot reach outside the directory
+            file = file(companyId, UUID.fromString(id).toString());
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException("Rejected rows not found with id: " + id);
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Rejected rows not found with id: " + id);
+        }
+        return file;
+    }
+
+    /**
+     * Delete the files older than the retention.
+     */
+    @Scheduled(cron = "${app.import.rejected-rows.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        if (!schedulingEnabled) {
+            return;
+        }
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(retention);
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not purge rejected rows in {}: {}", directory, e.getMessage());
+        }
+        if (deleted > 0) {
+            logger.info("Purged {} rejected rows files older than {}", deleted, retention);
+        }
+    }
+
+    private Path file(Long companyId, String id) {
+        return directory.resolve(String.valueOf(companyId)).resolve(id + ".csv");
+    }
+}
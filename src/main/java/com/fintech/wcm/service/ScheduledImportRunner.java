@@ -0,0 +1,26 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.model.ScheduledImport;
+
+import java.util.Set;
+
+/**
+ * Runs the scheduled imports of some source types. The {@link ImportScheduler} calls it on one
+ * node of the cluster for each fire time of an import, outside any transaction.
+ */
+public interface ScheduledImportRunner {
+
+    /**
+     * @return the source types the runner imports from, as scheduled, such as QUICKBOOKS
+     */
+    Set<String> getSourceTypes();
+
+    /**
+     * Run a scheduled import once.
+     *
+     * @param scheduledImport the scheduled import
+     * @return the result, whose status becomes the status of the run
+     */
+    ImportResultDto run(ScheduledImport scheduledImport);
+}
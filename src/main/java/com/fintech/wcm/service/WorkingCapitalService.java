@@ -2,9 +2,12 @@ package com.fintech.wcm.service;
 
 import com.fintech.wcm.dto.DashboardSummaryDto;
 import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
+import com.fintech.wcm.model.Company;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Service interface for working capital management operations.
@@ -28,6 +31,18 @@ public interface WorkingCapitalService {
      */
     WorkingCapitalMetricsDto calculateWorkingCapitalMetrics(Long companyId, LocalDate asOfDate);
     
+    /**
+     * Calculate current working capital metrics, including trends, for many companies
+     * with a single query. Each company's metrics are handed to the consumer as soon as
+     * they are assembled, in company ID order.
+     * 
+     * @param companyIds the companies to include; ignored when a company type is given
+     * @param companyType include every company of this type, or null to use the IDs
+     * @param consumer receives the metrics of each company
+     */
+    void streamBatchMetrics(Collection<Long> companyIds, Company.CompanyType companyType,
+                            Consumer<WorkingCapitalMetricsDto> consumer);
+    
     /**
      * Get dashboard summary for a company.
      * 
@@ -0,0 +1,74 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service interface for daily working capital snapshots and the trends derived from them.
+ */
+public interface WorkingCapitalSnapshotService {
+    
+    /**
+     * Trends compare each day with the day this many days earlier.
+     */
+    int TREND_LOOKBACK_DAYS = 30;
+    
+    /**
+     * Get the stored snapshots of a company within a date range.
+     * 
+     * @param companyId the company ID
+     * @param startDate the first date, inclusive
+     * @param endDate the last date, inclusive
+     * @return the snapshot metrics keyed by date, in date order
+     */
+    Map<LocalDate, WorkingCapitalMetricsDto> getSnapshots(Long companyId, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * Reconstruct metrics, including trends, for dates that have no stored snapshot.
+     * 
+     * @param companyId the company ID
+     * @param dates the dates to reconstruct
+     * @return the metrics keyed by date, in date order
+     */
+    Map<LocalDate, WorkingCapitalMetricsDto> reconstructMetrics(Long companyId, Collection<LocalDate> dates);
+    
+    /**
+     * Get the stored snapshot that the trends of a date are measured against: the latest
+     * one from at least one trend period earlier.
+     * 
+     * @param companyId the company ID
+     * @param date the date the trends are for
+     * @return the snapshot metrics, or empty if the company has no snapshot that old
+     */
+    Optional<WorkingCapitalMetricsDto> findTrendBaseline(Long companyId, LocalDate date);
+    
+    /**
+     * Set the trend indicators of live metrics by comparing them with the stored
+     * snapshot from one trend period earlier.
+     * 
+     * @param metrics the metrics to update
+     */
+    void applyTrends(WorkingCapitalMetricsDto metrics);
+    
+    /**
+     * Set the trend indicators of metrics against an already loaded baseline.
+     * 
+     * @param metrics the metrics to update
+     * @param previous the metrics one trend period earlier, or null if unknown
+     */
+    void applyTrends(WorkingCapitalMetricsDto metrics, WorkingCapitalMetricsDto previous);
+    
+    /**
+     * Create the missing snapshots of every company for a range of past dates.
+     * Companies are processed in parallel, each in its own transaction.
+     * 
+     * @param startDate the first date, inclusive
+     * @param endDate the last date, inclusive; must be before today
+     * @return the number of snapshots created
+     */
+    int backfillSnapshots(LocalDate startDate, LocalDate endDate);
+}
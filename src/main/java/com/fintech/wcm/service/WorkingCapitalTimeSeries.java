@@ -0,0 +1,196 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.Transaction;
+import com.fintech.wcm.repository.*;
+import com.fintech.wcm.repository.projection.BalanceSheetAggregate;
+import com.fintech.wcm.repository.projection.CashMovement;
+import com.fintech.wcm.repository.projection.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Reconstructs a company's balance sheet at many dates with a constant number of queries.
+ * Dates from today onwards use the live balance sheet aggregate.
+ *
+ * Every ledger is loaded once for the whole window as (open date, settled at, amount)
+ * entries and turned into +amount / -amount events. A single sweep over the events,
+ * sorted by date, yields the running balance at each requested date, so a series costs
+ * O(events + dates) regardless of its length.
+ *
+ * Ledgers keep no status history, so an item that is no longer open is taken to have
+ * been settled on the day it was last updated. Cash is rolled back from the current
+ * active-account balance by undoing the income and expense transactions dated after
+ * each point; transfers, refunds and other transactions are treated as cash-neutral.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkingCapitalTimeSeries {
+
+    private static final Set<Transaction.TransactionType> CASH_INFLOWS = EnumSet.of(
+            Transaction.TransactionType.INCOME,
+            Transaction.TransactionType.PAYMENT_RECEIVED);
+
+    private static final Set<Transaction.TransactionType> CASH_OUTFLOWS = EnumSet.of(
+            Transaction.TransactionType.EXPENSE,
+            Transaction.TransactionType.PAYMENT_SENT);
+
+    private final CompanyRepository companyRepository;
+    private final AccountsReceivableRepository accountsReceivableRepository;
+    private final AccountsPayableRepository accountsPayableRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ShortTermLiabilityRepository shortTermLiabilityRepository;
+    private final TransactionRepository transactionRepository;
+
+    /**
+     * Reconstruct the balance sheet of a company at each of the given dates.
+     *
+     * @param companyId the company ID
+     * @param dates the dates to reconstruct; duplicates are ignored
+     * @return the balance sheet at each date, in ascending date order
+     */
+    public NavigableMap<LocalDate, BalanceSheetAggregate> balanceSheetsAt(Long companyId, Collection<LocalDate> dates) {
+        BalanceSheetAggregate current = companyRepository.findBalanceSheetAggregateByCompanyId(companyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+
+        NavigableMap<LocalDate, BalanceSheetAggregate> series = new TreeMap<>();
+        if (dates.isEmpty()) {
+            return series;
+        }
+
+        // Today and later are served by the live aggregate; only past dates are reconstructed
+        LocalDate today = LocalDate.now();
+        SortedSet<LocalDate> points = new TreeSet<>(dates);
+        for (LocalDate date : points.tailSet(today)) {
+            series.put(date, current);
+        }
+        SortedSet<LocalDate> pastPoints = points.headSet(today);
+        if (pastPoints.isEmpty()) {
+            return series;
+        }
+
+        LocalDate startDate = pastPoints.first();
+        LocalDate endDate = pastPoints.last();
+        // An item settled on the first point no longer counts on that day
+        LocalDateTime closedAfter = startDate.plusDays(1).atStartOfDay();
+
+        RunningTotal receivables = RunningTotal.of(
+                accountsReceivableRepository.findLedgerEntries(companyId, endDate, closedAfter));
+        RunningTotal payables = RunningTotal.of(
+                accountsPayableRepository.findLedgerEntries(companyId, endDate, closedAfter));
+        RunningTotal openSales = RunningTotal.of(
+                invoiceRepository.findSalesLedgerEntries(companyId, endDate, closedAfter));
+        RunningTotal openPurchases = RunningTotal.of(
+                invoiceRepository.findPurchaseLedgerEntries(companyId, endDate, closedAfter));
+        RunningTotal inventory = RunningTotal.of(
+                inventoryRepository.findLedgerEntries(companyId, endDate));
+        RunningTotal shortTermDebt = RunningTotal.of(
+                shortTermLiabilityRepository.findLedgerEntries(companyId, endDate, closedAfter));
+
+        // Cash moved after a point is everything after the first point minus what has been swept so far
+        RunningTotal cashMovements = new RunningTotal();
+        for (CashMovement movement : transactionRepository.findCashMovementsAfter(companyId, startDate)) {
+            cashMovements.add(movement.getTransactionDate(), signedAmount(movement));
+        }
+        cashMovements.seal();
+        BigDecimal movementsAfterStart = cashMovements.total();
+
+        for (LocalDate date : pastPoints) {
+            BigDecimal movementsAfterDate = movementsAfterStart.subtract(cashMovements.advanceTo(date));
+            series.put(date, PointInTimeBalanceSheet.builder()
+                    .asOfDate(date)
+                    .companyId(current.getCompanyId())
+                    .companyName(current.getCompanyName())
+                    .companyType(current.getCompanyType())
+                    .currencyCode(current.getCurrencyCode())
+                    .cashBalance(current.getCashBalance().subtract(movementsAfterDate))
+                    .receivables(receivables.advanceTo(date))
+                    .inventoryValue(inventory.advanceTo(date))
+                    .payables(payables.advanceTo(date))
+                    .shortTermDebt(shortTermDebt.advanceTo(date))
+                    .openSalesInvoices(openSales.advanceTo(date))
+                    .openPurchaseInvoices(openPurchases.advanceTo(date))
+                    .build());
+        }
+
+        return series;
+    }
+
+    /**
+     * Reconstruct the balance sheet of a company at a single date.
+     *
+     * @param companyId the company ID
+     * @param date the date
+     * @return the balance sheet at that date
+     */
+    public BalanceSheetAggregate balanceSheetAt(Long companyId, LocalDate date) {
+        return balanceSheetsAt(companyId, List.of(date)).get(date);
+    }
+
+    private static BigDecimal signedAmount(CashMovement movement) {
+        BigDecimal amount = movement.getAmount() != null ? movement.getAmount() : BigDecimal.ZERO;
+        if (CASH_INFLOWS.contains(movement.getTransactionType())) {
+            return amount;
+        }
+        if (CASH_OUTFLOWS.contains(movement.getTransactionType())) {
+            return amount.negate();
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * Date-ordered balance deltas swept forward by a cursor. Dates passed to
+     * {@link #advanceTo(LocalDate)} must be non-decreasing.
+     */
+    private static final class RunningTotal {
+
+        private final List<Map.Entry<LocalDate, BigDecimal>> events = new ArrayList<>();
+        private int cursor;
+        private BigDecimal balance = BigDecimal.ZERO;
+
+        static RunningTotal of(List<LedgerEntry> entries) {
+            RunningTotal total = new RunningTotal();
+            for (LedgerEntry entry : entries) {
+                if (entry.getOpenDate() == null || entry.getAmount() == null) {
+                    continue;
+                }
+                LocalDate closeDate = entry.getClosedAt() != null ? entry.getClosedAt().toLocalDate() : null;
+                if (closeDate != null && !closeDate.isAfter(entry.getOpenDate())) {
+                    continue;
+                }
+                total.add(entry.getOpenDate(), entry.getAmount());
+                if (closeDate != null) {
+                    total.add(closeDate, entry.getAmount().negate());
+                }
+            }
+            total.seal();
+            return total;
+        }
+
+        void add(LocalDate date, BigDecimal delta) {
+            events.add(Map.entry(date, delta));
+        }
+
+        void seal() {
+            events.sort(Map.Entry.comparingByKey());
+        }
+
+        BigDecimal advanceTo(LocalDate date) {
+            while (cursor < events.size() && !events.get(cursor).getKey().isAfter(date)) {
+                balance = balance.add(events.get(cursor).getValue());
+                cursor++;
+            }
+            return balance;
+        }
+
+        BigDecimal total() {
+            return events.stream().map(Map.Entry::getValue).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+}
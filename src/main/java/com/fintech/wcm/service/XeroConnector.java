@@ -0,0 +1,198 @@
+package com.fintech.wcm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fintech.wcm.model.ConnectorConnection;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Invoice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Syncs the sales and purchase invoices of a Xero organisation, found by its tenant ID, with
+ * the Invoices endpoint: a where filter on UpdatedDateUTC selects the window, and page and
+ * pageSize the page.
+ */
+@Component
+public class XeroConnector implements ImportConnector {
+
+    public static final String SOURCE_TYPE = "XERO";
+
+    static final List<String> COLUMNS = List.of("invoice_number", "invoice_type", "contact_name", "contact_email",
+            "issue_date", "due_date", "subtotal", "tax_amount", "total_amount", "currency_code",
+            "total_amount_base_currency", "status");
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy,MM,dd,HH,mm,ss");
+    private static final Pattern JSON_DATE = Pattern.compile("/Date\\((-?\\d+)([+-]\\d{4})?\\)/");
+
+    private final ConnectorHttpClient httpClient;
+    private final String baseUrl;
+    private final Limits limits;
+    private final List<Feed> feeds = List.of(new InvoiceFeed());
+
+    public XeroConnector(ConnectorHttpClient httpClient,
+                         @Value("${app.import.connectors.xero.base-url:https://api.xero.com}") String baseUrl,
+                         @Value("${app.import.connectors.xero.page-size:100}") int pageSize,
+                         @Value("${app.import.connectors.xero.max-concurrent-requests:5}") int maxConcurrentRequests,
+                         @Value("${app.import.connectors.xero.requests-per-minute:60}") int requestsPerMinute) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.limits = new Limits(pageSize, maxConcurrentRequests, requestsPerMinute);
+    }
+
+    @Override
+    public String getSourceType() {
+        return SOURCE_TYPE;
+    }
+
+    @Override
+    public List<Feed> getFeeds() {
+        return feeds;
+    }
+
+    @Override
+    public Limits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Xero invoices of both types, told apart by their Type.
+     */
+    private final class InvoiceFeed implements Feed {
+
+        @Override
+        public String getName() {
+            return "Invoices";
+        }
+
+        @Override
+        public ImportType getImportType() {
+            return ImportType.INVOICES;
+        }
+
+        @Override
+        public List<String> getColumns() {
+            return COLUMNS;
+        }
+
+        @Override
+        public long count(ConnectorConnection connection, Window window) throws IOException {
+            return invoices(connection, window, 1, 1).path("pagination").path("itemCount").asLong();
+        }
+
+        @Override
+        public Page fetch(ConnectorConnection connection, Window window, int page, int pageSize) throws IOException {
+            JsonNode response = invoices(connection, window, page + 1, pageSize);
+            List<List<String>> rows = new ArrayList<>();
+            LocalDateTime lastModified = null;
+            for (JsonNode invoice : response.path("Invoices")) {
+                rows.add(row(invoice));
+                lastModified = utc(invoice.path("UpdatedDateUTC").asText());
+            }
+            return new Page(rows, lastModified);
+        }
+    }
+
+    private JsonNode invoices(ConnectorConnection connection, ImportConnector.Window window, int page, int pageSize)
+            throws IOException {
+        String where = "UpdatedDateUTC<DateTime(" + window.modifiedBefore().format(DATE_TIME) + ")";
+        if (window.modifiedFrom() != null) {
+            where += "&&UpdatedDateUTC>=DateTime(" + window.modifiedFrom().format(DATE_TIME) + ")";
+        }
+        URI uri = URI.create(baseUrl + "/api.xro/2.0/Invoices?where=" + URLEncoder.encode(where, StandardCharsets.UTF_8) +
+                "&order=" + URLEncoder.encode("UpdatedDateUTC ASC", StandardCharsets.UTF_8) +
+                "&page=" + page + "&pageSize=" + pageSize);
+        return httpClient.get(uri, Map.of(
+                "Authorization", "Bearer " + connection.getAccessToken(),
+                "xero-tenant-id", connection.getTenantId()));
+    }
+
+    private static List<String> row(JsonNode invoice) {
+        BigDecimal total = decimal(invoice.path("Total"));
+        // The rate is of the invoice currency per unit of the base currency
+        BigDecimal rate = decimal(invoice.path("CurrencyRate"));
+        BigDecimal baseTotal = total == null || rate == null || rate.signum() == 0 ? null
+                : total.divide(rate, 2, RoundingMode.HALF_UP);
+        return Arrays.asList(
+                text(invoice.path("InvoiceNumber")),
+                "ACCPAY".equals(invoice.path("Type").asText()) ? Invoice.InvoiceType.PURCHASE.name() : Invoice.InvoiceType.SALES.name(),
+                text(invoice.path("Contact").path("Name")),
+                text(invoice.path("Contact").path("EmailAddress")),
+                date(invoice.path("DateString")),
+                date(invoice.path("DueDateString")),
+                plain(decimal(invoice.path("SubTotal"))),
+                plain(decimal(invoice.path("TotalTax"))),
+                plain(total),
+                text(invoice.path("CurrencyCode")),
+                plain(baseTotal),
+                status(invoice).name());
+    }
+
+    private static Invoice.InvoiceStatus status(JsonNode invoice) {
+        return switch (invoice.path("Status").asText()) {
+            case "DRAFT", "SUBMITTED" -> Invoice.InvoiceStatus.DRAFT;
+            case "PAID" -> Invoice.InvoiceStatus.PAID;
+            case "VOIDED", "DELETED" -> Invoice.InvoiceStatus.CANCELLED;
+            default -> {
+                BigDecimal paid = decimal(invoice.path("AmountPaid"));
+                String dueDate = date(invoice.path("DueDateString"));
+                if (paid != null && paid.signum() > 0) {
+                    yield Invoice.InvoiceStatus.PARTIALLY_PAID;
+                }
+                if (dueDate != null && LocalDate.parse(dueDate).isBefore(LocalDate.now(ZoneOffset.UTC))) {
+                    yield Invoice.InvoiceStatus.OVERDUE;
+                }
+                yield Invoice.InvoiceStatus.SENT;
+            }
+        };
+    }
+
+    /**
+     * Parse a Microsoft JSON date, such as /Date(1700000000000+0000)/, as UTC.
+     */
+    static LocalDateTime utc(String jsonDate) {
+        Matcher matcher = JSON_DATE.matcher(jsonDate);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid Xero date: " + jsonDate);
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(matcher.group(1))), ZoneOffset.UTC);
+    }
+
+    static String jsonDate(LocalDateTime utc) {
+        return "/Date(" + utc.toInstant(ZoneOffset.UTC).toEpochMilli() + "+0000)/";
+    }
+
+    private static String date(JsonNode node) {
+        String text = text(node);
+        return text == null || text.length() < 10 ? null : text.substring(0, 10);
+    }
+
+    private static String text(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+
+    private static BigDecimal decimal(JsonNode node) {
+        return node.isNumber() ? node.decimalValue() : null;
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? null : value.toPlainString();
+    }
+}
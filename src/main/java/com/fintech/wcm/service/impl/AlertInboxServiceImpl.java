@@ -0,0 +1,230 @@
+package com.fintech.wcm.service.impl;
+
+import com.fintech.wcm.dto.AlertInboxDto;
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.Alert;
+import com.fintech.wcm.model.AlertInbox;
+import com.fintech.wcm.repository.AlertInboxRepository;
+import com.fintech.wcm.repository.AlertRepository;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.repository.projection.AlertCountRow;
+import com.fintech.wcm.service.AlertInboxService;
+import com.fintech.wcm.service.CompanyDataVersions;
+import com.fintech.wcm.util.VersionedCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the AlertInboxService interface.
+ *
+ * Each change locks the company's inbox row, so concurrent alert changes are applied one
+ * after the other. A missing row is seeded from the committed alerts in a transaction of
+ * its own; the change being recorded is then applied on top of it like any other.
+ */
+@Service
+public class AlertInboxServiceImpl implements AlertInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertInboxServiceImpl.class);
+
+    private static final Comparator<AlertInbox.RecentAlert> NEWEST_FIRST =
+            Comparator.comparing(AlertInbox.RecentAlert::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(AlertInbox.RecentAlert::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final AlertInboxRepository alertInboxRepository;
+    private final AlertRepository alertRepository;
+    private final CompanyRepository companyRepository;
+    private final CompanyDataVersions companyDataVersions;
+    private final EntityManager entityManager;
+    private final TransactionTemplate seedTransaction;
+    private final int recentSize;
+    private final VersionedCache<Long, AlertInboxDto> inboxCache;
+
+    public AlertInboxServiceImpl(
+            AlertInboxRepository alertInboxRepository,
+            AlertRepository alertRepository,
+            CompanyRepository companyRepository,
+            CompanyDataVersions companyDataVersions,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.alerts.inbox.recent-size:20}") int recentSize,
+            @Value("${app.cache.maximum-size:5000}") int cacheSize,
+            @Value("${app.cache.ttl:5m}") Duration cacheTtl) {
+        this.alertInboxRepository = alertInboxRepository;
+        this.alertRepository = alertRepository;
+        this.companyRepository = companyRepository;
+        this.companyDataVersions = companyDataVersions;
+        this.entityManager = entityManager;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.recentSize = recentSize;
+        // Alert changes bump the company data version, so entries are never served stale
+        this.inboxCache = new VersionedCache<>(cacheSize, cacheTtl, Duration.ZERO, Runnable::run);
+    }
+
+    @Override
+    public AlertInboxDto getInbox(Long companyId) {
+        long version = companyDataVersions.current(companyId);
+        return inboxCache.get(companyId, version, () -> toDto(alertInboxRepository.findById(companyId)
+                .orElseGet(() -> seed(companyId))));
+    }
+
+    @Override
+    public void recordCreated(Alert alert) {
+        AlertInbox inbox = lockInbox(alert.getCompany().getId());
+
+        inbox.setTotalCount(inbox.getTotalCount() + 1);
+        if (!alert.isRead()) {
+            inbox.setUnreadCount(inbox.getUnreadCount() + 1);
+        }
+        if (alert.isDismissed()) {
+            inbox.setDismissedCount(inbox.getDismissedCount() + 1);
+        }
+        inbox.setSeverityCounts(increment(inbox.getSeverityCounts(), alert.getSeverity().name()));
+        inbox.setTypeCounts(increment(inbox.getTypeCounts(), alert.getAlertType().name()));
+
+        if (!alert.isDismissed()) {
+            List<AlertInbox.RecentAlert> recentAlerts = new ArrayList<>(inbox.getRecentAlerts());
+            recentAlerts.add(AlertInbox.RecentAlert.of(alert));
+            recentAlerts.sort(NEWEST_FIRST);
+            inbox.setRecentAlerts(new ArrayList<>(recentAlerts.subList(0, Math.min(recentSize, recentAlerts.size()))));
+        }
+
+        save(inbox);
+    }
+
+    @Override
+    public void recordRead(Alert alert) {
+        AlertInbox inbox = lockInbox(alert.getCompany().getId());
+
+        inbox.setUnreadCount(Math.max(0, inbox.getUnreadCount() - 1));
+        List<AlertInbox.RecentAlert> recentAlerts = new ArrayList<>(inbox.getRecentAlerts());
+        for (AlertInbox.RecentAlert recentAlert : recentAlerts) {
+            if (alert.getId().equals(recentAlert.getId())) {
+                recentAlert.setRead(true);
+            }
+        }
+        inbox.setRecentAlerts(recentAlerts);
+
+        save(inbox);
+    }
+
+    @Override
+    public void recordDismissed(Alert alert) {
+        AlertInbox inbox = lockInbox(alert.getCompany().getId());
+
+        inbox.setDismissedCount(inbox.getDismissedCount() + 1);
+        List<AlertInbox.RecentAlert> recentAlerts = new ArrayList<>(inbox.getRecentAlerts());
+        recentAlerts.removeIf(recentAlert -> alert.getId().equals(recentAlert.getId()));
+
+        // Refill from the alerts table once dismissals have drained half of the ring
+        long openCount = inbox.getTotalCount() - inbox.getDismissedCount();
+        if (recentAlerts.size() < recentSize / 2 && openCount > recentAlerts.size()) {
+            recentAlerts = loadRecentAlerts(inbox.getCompanyId());
+        }
+        inbox.setRecentAlerts(recentAlerts);
+
+        save(inbox);
+    }
+
+    /**
+     * Locks the inbox row of a company, seeding it first if the company has none yet.
+     */
+    private AlertInbox lockInbox(Long companyId) {
+        return alertInboxRepository.findByCompanyIdForUpdate(companyId)
+                .orElseGet(() -> {
+                    seed(companyId);
+                    return alertInboxRepository.findByCompanyIdForUpdate(companyId)
+                            .orElseThrow(() -> new IllegalStateException("Alert inbox of company " + companyId + " was not seeded"));
+                });
+    }
+
+    /**
+     * Builds the inbox of a company from its committed alerts and inserts it in a transaction
+     * of its own. If another transaction seeded it first, that row is returned instead.
+     */
+    private AlertInbox seed(Long companyId) {
+        if (!companyRepository.existsById(companyId)) {
+            throw new ResourceNotFoundException("Company not found with id: " + companyId);
+        }
+        try {
+            return seedTransaction.execute(status -> {
+                AlertInbox inbox = build(companyId);
+                entityManager.persist(inbox);
+                entityManager.flush();
+                return inbox;
+            });
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            logger.debug("Alert inbox of company {} was seeded concurrently", companyId);
+            return alertInboxRepository.findById(companyId).orElseThrow(() -> e);
+        }
+    }
+
+    private AlertInbox build(Long companyId) {
+        AlertInbox inbox = new AlertInbox();
+        inbox.setCompanyId(companyId);
+
+        Map<String, Long> severityCounts = new HashMap<>();
+        Map<String, Long> typeCounts = new HashMap<>();
+        for (AlertCountRow row : alertRepository.countByCompanyIdGroupedBySeverityAndType(companyId)) {
+            inbox.setTotalCount(inbox.getTotalCount() + row.getTotal());
+            inbox.setUnreadCount(inbox.getUnreadCount() + row.getUnread());
+            inbox.setDismissedCount(inbox.getDismissedCount() + row.getDismissed());
+            severityCounts.merge(row.getSeverity().name(), row.getTotal(), Long::sum);
+            typeCounts.merge(row.getAlertType().name(), row.getTotal(), Long::sum);
+        }
+        inbox.setSeverityCounts(severityCounts);
+        inbox.setTypeCounts(typeCounts);
+        inbox.setRecentAlerts(loadRecentAlerts(companyId));
+        inbox.setUpdatedAt(LocalDateTime.now());
+        return inbox;
+    }
+
+    private List<AlertInbox.RecentAlert> loadRecentAlerts(Long companyId) {
+        List<AlertInbox.RecentAlert> recentAlerts = new ArrayList<>();
+        for (Alert alert : alertRepository.findByCompanyIdAndDismissedFalseOrderByCreatedAtDescIdDesc(
+                companyId, PageRequest.of(0, recentSize))) {
+            recentAlerts.add(AlertInbox.RecentAlert.of(alert));
+        }
+        return recentAlerts;
+    }
+
+    private void save(AlertInbox inbox) {
+        inbox.setUpdatedAt(LocalDateTime.now());
+        alertInboxRepository.save(inbox);
+    }
+
+    private static Map<String, Long> increment(Map<String, Long> counts, String key) {
+        Map<String, Long> incremented = new HashMap<>(counts);
+        incremented.merge(key, 1L, Long::sum);
+        return incremented;
+    }
+
+    private static AlertInboxDto toDto(AlertInbox inbox) {
+        return AlertInboxDto.builder()
+                .companyId(inbox.getCompanyId())
+                .totalCount(inbox.getTotalCount())
+                .unreadCount(inbox.getUnreadCount())
+                .dismissedCount(inbox.getDismissedCount())
+                .severityCounts(Map.copyOf(inbox.getSeverityCounts()))
+                .typeCounts(Map.copyOf(inbox.getTypeCounts()))
+                .recentAlerts(List.copyOf(inbox.getRecentAlerts()))
+                .build();
+    }
+}
@@ -1,17 +1,22 @@
 package com.fintech.wcm.service.impl;
 
 import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.AccountsPayable;
+import com.fintech.wcm.model.AccountsReceivable;
 import com.fintech.wcm.model.Alert;
 import com.fintech.wcm.model.Company;
-import com.fintech.wcm.repository.*;
+import com.fintech.wcm.repository.AlertRepository;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.service.AlertInboxService;
 import com.fintech.wcm.service.AlertService;
-import com.fintech.wcm.service.WorkingCapitalService;
+import com.fintech.wcm.service.CompanyDataVersions;
+import com.fintech.wcm.service.MetricsContext;
+import com.fintech.wcm.service.MetricsContextFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -25,11 +30,9 @@ public class AlertServiceImpl implements AlertService {
 
     private final CompanyRepository companyRepository;
     private final AlertRepository alertRepository;
-    private final CashAccountRepository cashAccountRepository;
-    private final AccountsReceivableRepository accountsReceivableRepository;
-    private final AccountsPayableRepository accountsPayableRepository;
-    private final ShortTermLiabilityRepository shortTermLiabilityRepository;
-    private final WorkingCapitalService workingCapitalService;
+    private final AlertInboxService alertInboxService;
+    private final MetricsContextFactory metricsContextFactory;
+    private final CompanyDataVersions companyDataVersions;
 
     @Override
     @Transactional
@@ -38,7 +41,10 @@ public class AlertServiceImpl implements AlertService {
         if (alert.getCreatedAt() == null) {
             alert.setCreatedAt(LocalDateTime.now());
         }
-        return alertRepository.save(alert);
+        Alert savedAlert = alertRepository.save(alert);
+        alertInboxService.recordCreated(savedAlert);
+        bumpCompanyDataVersion(savedAlert);
+        return savedAlert;
     }
 
     @Override
@@ -77,9 +83,14 @@ public class AlertServiceImpl implements AlertService {
         Alert alert = alertRepository.findById(alertId)
                 .orElseThrow(() -> new ResourceNotFoundException("Alert not found with id: " + alertId));
         
+        boolean wasUnread = !alert.isRead();
         alert.setRead(true);
         alert.setReadAt(LocalDateTime.now());
         alertRepository.save(alert);
+        if (wasUnread) {
+            alertInboxService.recordRead(alert);
+        }
+        bumpCompanyDataVersion(alert);
     }
 
     @Override
@@ -88,56 +99,43 @@ public class AlertServiceImpl implements AlertService {
         Alert alert = alertRepository.findById(alertId)
                 .orElseThrow(() -> new ResourceNotFoundException("Alert not found with id: " + alertId));
         
+        boolean wasOpen = !alert.isDismissed();
         alert.setDismissed(true);
         alert.setDismissedAt(LocalDateTime.now());
         alertRepository.save(alert);
+        if (wasOpen) {
+            alertInboxService.recordDismissed(alert);
+        }
+        bumpCompanyDataVersion(alert);
     }
 
     @Override
     @Transactional
     public int generateCashGapAlerts(Long companyId) {
-        Company company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+        return generateCashGapAlerts(metricsContextFactory.create(companyId));
+    }
+
+    @Override
+    @Transactional
+    public int generateCashGapAlerts(MetricsContext context) {
+        Company company = companyReference(context);
+        String currencyCode = context.getCurrencyCode();
         
         int alertsGenerated = 0;
         
         // Get current cash balance
-        BigDecimal cashBalance = cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId);
-        if (cashBalance == null) {
-            cashBalance = BigDecimal.ZERO;
-        }
+        BigDecimal cashBalance = context.getCashBalance();
         
         // Get upcoming payables for the next 30 days
-        LocalDate today = LocalDate.now();
-        LocalDate thirtyDaysLater = today.plusDays(30);
-        
-        List<AccountsPayable.PayableStatus> unpaidStatuses = List.of(
-                AccountsPayable.PayableStatus.PENDING, 
-                AccountsPayable.PayableStatus.APPROVED,
-                AccountsPayable.PayableStatus.PARTIALLY_PAID,
-                AccountsPayable.PayableStatus.OVERDUE
-        );
-        
         BigDecimal upcomingPayables = BigDecimal.ZERO;
-        List<AccountsPayable> payables = accountsPayableRepository.findByCompanyIdAndDueDateBetweenAndStatusIn(
-                companyId, today, thirtyDaysLater, unpaidStatuses);
-        
-        for (AccountsPayable payable : payables) {
+        for (AccountsPayable payable : context.getUpcomingPayables()) {
             upcomingPayables = upcomingPayables.add(payable.getAmountBaseCurrency());
         }
         
         // Get expected receivables for the next 30 days
-        List<AccountsReceivable.ReceivableStatus> unpaidReceivableStatuses = List.of(
-                AccountsReceivable.ReceivableStatus.OPEN,
-                AccountsReceivable.ReceivableStatus.PARTIALLY_PAID
-        );
-        
         BigDecimal expectedReceivables = BigDecimal.ZERO;
-        List<AccountsReceivable> receivables = accountsReceivableRepository.findByCompanyIdAndDueDateBeforeAndStatusNot(
-                companyId, thirtyDaysLater, AccountsReceivable.ReceivableStatus.PAID);
-        
-        for (AccountsReceivable receivable : receivables) {
-            if (unpaidReceivableStatuses.contains(receivable.getStatus())) {
+        for (AccountsReceivable receivable : context.getUpcomingReceivables()) {
+            if (MetricsContext.UPCOMING_RECEIVABLE_STATUSES.contains(receivable.getStatus())) {
                 expectedReceivables = expectedReceivables.add(receivable.getAmountBaseCurrency());
             }
         }
@@ -151,7 +149,7 @@ public class AlertServiceImpl implements AlertService {
             alert.setCompany(company);
             alert.setTitle("Potential Cash Gap Detected");
             alert.setMessage("Your projected cash balance in 30 days is " + projectedBalance + " " + 
-                    company.getCurrencyCode() + ". Current balance: " + cashBalance + ", Upcoming payables: " + 
+                    currencyCode + ". Current balance: " + cashBalance + ", Upcoming payables: " + 
                     upcomingPayables + ", Expected receivables: " + expectedReceivables);
             alert.setAlertType(Alert.AlertType.CASH_GAP);
             alert.setSeverity(Alert.AlertSeverity.HIGH);
@@ -170,8 +168,8 @@ public class AlertServiceImpl implements AlertService {
             Alert alert = new Alert();
             alert.setCompany(company);
             alert.setTitle("Low Cash Balance");
-            alert.setMessage("Your current cash balance is " + cashBalance + " " + company.getCurrencyCode() + 
-                    ", which is below the recommended minimum of 10,000 " + company.getCurrencyCode());
+            alert.setMessage("Your current cash balance is " + cashBalance + " " + currencyCode + 
+                    ", which is below the recommended minimum of 10,000 " + currencyCode);
             alert.setAlertType(Alert.AlertType.CASH_GAP);
             alert.setSeverity(Alert.AlertSeverity.MEDIUM);
             alert.setRead(false);
@@ -190,13 +188,18 @@ public class AlertServiceImpl implements AlertService {
     @Override
     @Transactional
     public int generateLiquidityAlerts(Long companyId) {
-        Company company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+        return generateLiquidityAlerts(metricsContextFactory.create(companyId));
+    }
+
+    @Override
+    @Transactional
+    public int generateLiquidityAlerts(MetricsContext context) {
+        Company company = companyReference(context);
         
         int alertsGenerated = 0;
         
         // Calculate liquidity ratios
-        Map<String, Double> liquidityRatios = workingCapitalService.calculateLiquidityRatios(companyId);
+        Map<String, Double> liquidityRatios = context.getLiquidityRatios();
         
         // Check current ratio
         double currentRatio = liquidityRatios.getOrDefault("currentRatio", 0.0);
@@ -279,29 +282,23 @@ public class AlertServiceImpl implements AlertService {
     @Override
     @Transactional
     public int generateWorkingCapitalRatioAlerts(Long companyId) {
-        Company company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+        return generateWorkingCapitalRatioAlerts(metricsContextFactory.create(companyId));
+    }
+
+    @Override
+    @Transactional
+    public int generateWorkingCapitalRatioAlerts(MetricsContext context) {
+        Company company = companyReference(context);
         
         int alertsGenerated = 0;
         
         // Calculate net working capital
-        BigDecimal cashAndEquivalents = cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId);
-        if (cashAndEquivalents == null) cashAndEquivalents = BigDecimal.ZERO;
-        
-        BigDecimal accountsReceivable = accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId);
-        if (accountsReceivable == null) accountsReceivable = BigDecimal.ZERO;
-        
+        BigDecimal cashAndEquivalents = context.getCashBalance();
+        BigDecimal accountsReceivable = context.getReceivables();
         BigDecimal inventory = BigDecimal.ZERO; // Assuming we don't have inventory data
         
         BigDecimal totalCurrentAssets = cashAndEquivalents.add(accountsReceivable).add(inventory);
-        
-        BigDecimal accountsPayable = accountsPayableRepository.sumTotalPayablesByCompanyId(companyId);
-        if (accountsPayable == null) accountsPayable = BigDecimal.ZERO;
-        
-        BigDecimal shortTermDebt = shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(companyId);
-        if (shortTermDebt == null) shortTermDebt = BigDecimal.ZERO;
-        
-        BigDecimal totalCurrentLiabilities = accountsPayable.add(shortTermDebt);
+        BigDecimal totalCurrentLiabilities = context.getTotalCurrentLiabilities();
         
         BigDecimal netWorkingCapital = totalCurrentAssets.subtract(totalCurrentLiabilities);
         
@@ -310,7 +307,7 @@ public class AlertServiceImpl implements AlertService {
             Alert alert = new Alert();
             alert.setCompany(company);
             alert.setTitle("Negative Working Capital");
-            alert.setMessage("Your net working capital is " + netWorkingCapital + " " + company.getCurrencyCode() + 
+            alert.setMessage("Your net working capital is " + netWorkingCapital + " " + context.getCurrencyCode() + 
                     ". Negative working capital indicates potential financial distress.");
             alert.setAlertType(Alert.AlertType.WORKING_CAPITAL_RATIO);
             alert.setSeverity(Alert.AlertSeverity.CRITICAL);
@@ -353,16 +350,21 @@ public class AlertServiceImpl implements AlertService {
     @Override
     @Transactional
     public int generateCCCAlerts(Long companyId) {
-        Company company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+        return generateCCCAlerts(metricsContextFactory.create(companyId));
+    }
+
+    @Override
+    @Transactional
+    public int generateCCCAlerts(MetricsContext context) {
+        Company company = companyReference(context);
         
         int alertsGenerated = 0;
         
         // Calculate CCC
-        double dso = workingCapitalService.calculateDSO(companyId);
-        double dpo = workingCapitalService.calculateDPO(companyId);
-        double dio = workingCapitalService.calculateDIO(companyId);
-        double ccc = workingCapitalService.calculateCCC(companyId);
+        double dso = context.getDaysSalesOutstanding();
+        double dpo = context.getDaysPayablesOutstanding();
+        double dio = context.getDaysInventoryOutstanding();
+        double ccc = context.getCashConversionCycle();
         
         // Create alert if CCC is too high (industry benchmarks would be better, but using a generic threshold here)
         if (ccc > 90) {
@@ -443,4 +445,28 @@ public class AlertServiceImpl implements AlertService {
         
         return alertsGenerated;
     }
+
+    /**
+     * Returns a reference to the context's company for attaching alerts. Reading the
+     * balance sheet first makes a missing company fail with ResourceNotFoundException
+     * without a separate lookup.
+     * 
+     * @param context the metrics context
+     * @return the company reference
+     */
+    private Company companyReference(MetricsContext context) {
+        context.getBalanceSheet();
+        return companyRepository.getReferenceById(context.getCompanyId());
+    }
+
+    /**
+     * The dashboard summary counts and lists alerts, so any alert change invalidates it.
+     * 
+     * @param alert the created or changed alert
+     */
+    private void bumpCompanyDataVersion(Alert alert) {
+        if (alert.getCompany() != null) {
+            companyDataVersions.bumpOnCommit(alert.getCompany().getId());
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package com.fintech.wcm.service.impl;
+
+import com.fintech.wcm.dto.DashboardSummaryDto;
+import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.service.CacheStatisticsService;
+import com.fintech.wcm.service.CompanyDataVersions;
+import com.fintech.wcm.service.WorkingCapitalService;
+import com.fintech.wcm.util.VersionedCache;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Caching decorator of the working capital service.
+ *
+ * The current metrics and the dashboard summary of each company are cached under the
+ * company's data version, so imports, alert changes and company updates make them
+ * unreachable at once. Entries that are only old are served for a while longer and
+ * refreshed in the background. Everything else is passed straight to the delegate.
+ */
+@Service
+@Primary
+public class CachingWorkingCapitalService implements WorkingCapitalService, CacheStatisticsService {
+
+    private final WorkingCapitalService delegate;
+    private final CompanyDataVersions companyDataVersions;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final VersionedCache<Long, WorkingCapitalMetricsDto> metricsCache;
+    private final VersionedCache<Long, DashboardSummaryDto> dashboardCache;
+
+    public CachingWorkingCapitalService(
+            @Qualifier("workingCapitalServiceImpl") WorkingCapitalService delegate,
+            CompanyDataVersions companyDataVersions,
+            @Value("${app.cache.maximum-size:5000}") int maximumSize,
+            @Value("${app.cache.ttl:5m}") Duration timeToLive,
+            @Value("${app.cache.stale-while-revalidate:10m}") Duration staleWindow) {
+        this.delegate = delegate;
+        this.companyDataVersions = companyDataVersions;
+        this.metricsCache = new VersionedCache<>(maximumSize, timeToLive, staleWindow, refreshExecutor);
+        this.dashboardCache = new VersionedCache<>(maximumSize, timeToLive, staleWindow, refreshExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public WorkingCapitalMetricsDto calculateWorkingCapitalMetrics(Long companyId) {
+        long version = companyDataVersions.current(companyId);
+        return metricsCache.get(companyId, version, () -> delegate.calculateWorkingCapitalMetrics(companyId));
+    }
+
+    @Override
+    public WorkingCapitalMetricsDto calculateWorkingCapitalMetrics(Long companyId, LocalDate asOfDate) {
+        return delegate.calculateWorkingCapitalMetrics(companyId, asOfDate);
+    }
+
+    @Override
+    public void streamBatchMetrics(Collection<Long> companyIds, Company.CompanyType companyType,
+                                   Consumer<WorkingCapitalMetricsDto> consumer) {
+        delegate.streamBatchMetrics(companyIds, companyType, consumer);
+    }
+
+    @Override
+    public DashboardSummaryDto getDashboardSummary(Long companyId) {
+        long version = companyDataVersions.current(companyId);
+        DashboardSummaryDto summary = dashboardCache.get(companyId, version,
+                () -> delegate.getDashboardSummary(companyId));
+        if (summary.isPartial()) {
+            // Don't keep serving a summary with missing sections
+            dashboardCache.invalidate(companyId);
+        }
+        return summary;
+    }
+
+    @Override
+    public double calculateDSO(Long companyId) {
+        return delegate.calculateDSO(companyId);
+    }
+
+    @Override
+    public double calculateDPO(Long companyId) {
+        return delegate.calculateDPO(companyId);
+    }
+
+    @Override
+    public double calculateDIO(Long companyId) {
+        return delegate.calculateDIO(companyId);
+    }
+
+    @Override
+    public double calculateCCC(Long companyId) {
+        return delegate.calculateCCC(companyId);
+    }
+
+    @Override
+    public Map<String, Double> calculateLiquidityRatios(Long companyId) {
+        return delegate.calculateLiquidityRatios(companyId);
+    }
+
+    @Override
+    public Map<LocalDate, WorkingCapitalMetricsDto> getHistoricalMetrics(
+            Long companyId, LocalDate startDate, LocalDate endDate, String interval) {
+        return delegate.getHistoricalMetrics(companyId, startDate, endDate, interval);
+    }
+
+    @Override
+    public int generateAlerts(Long companyId) {
+        return delegate.generateAlerts(companyId);
+    }
+
+    @Override
+    public Map<String, VersionedCache.Stats> getCacheStatistics() {
+        Map<String, VersionedCache.Stats> statistics = new LinkedHashMap<>();
+        statistics.put("workingCapitalMetrics", metricsCache.stats());
+        statistics.put("dashboardSummary", dashboardCache.stats());
+        return statistics;
+    }
+}
@@ -0,0 +1,329 @@
+package com.fintech.wcm.service.impl;
+
+import com.fintech.wcm.model.BalanceContribution;
+import com.fintech.wcm.model.CompanyBalance;
+import com.fintech.wcm.repository.*;
+import com.fintech.wcm.service.CompanyBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Implementation of the CompanyBalanceService interface.
+ *
+ * Deltas recorded by the entity listener are collected per transaction and written to
+ * {@code company_balances} just before the transaction commits, one UPDATE per company.
+ * A company without a counter row is seeded from the ledger sums instead, which already
+ * include the changes of the committing transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class CompanyBalanceServiceImpl implements CompanyBalanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompanyBalanceServiceImpl.class);
+
+    /**
+     * Ledger totals of one company, using the same filters as the repository SUM queries.
+     */
+    private static final String LEDGER_TOTALS_SQL =
+            "SELECT c.id, " +
+            "(SELECT COALESCE(SUM(ar.amount_base_currency), 0) FROM accounts_receivable ar " +
+            "  WHERE ar.company_id = c.id AND ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED')), " +
+            "(SELECT COALESCE(SUM(ap.amount_base_currency), 0) FROM accounts_payable ap " +
+            "  WHERE ap.company_id = c.id AND ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE')), " +
+            "(SELECT COALESCE(SUM(ca.balance_base_currency), 0) FROM cash_accounts ca " +
+            "  WHERE ca.company_id = c.id AND ca.is_active = TRUE), " +
+            "(SELECT COALESCE(SUM(i.total_value), 0) FROM inventory i " +
+            "  WHERE i.company_id = c.id AND i.currency_code = c.currency_code), " +
+            "(SELECT COALESCE(SUM(stl.amount_base_currency), 0) FROM short_term_liabilities stl " +
+            "  WHERE stl.company_id = c.id AND stl.status = 'ACTIVE'), " +
+            "CURRENT_TIMESTAMP " +
+            "FROM companies c WHERE c.id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO company_balances (company_id, receivables, payables, cash_balance, " +
+            "inventory_value, short_term_debt, updated_at) ";
+
+    private static final String SEED_SQL = INSERT_SQL + LEDGER_TOTALS_SQL +
+            " ON CONFLICT (company_id) DO NOTHING";
+
+    private static final String RECALCULATE_SQL = INSERT_SQL + LEDGER_TOTALS_SQL +
+            " ON CONFLICT (company_id) DO UPDATE SET receivables = EXCLUDED.receivables, " +
+            "payables = EXCLUDED.payables, cash_balance = EXCLUDED.cash_balance, " +
+            "inventory_value = EXCLUDED.inventory_value, short_term_debt = EXCLUDED.short_term_debt, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE company_balances SET receivables = receivables + ?, payables = payables + ?, " +
+            "cash_balance = cash_balance + ?, inventory_value = inventory_value + ?, " +
+            "short_term_debt = short_term_debt + ?, updated_at = CURRENT_TIMESTAMP WHERE company_id = ?";
+
+    private static final String COMPANY_CURRENCY_SQL = "SELECT currency_code FROM companies WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompanyRepository companyRepository;
+    private final CompanyBalanceRepository companyBalanceRepository;
+    private final AccountsReceivableRepository accountsReceivableRepository;
+    private final AccountsPayableRepository accountsPayableRepository;
+    private final CashAccountRepository cashAccountRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ShortTermLiabilityRepository shortTermLiabilityRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.scheduling.enable:true}")
+    private boolean schedulingEnabled;
+
+    /**
+     * Nightly job that checks every company's counters against the ledgers.
+     */
+    @Scheduled(cron = "${app.balances.reconcile-cron:0 45 2 * * *}")
+    public void reconcileNightly() {
+        if (!schedulingEnabled) {
+            return;
+        }
+
+        int repaired = reconcile();
+        logger.info("Company balance reconciliation repaired {} companies", repaired);
+    }
+
+    @Override
+    public void recordChange(BalanceContribution before, BalanceContribution after) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            logger.warn("Ledger change outside a transaction; company balances are left to reconciliation");
+            return;
+        }
+
+        PendingDeltas pending = pendingDeltas();
+        if (before != null) {
+            pending.add(before, before.getAmount().negate());
+        }
+        if (after != null) {
+            pending.add(after, after.getAmount());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void recalculate(Long companyId) {
+        // Flush so the ledger sums see every change of this transaction, then drop the
+        // deltas those changes recorded since the recalculation already covers them
+        companyBalanceRepository.flush();
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            pending.discard(companyId);
+        }
+        jdbcTemplate.update(RECALCULATE_SQL, companyId);
+    }
+
+    @Override
+    public void recalculate(Connection connection, Long companyId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RECALCULATE_SQL)) {
+            statement.setLong(1, companyId);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public int reconcile() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int repaired = 0;
+        for (Long companyId : companyRepository.findAllIds()) {
+            Boolean drifted = transactionTemplate.execute(status -> reconcileCompany(companyId));
+            if (Boolean.TRUE.equals(drifted)) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * Check the counters of one company. The counter row stays locked while the sums run,
+     * so writers still in flight cannot commit between the two reads.
+     *
+     * @return true if the counters had drifted and were repaired
+     */
+    private boolean reconcileCompany(Long companyId) {
+        Optional<CompanyBalance> stored = companyBalanceRepository.findByCompanyIdForUpdate(companyId);
+        if (stored.isEmpty()) {
+            jdbcTemplate.update(SEED_SQL, companyId);
+            return false;
+        }
+
+        CompanyBalance counters = stored.get();
+        boolean drifted = differs(companyId, CompanyBalance.Counter.RECEIVABLES, counters.getReceivables(),
+                accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId));
+        drifted |= differs(companyId, CompanyBalance.Counter.PAYABLES, counters.getPayables(),
+                accountsPayableRepository.sumTotalPayablesByCompanyId(companyId));
+        drifted |= differs(companyId, CompanyBalance.Counter.CASH, counters.getCashBalance(),
+                cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId));
+        drifted |= differs(companyId, CompanyBalance.Counter.INVENTORY, counters.getInventoryValue(),
+                inventoryRepository.sumTotalInventoryValueByCompanyId(companyId));
+        drifted |= differs(companyId, CompanyBalance.Counter.SHORT_TERM_DEBT, counters.getShortTermDebt(),
+                shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(companyId));
+
+        if (drifted) {
+            jdbcTemplate.update(RECALCULATE_SQL, companyId);
+        }
+        return drifted;
+    }
+
+    private static boolean differs(Long companyId, CompanyBalance.Counter counter, BigDecimal stored, BigDecimal ledger) {
+        BigDecimal expected = ledger != null ? ledger : BigDecimal.ZERO;
+        if (stored != null && stored.compareTo(expected) == 0) {
+            return false;
+        }
+        logger.warn("Company {} {} counter drifted: stored {}, ledgers {}", companyId, counter, stored, expected);
+        return true;
+    }
+
+    private PendingDeltas pendingDeltas() {
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new DeltaSynchronization(pending));
+        }
+        return pending;
+    }
+
+    private void applyDeltas(Map<Long, CompanyDelta> deltas) {
+        // Companies are updated in ID order so concurrent commits lock rows in the same order
+        for (Map.Entry<Long, CompanyDelta> entry : deltas.entrySet()) {
+            Long companyId = entry.getKey();
+            CompanyDelta delta = entry.getValue();
+            if (delta.isZero()) {
+                continue;
+            }
+
+            Object[] args = {
+                    delta.receivables, delta.payables, delta.cash,
+                    delta.inventoryIn(companyCurrency(companyId, delta)), delta.shortTermDebt, companyId
+            };
+            if (jdbcTemplate.update(APPLY_DELTA_SQL, args) == 0 && jdbcTemplate.update(SEED_SQL, companyId) == 0) {
+                // Another transaction seeded the row after our update missed it
+                jdbcTemplate.update(APPLY_DELTA_SQL, args);
+            }
+        }
+    }
+
+    private String companyCurrency(Long companyId, CompanyDelta delta) {
+        if (delta.inventoryByCurrency.isEmpty()) {
+            return null;
+        }
+        List<String> currencies = jdbcTemplate.queryForList(COMPANY_CURRENCY_SQL, String.class, companyId);
+        return currencies.isEmpty() ? null : currencies.get(0);
+    }
+
+    /**
+     * Applies the deltas of a transaction before it commits and keeps them bound to that
+     * transaction only, including across suspension by a nested transaction.
+     */
+    private final class DeltaSynchronization implements TransactionSynchronization {
+
+        private final PendingDeltas pending;
+
+        private DeltaSynchronization(PendingDeltas pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CompanyBalanceServiceImpl.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CompanyBalanceServiceImpl.this, pending);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Flush first so the listener has seen every change made in the transaction
+            companyBalanceRepository.flush();
+            applyDeltas(pending.drain());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CompanyBalanceServiceImpl.this);
+        }
+    }
+
+    /**
+     * Counter deltas recorded in one transaction, per company.
+     */
+    private static final class PendingDeltas {
+
+        private final Map<Long, CompanyDelta> byCompany = new TreeMap<>();
+
+        void add(BalanceContribution contribution, BigDecimal amount) {
+            if (contribution.getCompanyId() == null || amount.signum() == 0) {
+                return;
+            }
+            byCompany.computeIfAbsent(contribution.getCompanyId(), id -> new CompanyDelta())
+                    .add(contribution.getCounter(), contribution.getCurrencyCode(), amount);
+        }
+
+        void discard(Long companyId) {
+            byCompany.remove(companyId);
+        }
+
+        Map<Long, CompanyDelta> drain() {
+            Map<Long, CompanyDelta> drained = new TreeMap<>(byCompany);
+            byCompany.clear();
+            return drained;
+        }
+    }
+
+    /**
+     * Counter deltas of one company. Inventory is kept per currency because only items in
+     * the company's currency count, and that is resolved when the deltas are applied.
+     */
+    private static final class CompanyDelta {
+
+        private BigDecimal receivables = BigDecimal.ZERO;
+        private BigDecimal payables = BigDecimal.ZERO;
+        private BigDecimal cash = BigDecimal.ZERO;
+        private BigDecimal shortTermDebt = BigDecimal.ZERO;
+        private final Map<String, BigDecimal> inventoryByCurrency = new HashMap<>();
+
+        void add(CompanyBalance.Counter counter, String currencyCode, BigDecimal amount) {
+            switch (counter) {
+                case RECEIVABLES -> receivables = receivables.add(amount);
+                case PAYABLES -> payables = payables.add(amount);
+                case CASH -> cash = cash.add(amount);
+                case SHORT_TERM_DEBT -> shortTermDebt = shortTermDebt.add(amount);
+                case INVENTORY -> {
+                    if (currencyCode != null) {
+                        inventoryByCurrency.merge(currencyCode, amount, BigDecimal::add);
+                    }
+                }
+            }
+        }
+
+        BigDecimal inventoryIn(String currencyCode) {
+            return currencyCode != null ? inventoryByCurrency.getOrDefault(currencyCode, BigDecimal.ZERO) : BigDecimal.ZERO;
+        }
+
+        boolean isZero() {
+            return receivables.signum() == 0 && payables.signum() == 0 && cash.signum() == 0
+                    && shortTermDebt.signum() == 0
+                    && inventoryByCurrency.values().stream().allMatch(amount -> amount.signum() == 0);
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.fintech.wcm.model.Company;
 import com.fintech.wcm.model.Currency;
 import com.fintech.wcm.repository.CompanyRepository;
 import com.fintech.wcm.repository.CurrencyRepository;
+import com.fintech.wcm.service.CompanyBalanceService;
+import com.fintech.wcm.service.CompanyDataVersions;
 import com.fintech.wcm.service.CompanyService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,8 @@ public class CompanyServiceImpl implements CompanyService {
 
     private final CompanyRepository companyRepository;
     private final CurrencyRepository currencyRepository;
+    private final CompanyBalanceService companyBalanceService;
+    private final CompanyDataVersions companyDataVersions;
 
     @Override
     @Transactional
@@ -102,10 +106,12 @@ public class CompanyServiceImpl implements CompanyService {
         }
         
         // Update currency code if provided
+        boolean currencyChanged = false;
         if (companyDto.getCurrencyCode() != null && !companyDto.getCurrencyCode().equals(company.getCurrencyCode())) {
             currencyRepository.findById(companyDto.getCurrencyCode())
                     .orElseThrow(() -> new ResourceNotFoundException("Currency not found with code: " + companyDto.getCurrencyCode()));
             company.setCurrencyCode(companyDto.getCurrencyCode());
+            currencyChanged = true;
         }
         
         // Update other fields if provided
@@ -154,6 +160,11 @@ public class CompanyServiceImpl implements CompanyService {
         }
         
         Company updatedCompany = companyRepository.save(company);
+        if (currencyChanged) {
+            // Only inventory held in the company currency is counted
+            companyBalanceService.recalculate(updatedCompany.getId());
+        }
+        companyDataVersions.bumpOnCommit(updatedCompany.getId());
         return mapToDto(updatedCompany);
     }
 
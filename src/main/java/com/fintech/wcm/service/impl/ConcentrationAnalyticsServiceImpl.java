@@ -0,0 +1,98 @@
+package com.fintech.wcm.service.impl;
+
+import com.fintech.wcm.dto.ConcentrationAnalyticsDto;
+import com.fintech.wcm.dto.CounterpartyConcentrationDto;
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.repository.AccountsPayableRepository;
+import com.fintech.wcm.repository.AccountsReceivableRepository;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.repository.projection.CounterpartyConcentrationRow;
+import com.fintech.wcm.service.ConcentrationAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the ConcentrationAnalyticsService interface.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConcentrationAnalyticsServiceImpl implements ConcentrationAnalyticsService {
+
+    private static final int SHARE_SCALE = 4;
+
+    private final CompanyRepository companyRepository;
+    private final AccountsReceivableRepository accountsReceivableRepository;
+    private final AccountsPayableRepository accountsPayableRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public ConcentrationAnalyticsDto getConcentrationAnalytics(Long companyId, int limit) {
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+
+        return ConcentrationAnalyticsDto.builder()
+                .companyId(company.getId())
+                .companyName(company.getName())
+                .currencyCode(company.getCurrencyCode())
+                .asOfDate(LocalDate.now())
+                .customers(toConcentration(accountsReceivableRepository.findCustomerConcentration(companyId, limit)))
+                .vendors(toConcentration(accountsPayableRepository.findVendorConcentration(companyId, limit)))
+                .build();
+    }
+
+    /**
+     * Maps the rows of a concentration query. Every row carries the same ledger-wide
+     * figures, and an empty ledger yields a single row without a counterparty.
+     *
+     * @param rows the rows in rank order
+     * @return the concentration of the ledger
+     */
+    private CounterpartyConcentrationDto toConcentration(List<CounterpartyConcentrationRow> rows) {
+        if (rows.isEmpty()) {
+            return CounterpartyConcentrationDto.builder()
+                    .counterpartyCount(0)
+                    .totalAmount(BigDecimal.ZERO)
+                    .topFiveShare(BigDecimal.ZERO)
+                    .herfindahlIndex(BigDecimal.ZERO)
+                    .longTailCount(0)
+                    .topCounterparties(List.of())
+                    .build();
+        }
+
+        CounterpartyConcentrationRow first = rows.get(0);
+        BigDecimal totalAmount = first.getTotalAmount();
+
+        List<CounterpartyConcentrationDto.Counterparty> topCounterparties = new ArrayList<>();
+        for (CounterpartyConcentrationRow row : rows) {
+            if (row.getRank() == null) {
+                continue;
+            }
+            BigDecimal share = totalAmount.signum() > 0
+                    ? row.getAmount().divide(totalAmount, SHARE_SCALE, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+            topCounterparties.add(CounterpartyConcentrationDto.Counterparty.builder()
+                    .rank(row.getRank().intValue())
+                    .name(row.getName())
+                    .amount(row.getAmount())
+                    .share(share)
+                    .build());
+        }
+
+        return CounterpartyConcentrationDto.builder()
+                .counterpartyCount(first.getCounterpartyCount())
+                .totalAmount(totalAmount)
+                .topFiveShare(first.getTopFiveShare().setScale(SHARE_SCALE, RoundingMode.HALF_UP))
+                .herfindahlIndex(first.getHerfindahlIndex().setScale(SHARE_SCALE, RoundingMode.HALF_UP))
+                .longTailCount(first.getLongTailCount())
+                .topCounterparties(topCounterparties)
+                .build();
+    }
+}
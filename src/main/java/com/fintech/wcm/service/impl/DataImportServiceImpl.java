@@ -1,34 +1,70 @@
 package com.fintech.wcm.service.impl;
 
+import com.fintech.wcm.config.PoolRoutingDataSource;
+import com.fintech.wcm.dto.ImportCapacityDto;
 import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.dto.ScheduledImportRunDto;
 import com.fintech.wcm.exception.BadRequestException;
 import com.fintech.wcm.exception.ResourceNotFoundException;
 import com.fintech.wcm.model.*;
 import com.fintech.wcm.repository.*;
+import com.fintech.wcm.service.ChunkedImportWriter;
+import com.fintech.wcm.service.ChunkedImportWriterFactory;
+import com.fintech.wcm.service.ConnectorSync;
+import com.fintech.wcm.service.ConnectionPoolMetrics;
+import com.fintech.wcm.service.CopyImportLoader;
 import com.fintech.wcm.service.DataImportService;
+import com.fintech.wcm.service.ImportAdmission;
+import com.fintech.wcm.service.ImportBundle;
+import com.fintech.wcm.service.ImportCheckpoints;
+import com.fintech.wcm.service.ImportHeaderAliases;
+import com.fintech.wcm.service.ImportMapping;
+import com.fintech.wcm.service.ImportProgress;
+import com.fintech.wcm.service.ImportScheduler;
+import com.fintech.wcm.service.NaturalKeyFilter;
+import com.fintech.wcm.service.ParallelCsvParser;
+import com.fintech.wcm.service.QuickBooksConnector;
+import com.fintech.wcm.service.RejectedRows;
+import com.fintech.wcm.service.RejectedRowsStore;
+import com.fintech.wcm.service.XeroConnector;
+import com.fintech.wcm.util.CsvHeader;
+import com.fintech.wcm.util.CsvInputs;
+import com.fintech.wcm.util.CsvRecordRow;
+import com.fintech.wcm.util.CsvRow;
+import com.fintech.wcm.util.CsvRowDecoder;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledFuture;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the DataImportService interface.
@@ -38,602 +74,491 @@ import java.util.concurrent.ScheduledFuture;
 public class DataImportServiceImpl implements DataImportService {
 
     private static final Logger logger = LoggerFactory.getLogger(DataImportServiceImpl.class);
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
     private final CompanyRepository companyRepository;
-    private final AccountsReceivableRepository accountsReceivableRepository;
-    private final AccountsPayableRepository accountsPayableRepository;
-    private final InventoryRepository inventoryRepository;
-    private final TransactionRepository transactionRepository;
-    private final InvoiceRepository invoiceRepository;
-    private final CashAccountRepository cashAccountRepository;
-    private final TaskScheduler taskScheduler;
+    private final ChunkedImportWriterFactory chunkedImportWriterFactory;
+    private final CopyImportLoader copyImportLoader;
+    private final ParallelCsvParser parallelCsvParser;
+    private final ImportCheckpoints importCheckpoints;
+    private final RejectedRowsStore rejectedRowsStore;
+    private final ImportHeaderAliases importHeaderAliases;
+    private final ImportScheduler importScheduler;
+    private final ConnectorSync connectorSync;
+    private final ImportAdmission importAdmission;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    @Value("${app.import.bundle.max-parallel-files:2}")
+    private int bundleMaxParallelFiles;
     
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
 
     @Override
-    @Transactional
     public ImportResultDto importCashTransactions(Long companyId, MultipartFile file) {
-        Company company = validateCompanyAndFile(companyId, file);
-        
-        ImportResultDto result = ImportResultDto.builder()
-                .importType("CASH_TRANSACTIONS")
-                .source("CSV")
-                .fileName(file.getOriginalFilename())
-                .importDate(LocalDateTime.now())
-                .totalRecords(0)
-                .successfulRecords(0)
-                .failedRecords(0)
-                .status("COMPLETED")
-                .build();
+        return importFile(companyId, ImportType.CASH_TRANSACTIONS, ImportMode.APPEND, file);
+    }
+
+    @Override
+    public ImportResultDto importInvoices(Long companyId, MultipartFile file) {
+        return importFile(companyId, ImportType.INVOICES, ImportMode.APPEND, file);
+    }
+
+    @Override
+    public ImportResultDto importAccountsReceivable(Long companyId, MultipartFile file) {
+        return importFile(companyId, ImportType.ACCOUNTS_RECEIVABLE, ImportMode.APPEND, file);
+    }
+
+    @Override
+    public ImportResultDto importAccountsPayable(Long companyId, MultipartFile file) {
+        return importFile(companyId, ImportType.ACCOUNTS_PAYABLE, ImportMode.APPEND, file);
+    }
+
+    @Override
+    public ImportResultDto importInventory(Long companyId, MultipartFile file) {
+        return importFile(companyId, ImportType.INVENTORY, ImportMode.APPEND, file);
+    }
+
+    @Override
+    public ImportResultDto importStream(Long companyId, ImportType importType, ImportMode mode, boolean bulk, String fileName,
+                                        InputStream body, long contentLength, String contentEncoding, String charset) {
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+        NaturalKeyFilter<?> keyFilter = bulk ? null : keyFilterFor(importType, mode);
+        Charset csvCharset;
+        try {
+            csvCharset = CsvInputs.charset(charset);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
-            
-            for (CSVRecord record : csvParser) {
-                result.setTotalRecords(result.getTotalRecords() + 1);
-                
-                try {
-                    // Parse the CSV record
-                    LocalDate transactionDate = parseDate(record.get("transaction_date"));
-                    BigDecimal amount = new BigDecimal(record.get("amount"));
-                    String description = record.get("description");
-                    String transactionTypeStr = record.get("transaction_type");
-                    String currencyCode = record.get("currency_code");
-                    
-                    Transaction.TransactionType transactionType;
-                    try {
-                        transactionType = Transaction.TransactionType.valueOf(transactionTypeStr.toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        throw new BadRequestException("Invalid transaction type: " + transactionTypeStr);
-                    }
-                    
-                    // Create the transaction entity
-                    Transaction transaction = new Transaction();
-                    transaction.setCompany(company);
-                    transaction.setTransactionDate(transactionDate);
-                    transaction.setAmount(amount);
-                    transaction.setDescription(description);
-                    transaction.setTransactionType(transactionType);
-                    transaction.setCurrencyCode(currencyCode);
-                    
-                    // Optional fields
-                    if (record.isMapped("reference_number")) {
-                        transaction.setReferenceNumber(record.get("reference_number"));
-                    }
-                    
-                    if (record.isMapped("category")) {
-                        transaction.setCategory(record.get("category"));
-                    }
-                    
-                    if (record.isMapped("notes")) {
-                        transaction.setNotes(record.get("notes"));
-                    }
-                    
-                    if (record.isMapped("exchange_rate")) {
-                        transaction.setExchangeRate(new BigDecimal(record.get("exchange_rate")));
-                    }
-                    
-                    if (record.isMapped("amount_base_currency")) {
-                        transaction.setAmountBaseCurrency(new BigDecimal(record.get("amount_base_currency")));
-                    } else if (transaction.getExchangeRate() != null) {
-                        // Calculate the base currency amount if exchange rate is provided
-                        transaction.setAmountBaseCurrency(amount.multiply(transaction.getExchangeRate()));
-                    } else {
-                        // If no exchange rate, assume base currency
-                        transaction.setAmountBaseCurrency(amount);
-                    }
-                    
-                    if (record.isMapped("cash_account_id")) {
-                        String cashAccountIdStr = record.get("cash_account_id");
-                        if (cashAccountIdStr != null && !cashAccountIdStr.trim().isEmpty()) {
-                            Long cashAccountId = Long.parseLong(cashAccountIdStr);
-                            CashAccount cashAccount = cashAccountRepository.findById(cashAccountId)
-                                    .orElseThrow(() -> new ResourceNotFoundException("Cash account not found with id: " + cashAccountId));
-                            transaction.setCashAccount(cashAccount);
-                        }
-                    }
-                    
-                    // Save the transaction
-                    transactionRepository.save(transaction);
-                    result.setSuccessfulRecords(result.getSuccessfulRecords() + 1);
-                    
-                } catch (Exception e) {
-                    result.setFailedRecords(result.getFailedRecords() + 1);
-                    result.addError("Error processing record " + result.getTotalRecords() + ": " + e.getMessage());
-                    logger.error("Error processing transaction record: {}", e.getMessage());
-                }
-            }
-            
-            if (result.getFailedRecords() > 0) {
-                result.setStatus("PARTIALLY_COMPLETED");
-            }
-            
-            result.setSummary("Imported " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " cash transactions.");
-            
+        // Progress counts the bytes received, which the content length is given in
+        ImportProgress progress = new ImportProgress(Math.max(0, contentLength));
+        InputStream input;
+        try {
+            input = CsvInputs.decompress(progress.track(body), contentEncoding);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
         } catch (IOException e) {
-            result.setStatus("FAILED");
-            result.addError("Failed to read CSV file: " + e.getMessage());
-            logger.error("Failed to read CSV file: {}", e.getMessage());
+            return readFailure(newResult(importType, bulk ? "CSV_COPY" : "CSV", fileName), e);
         }
         
-        return result;
+        return importAdmission.run(companyId, () -> {
+            try (Reader reader = CsvInputs.reader(input, csvCharset)) {
+                return bulk ? bulkLoad(companyId, importType, mode, fileName, reader, progress)
+                        : importRecords(company, importType, fileName, reader, progress, binderFor(importType, company), keyFilter);
+            } catch (IOException e) {
+                return readFailure(newResult(importType, bulk ? "CSV_COPY" : "CSV", fileName), e);
+            }
+        });
     }
 
     @Override
-    @Transactional
-    public ImportResultDto importInvoices(Long companyId, MultipartFile file) {
-        Company company = validateCompanyAndFile(companyId, file);
-        
-        ImportResultDto result = ImportResultDto.builder()
-                .importType("INVOICES")
-                .source("CSV")
-                .fileName(file.getOriginalFilename())
-                .importDate(LocalDateTime.now())
-                .totalRecords(0)
-                .successfulRecords(0)
-                .failedRecords(0)
-                .status("COMPLETED")
-                .build();
+    public ImportResultDto importCsvFile(Long companyId, ImportType importType, ImportMode mode, String fileName, Path file,
+                                         ImportProgress progress) {
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+        return importCsvFile(company, importType, mode, fileName, file, progress);
+    }
+
+    private ImportResultDto importCsvFile(Company company, ImportType importType, ImportMode mode, String fileName, Path file,
+                                          ImportProgress progress) {
+        Long companyId = company.getId();
+        NaturalKeyFilter<?> keyFilter = keyFilterFor(importType, mode);
+        ImportResultDto result = newResult(importType, "CSV", fileName);
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
-            
-            for (CSVRecord record : csvParser) {
-                result.setTotalRecords(result.getTotalRecords() + 1);
-                
-                try {
-                    // Parse the CSV record
-                    String invoiceNumber = record.get("invoice_number");
-                    String invoiceTypeStr = record.get("invoice_type");
-                    String contactName = record.get("contact_name");
-                    LocalDate issueDate = parseDate(record.get("issue_date"));
-                    LocalDate dueDate = parseDate(record.get("due_date"));
-                    BigDecimal subtotal = new BigDecimal(record.get("subtotal"));
-                    BigDecimal taxAmount = record.isMapped("tax_amount") && !record.get("tax_amount").isEmpty() ? 
-                            new BigDecimal(record.get("tax_amount")) : BigDecimal.ZERO;
-                    BigDecimal totalAmount = new BigDecimal(record.get("total_amount"));
-                    String currencyCode = record.get("currency_code");
-                    
-                    Invoice.InvoiceType invoiceType;
-                    try {
-                        invoiceType = Invoice.InvoiceType.valueOf(invoiceTypeStr.toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        throw new BadRequestException("Invalid invoice type: " + invoiceTypeStr);
-                    }
-                    
-                    // Create the invoice entity
-                    Invoice invoice = new Invoice();
-                    invoice.setCompany(company);
-                    invoice.setInvoiceNumber(invoiceNumber);
-                    invoice.setInvoiceType(invoiceType);
-                    invoice.setContactName(contactName);
-                    invoice.setIssueDate(issueDate);
-                    invoice.setDueDate(dueDate);
-                    invoice.setSubtotal(subtotal);
-                    invoice.setTaxAmount(taxAmount);
-                    invoice.setTotalAmount(totalAmount);
-                    invoice.setCurrencyCode(currencyCode);
-                    
-                    // Optional fields
-                    if (record.isMapped("contact_email")) {
-                        invoice.setContactEmail(record.get("contact_email"));
-                    }
-                    
-                    if (record.isMapped("payment_terms")) {
-                        invoice.setPaymentTerms(record.get("payment_terms"));
-                    }
-                    
-                    if (record.isMapped("notes")) {
-                        invoice.setNotes(record.get("notes"));
-                    }
-                    
-                    String statusStr = record.isMapped("status") ? record.get("status") : "SENT";
-                    Invoice.InvoiceStatus status;
-                    try {
-                        status = Invoice.InvoiceStatus.valueOf(statusStr.toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        status = Invoice.InvoiceStatus.SENT;
-                    }
-                    invoice.setStatus(status);
-                    
-                    if (record.isMapped("exchange_rate")) {
-                        invoice.setExchangeRate(new BigDecimal(record.get("exchange_rate")));
-                    }
-                    
-                    if (record.isMapped("total_amount_base_currency")) {
-                        invoice.setTotalAmountBaseCurrency(new BigDecimal(record.get("total_amount_base_currency")));
-                    } else if (invoice.getExchangeRate() != null) {
-                        // Calculate the base currency amount if exchange rate is provided
-                        invoice.setTotalAmountBaseCurrency(totalAmount.multiply(invoice.getExchangeRate()));
-                    } else {
-                        // If no exchange rate, assume base currency
-                        invoice.setTotalAmountBaseCurrency(totalAmount);
-                    }
-                    
-                    // Save the invoice
-                    invoiceRepository.save(invoice);
-                    result.setSuccessfulRecords(result.getSuccessfulRecords() + 1);
-                    
-                } catch (Exception e) {
-                    result.setFailedRecords(result.getFailedRecords() + 1);
-                    result.addError("Error processing record " + result.getTotalRecords() + ": " + e.getMessage());
-                    logger.error("Error processing invoice record: {}", e.getMessage());
+        ImportCheckpoint checkpoint = null;
+        try {
+            // Rows handed over out of order leave no point every row before which is saved
+            if (parallelCsvParser.isOrdered()) {
+                checkpoint = importCheckpoints.claim(companyId, importType, fileName, file);
+                if (checkpoint.isCompleted()) {
+                    return alreadyImported(result, checkpoint, importType);
                 }
             }
-            
-            if (result.getFailedRecords() > 0) {
-                result.setStatus("PARTIALLY_COMPLETED");
+            return importFileRecords(company, importType, file, progress, binderFor(importType, company), keyFilter, result, checkpoint);
+        } catch (IOException e) {
+            return readFailure(result, e);
+        } finally {
+            if (checkpoint != null) {
+                importCheckpoints.release(checkpoint);
             }
+        }
+    }
+
+    @Override
+    public ImportResultDto bulkImport(Long companyId, ImportType importType, ImportMode mode, MultipartFile file) {
+        validateCompanyAndFile(companyId, file);
+        
+        return importAdmission.run(companyId, () -> {
+            try (InputStream input = file.getInputStream()) {
+                return bulkImportCsv(companyId, importType, mode, file.getOriginalFilename(), input, StandardCharsets.UTF_8,
+                        new ImportProgress(file.getSize()));
+            } catch (IOException e) {
+                return readFailure(newResult(importType, "CSV_COPY", file.getOriginalFilename()), e);
+            }
+        });
+    }
+
+    @Override
+    public ImportResultDto bulkImportCsv(Long companyId, ImportType importType, ImportMode mode, String fileName,
+                                         InputStream input, Charset charset, ImportProgress progress) {
+        try (Reader reader = CsvInputs.reader(progress.track(input), charset)) {
+            return bulkLoad(companyId, importType, mode, fileName, reader, progress);
+        } catch (IOException e) {
+            return readFailure(newResult(importType, "CSV_COPY", fileName), e);
+        }
+    }
+
+    /**
+     * Loads decoded CSV with PostgreSQL COPY.
+     */
+    private ImportResultDto bulkLoad(Long companyId, ImportType importType, ImportMode mode, String fileName, Reader csv,
+                                     ImportProgress progress) {
+        ImportResultDto result = newResult(importType, "CSV_COPY", fileName);
+        
+        try (RejectedRows rejectedRows = rejectedRowsStore.open(companyId, importType, result)) {
+            copyImportLoader.load(companyId, importType, mode, csv, result, rejectedRows, progress);
+            summarize(result, importType);
             
-            result.setSummary("Imported " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " invoices.");
-            
+        } catch (CancellationException e) {
+            result.setStatus("CANCELLED");
+            result.setSummary("Import cancelled; no " + importType.getDescription() + " were loaded.");
         } catch (IOException e) {
+            readFailure(result, e);
+        } catch (SQLException e) {
             result.setStatus("FAILED");
-            result.addError("Failed to read CSV file: " + e.getMessage());
-            logger.error("Failed to read CSV file: {}", e.getMessage());
+            result.addError("Failed to load CSV file: " + e.getMessage());
+            logger.error("Failed to bulk load {} for company {}: {}", importType, companyId, e.getMessage());
         }
         
         return result;
     }
 
+    /**
+     * Validates an uploaded file and imports it.
+     */
     @Override
-    @Transactional
-    public ImportResultDto importAccountsReceivable(Long companyId, MultipartFile file) {
+    public ImportResultDto importFile(Long companyId, ImportType importType, ImportMode mode, MultipartFile file) {
         Company company = validateCompanyAndFile(companyId, file);
+        keyFilterFor(importType, mode);
+        
+        // Imports resume from byte offsets of the file, so it is kept on disk while it is imported
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("wcm-import-", ".csv");
+            file.transferTo(temp);
+            Path stored = temp;
+            return importAdmission.run(companyId, () -> importCsvFile(company, importType, mode, file.getOriginalFilename(),
+                    stored, new ImportProgress(file.getSize())));
+        } catch (IOException e) {
+            return readFailure(newResult(importType, "CSV", file.getOriginalFilename()), e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public ImportResultDto importBundle(Long companyId, ImportMode mode, MultipartFile file) {
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
+        String fileName = file.getOriginalFilename();
+        if (file.isEmpty()) {
+            throw new BadRequestException("File is empty");
+        }
+        if (fileName == null || !fileName.toLowerCase().endsWith(".zip")) {
+            throw new BadRequestException("File is not a ZIP file");
+        }
         
         ImportResultDto result = ImportResultDto.builder()
-                .importType("ACCOUNTS_RECEIVABLE")
-                .source("CSV")
-                .fileName(file.getOriginalFilename())
+                .importType("BUNDLE")
+                .source("ZIP")
+                .fileName(fileName)
                 .importDate(LocalDateTime.now())
-                .totalRecords(0)
-                .successfulRecords(0)
-                .failedRecords(0)
                 .status("COMPLETED")
+                .parts(new ArrayList<>())
                 .build();
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
-            
-            for (CSVRecord record : csvParser) {
-                result.setTotalRecords(result.getTotalRecords() + 1);
-                
-                try {
-                    // Parse the CSV record
-                    String customerName = record.get("customer_name");
-                    BigDecimal amount = new BigDecimal(record.get("amount"));
-                    String currencyCode = record.get("currency_code");
-                    LocalDate invoiceDate = parseDate(record.get("invoice_date"));
-                    LocalDate dueDate = parseDate(record.get("due_date"));
-                    String invoiceNumber = record.get("invoice_number");
-                    String statusStr = record.get("status");
-                    
-                    AccountsReceivable.ReceivableStatus status;
-                    try {
-                        status = AccountsReceivable.ReceivableStatus.valueOf(statusStr.toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        throw new BadRequestException("Invalid receivable status: " + statusStr);
-                    }
-                    
-                    // Create the accounts receivable entity
-                    AccountsReceivable receivable = new AccountsReceivable();
-                    receivable.setCompany(company);
-                    receivable.setCustomerName(customerName);
-                    receivable.setAmount(amount);
-                    receivable.setCurrencyCode(currencyCode);
-                    receivable.setInvoiceDate(invoiceDate);
-                    receivable.setDueDate(dueDate);
-                    receivable.setInvoiceNumber(invoiceNumber);
-                    receivable.setStatus(status);
-                    
-                    // Optional fields
-                    if (record.isMapped("notes")) {
-                        receivable.setNotes(record.get("notes"));
-                    }
-                    
-                    if (record.isMapped("payment_terms")) {
-                        receivable.setPaymentTerms(record.get("payment_terms"));
-                    }
-                    
-                    if (record.isMapped("exchange_rate")) {
-                        receivable.setExchangeRate(new BigDecimal(record.get("exchange_rate")));
-                    }
-                    
-                    if (record.isMapped("amount_base_currency")) {
-                        receivable.setAmountBaseCurrency(new BigDecimal(record.get("amount_base_currency")));
-                    } else if (receivable.getExchangeRate() != null) {
-                        // Calculate the base currency amount if exchange rate is provided
-                        receivable.setAmountBaseCurrency(amount.multiply(receivable.getExchangeRate()));
-                    } else {
-                        // If no exchange rate, assume base currency
-                        receivable.setAmountBaseCurrency(amount);
-                    }
-                    
-                    // Save the accounts receivable
-                    accountsReceivableRepository.save(receivable);
-                    result.setSuccessfulRecords(result.getSuccessfulRecords() + 1);
-                    
-                } catch (Exception e) {
-                    result.setFailedRecords(result.getFailedRecords() + 1);
-                    result.addError("Error processing record " + result.getTotalRecords() + ": " + e.getMessage());
-                    logger.error("Error processing accounts receivable record: {}", e.getMessage());
+        try (InputStream input = file.getInputStream(); ImportBundle bundle = ImportBundle.extract(input)) {
+            bundle.getFiles().keySet().forEach(importType -> keyFilterFor(importType, mode));
+            bundle.getIgnored().forEach(name -> result.addWarning("Ignored " + name + ": not a CSV file named after a ledger"));
+            return importAdmission.run(companyId, () -> importBundle(company, mode, fileName, bundle, result));
+        } catch (IOException e) {
+            result.setStatus("FAILED");
+            result.addError("Failed to read ZIP file: " + e.getMessage());
+            logger.error("Failed to read import bundle {}: {}", fileName, e.getMessage());
+            return result;
+        }
+    }
+
+    /**
+     * Imports the files of a bundle stage by stage, up to the configured number of files of a
+     * stage at once, each on a thread of its own borrowing from the pool the bundle was
+     * admitted to. The bundle is admitted as one import, so the cap keeps it within the
+     * connections the import pool holds for each. A file whose rows refer to a ledger whose
+     * file failed is not imported.
+     */
+    private ImportResultDto importBundle(Company company, ImportMode mode, String bundleName, ImportBundle bundle,
+                                         ImportResultDto result) {
+        PoolRoutingDataSource.Pool pool = PoolRoutingDataSource.currentPool();
+        Set<ImportType> failed = EnumSet.noneOf(ImportType.class);
+        for (List<ImportType> stage : bundle.getStages()) {
+            Map<ImportType, Future<ImportResultDto>> running = new EnumMap<>(ImportType.class);
+            Map<ImportType, ImportResultDto> parts = new EnumMap<>(ImportType.class);
+            int parallelFiles = Math.max(1, Math.min(bundleMaxParallelFiles, stage.size()));
+            try (ExecutorService executor = Executors.newFixedThreadPool(parallelFiles, Thread.ofVirtual().factory())) {
+                for (ImportType importType : stage) {
+                    ImportBundle.BundleFile bundleFile = bundle.getFiles().get(importType);
+                    String fileName = bundleName + "/" + bundleFile.name();
+                    List<ImportType> failedDependencies = ImportBundle.dependenciesOf(importType).stream()
+                            .filter(failed::contains)
+                            .toList();
+                    if (!failedDependencies.isEmpty()) {
+                        ImportResultDto skipped = newResult(importType, "CSV", fileName);
+                        skipped.setStatus("FAILED");
+                        skipped.setSummary("Not imported: the " + failedDependencies.get(0).getDescription() +
+                                " its rows refer to failed to import.");
+                        parts.put(importType, skipped);
+                        continue;
+                    }
+                    running.put(importType, executor.submit(() -> {
+                        try (PoolRoutingDataSource.Scope scope = PoolRoutingDataSource.use(pool)) {
+                            return importCsvFile(company, importType, mode, fileName, bundleFile.path(),
+                                    new ImportProgress(Files.size(bundleFile.path())));
+                        }
+                    }));
                 }
             }
+            running.forEach((importType, future) -> parts.put(importType, bundlePart(importType, bundleName, future)));
             
-            if (result.getFailedRecords() > 0) {
-                result.setStatus("PARTIALLY_COMPLETED");
-            }
-            
-            result.setSummary("Imported " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " accounts receivable entries.");
-            
-        } catch (IOException e) {
-            result.setStatus("FAILED");
-            result.addError("Failed to read CSV file: " + e.getMessage());
-            logger.error("Failed to read CSV file: {}", e.getMessage());
+            parts.forEach((importType, part) -> {
+                if ("FAILED".equals(part.getStatus())) {
+                    failed.add(importType);
+                }
+                result.add(part);
+                result.getParts().add(part);
+            });
         }
-        
+        summarizeBundle(result);
         return result;
     }
 
-    @Override
-    @Transactional
-    public ImportResultDto importAccountsPayable(Long companyId, MultipartFile file) {
-        Company company = validateCompanyAndFile(companyId, file);
+    /**
+     * @return the result of a finished import of a file of a bundle, or a failed result if it threw
+     */
+    private ImportResultDto bundlePart(ImportType importType, String bundleName, Future<ImportResultDto> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            logger.error("Failed to import the {} of bundle {}: {}", importType.getDescription(), bundleName, cause.getMessage(), cause);
+            ImportResultDto part = newResult(importType, "CSV", bundleName);
+            part.setStatus("FAILED");
+            part.setSummary("Import failed: " + cause.getMessage());
+            part.addError(cause.getMessage());
+            return part;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while importing bundle " + bundleName);
+        }
+    }
+
+    /**
+     * Sets the status and summary of a bundle from those of its files.
+     */
+    private void summarizeBundle(ImportResultDto result) {
+        List<ImportResultDto> parts = result.getParts();
+        if (parts.stream().allMatch(part -> "FAILED".equals(part.getStatus()))) {
+            result.setStatus("FAILED");
+        } else if (parts.stream().anyMatch(part -> !"COMPLETED".equals(part.getStatus()))) {
+            result.setStatus("PARTIALLY_COMPLETED");
+        }
         
-        ImportResultDto result = ImportResultDto.builder()
-                .importType("ACCOUNTS_PAYABLE")
-                .source("CSV")
-                .fileName(file.getOriginalFilename())
-                .importDate(LocalDateTime.now())
-                .totalRecords(0)
-                .successfulRecords(0)
-                .failedRecords(0)
-                .status("COMPLETED")
-                .build();
+        result.setSummary("Imported " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " records from " +
+                parts.size() + " files: " + parts.stream()
+                        .map(part -> part.getSuccessfulRecords() + " of " + part.getTotalRecords() + " " +
+                                ImportType.valueOf(part.getImportType()).getDescription())
+                        .collect(Collectors.joining(", ")) + ".");
+        if (result.getSkippedRecords() > 0) {
+            result.setSummary(result.getSummary() + " Skipped " + result.getSkippedRecords() + " already imported.");
+        }
+    }
+
+    /**
+     * @return the filter of rows already imported, which an appending import rejects, or
+     *         null to import every row of a ledger without a natural key
+     * @throws BadRequestException if the row-by-row import cannot apply the mode
+     */
+    private NaturalKeyFilter<?> keyFilterFor(ImportType importType, ImportMode mode) {
+        return switch (mode) {
+            case APPEND -> importType == ImportType.INVENTORY ? null : NaturalKeyFilter.forType(importType).rejectingDuplicates();
+            case SKIP_EXISTING -> NaturalKeyFilter.forType(importType);
+            case UPSERT -> throw new BadRequestException("Upserting imports are only supported by the bulk import");
+        };
+    }
+
+    /**
+     * @return the binder of the columns of a file's header to the mapper of its rows to new
+     *         entities of the company, by the mapping of the import type and the configured aliases
+     */
+    private <T> Function<CsvHeader, Function<CsvRow, T>> binderFor(ImportType importType, Company company) {
+        ImportMapping<T> mapping = ImportMapping.forType(importType);
+        Map<String, List<String>> aliases = importHeaderAliases.forType(importType);
+        return header -> mapping.bind(header, aliases, company);
+    }
+
+    /**
+     * Parses the records of decoded CSV as they are read and saves them in chunks. The columns
+     * are bound to positions once from the header and the records decoded into a reused
+     * buffer; a header that names a column twice is read by the CSV parser instead. A record
+     * that cannot be parsed is rejected and skipped; the import stops between records once
+     * cancelled.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ImportResultDto importRecords(Company company, ImportType importType, String fileName, Reader csv,
+                                              ImportProgress progress, Function<CsvHeader, Function<CsvRow, T>> binder,
+                                              NaturalKeyFilter<?> keyFilter) {
+        ImportResultDto result = newResult(importType, "CSV", fileName);
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+        try (RejectedRows rejectedRows = rejectedRowsStore.open(company.getId(), importType, result)) {
+            CsvRowDecoder decoder = new CsvRowDecoder(csv);
+            CsvHeader header = decoder.readHeader();
+            Function<CsvRow, T> mapper = binder.apply(header);
             
-            for (CSVRecord record : csvParser) {
-                result.setTotalRecords(result.getTotalRecords() + 1);
+            try (CSVParser fallback = header.isDistinct() ? null
+                         : new CSVParser(decoder.remainder(), CSVFormat.DEFAULT.builder().setHeader(header.names()).build());
+                 ChunkedImportWriter<T> writer = chunkedImportWriterFactory.create(company.getId(), importType, result,
+                         null, (NaturalKeyFilter<T>) keyFilter, rejectedRows)) {
                 
-                try {
-                    // Parse the CSV record
-                    String vendorName = record.get("vendor_name");
-                    BigDecimal amount = new BigDecimal(record.get("amount"));
-                    String currencyCode = record.get("currency_code");
-                    LocalDate invoiceDate = parseDate(record.get("invoice_date"));
-                    LocalDate dueDate = parseDate(record.get("due_date"));
-                    String invoiceNumber = record.get("invoice_number");
-                    String statusStr = record.get("status");
-                    
-                    AccountsPayable.PayableStatus status;
-                    try {
-                        status = AccountsPayable.PayableStatus.valueOf(statusStr.toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        throw new BadRequestException("Invalid payable status: " + statusStr);
-                    }
-                    
-                    // Create the accounts payable entity
-                    AccountsPayable payable = new AccountsPayable();
-                    payable.setCompany(company);
-                    payable.setVendorName(vendorName);
-                    payable.setAmount(amount);
-                    payable.setCurrencyCode(currencyCode);
-                    payable.setInvoiceDate(invoiceDate);
-                    payable.setDueDate(dueDate);
-                    payable.setInvoiceNumber(invoiceNumber);
-                    payable.setStatus(status);
-                    
-                    // Optional fields
-                    if (record.isMapped("category")) {
-                        payable.setCategory(record.get("category"));
+                Iterator<CSVRecord> records = fallback == null ? null : fallback.iterator();
+                while (records == null ? decoder.next() : records.hasNext()) {
+                    CsvRow row = records == null ? decoder : new CsvRecordRow(records.next(), header);
+                    if (progress.isCancelled()) {
+                        result.setStatus("CANCELLED");
+                        break;
                     }
+                    result.setTotalRecords(result.getTotalRecords() + 1);
                     
-                    if (record.isMapped("notes")) {
-                        payable.setNotes(record.get("notes"));
-                    }
-                    
-                    if (record.isMapped("payment_terms")) {
-                        payable.setPaymentTerms(record.get("payment_terms"));
-                    }
-                    
-                    if (record.isMapped("exchange_rate")) {
-                        payable.setExchangeRate(new BigDecimal(record.get("exchange_rate")));
-                    }
-                    
-                    if (record.isMapped("amount_base_currency")) {
-                        payable.setAmountBaseCurrency(new BigDecimal(record.get("amount_base_currency")));
-                    } else if (payable.getExchangeRate() != null) {
-                        // Calculate the base currency amount if exchange rate is provided
-                        payable.setAmountBaseCurrency(amount.multiply(payable.getExchangeRate()));
-                    } else {
-                        // If no exchange rate, assume base currency
-                        payable.setAmountBaseCurrency(amount);
+                    try {
+                        // Queue the entity; it is saved with the rest of its chunk
+                        writer.write(mapper.apply(row), result.getTotalRecords());
+                        
+                    } catch (Exception e) {
+                        rejectedRows.reject(result.getTotalRecords(), e, row.toLine());
                     }
-                    
-                    // Save the accounts payable
-                    accountsPayableRepository.save(payable);
-                    result.setSuccessfulRecords(result.getSuccessfulRecords() + 1);
-                    
-                } catch (Exception e) {
-                    result.setFailedRecords(result.getFailedRecords() + 1);
-                    result.addError("Error processing record " + result.getTotalRecords() + ": " + e.getMessage());
-                    logger.error("Error processing accounts payable record: {}", e.getMessage());
+                    progress.update(result);
                 }
+                
+                // Save the last, partly filled chunk before reporting
+                writer.flush();
+                progress.update(result);
+                summarize(result, importType);
             }
             
-            if (result.getFailedRecords() > 0) {
-                result.setStatus("PARTIALLY_COMPLETED");
-            }
-            
-            result.setSummary("Imported " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " accounts payable entries.");
-            
         } catch (IOException e) {
-            result.setStatus("FAILED");
-            result.addError("Failed to read CSV file: " + e.getMessage());
-            logger.error("Failed to read CSV file: {}", e.getMessage());
+            readFailure(result, e);
         }
         
         return result;
     }
 
-    @Override
-    @Transactional
-    public ImportResultDto importInventory(Long companyId, MultipartFile file) {
-        Company company = validateCompanyAndFile(companyId, file);
-        
-        ImportResultDto result = ImportResultDto.builder()
-                .importType("INVENTORY")
-                .source("CSV")
-                .fileName(file.getOriginalFilename())
-                .importDate(LocalDateTime.now())
-                .totalRecords(0)
-                .successfulRecords(0)
-                .failedRecords(0)
-                .status("COMPLETED")
-                .build();
+    /**
+     * Parses the records of a CSV file on disk, on the parse threads if it is large, and saves
+     * them in chunks on this one. With a checkpoint, the import starts after the last record
+     * an earlier import of the file handled and advances the checkpoint with every chunk.
+     * Errors carry the record numbers of the whole file either way.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ImportResultDto importFileRecords(Company company, ImportType importType, Path file, ImportProgress progress,
+                                                  Function<CsvHeader, Function<CsvRow, T>> binder, NaturalKeyFilter<?> keyFilter,
+                                                  ImportResultDto result,
+                                                  ImportCheckpoint checkpoint) throws IOException {
+        long startOffset = 0;
+        ChunkedImportWriter.Checkpoint tracker = null;
+        if (checkpoint != null) {
+            startOffset = checkpoint.getByteOffset();
+            tracker = importCheckpoints.tracker(checkpoint);
+            result.setTotalRecords((int) checkpoint.getRowNumber());
+            result.setSuccessfulRecords((int) checkpoint.getSuccessfulRecords());
+            result.setFailedRecords((int) checkpoint.getFailedRecords());
+            result.setSkippedRecords((int) checkpoint.getSkippedRecords());
+        }
+        long resumedAfter = result.getTotalRecords();
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
-            
-            for (CSVRecord record : csvParser) {
+        try (RejectedRows rejectedRows = rejectedRowsStore.open(company.getId(), importType, result);
+             ChunkedImportWriter<T> writer = chunkedImportWriterFactory.create(company.getId(), importType, result,
+                     tracker, (NaturalKeyFilter<T>) keyFilter, rejectedRows)) {
+            parallelCsvParser.parseRows(file, startOffset, resumedAfter + 1, progress, binder, row -> {
                 result.setTotalRecords(result.getTotalRecords() + 1);
                 
-                try {
-                    // Parse the CSV record
-                    String itemName = record.get("item_name");
-                    Integer quantity = Integer.parseInt(record.get("quantity"));
-                    BigDecimal unitCost = new BigDecimal(record.get("unit_cost"));
-                    BigDecimal totalValue = new BigDecimal(record.get("total_value"));
-                    String currencyCode = record.get("currency_code");
-                    String itemTypeStr = record.get("item_type");
-                    
-                    Inventory.ItemType itemType;
-                    try {
-                        itemType = Inventory.ItemType.valueOf(itemTypeStr.toUpperCase());
-                    } catch (IllegalArgumentException e) {
-                        throw new BadRequestException("Invalid item type: " + itemTypeStr);
-                    }
-                    
-                    // Create the inventory entity
-                    Inventory inventory = new Inventory();
-                    inventory.setCompany(company);
-                    inventory.setItemName(itemName);
-                    inventory.setQuantity(quantity);
-                    inventory.setUnitCost(unitCost);
-                    inventory.setTotalValue(totalValue);
-                    inventory.setCurrencyCode(currencyCode);
-                    inventory.setItemType(itemType);
-                    
-                    // Optional fields
-                    if (record.isMapped("item_code")) {
-                        inventory.setItemCode(record.get("item_code"));
-                    }
-                    
-                    if (record.isMapped("acquisition_date")) {
-                        inventory.setAcquisitionDate(parseDate(record.get("acquisition_date")));
-                    }
-                    
-                    if (record.isMapped("location")) {
-                        inventory.setLocation(record.get("location"));
-                    }
-                    
-                    if (record.isMapped("description")) {
-                        inventory.setDescription(record.get("description"));
-                    }
-                    
-                    if (record.isMapped("reorder_level")) {
-                        inventory.setReorderLevel(Integer.parseInt(record.get("reorder_level")));
-                    }
-                    
-                    if (record.isMapped("status")) {
-                        String statusStr = record.get("status");
-                        try {
-                            Inventory.InventoryStatus status = Inventory.InventoryStatus.valueOf(statusStr.toUpperCase());
-                            inventory.setStatus(status);
-                        } catch (IllegalArgumentException e) {
-                            inventory.setStatus(Inventory.InventoryStatus.IN_STOCK);
-                        }
-                    } else {
-                        inventory.setStatus(Inventory.InventoryStatus.IN_STOCK);
-                    }
-                    
-                    // Save the inventory item
-                    inventoryRepository.save(inventory);
-                    result.setSuccessfulRecords(result.getSuccessfulRecords() + 1);
-                    
-                } catch (Exception e) {
-                    result.setFailedRecords(result.getFailedRecords() + 1);
-                    result.addError("Error processing record " + result.getTotalRecords() + ": " + e.getMessage());
-                    logger.error("Error processing inventory record: {}", e.getMessage());
+                if (row.isFailed()) {
+                    rejectedRows.reject(row.recordNumber(), row.errorType(), row.error(), row.line());
+                } else {
+                    writer.write(row.value(), (int) row.recordNumber(), row.endOffset());
                 }
-            }
-            
-            if (result.getFailedRecords() > 0) {
-                result.setStatus("PARTIALLY_COMPLETED");
-            }
+                progress.update(result);
+            });
             
-            result.setSummary("Imported " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " inventory items.");
-            
-        } catch (IOException e) {
-            result.setStatus("FAILED");
-            result.addError("Failed to read CSV file: " + e.getMessage());
-            logger.error("Failed to read CSV file: {}", e.getMessage());
+            writer.flush();
+            progress.update(result);
         }
         
+        if (progress.isCancelled()) {
+            result.setStatus("CANCELLED");
+        } else if (checkpoint != null) {
+            importCheckpoints.complete(checkpoint, result, Files.size(file));
+        }
+        summarize(result, importType);
+        if (resumedAfter > 0) {
+            result.setSummary(result.getSummary() + " Resumed after record " + resumedAfter + " of an earlier import of this file.");
+        }
         return result;
     }
 
+    /**
+     * Reports the counts of an earlier import that got through the whole file.
+     */
+    private ImportResultDto alreadyImported(ImportResultDto result, ImportCheckpoint checkpoint, ImportType importType) {
+        result.setTotalRecords((int) checkpoint.getRowNumber());
+        result.setSuccessfulRecords((int) checkpoint.getSuccessfulRecords());
+        result.setFailedRecords((int) checkpoint.getFailedRecords());
+        result.setSkippedRecords((int) checkpoint.getSkippedRecords());
+        summarize(result, importType);
+        result.setSummary("This file was already imported; nothing was saved again. " + result.getSummary());
+        return result;
+    }
+
+    /**
+     * Sets the final status and summary of an import.
+     */
+    private void summarize(ImportResultDto result, ImportType importType) {
+        if ("CANCELLED".equals(result.getStatus())) {
+            result.setSummary("Import cancelled after " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " " + importType.getDescription() + " were imported.");
+            return;
+        }
+        
+        if (result.getFailedRecords() > 0) {
+            result.setStatus("PARTIALLY_COMPLETED");
+        }
+        
+        result.setSummary("Imported " + result.getSuccessfulRecords() + " out of " + result.getTotalRecords() + " " + importType.getDescription() + ".");
+        if (result.getSkippedRecords() > 0) {
+            result.setSummary(result.getSummary() + " Skipped " + result.getSkippedRecords() + " already imported.");
+        }
+    }
+
     @Override
-    @Transactional
     public ImportResultDto importFromQuickBooks(Long companyId, String accessToken, String refreshToken, String realmId) {
-        // In a real implementation, this would connect to the QuickBooks API
-        // For now, we'll return a placeholder result
-        Company company = companyRepository.findById(companyId)
+        companyRepository.findById(companyId)
                 .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
         
-        ImportResultDto result = ImportResultDto.builder()
-                .importType("QUICKBOOKS_DATA")
-                .source("QUICKBOOKS_API")
-                .fileName(null)
-                .importDate(LocalDateTime.now())
-                .totalRecords(0)
-                .successfulRecords(0)
-                .failedRecords(0)
-                .status("FAILED")
-                .build();
-        
-        result.addError("QuickBooks API integration is not implemented yet.");
-        result.setSummary("QuickBooks API integration is not implemented yet.");
-        
-        return result;
+        connectorSync.connect(companyId, QuickBooksConnector.SOURCE_TYPE, realmId, accessToken, refreshToken);
+        return importAdmission.run(companyId, () -> connectorSync.sync(companyId, QuickBooksConnector.SOURCE_TYPE));
     }
 
     @Override
-    @Transactional
     public ImportResultDto importFromXero(Long companyId, String accessToken, String tenantId) {
-        // In a real implementation, this would connect to the Xero API
-        // For now, we'll return a placeholder result
-        Company company = companyRepository.findById(companyId)
+        companyRepository.findById(companyId)
                 .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
         
-        ImportResultDto result = ImportResultDto.builder()
-                .importType("XERO_DATA")
-                .source("XERO_API")
-                .fileName(null)
-                .importDate(LocalDateTime.now())
-                .totalRecords(0)
-                .successfulRecords(0)
-                .failedRecords(0)
-                .status("FAILED")
-                .build();
-        
-        result.addError("Xero API integration is not implemented yet.");
-        result.setSummary("Xero API integration is not implemented yet.");
-        
-        return result;
+        connectorSync.connect(companyId, XeroConnector.SOURCE_TYPE, tenantId, accessToken, null);
+        return importAdmission.run(companyId, () -> connectorSync.sync(companyId, XeroConnector.SOURCE_TYPE));
     }
 
     @Override
@@ -642,31 +567,36 @@ public class DataImportServiceImpl implements DataImportService {
         companyRepository.findById(companyId)
                 .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
         
-        // Generate a job ID
-        String jobId = "import_" + companyId + "_" + sourceType + "_" + System.currentTimeMillis();
-        
-        // Schedule the job
-        Runnable task = () -> {
-            logger.info("Executing scheduled import job: {}", jobId);
-            // In a real implementation, this would perform the actual import based on the source type
-        };
-        
-        ScheduledFuture<?> scheduledTask = taskScheduler.schedule(task, new CronTrigger(cronExpression));
-        scheduledJobs.put(jobId, scheduledTask);
-        
-        return jobId;
+        return importScheduler.schedule(companyId, sourceType, cronExpression).getId();
     }
 
     @Override
     public void cancelScheduledImportJob(String jobId) {
-        ScheduledFuture<?> scheduledTask = scheduledJobs.get(jobId);
-        if (scheduledTask != null) {
-            scheduledTask.cancel(false);
-            scheduledJobs.remove(jobId);
-            logger.info("Cancelled scheduled import job: {}", jobId);
-        } else {
-            throw new ResourceNotFoundException("Scheduled import job not found with id: " + jobId);
-        }
+        importScheduler.cancel(jobId);
+    }
+
+    @Override
+    public List<ScheduledImportRunDto> getScheduledImportRuns(String jobId) {
+        return importScheduler.getRuns(jobId).stream()
+                .map(run -> ScheduledImportRunDto.builder()
+                        .id(run.getId())
+                        .scheduledFor(run.getScheduledFor())
+                        .missedFires(run.getMissedFires())
+                        .node(run.getNode())
+                        .status(run.getStatus())
+                        .summary(run.getSummary())
+                        .startedAt(run.getStartedAt())
+                        .finishedAt(run.getFinishedAt())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public ImportCapacityDto getImportCapacity() {
+        return ImportCapacityDto.builder()
+                .admission(importAdmission.getStatistics())
+                .connectionPools(connectionPoolMetrics.getStatistics())
+                .build();
     }
     
     /**
@@ -696,16 +626,41 @@ public class DataImportServiceImpl implements DataImportService {
     }
     
     /**
-     * Parses a date string to a LocalDate.
+     * Creates the result of a CSV import before any record is read.
      * 
-     * @param dateStr the date string
-     * @return the LocalDate
+     * @param importType the import type
+     * @param source the import source
+     * @param fileName the name of the imported file
+     * @return the result
      */
-    private LocalDate parseDate(String dateStr) {
+    private ImportResultDto newResult(ImportType importType, String source, String fileName) {
+        return ImportResultDto.builder()
+                .importType(importType.name())
+                .source(source)
+                .fileName(fileName)
+                .importDate(LocalDateTime.now())
+                .totalRecords(0)
+                .successfulRecords(0)
+                .failedRecords(0)
+                .status("COMPLETED")
+                .build();
+    }
+    
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
         try {
-            return LocalDate.parse(dateStr, DATE_FORMATTER);
-        } catch (DateTimeParseException e) {
-            throw new BadRequestException("Invalid date format: " + dateStr + ". Expected format: yyyy-MM-dd");
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete temporary import file {}: {}", path, e.getMessage());
         }
     }
+    
+    private ImportResultDto readFailure(ImportResultDto result, IOException e) {
+        result.setStatus("FAILED");
+        result.addError("Failed to read CSV file: " + e.getMessage());
+        logger.error("Failed to read CSV file: {}", e.getMessage());
+        return result;
+    }
 }
@@ -0,0 +1,497 @@
+package com.fintech.wcm.service.impl;
+
+import com.fintech.wcm.dto.ImportJobDto;
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.exception.ServiceUnavailableException;
+import com.fintech.wcm.model.ImportJob;
+import com.fintech.wcm.model.ImportJob.ImportJobStatus;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.repository.ImportJobRepository;
+import com.fintech.wcm.service.DataImportService;
+import com.fintech.wcm.service.ImportAdmission;
+import com.fintech.wcm.service.ImportJobService;
+import com.fintech.wcm.service.ImportProgress;
+import com.fintech.wcm.service.ImportScheduler;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of the ImportJobService interface.
+ *
+ * Jobs queue for admission by the {@link ImportAdmission} bulkhead, which caps the imports
+ * running at once for each company and overall, and run on the import threads once
+ * admitted; a submission that finds the queue full is turned away rather than piling up
+ * uploaded files. Progress of the
+ * jobs on this instance is kept in memory while they run and stored with the job once it
+ * finishes.
+ *
+ * Jobs are shared by every node of the cluster. The node that queues a job leases it and
+ * renews the lease while the job is queued or running; a job whose lease runs out because
+ * its node died is claimed by the first node to poll, with FOR UPDATE SKIP LOCKED, and
+ * resumed if its file is on that node's disk. Cancelling a job records the request with the
+ * job, so the node holding it cancels it whichever node was asked.
+ */
+@Service
+public class ImportJobServiceImpl implements ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobServiceImpl.class);
+
+    private static final int MAX_JOBS_LISTED = 100;
+
+    private final ImportJobRepository importJobRepository;
+    private final CompanyRepository companyRepository;
+    private final DataImportService dataImportService;
+    private final ImportAdmission importAdmission;
+    private final TransactionTemplate transactionTemplate;
+    private final String node;
+    private final Path storageDirectory;
+    private final Duration lease;
+    private final boolean schedulingEnabled;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ActiveJob> activeJobs = new ConcurrentHashMap<>();
+
+    public ImportJobServiceImpl(
+            ImportJobRepository importJobRepository,
+            CompanyRepository companyRepository,
+            DataImportService dataImportService,
+            ImportAdmission importAdmission,
+            ImportScheduler importScheduler,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.import.jobs.directory:${java.io.tmpdir}/wcm-imports}") String storageDirectory,
+            @Value("${app.import.jobs.lease:2m}") Duration lease,
+            @Value("${app.scheduling.enable:true}") boolean schedulingEnabled) {
+        this.importJobRepository = importJobRepository;
+        this.companyRepository = companyRepository;
+        this.dataImportService = dataImportService;
+        this.importAdmission = importAdmission;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.node = importScheduler.getNode();
+        this.storageDirectory = Paths.get(storageDirectory);
+        this.lease = lease;
+        this.schedulingEnabled = schedulingEnabled;
+        int threads = importAdmission.getMaxConcurrent();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Never queues: the bulkhead admits no more jobs than there are threads
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "import-job-" + threadCount.incrementAndGet()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Jobs that were queued or running when their node stopped are claimed once their lease
+     * has run out: see {@link #resumeOrphanedJobs()}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        resumeOrphanedJobs();
+    }
+
+    /**
+     * Renew the leases of the jobs queued or running on this node and cancel those whose
+     * cancellation was requested through another node, then claim the jobs whose node died.
+     * The leases are renewed even with scheduling disabled, so no other node takes over a
+     * job this node is running.
+     */
+    @Scheduled(fixedDelayString = "${app.import.jobs.poll-interval:PT10S}")
+    public void poll() {
+        renewLeases();
+        if (schedulingEnabled) {
+            resumeOrphanedJobs();
+        }
+    }
+
+    /**
+     * Claim the queued and running jobs no live node holds a lease on. A claimed job is
+     * queued again if its file is on this node's disk, and row-by-row imports then resume
+     * from their checkpoint; the others are marked as failed, or as cancelled if that was
+     * requested, so pollers are not left waiting.
+     */
+    void resumeOrphanedJobs() {
+        List<ImportJob> orphaned = transactionTemplate.execute(status -> {
+            List<ImportJob> jobs = importJobRepository.lockOrphaned();
+            if (!jobs.isEmpty()) {
+                importJobRepository.lease(node, jobs.stream().map(ImportJob::getId).toList(), lease.toSeconds());
+            }
+            return jobs;
+        });
+        for (ImportJob job : orphaned) {
+            if (activeJobs.containsKey(job.getId())) {
+                continue;
+            }
+            String previousNode = job.getLeaseOwner();
+            job.setLeaseOwner(node);
+            if (job.isCancelRequested()) {
+                finish(job, cancelledResult(job, "Import cancelled before it was resumed."));
+                continue;
+            }
+            if (job.getStoredPath() != null && Files.exists(Paths.get(job.getStoredPath()))) {
+                job.setStatus(ImportJobStatus.QUEUED);
+                job.setStartedAt(null);
+                job = importJobRepository.save(job);
+                try {
+                    enqueue(job);
+                    logger.info("Queued import job {} of node {} again", job.getId(), previousNode);
+                    continue;
+                } catch (RejectedExecutionException e) {
+                    logger.warn("No room in the import queue to resume job {}", job.getId());
+                }
+            }
+            ImportResultDto result = ImportResultDto.builder()
+                    .importType(job.getImportType().name())
+                    .fileName(job.getFileName())
+                    .importDate(LocalDateTime.now())
+                    .status(ImportJobStatus.FAILED.name())
+                    .summary("Import interrupted by a restart and could not be resumed; submit the file again to resume it.")
+                    .build();
+            finish(job, result);
+            logger.warn("Marked import job {} of node {} interrupted by a restart as failed", job.getId(), previousNode);
+        }
+    }
+
+    /**
+     * Extend the leases of the jobs queued or running on this node and cancel those another
+     * node was asked to cancel.
+     */
+    private void renewLeases() {
+        if (activeJobs.isEmpty()) {
+            return;
+        }
+        Set<String> jobIds = Set.copyOf(activeJobs.keySet());
+        transactionTemplate.executeWithoutResult(status -> importJobRepository.lease(node, jobIds, lease.toSeconds()));
+        for (String jobId : importJobRepository.findCancelRequested(jobIds)) {
+            ActiveJob activeJob = activeJobs.get(jobId);
+            if (activeJob != null && !activeJob.progress.isCancelled()) {
+                importJobRepository.findById(jobId).ifPresent(job -> cancelLocally(job, activeJob));
+                logger.info("Cancelled import job {} as requested through another node", jobId);
+            }
+        }
+    }
+
+    @Override
+    public ImportJobDto submit(Long companyId, ImportType importType, boolean bulk, ImportMode mode, MultipartFile file) {
+        validateCompanyAndFile(companyId, file);
+        if (mode == ImportMode.UPSERT && !bulk) {
+            throw new BadRequestException("Upserting imports are only supported by the bulk import");
+        }
+        if (mode != ImportMode.APPEND && importType == ImportType.INVENTORY) {
+            throw new BadRequestException("Inventory imports have no natural key to deduplicate on");
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        Path storedPath = storageDirectory.resolve(jobId + ".csv");
+        try {
+            Files.createDirectories(storageDirectory);
+            file.transferTo(storedPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store uploaded file " + file.getOriginalFilename(), e);
+        }
+
+        ImportJob job = new ImportJob();
+        job.setId(jobId);
+        job.setCompanyId(companyId);
+        job.setImportType(importType);
+        job.setBulk(bulk);
+        job.setMode(mode);
+        job.setStatus(ImportJobStatus.QUEUED);
+        job.setFileName(file.getOriginalFilename());
+        job.setFileSize(file.getSize());
+        job.setStoredPath(storedPath.toString());
+        job.setCreatedAt(LocalDateTime.now());
+        job.setLeaseOwner(node);
+        ImportJob queued = job;
+        job = transactionTemplate.execute(status -> {
+            ImportJob saved = importJobRepository.saveAndFlush(queued);
+            importJobRepository.lease(node, List.of(jobId), lease.toSeconds());
+            return saved;
+        });
+
+        try {
+            enqueue(job);
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(storedPath);
+            importJobRepository.delete(job);
+            throw new ServiceUnavailableException("The import queue is full; try again later");
+        }
+
+        logger.info("Queued {} import job {} for company {}", importType, jobId, companyId);
+        return toDto(job);
+    }
+
+    @Override
+    public ImportJobDto getJob(String jobId) {
+        return toDto(findJob(jobId));
+    }
+
+    @Override
+    public List<ImportJobDto> getJobs(Long companyId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_JOBS_LISTED));
+        return importJobRepository.findByCompanyIdOrderByCreatedAtDesc(companyId, PageRequest.of(0, pageSize))
+                .stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    @Override
+    public ImportResultDto getResult(String jobId) {
+        ImportJob job = findJob(jobId);
+        if (!job.getStatus().isFinished()) {
+            throw new BadRequestException("Import job " + jobId + " has not finished yet");
+        }
+        if (job.getResult() == null) {
+            throw new ResourceNotFoundException("Import job " + jobId + " has no stored result");
+        }
+        return job.getResult();
+    }
+
+    @Override
+    public ImportJobDto cancel(String jobId) {
+        ImportJob job = findJob(jobId);
+        if (job.getStatus().isFinished()) {
+            return toDto(job);
+        }
+
+        // The node holding the job picks the request up when it next renews its lease
+        transactionTemplate.executeWithoutResult(status -> importJobRepository.requestCancel(jobId));
+        job.setCancelRequested(true);
+        ActiveJob activeJob = activeJobs.get(jobId);
+        if (activeJob != null) {
+            job = cancelLocally(job, activeJob);
+            logger.info("Cancelled import job {}", jobId);
+        } else {
+            logger.info("Requested cancellation of import job {} held by node {}", jobId, job.getLeaseOwner());
+        }
+        return toDto(job);
+    }
+
+    /**
+     * Cancels a job queued or running on this node.
+     */
+    private ImportJob cancelLocally(ImportJob job, ActiveJob activeJob) {
+        activeJob.progress.cancel();
+        if (activeJob.ticket != null && activeJob.ticket.withdraw()) {
+            // Never started, so nothing else will finish it
+            return finish(job, cancelledResult(job, "Import cancelled before it started."));
+        }
+        return job;
+    }
+
+    /**
+     * Queues a job for admission to run on the import threads and tracks its progress.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    private void enqueue(ImportJob job) {
+        String jobId = job.getId();
+        ImportProgress progress = new ImportProgress(job.getFileSize());
+        ActiveJob activeJob = new ActiveJob(progress);
+        activeJobs.put(jobId, activeJob);
+        try {
+            activeJob.ticket = importAdmission.submit(job.getCompanyId(), executor, () -> run(jobId, progress));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(jobId);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs an import job on an import thread.
+     */
+    private void run(String jobId, ImportProgress progress) {
+        ImportJob job = importJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            activeJobs.remove(jobId);
+            return;
+        }
+        if (job.isCancelRequested()) {
+            finish(job, cancelledResult(job, "Import cancelled before it started."));
+            return;
+        }
+
+        job.setStatus(ImportJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job = importJobRepository.save(job);
+
+        ImportResultDto result;
+        Path storedPath = Paths.get(job.getStoredPath());
+        try {
+            if (job.isBulk()) {
+                try (InputStream input = Files.newInputStream(storedPath)) {
+                    result = dataImportService.bulkImportCsv(job.getCompanyId(), job.getImportType(), job.getMode(),
+                            job.getFileName(), input, StandardCharsets.UTF_8, progress);
+                }
+            } else {
+                result = dataImportService.importCsvFile(job.getCompanyId(), job.getImportType(), job.getMode(),
+                        job.getFileName(), storedPath, progress);
+            }
+        } catch (Exception e) {
+            logger.error("Import job {} failed: {}", jobId, e.getMessage(), e);
+            result = ImportResultDto.builder()
+                    .importType(job.getImportType().name())
+                    .fileName(job.getFileName())
+                    .importDate(LocalDateTime.now())
+                    .totalRecords((int) progress.getRowsParsed())
+                    .successfulRecords((int) progress.getRowsWritten())
+                    .failedRecords((int) progress.getRowsFailed())
+                    .status(ImportJobStatus.FAILED.name())
+                    .summary("Import failed: " + e.getMessage())
+                    .build();
+            result.addError(e.getMessage());
+        }
+
+        finish(job, result);
+        logger.info("Import job {} finished as {} in {} ms", jobId, result.getStatus(), progress.getElapsed().toMillis());
+    }
+
+    /**
+     * Stores the result of a job, deletes its file and stops tracking it.
+     */
+    private ImportJob finish(ImportJob job, ImportResultDto result) {
+        if (job.getStoredPath() != null) {
+            deleteQuietly(Paths.get(job.getStoredPath()));
+        }
+        job.setStatus(ImportJobStatus.valueOf(result.getStatus()));
+        job.setRowsParsed(result.getTotalRecords());
+        job.setRowsWritten(result.getSuccessfulRecords());
+        job.setRowsFailed(result.getFailedRecords());
+        job.setResult(result);
+        job.setStoredPath(null);
+        job.setFinishedAt(LocalDateTime.now());
+        job = importJobRepository.save(job);
+        activeJobs.remove(job.getId());
+        return job;
+    }
+
+    private static ImportResultDto cancelledResult(ImportJob job, String summary) {
+        return ImportResultDto.builder()
+                .importType(job.getImportType().name())
+                .fileName(job.getFileName())
+                .importDate(LocalDateTime.now())
+                .status(ImportJobStatus.CANCELLED.name())
+                .summary(summary)
+                .build();
+    }
+
+    private ImportJob findJob(String jobId) {
+        return importJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found with id: " + jobId));
+    }
+
+    private void validateCompanyAndFile(Long companyId, MultipartFile file) {
+        if (!companyRepository.existsById(companyId)) {
+            throw new ResourceNotFoundException("Company not found with id: " + companyId);
+        }
+        if (file.isEmpty()) {
+            throw new BadRequestException("File is empty");
+        }
+        String filename = file.getOriginalFilename();
+        if (filename == null || !filename.toLowerCase().endsWith(".csv")) {
+            throw new BadRequestException("File is not a CSV file");
+        }
+    }
+
+    private ImportJobDto toDto(ImportJob job) {
+        ImportJobDto dto = ImportJobDto.builder()
+                .id(job.getId())
+                .companyId(job.getCompanyId())
+                .importType(job.getImportType())
+                .bulk(job.isBulk())
+                .mode(job.getMode())
+                .status(job.getStatus())
+                .fileName(job.getFileName())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .fileSize(job.getFileSize())
+                .rowsParsed(job.getRowsParsed())
+                .rowsWritten(job.getRowsWritten())
+                .rowsFailed(job.getRowsFailed())
+                .node(job.getStatus().isFinished() ? null : job.getLeaseOwner())
+                .cancelRequested(job.isCancelRequested())
+                .build();
+
+        ActiveJob activeJob = activeJobs.get(job.getId());
+        if (job.getStatus() == ImportJobStatus.RUNNING && activeJob != null) {
+            ImportProgress progress = activeJob.progress;
+            dto.setBytesRead(progress.getBytesRead());
+            dto.setRowsParsed(progress.getRowsParsed());
+            dto.setRowsWritten(progress.getRowsWritten());
+            dto.setRowsFailed(progress.getRowsFailed());
+            dto.setRowsPerSecond(Math.round(progress.getRowsPerSecond() * 10) / 10.0);
+            Double fraction = progress.getFractionComplete();
+            if (fraction != null) {
+                dto.setPercentComplete(Math.round(fraction * 1000) / 10.0);
+            }
+            Duration remaining = progress.getEstimatedRemaining();
+            if (remaining != null) {
+                dto.setEstimatedSecondsRemaining(remaining.toSeconds());
+            }
+        } else if (job.getStatus() == ImportJobStatus.QUEUED && activeJob != null && activeJob.ticket != null) {
+            int position = activeJob.ticket.getPosition();
+            if (position > 0) {
+                dto.setQueuePosition(position);
+            }
+        } else if (job.getStatus() == ImportJobStatus.COMPLETED || job.getStatus() == ImportJobStatus.PARTIALLY_COMPLETED) {
+            dto.setPercentComplete(100.0);
+        }
+        return dto;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete import file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * A job queued or running on this instance.
+     */
+    private static final class ActiveJob {
+
+        private final ImportProgress progress;
+        private volatile ImportAdmission.Ticket ticket;
+
+        private ActiveJob(ImportProgress progress) {
+            this.progress = progress;
+        }
+    }
+}
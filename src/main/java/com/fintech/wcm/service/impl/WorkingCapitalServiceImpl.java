@@ -1,23 +1,37 @@
 package com.fintech.wcm.service.impl;
 
+import com.fintech.wcm.dto.AlertInboxDto;
 import com.fintech.wcm.dto.DashboardSummaryDto;
 import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
-import com.fintech.wcm.exception.ResourceNotFoundException;
 import com.fintech.wcm.model.*;
 import com.fintech.wcm.repository.*;
+import com.fintech.wcm.repository.projection.BalanceSheetAggregate;
+import com.fintech.wcm.repository.projection.BatchMetricsRow;
+import com.fintech.wcm.repository.projection.CounterpartyConcentrationRow;
+import com.fintech.wcm.service.AlertInboxService;
 import com.fintech.wcm.service.AlertService;
+import com.fintech.wcm.service.ConcurrentQueries;
+import com.fintech.wcm.service.MetricsContext;
+import com.fintech.wcm.service.MetricsContextFactory;
+import com.fintech.wcm.service.WorkingCapitalSnapshotService;
 import com.fintech.wcm.service.WorkingCapitalService;
 import com.fintech.wcm.util.FinancialCalculator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the WorkingCapitalService interface.
@@ -26,17 +40,33 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WorkingCapitalServiceImpl implements WorkingCapitalService {
 
+    /**
+     * Dashboard sections that are left out when their queries fail or time out.
+     */
+    private static final String SECTION_ALERTS = "alerts";
+    private static final String SECTION_CASH_FLOW = "cashFlow";
+    private static final String SECTION_TOP_CUSTOMERS = "topCustomers";
+    private static final String SECTION_TOP_VENDORS = "topVendors";
+    private static final String SECTION_WORKING_CAPITAL_TREND = "workingCapitalTrend";
+
+    /**
+     * Number of customers and of vendors listed on the dashboard.
+     */
+    private static final int DASHBOARD_TOP_COUNTERPARTIES = 5;
+
     private final CompanyRepository companyRepository;
-    private final CashAccountRepository cashAccountRepository;
     private final AccountsReceivableRepository accountsReceivableRepository;
     private final AccountsPayableRepository accountsPayableRepository;
-    private final InventoryRepository inventoryRepository;
-    private final ShortTermLiabilityRepository shortTermLiabilityRepository;
-    private final InvoiceRepository invoiceRepository;
     private final TransactionRepository transactionRepository;
-    private final AlertRepository alertRepository;
     private final AlertService alertService;
+    private final AlertInboxService alertInboxService;
+    private final MetricsContextFactory metricsContextFactory;
+    private final WorkingCapitalSnapshotService workingCapitalSnapshotService;
     private final FinancialCalculator financialCalculator;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.dashboard.section-timeout:3s}")
+    private Duration dashboardSectionTimeout;
 
     @Override
     @Transactional(readOnly = true)
@@ -47,402 +77,231 @@ public class WorkingCapitalServiceImpl implements WorkingCapitalService {
     @Override
     @Transactional(readOnly = true)
     public WorkingCapitalMetricsDto calculateWorkingCapitalMetrics(Long companyId, LocalDate asOfDate) {
-        Company company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
-        
-        // Create the metrics DTO with company information
-        WorkingCapitalMetricsDto metricsDto = WorkingCapitalMetricsDto.builder()
-                .companyId(companyId)
-                .companyName(company.getName())
-                .calculationDate(asOfDate)
-                .build();
-        
-        // Calculate current assets
-        BigDecimal cashAndEquivalents = cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId);
-        if (cashAndEquivalents == null) cashAndEquivalents = BigDecimal.ZERO;
-        
-        BigDecimal accountsReceivable = accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId);
-        if (accountsReceivable == null) accountsReceivable = BigDecimal.ZERO;
-        
-        BigDecimal inventory = inventoryRepository.sumTotalInventoryValueByCompanyId(companyId);
-        if (inventory == null) inventory = BigDecimal.ZERO;
-        
-        // Calculate current liabilities
-        BigDecimal accountsPayable = accountsPayableRepository.sumTotalPayablesByCompanyId(companyId);
-        if (accountsPayable == null) accountsPayable = BigDecimal.ZERO;
-        
-        BigDecimal shortTermDebt = shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(companyId);
-        if (shortTermDebt == null) shortTermDebt = BigDecimal.ZERO;
-        
-        // Calculate the total current assets and liabilities
-        BigDecimal totalCurrentAssets = cashAndEquivalents.add(accountsReceivable).add(inventory);
-        BigDecimal totalCurrentLiabilities = accountsPayable.add(shortTermDebt);
-        
-        // Calculate net working capital
-        BigDecimal netWorkingCapital = totalCurrentAssets.subtract(totalCurrentLiabilities);
-        
-        // Set the calculated values in the metrics DTO
-        metricsDto.setTotalCurrentAssets(totalCurrentAssets);
-        metricsDto.setCashAndEquivalents(cashAndEquivalents);
-        metricsDto.setAccountsReceivable(accountsReceivable);
-        metricsDto.setInventory(inventory);
-        metricsDto.setOtherCurrentAssets(BigDecimal.ZERO); // Placeholder for other assets
-        
-        metricsDto.setTotalCurrentLiabilities(totalCurrentLiabilities);
-        metricsDto.setAccountsPayable(accountsPayable);
-        metricsDto.setShortTermDebt(shortTermDebt);
-        metricsDto.setOtherCurrentLiabilities(BigDecimal.ZERO); // Placeholder for other liabilities
-        
-        metricsDto.setNetWorkingCapital(netWorkingCapital);
-        
-        // Calculate financial ratios
-        if (totalCurrentLiabilities.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal currentRatio = totalCurrentAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP);
-            metricsDto.setCurrentRatio(currentRatio);
-            
-            BigDecimal quickAssets = totalCurrentAssets.subtract(inventory);
-            BigDecimal quickRatio = quickAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP);
-            metricsDto.setQuickRatio(quickRatio);
+        if (!asOfDate.isBefore(LocalDate.now())) {
+            WorkingCapitalMetricsDto metricsDto = metricsContextFactory.create(companyId, asOfDate).toMetricsDto();
+            workingCapitalSnapshotService.applyTrends(metricsDto);
+            return metricsDto;
         }
         
-        // Calculate CCC components
-        double dso = calculateDSO(companyId);
-        double dpo = calculateDPO(companyId);
-        double dio = calculateDIO(companyId);
-        double ccc = calculateCCC(companyId);
-        
-        metricsDto.setDaysSalesOutstanding(BigDecimal.valueOf(dso).setScale(2, RoundingMode.HALF_UP));
-        metricsDto.setDaysPayablesOutstanding(BigDecimal.valueOf(dpo).setScale(2, RoundingMode.HALF_UP));
-        metricsDto.setDaysInventoryOutstanding(BigDecimal.valueOf(dio).setScale(2, RoundingMode.HALF_UP));
-        metricsDto.setCashConversionCycle(BigDecimal.valueOf(ccc).setScale(2, RoundingMode.HALF_UP));
-        
-        // Calculate trend indicators
-        // This would typically involve comparing with previous periods
-        // For now, we'll use placeholders
-        metricsDto.setWorkingCapitalTrend("STABLE");
-        metricsDto.setCashConversionCycleTrend("STABLE");
-        metricsDto.setLiquidityTrend("STABLE");
-        
-        return metricsDto;
+        // Past dates come from the nightly snapshot, or are reconstructed from the ledgers
+        WorkingCapitalMetricsDto snapshot = workingCapitalSnapshotService.getSnapshots(companyId, asOfDate, asOfDate).get(asOfDate);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return workingCapitalSnapshotService.reconstructMetrics(companyId, List.of(asOfDate)).get(asOfDate);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public DashboardSummaryDto getDashboardSummary(Long companyId) {
-        Company company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Company not found with id: " + companyId));
-        
-        LocalDate asOfDate = LocalDate.now();
-        
-        // Create the dashboard summary DTO with company information
-        DashboardSummaryDto summaryDto = DashboardSummaryDto.builder()
-                .companyId(companyId)
-                .companyName(company.getName())
-                .companyType(company.getType().name())
-                .currencyCode(company.getCurrencyCode())
-                .asOfDate(asOfDate)
-                .build();
-        
-        // Populate key metrics
-        BigDecimal cashBalance = cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId);
-        if (cashBalance == null) cashBalance = BigDecimal.ZERO;
-        
-        BigDecimal accountsReceivable = accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId);
-        if (accountsReceivable == null) accountsReceivable = BigDecimal.ZERO;
-        
-        BigDecimal accountsPayable = accountsPayableRepository.sumTotalPayablesByCompanyId(companyId);
-        if (accountsPayable == null) accountsPayable = BigDecimal.ZERO;
-        
-        BigDecimal inventory = inventoryRepository.sumTotalInventoryValueByCompanyId(companyId);
-        if (inventory == null) inventory = BigDecimal.ZERO;
-        
-        BigDecimal totalCurrentAssets = cashBalance.add(accountsReceivable).add(inventory);
-        BigDecimal totalCurrentLiabilities = accountsPayable;
-        
-        BigDecimal netWorkingCapital = totalCurrentAssets.subtract(totalCurrentLiabilities);
-        
-        summaryDto.setCashBalance(cashBalance);
-        summaryDto.setAccountsReceivable(accountsReceivable);
-        summaryDto.setAccountsPayable(accountsPayable);
-        summaryDto.setInventory(inventory);
-        summaryDto.setNetWorkingCapital(netWorkingCapital);
-        
-        // Financial ratios
-        if (totalCurrentLiabilities.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal currentRatio = totalCurrentAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP);
-            summaryDto.setCurrentRatio(currentRatio);
-            
-            BigDecimal quickAssets = totalCurrentAssets.subtract(inventory);
-            BigDecimal quickRatio = quickAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP);
-            summaryDto.setQuickRatio(quickRatio);
-        }
-        
-        // Cash conversion cycle components
-        double dso = calculateDSO(companyId);
-        double dpo = calculateDPO(companyId);
-        double dio = calculateDIO(companyId);
-        double ccc = calculateCCC(companyId);
-        
-        summaryDto.setDaysSalesOutstanding(BigDecimal.valueOf(dso).setScale(2, RoundingMode.HALF_UP));
-        summaryDto.setDaysPayableOutstanding(BigDecimal.valueOf(dpo).setScale(2, RoundingMode.HALF_UP));
-        summaryDto.setDaysInventoryOutstanding(BigDecimal.valueOf(dio).setScale(2, RoundingMode.HALF_UP));
-        summaryDto.setCashConversionCycle(BigDecimal.valueOf(ccc).setScale(2, RoundingMode.HALF_UP));
-        
-        // Alert information
-        long totalAlerts = alertRepository.countByCompanyIdAndReadFalse(companyId);
-        long criticalAlerts = alertRepository.findByCompanyIdAndSeverity(companyId, Alert.AlertSeverity.CRITICAL).size();
-        long highAlerts = alertRepository.findByCompanyIdAndSeverity(companyId, Alert.AlertSeverity.HIGH).size();
-        
-        summaryDto.setTotalAlerts((int) totalAlerts);
-        summaryDto.setCriticalAlerts((int) criticalAlerts);
-        summaryDto.setHighAlerts((int) highAlerts);
-        
-        // Recent alerts
-        List<Alert> recentAlerts = alertRepository.findByCompanyIdAndDismissedFalse(companyId).stream()
-                .sorted(Comparator.comparing(Alert::getCreatedAt).reversed())
-                .limit(5)
-                .collect(Collectors.toList());
-        
-        List<Map<String, Object>> recentAlertsList = new ArrayList<>();
-        for (Alert alert : recentAlerts) {
-            Map<String, Object> alertMap = new HashMap<>();
-            alertMap.put("id", alert.getId());
-            alertMap.put("title", alert.getTitle());
-            alertMap.put("message", alert.getMessage());
-            alertMap.put("alertType", alert.getAlertType().name());
-            alertMap.put("severity", alert.getSeverity().name());
-            alertMap.put("createdAt", alert.getCreatedAt());
-            recentAlertsList.add(alertMap);
+    public void streamBatchMetrics(Collection<Long> companyIds, Company.CompanyType companyType,
+                                   Consumer<WorkingCapitalMetricsDto> consumer) {
+        if (companyType == null && (companyIds == null || companyIds.isEmpty())) {
+            return;
         }
-        summaryDto.setRecentAlerts(recentAlertsList);
-        
-        // Upcoming cash flow
-        LocalDate thirtyDaysLater = asOfDate.plusDays(30);
-        
-        List<AccountsPayable.PayableStatus> unpaidStatuses = Arrays.asList(
-                AccountsPayable.PayableStatus.PENDING, 
-                AccountsPayable.PayableStatus.APPROVED,
-                AccountsPayable.PayableStatus.PARTIALLY_PAID
-        );
-        
-        List<AccountsPayable> upcomingPayables = accountsPayableRepository.findByCompanyIdAndDueDateBetweenAndStatusIn(
-                companyId, asOfDate, thirtyDaysLater, unpaidStatuses);
-        
-        BigDecimal upcomingPayables30Days = upcomingPayables.stream()
-                .map(AccountsPayable::getAmountBaseCurrency)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        List<AccountsReceivable.ReceivableStatus> unpaidReceivableStatuses = Arrays.asList(
-                AccountsReceivable.ReceivableStatus.OPEN,
-                AccountsReceivable.ReceivableStatus.PARTIALLY_PAID
-        );
-        
-        List<AccountsReceivable> upcomingReceivables = accountsReceivableRepository.findByCompanyIdAndDueDateBeforeAndStatusNot(
-                companyId, thirtyDaysLater, AccountsReceivable.ReceivableStatus.PAID);
-        
-        BigDecimal upcomingReceivables30Days = upcomingReceivables.stream()
-                .filter(ar -> unpaidReceivableStatuses.contains(ar.getStatus()))
-                .map(AccountsReceivable::getAmountBaseCurrency)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal projectedCashBalance30Days = cashBalance.add(upcomingReceivables30Days).subtract(upcomingPayables30Days);
-        
-        summaryDto.setUpcomingReceivables30Days(upcomingReceivables30Days);
-        summaryDto.setUpcomingPayables30Days(upcomingPayables30Days);
-        summaryDto.setProjectedCashBalance30Days(projectedCashBalance30Days);
-        
-        // Top customers and vendors
-        List<Object[]> topCustomers = accountsReceivableRepository.findReceivablesByCustomer(companyId);
-        List<Object[]> topVendors = accountsPayableRepository.findPayablesByVendor(companyId);
-        
-        Map<String, Object> topCustomersMap = new HashMap<>();
-        List<Map<String, Object>> customersList = new ArrayList<>();
-        
-        for (int i = 0; i < Math.min(5, topCustomers.size()); i++) {
-            Object[] customer = topCustomers.get(i);
-            Map<String, Object> customerMap = new HashMap<>();
-            customerMap.put("name", customer[0]);
-            customerMap.put("amount", customer[1]);
-            customersList.add(customerMap);
+
+        LocalDate today = LocalDate.now();
+        LocalDate baselineDate = today.minusDays(WorkingCapitalSnapshotService.TREND_LOOKBACK_DAYS);
+        try (Stream<BatchMetricsRow> rows = companyType != null
+                ? companyRepository.streamBatchMetricsByCompanyType(companyType.name(), baselineDate)
+                : companyRepository.streamBatchMetricsByCompanyIds(companyIds, baselineDate)) {
+            rows.forEach(row -> {
+                WorkingCapitalMetricsDto metrics = MetricsContext.of(row, today).toMetricsDto();
+                workingCapitalSnapshotService.applyTrends(metrics, WorkingCapitalMetricsDto.builder()
+                        .netWorkingCapital(row.getPreviousNetWorkingCapital())
+                        .cashConversionCycle(row.getPreviousCashConversionCycle())
+                        .currentRatio(row.getPreviousCurrentRatio())
+                        .build());
+                consumer.accept(metrics);
+            });
         }
-        
-        topCustomersMap.put("customers", customersList);
-        summaryDto.setTopCustomers(topCustomersMap);
-        
-        Map<String, Object> topVendorsMap = new HashMap<>();
-        List<Map<String, Object>> vendorsList = new ArrayList<>();
-        
-        for (int i = 0; i < Math.min(5, topVendors.size()); i++) {
-            Object[] vendor = topVendors.get(i);
-            Map<String, Object> vendorMap = new HashMap<>();
-            vendorMap.put("name", vendor[0]);
-            vendorMap.put("amount", vendor[1]);
-            vendorsList.add(vendorMap);
+    }
+
+    @Override
+    public DashboardSummaryDto getDashboardSummary(Long companyId) {
+        MetricsContext context = metricsContextFactory.create(companyId);
+        
+        // Every sub-query runs concurrently in its own read-only transaction
+        try (ConcurrentQueries queries = new ConcurrentQueries(transactionManager, dashboardSectionTimeout)) {
+            Future<BalanceSheetAggregate> balanceSheetQuery = queries.fork(context::getBalanceSheet);
+            Future<AlertInboxDto> alertInboxQuery = queries.fork(() -> alertInboxService.getInbox(companyId));
+            Future<List<AccountsPayable>> upcomingPayablesQuery = queries.fork(context::getUpcomingPayables);
+            Future<List<AccountsReceivable>> upcomingReceivablesQuery = queries.fork(context::getUpcomingReceivables);
+            Future<List<CounterpartyConcentrationRow>> topCustomersQuery = queries.fork(() ->
+                    accountsReceivableRepository.findCustomerConcentration(companyId, DASHBOARD_TOP_COUNTERPARTIES));
+            Future<List<CounterpartyConcentrationRow>> topVendorsQuery = queries.fork(() ->
+                    accountsPayableRepository.findVendorConcentration(companyId, DASHBOARD_TOP_COUNTERPARTIES));
+            Future<Optional<WorkingCapitalMetricsDto>> trendBaselineQuery = queries.fork(() ->
+                    workingCapitalSnapshotService.findTrendBaseline(companyId, context.getAsOfDate()));
+            
+            // The balance sheet is required; every other section is left out if its queries fail
+            BalanceSheetAggregate balanceSheet = queries.join(balanceSheetQuery);
+            
+            LocalDate asOfDate = context.getAsOfDate();
+            
+            // Create the dashboard summary DTO with company information
+            DashboardSummaryDto summaryDto = DashboardSummaryDto.builder()
+                    .companyId(companyId)
+                    .companyName(balanceSheet.getCompanyName())
+                    .companyType(balanceSheet.getCompanyType())
+                    .currencyCode(balanceSheet.getCurrencyCode())
+                    .asOfDate(asOfDate)
+                    .build();
+            
+            // Populate key metrics
+            BigDecimal cashBalance = context.getCashBalance();
+            BigDecimal accountsReceivable = context.getReceivables();
+            BigDecimal accountsPayable = context.getPayables();
+            BigDecimal inventory = context.getInventory();
+            
+            // The dashboard reports liabilities as accounts payable only
+            BigDecimal totalCurrentAssets = context.getTotalCurrentAssets();
+            BigDecimal totalCurrentLiabilities = accountsPayable;
+            
+            BigDecimal netWorkingCapital = totalCurrentAssets.subtract(totalCurrentLiabilities);
+            
+            summaryDto.setCashBalance(cashBalance);
+            summaryDto.setAccountsReceivable(accountsReceivable);
+            summaryDto.setAccountsPayable(accountsPayable);
+            summaryDto.setInventory(inventory);
+            summaryDto.setNetWorkingCapital(netWorkingCapital);
+            
+            // Financial ratios
+            if (totalCurrentLiabilities.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal currentRatio = totalCurrentAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP);
+                summaryDto.setCurrentRatio(currentRatio);
+                
+                BigDecimal quickAssets = totalCurrentAssets.subtract(inventory);
+                BigDecimal quickRatio = quickAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP);
+                summaryDto.setQuickRatio(quickRatio);
+            }
+            
+            // Cash conversion cycle components
+            summaryDto.setDaysSalesOutstanding(toDays(context.getDaysSalesOutstanding()));
+            summaryDto.setDaysPayableOutstanding(toDays(context.getDaysPayablesOutstanding()));
+            summaryDto.setDaysInventoryOutstanding(toDays(context.getDaysInventoryOutstanding()));
+            summaryDto.setCashConversionCycle(toDays(context.getCashConversionCycle()));
+            
+            // Alert information, read from the company's alert inbox
+            AlertInboxDto alertInbox = queries.join(SECTION_ALERTS, alertInboxQuery);
+            if (alertInbox != null) {
+                summaryDto.setTotalAlerts((int) alertInbox.getUnreadCount());
+                summaryDto.setCriticalAlerts((int) alertInbox.getSeverityCount(Alert.AlertSeverity.CRITICAL.name()));
+                summaryDto.setHighAlerts((int) alertInbox.getSeverityCount(Alert.AlertSeverity.HIGH.name()));
+                
+                // Recent alerts
+                List<AlertInbox.RecentAlert> recentAlerts = alertInbox.getRecentAlerts().stream()
+                        .limit(5)
+                        .collect(Collectors.toList());
+                
+                List<Map<String, Object>> recentAlertsList = new ArrayList<>();
+                for (AlertInbox.RecentAlert alert : recentAlerts) {
+                    Map<String, Object> alertMap = new HashMap<>();
+                    alertMap.put("id", alert.getId());
+                    alertMap.put("title", alert.getTitle());
+                    alertMap.put("message", alert.getMessage());
+                    alertMap.put("alertType", alert.getAlertType().name());
+                    alertMap.put("severity", alert.getSeverity().name());
+                    alertMap.put("createdAt", alert.getCreatedAt());
+                    recentAlertsList.add(alertMap);
+                }
+                summaryDto.setRecentAlerts(recentAlertsList);
+            }
+            
+            // Upcoming cash flow; the dashboard leaves overdue payables out of the window
+            List<AccountsPayable> upcomingPayables = queries.join(SECTION_CASH_FLOW, upcomingPayablesQuery);
+            List<AccountsReceivable> upcomingReceivables = queries.join(SECTION_CASH_FLOW, upcomingReceivablesQuery);
+            if (upcomingPayables != null && upcomingReceivables != null) {
+                BigDecimal upcomingPayables30Days = upcomingPayables.stream()
+                        .filter(ap -> ap.getStatus() != AccountsPayable.PayableStatus.OVERDUE)
+                        .map(AccountsPayable::getAmountBaseCurrency)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                
+                BigDecimal upcomingReceivables30Days = upcomingReceivables.stream()
+                        .filter(ar -> MetricsContext.UPCOMING_RECEIVABLE_STATUSES.contains(ar.getStatus()))
+                        .map(AccountsReceivable::getAmountBaseCurrency)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                
+                BigDecimal projectedCashBalance30Days = cashBalance.add(upcomingReceivables30Days).subtract(upcomingPayables30Days);
+                
+                summaryDto.setUpcomingReceivables30Days(upcomingReceivables30Days);
+                summaryDto.setUpcomingPayables30Days(upcomingPayables30Days);
+                summaryDto.setProjectedCashBalance30Days(projectedCashBalance30Days);
+            }
+            
+            // Top customers and vendors
+            List<CounterpartyConcentrationRow> topCustomers = queries.join(SECTION_TOP_CUSTOMERS, topCustomersQuery);
+            if (topCustomers != null) {
+                summaryDto.setTopCustomers(Map.of("customers", topCounterparties(topCustomers)));
+            }
+            
+            List<CounterpartyConcentrationRow> topVendors = queries.join(SECTION_TOP_VENDORS, topVendorsQuery);
+            if (topVendors != null) {
+                summaryDto.setTopVendors(Map.of("vendors", topCounterparties(topVendors)));
+            }
+            
+            // Working capital trend against the snapshot one trend period earlier, measured the
+            // way the dashboard measures it, with accounts payable as the only liabilities
+            Optional<WorkingCapitalMetricsDto> trendBaseline = queries.join(SECTION_WORKING_CAPITAL_TREND, trendBaselineQuery);
+            if (trendBaseline != null) {
+                BigDecimal previousNetWorkingCapital = trendBaseline
+                        .filter(baseline -> baseline.getTotalCurrentAssets() != null && baseline.getAccountsPayable() != null)
+                        .map(baseline -> baseline.getTotalCurrentAssets().subtract(baseline.getAccountsPayable()))
+                        .orElse(null);
+                Map<String, Object> wcTrend = new HashMap<>();
+                wcTrend.put("current", netWorkingCapital);
+                wcTrend.put("previous", previousNetWorkingCapital);
+                wcTrend.put("trend", financialCalculator.determineTrend(previousNetWorkingCapital, netWorkingCapital, true));
+                summaryDto.setWorkingCapitalTrend(wcTrend);
+            }
+            
+            // Recommendations based on metrics
+            List<Map<String, Object>> recommendations = generateRecommendations(context, summaryDto);
+            summaryDto.setRecommendations(recommendations);
+            
+            List<String> unavailableSections = queries.getUnavailableSections();
+            if (!unavailableSections.isEmpty()) {
+                summaryDto.setPartial(true);
+                summaryDto.setUnavailableSections(unavailableSections);
+            }
+            
+            return summaryDto;
         }
-        
-        topVendorsMap.put("vendors", vendorsList);
-        summaryDto.setTopVendors(topVendorsMap);
-        
-        // Working capital trend (mock data for now)
-        Map<String, Object> wcTrend = new HashMap<>();
-        wcTrend.put("current", netWorkingCapital);
-        wcTrend.put("previous", netWorkingCapital.multiply(new BigDecimal("0.95")));
-        wcTrend.put("trend", "IMPROVING");
-        summaryDto.setWorkingCapitalTrend(wcTrend);
-        
-        // Recommendations based on metrics
-        List<Map<String, Object>> recommendations = generateRecommendations(companyId, summaryDto);
-        summaryDto.setRecommendations(recommendations);
-        
-        return summaryDto;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public double calculateDSO(Long companyId) {
-        // Get accounts receivable balance
-        BigDecimal arBalance = accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId);
-        if (arBalance == null || arBalance.compareTo(BigDecimal.ZERO) == 0) {
-            return 0.0;
-        }
-        
-        // Get average daily sales for the last 90 days
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(90);
-        
-        BigDecimal totalSales = invoiceRepository.sumTotalOpenSalesInvoicesByCompanyId(companyId);
-        if (totalSales == null || totalSales.compareTo(BigDecimal.ZERO) == 0) {
-            return 0.0;
-        }
-        
-        double daysInPeriod = 90.0;
-        double averageDailySales = totalSales.doubleValue() / daysInPeriod;
-        
-        if (averageDailySales == 0.0) {
-            return 0.0;
-        }
-        
-        return arBalance.doubleValue() / averageDailySales;
+        return metricsContextFactory.create(companyId).getDaysSalesOutstanding();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public double calculateDPO(Long companyId) {
-        // Get accounts payable balance
-        BigDecimal apBalance = accountsPayableRepository.sumTotalPayablesByCompanyId(companyId);
-        if (apBalance == null || apBalance.compareTo(BigDecimal.ZERO) == 0) {
-            return 0.0;
-        }
-        
-        // Get average daily purchases for the last 90 days
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(90);
-        
-        BigDecimal totalPurchases = invoiceRepository.sumTotalOpenPurchaseInvoicesByCompanyId(companyId);
-        if (totalPurchases == null || totalPurchases.compareTo(BigDecimal.ZERO) == 0) {
-            return 0.0;
-        }
-        
-        double daysInPeriod = 90.0;
-        double averageDailyPurchases = totalPurchases.doubleValue() / daysInPeriod;
-        
-        if (averageDailyPurchases == 0.0) {
-            return 0.0;
-        }
-        
-        return apBalance.doubleValue() / averageDailyPurchases;
+        return metricsContextFactory.create(companyId).getDaysPayablesOutstanding();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public double calculateDIO(Long companyId) {
-        // Get inventory value
-        BigDecimal inventoryValue = inventoryRepository.sumTotalInventoryValueByCompanyId(companyId);
-        if (inventoryValue == null || inventoryValue.compareTo(BigDecimal.ZERO) == 0) {
-            return 0.0;
-        }
-        
-        // Get cost of goods sold for the last 90 days
-        // For this simplified implementation, we'll use purchase invoices as a proxy for COGS
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(90);
-        
-        BigDecimal costOfGoodsSold = invoiceRepository.sumTotalOpenPurchaseInvoicesByCompanyId(companyId);
-        if (costOfGoodsSold == null || costOfGoodsSold.compareTo(BigDecimal.ZERO) == 0) {
-            return 0.0;
-        }
-        
-        double daysInPeriod = 90.0;
-        double averageDailyCOGS = costOfGoodsSold.doubleValue() / daysInPeriod;
-        
-        if (averageDailyCOGS == 0.0) {
-            return 0.0;
-        }
-        
-        return inventoryValue.doubleValue() / averageDailyCOGS;
+        return metricsContextFactory.create(companyId).getDaysInventoryOutstanding();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public double calculateCCC(Long companyId) {
-        double dso = calculateDSO(companyId);
-        double dpo = calculateDPO(companyId);
-        double dio = calculateDIO(companyId);
-        
-        return dio + dso - dpo;
+        return metricsContextFactory.create(companyId).getCashConversionCycle();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Double> calculateLiquidityRatios(Long companyId) {
-        Map<String, Double> liquidityRatios = new HashMap<>();
-        
-        // Get current assets and liabilities
-        BigDecimal cashAndEquivalents = cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId);
-        if (cashAndEquivalents == null) cashAndEquivalents = BigDecimal.ZERO;
-        
-        BigDecimal accountsReceivable = accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId);
-        if (accountsReceivable == null) accountsReceivable = BigDecimal.ZERO;
-        
-        BigDecimal inventory = inventoryRepository.sumTotalInventoryValueByCompanyId(companyId);
-        if (inventory == null) inventory = BigDecimal.ZERO;
-        
-        BigDecimal totalCurrentAssets = cashAndEquivalents.add(accountsReceivable).add(inventory);
-        
-        BigDecimal accountsPayable = accountsPayableRepository.sumTotalPayablesByCompanyId(companyId);
-        if (accountsPayable == null) accountsPayable = BigDecimal.ZERO;
-        
-        BigDecimal shortTermDebt = shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(companyId);
-        if (shortTermDebt == null) shortTermDebt = BigDecimal.ZERO;
-        
-        BigDecimal totalCurrentLiabilities = accountsPayable.add(shortTermDebt);
-        
-        // Calculate current ratio
-        if (totalCurrentLiabilities.compareTo(BigDecimal.ZERO) > 0) {
-            double currentRatio = totalCurrentAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP).doubleValue();
-            liquidityRatios.put("currentRatio", currentRatio);
-        } else {
-            liquidityRatios.put("currentRatio", 0.0);
-        }
-        
-        // Calculate quick ratio
-        if (totalCurrentLiabilities.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal quickAssets = totalCurrentAssets.subtract(inventory);
-            double quickRatio = quickAssets.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP).doubleValue();
-            liquidityRatios.put("quickRatio", quickRatio);
-        } else {
-            liquidityRatios.put("quickRatio", 0.0);
-        }
-        
-        // Calculate cash ratio
-        if (totalCurrentLiabilities.compareTo(BigDecimal.ZERO) > 0) {
-            double cashRatio = cashAndEquivalents.divide(totalCurrentLiabilities, 2, RoundingMode.HALF_UP).doubleValue();
-            liquidityRatios.put("cashRatio", cashRatio);
-        } else {
-            liquidityRatios.put("cashRatio", 0.0);
-        }
-        
-        return liquidityRatios;
+        return new HashMap<>(metricsContextFactory.create(companyId).getLiquidityRatios());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<LocalDate, WorkingCapitalMetricsDto> getHistoricalMetrics(Long companyId, LocalDate startDate, LocalDate endDate, String interval) {
-        Map<LocalDate, WorkingCapitalMetricsDto> historicalMetrics = new HashMap<>();
+        Map<LocalDate, WorkingCapitalMetricsDto> historicalMetrics = new TreeMap<>();
         
         // Determine how many data points to create based on the interval
         List<LocalDate> datesToCalculate = new ArrayList<>();
@@ -476,10 +335,18 @@ public class WorkingCapitalServiceImpl implements WorkingCapitalService {
                 throw new IllegalArgumentException("Invalid interval: " + interval + ". Valid values are DAILY, WEEKLY, MONTHLY");
         }
         
-        // Calculate metrics for each date
+        // Serve stored snapshots and reconstruct the remaining dates in one sweep over the ledgers
+        Map<LocalDate, WorkingCapitalMetricsDto> snapshots =
+                workingCapitalSnapshotService.getSnapshots(companyId, startDate, endDate);
+        List<LocalDate> missingDates = datesToCalculate.stream()
+                .filter(date -> !snapshots.containsKey(date))
+                .collect(Collectors.toList());
+        Map<LocalDate, WorkingCapitalMetricsDto> reconstructed = missingDates.isEmpty()
+                ? Collections.emptyMap()
+                : workingCapitalSnapshotService.reconstructMetrics(companyId, missingDates);
+        
         for (LocalDate date : datesToCalculate) {
-            WorkingCapitalMetricsDto metrics = calculateWorkingCapitalMetrics(companyId, date);
-            historicalMetrics.put(date, metrics);
+            historicalMetrics.put(date, snapshots.containsKey(date) ? snapshots.get(date) : reconstructed.get(date));
         }
         
         return historicalMetrics;
@@ -488,29 +355,52 @@ public class WorkingCapitalServiceImpl implements WorkingCapitalService {
     @Override
     @Transactional
     public int generateAlerts(Long companyId) {
+        MetricsContext context = metricsContextFactory.create(companyId);
         int alertsGenerated = 0;
         
-        alertsGenerated += alertService.generateCashGapAlerts(companyId);
-        alertsGenerated += alertService.generateLiquidityAlerts(companyId);
-        alertsGenerated += alertService.generateWorkingCapitalRatioAlerts(companyId);
-        alertsGenerated += alertService.generateCCCAlerts(companyId);
+        alertsGenerated += alertService.generateCashGapAlerts(context);
+        alertsGenerated += alertService.generateLiquidityAlerts(context);
+        alertsGenerated += alertService.generateWorkingCapitalRatioAlerts(context);
+        alertsGenerated += alertService.generateCCCAlerts(context);
         
         return alertsGenerated;
     }
     
+    private BigDecimal toDays(double days) {
+        return BigDecimal.valueOf(days).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Maps the rows of a top counterparties query, skipping the placeholder row of an empty ledger.
+     */
+    private List<Map<String, Object>> topCounterparties(List<CounterpartyConcentrationRow> rows) {
+        List<Map<String, Object>> counterparties = new ArrayList<>();
+        for (CounterpartyConcentrationRow row : rows) {
+            if (row.getRank() == null) {
+                continue;
+            }
+            Map<String, Object> counterpartyMap = new HashMap<>();
+            counterpartyMap.put("name", row.getName());
+            counterpartyMap.put("amount", row.getAmount());
+            counterparties.add(counterpartyMap);
+        }
+        return counterparties;
+    }
+    
     /**
-     * Generates recommendations based on the dashboard metrics.
+     * Generates recommendations based on the dashboard metrics. Cash and CCC figures
+     * come from the shared context; the current ratio is the one shown on the dashboard.
      * 
-     * @param companyId the company ID
+     * @param context the metrics context
      * @param summary the dashboard summary
      * @return a list of recommendation objects
      */
-    private List<Map<String, Object>> generateRecommendations(Long companyId, DashboardSummaryDto summary) {
+    private List<Map<String, Object>> generateRecommendations(MetricsContext context, DashboardSummaryDto summary) {
         List<Map<String, Object>> recommendations = new ArrayList<>();
         
         // Check cash balance
-        if (summary.getCashBalance().compareTo(BigDecimal.ZERO) == 0 || 
-                summary.getCashBalance().compareTo(new BigDecimal("10000")) < 0) {
+        if (context.getCashBalance().compareTo(BigDecimal.ZERO) == 0 || 
+                context.getCashBalance().compareTo(new BigDecimal("10000")) < 0) {
             Map<String, Object> recommendation = new HashMap<>();
             recommendation.put("type", "CASH_BALANCE");
             recommendation.put("title", "Improve Cash Balance");
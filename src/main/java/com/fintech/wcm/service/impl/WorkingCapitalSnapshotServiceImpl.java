@@ -0,0 +1,249 @@
+package com.fintech.wcm.service.impl;
+
+import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.model.WorkingCapitalSnapshot;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.repository.WorkingCapitalSnapshotRepository;
+import com.fintech.wcm.service.MetricsContext;
+import com.fintech.wcm.service.WorkingCapitalSnapshotService;
+import com.fintech.wcm.service.WorkingCapitalTimeSeries;
+import com.fintech.wcm.util.FinancialCalculator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Implementation of the WorkingCapitalSnapshotService interface.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkingCapitalSnapshotServiceImpl implements WorkingCapitalSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkingCapitalSnapshotServiceImpl.class);
+
+    private final CompanyRepository companyRepository;
+    private final WorkingCapitalSnapshotRepository snapshotRepository;
+    private final WorkingCapitalTimeSeries workingCapitalTimeSeries;
+    private final FinancialCalculator financialCalculator;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.scheduling.enable:true}")
+    private boolean schedulingEnabled;
+
+    @Value("${app.snapshots.catch-up-days:7}")
+    private int catchUpDays;
+
+    @Value("${app.snapshots.backfill-parallelism:4}")
+    private int backfillParallelism;
+
+    /**
+     * Nightly job that snapshots the day that just ended. Days missed by earlier runs
+     * within the catch-up window are filled in as well.
+     */
+    @Scheduled(cron = "${app.snapshots.cron:0 15 0 * * *}")
+    public void captureNightlySnapshots() {
+        if (!schedulingEnabled) {
+            return;
+        }
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        int created = backfillSnapshots(yesterday.minusDays(Math.max(0, catchUpDays - 1)), yesterday);
+        logger.info("Nightly working capital snapshot run created {} snapshots", created);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<LocalDate, WorkingCapitalMetricsDto> getSnapshots(Long companyId, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, WorkingCapitalMetricsDto> snapshots = new TreeMap<>();
+        for (WorkingCapitalSnapshot snapshot : snapshotRepository
+                .findByCompanyIdAndSnapshotDateBetweenOrderBySnapshotDateAsc(companyId, startDate, endDate)) {
+            snapshots.put(snapshot.getSnapshotDate(), toDto(companyId, snapshot));
+        }
+        return snapshots;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<LocalDate, WorkingCapitalMetricsDto> reconstructMetrics(Long companyId, Collection<LocalDate> dates) {
+        // Each date needs the date its trend is measured against, all from the same sweep
+        Set<LocalDate> sweepDates = new TreeSet<>(dates);
+        for (LocalDate date : dates) {
+            sweepDates.add(date.minusDays(TREND_LOOKBACK_DAYS));
+        }
+
+        Map<LocalDate, WorkingCapitalMetricsDto> sweep = new HashMap<>();
+        workingCapitalTimeSeries.balanceSheetsAt(companyId, sweepDates).forEach((date, balanceSheet) ->
+                sweep.put(date, MetricsContext.of(balanceSheet, date).toMetricsDto()));
+
+        Map<LocalDate, WorkingCapitalMetricsDto> metrics = new TreeMap<>();
+        for (LocalDate date : dates) {
+            WorkingCapitalMetricsDto current = sweep.get(date);
+            applyTrends(current, sweep.get(date.minusDays(TREND_LOOKBACK_DAYS)));
+            metrics.put(date, current);
+        }
+        return metrics;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<WorkingCapitalMetricsDto> findTrendBaseline(Long companyId, LocalDate date) {
+        return snapshotRepository
+                .findFirstByCompanyIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(companyId, date.minusDays(TREND_LOOKBACK_DAYS))
+                .map(snapshot -> toDto(companyId, snapshot));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void applyTrends(WorkingCapitalMetricsDto metrics) {
+        applyTrends(metrics, findTrendBaseline(metrics.getCompanyId(), metrics.getCalculationDate()).orElse(null));
+    }
+
+    @Override
+    public void applyTrends(WorkingCapitalMetricsDto current, WorkingCapitalMetricsDto previous) {
+        current.setWorkingCapitalTrend(financialCalculator.determineTrend(
+                previous != null ? previous.getNetWorkingCapital() : null, current.getNetWorkingCapital(), true));
+        current.setCashConversionCycleTrend(financialCalculator.determineTrend(
+                previous != null ? previous.getCashConversionCycle() : null, current.getCashConversionCycle(), false));
+        current.setLiquidityTrend(financialCalculator.determineTrend(
+                previous != null ? previous.getCurrentRatio() : null, current.getCurrentRatio(), true));
+    }
+
+    @Override
+    public int backfillSnapshots(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date must be before end date");
+        }
+        if (!endDate.isBefore(LocalDate.now())) {
+            throw new BadRequestException("Snapshots can only be taken for past dates");
+        }
+
+        List<Long> companyIds = companyRepository.findAllIds();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, backfillParallelism));
+
+        try {
+            Map<Long, Future<Integer>> results = new LinkedHashMap<>();
+            for (Long companyId : companyIds) {
+                results.put(companyId, executor.submit(() ->
+                        transactionTemplate.execute(status -> backfillCompany(companyId, startDate, endDate))));
+            }
+
+            int created = 0;
+            for (Map.Entry<Long, Future<Integer>> result : results.entrySet()) {
+                try {
+                    Integer count = result.getValue().get();
+                    created += count != null ? count : 0;
+                } catch (ExecutionException e) {
+                    logger.error("Snapshot backfill failed for company {}", result.getKey(), e.getCause());
+                }
+            }
+            return created;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Snapshot backfill was interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the missing snapshots of one company with a single sweep over its ledgers.
+     *
+     * @param companyId the company ID
+     * @param startDate the first date, inclusive
+     * @param endDate the last date, inclusive
+     * @return the number of snapshots created
+     */
+    private int backfillCompany(Long companyId, LocalDate startDate, LocalDate endDate) {
+        Set<LocalDate> existing = new HashSet<>(snapshotRepository.findSnapshotDates(companyId, startDate, endDate));
+        List<LocalDate> missing = startDate.datesUntil(endDate.plusDays(1))
+                .filter(date -> !existing.contains(date))
+                .toList();
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        Company company = companyRepository.getReferenceById(companyId);
+        List<WorkingCapitalSnapshot> snapshots = new ArrayList<>();
+        reconstructMetrics(companyId, missing).forEach((date, metrics) -> snapshots.add(toEntity(company, metrics)));
+        snapshotRepository.saveAll(snapshots);
+        return snapshots.size();
+    }
+
+    private WorkingCapitalMetricsDto toDto(Long companyId, WorkingCapitalSnapshot snapshot) {
+        return WorkingCapitalMetricsDto.builder()
+                .companyId(companyId)
+                .companyName(snapshot.getCompanyName())
+                .calculationDate(snapshot.getSnapshotDate())
+                .totalCurrentAssets(snapshot.getTotalCurrentAssets())
+                .cashAndEquivalents(snapshot.getCashAndEquivalents())
+                .accountsReceivable(snapshot.getAccountsReceivable())
+                .inventory(snapshot.getInventory())
+                .otherCurrentAssets(snapshot.getOtherCurrentAssets())
+                .totalCurrentLiabilities(snapshot.getTotalCurrentLiabilities())
+                .accountsPayable(snapshot.getAccountsPayable())
+                .shortTermDebt(snapshot.getShortTermDebt())
+                .otherCurrentLiabilities(snapshot.getOtherCurrentLiabilities())
+                .netWorkingCapital(snapshot.getNetWorkingCapital())
+                .currentRatio(snapshot.getCurrentRatio())
+                .quickRatio(snapshot.getQuickRatio())
+                .workingCapitalTurnover(snapshot.getWorkingCapitalTurnover())
+                .daysInventoryOutstanding(snapshot.getDaysInventoryOutstanding())
+                .daysSalesOutstanding(snapshot.getDaysSalesOutstanding())
+                .daysPayablesOutstanding(snapshot.getDaysPayablesOutstanding())
+                .cashConversionCycle(snapshot.getCashConversionCycle())
+                .cashRatio(snapshot.getCashRatio())
+                .operatingCashFlow(snapshot.getOperatingCashFlow())
+                .operatingCashFlowRatio(snapshot.getOperatingCashFlowRatio())
+                .workingCapitalTrend(snapshot.getWorkingCapitalTrend())
+                .cashConversionCycleTrend(snapshot.getCashConversionCycleTrend())
+                .liquidityTrend(snapshot.getLiquidityTrend())
+                .build();
+    }
+
+    private WorkingCapitalSnapshot toEntity(Company company, WorkingCapitalMetricsDto metrics) {
+        WorkingCapitalSnapshot snapshot = new WorkingCapitalSnapshot();
+        snapshot.setCompany(company);
+        snapshot.setSnapshotDate(metrics.getCalculationDate());
+        snapshot.setCompanyName(metrics.getCompanyName());
+        snapshot.setTotalCurrentAssets(metrics.getTotalCurrentAssets());
+        snapshot.setCashAndEquivalents(metrics.getCashAndEquivalents());
+        snapshot.setAccountsReceivable(metrics.getAccountsReceivable());
+        snapshot.setInventory(metrics.getInventory());
+        snapshot.setOtherCurrentAssets(metrics.getOtherCurrentAssets());
+        snapshot.setTotalCurrentLiabilities(metrics.getTotalCurrentLiabilities());
+        snapshot.setAccountsPayable(metrics.getAccountsPayable());
+        snapshot.setShortTermDebt(metrics.getShortTermDebt());
+        snapshot.setOtherCurrentLiabilities(metrics.getOtherCurrentLiabilities());
+        snapshot.setNetWorkingCapital(metrics.getNetWorkingCapital());
+        snapshot.setCurrentRatio(metrics.getCurrentRatio());
+        snapshot.setQuickRatio(metrics.getQuickRatio());
+        snapshot.setWorkingCapitalTurnover(metrics.getWorkingCapitalTurnover());
+        snapshot.setDaysInventoryOutstanding(metrics.getDaysInventoryOutstanding());
+        snapshot.setDaysSalesOutstanding(metrics.getDaysSalesOutstanding());
+        snapshot.setDaysPayablesOutstanding(metrics.getDaysPayablesOutstanding());
+        snapshot.setCashConversionCycle(metrics.getCashConversionCycle());
+        snapshot.setCashRatio(metrics.getCashRatio());
+        snapshot.setOperatingCashFlow(metrics.getOperatingCashFlow());
+        snapshot.setOperatingCashFlowRatio(metrics.getOperatingCashFlowRatio());
+        snapshot.setWorkingCapitalTrend(metrics.getWorkingCapitalTrend());
+        snapshot.setCashConversionCycleTrend(metrics.getCashConversionCycleTrend());
+        snapshot.setLiquidityTrend(metrics.getLiquidityTrend());
+        return snapshot;
+    }
+}
@@ -0,0 +1,98 @@
+package com.fintech.wcm.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The column names of a CSV file, for binding the columns an import reads to their positions
+ * once per file rather than looking each one up by name in every record.
+ */
+public final class CsvHeader {
+
+    private final String[] names;
+    private final Map<String, Integer> columns;
+
+    private CsvHeader(String[] names) {
+        this.names = names;
+        this.columns = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            // A repeated name is bound to its last column, as the CSV parser binds it
+            columns.put(names[i], i);
+        }
+    }
+
+    public static CsvHeader of(String... names) {
+        return new CsvHeader(names.clone());
+    }
+
+    public static CsvHeader of(List<String> names) {
+        return new CsvHeader(names.toArray(new String[0]));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int column) {
+        return names[column];
+    }
+
+    public String[] names() {
+        return names.clone();
+    }
+
+    /**
+     * @param name the name of a column
+     * @return the position of the column, or -1 if the file has none of that name
+     */
+    public int indexOf(String name) {
+        Integer column = columns.get(name);
+        return column == null ? -1 : column;
+    }
+
+    /**
+     * @param names the names of the columns a mapping requires
+     * @return the first of them the file has no column of, or null if it has all of them
+     */
+    public String firstMissing(String... names) {
+        for (String name : names) {
+            if (!columns.containsKey(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether every column has a name of its own, so reading by position and by name agree
+     */
+    public boolean isDistinct() {
+        Set<String> seen = new HashSet<>(names.length * 2);
+        for (String name : names) {
+            if (name == null || name.isBlank() || !seen.add(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the exception for reading a column a record of the given size has no value in
+     */
+    IllegalArgumentException valueMissing(int column, int size) {
+        if (column < 0 || column >= names.length) {
+            return new IllegalArgumentException("No column " + column + " in header " + this);
+        }
+        return new IllegalArgumentException(String.format("Index for header '%s' is %d but the record only has %d values",
+                names[column], column, size));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+}
@@ -0,0 +1,146 @@
+package com.fintech.wcm.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens CSV input streamed from a client: decompresses it and decodes it in an explicit
+ * charset, without buffering more than a read buffer of it.
+ */
+public final class CsvInputs {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int[] GZIP_MAGIC = {0x1F, 0x8B};
+    private static final int[] ZSTD_MAGIC = {0x28, 0xB5, 0x2F, 0xFD};
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private CsvInputs() {
+    }
+
+    /**
+     * The compressions a CSV stream can be sent in.
+     */
+    public enum Compression {
+        NONE,
+        GZIP,
+        ZSTD;
+
+        /**
+         * @param contentEncoding the Content-Encoding of the request, or null
+         * @return the compression it names, or null if it names none
+         * @throws IllegalArgumentException if it names an unsupported compression
+         */
+        static Compression fromContentEncoding(String contentEncoding) {
+            if (contentEncoding == null || contentEncoding.isBlank()) {
+                return null;
+            }
+            return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+                case "identity" -> NONE;
+                case "gzip", "x-gzip" -> GZIP;
+                case "zstd" -> ZSTD;
+                default -> throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+            };
+        }
+    }
+
+    /**
+     * Decompress a stream as its Content-Encoding says, or, if it has none, as its first
+     * bytes show.
+     *
+     * @param input the raw stream
+     * @param contentEncoding the Content-Encoding of the request, or null
+     * @return the decompressed stream
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the content encoding is not supported
+     */
+    public static InputStream decompress(InputStream input, String contentEncoding) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input, BUFFER_SIZE);
+        Compression compression = Compression.fromContentEncoding(contentEncoding);
+        if (compression == null) {
+            compression = detect(buffered);
+        }
+        return switch (compression) {
+            case NONE -> buffered;
+            case GZIP -> new GZIPInputStream(buffered, BUFFER_SIZE);
+            case ZSTD -> new BufferedInputStream(new ZstdInputStream(buffered), BUFFER_SIZE);
+        };
+    }
+
+    /**
+     * @return the compression whose magic number the stream starts with; the stream is not consumed
+     */
+    static Compression detect(BufferedInputStream input) throws IOException {
+        input.mark(ZSTD_MAGIC.length);
+        int[] head = new int[ZSTD_MAGIC.length];
+        int length = 0;
+        int b;
+        while (length < head.length && (b = input.read()) >= 0) {
+            head[length++] = b;
+        }
+        input.reset();
+        if (startsWith(head, length, ZSTD_MAGIC)) {
+            return Compression.ZSTD;
+        }
+        if (startsWith(head, length, GZIP_MAGIC)) {
+            return Compression.GZIP;
+        }
+        return Compression.NONE;
+    }
+
+    /**
+     * Decode a stream in a charset, dropping a byte order mark at its start so it does not
+     * end up in the first header name.
+     *
+     * @param input the decompressed stream
+     * @param charset the charset of the CSV
+     * @return the reader
+     * @throws IOException if the stream cannot be read
+     */
+    public static Reader reader(InputStream input, Charset charset) throws IOException {
+        PushbackReader reader = new PushbackReader(new BufferedReader(new InputStreamReader(input, charset), BUFFER_SIZE));
+        int first = reader.read();
+        if (first >= 0 && first != BYTE_ORDER_MARK) {
+            reader.unread(first);
+        }
+        return reader;
+    }
+
+    /**
+     * @param name the name of a charset
+     * @return the charset
+     * @throws IllegalArgumentException if there is no such charset
+     */
+    public static Charset charset(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new IllegalArgumentException("Unsupported charset: " + name);
+        }
+    }
+
+    private static boolean startsWith(int[] head, int length, int[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
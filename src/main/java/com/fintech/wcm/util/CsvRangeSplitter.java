@@ -0,0 +1,235 @@
+package com.fintech.wcm.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CSV file into byte ranges that start and end on record boundaries, so each range
+ * can be parsed on its own.
+ *
+ * A single pass over the bytes tracks whether the position is inside a quoted field the way
+ * the CSV parser does, so a newline inside quotes never ends a range. Empty lines are not
+ * counted as records, matching the parser, which skips them; each range therefore knows the
+ * file-wide number of its first record. Line endings must be LF or CRLF, and the encoding
+ * must be one in which a newline byte never occurs inside a multi-byte character, such as
+ * UTF-8 or any single-byte encoding.
+ */
+public final class CsvRangeSplitter {
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private CsvRangeSplitter() {
+    }
+
+    /**
+     * A byte range of the file holding whole records.
+     *
+     * @param start the offset of the first byte
+     * @param end the offset after the last byte
+     * @param firstRecordNumber the 1-based number of the first record after the header
+     * @param recordCount the number of non-empty records in the range
+     */
+    public record Range(long start, long end, long firstRecordNumber, long recordCount) {
+
+        public long length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * The header of a file and the ranges of the records after it.
+     *
+     * @param headerEnd the offset after the header record, or 0 if the file has no complete header
+     * @param ranges the ranges, in file order
+     */
+    public record Layout(long headerEnd, List<Range> ranges) {
+
+        public long recordCount() {
+            return ranges.stream().mapToLong(Range::recordCount).sum();
+        }
+    }
+
+    /**
+     * Split a file with a header record into ranges of about the target size. A range only
+     * grows past the target to finish its last record.
+     *
+     * @param file the CSV file
+     * @param targetSize the target size of a range in bytes
+     * @return the layout of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static Layout split(Path file, long targetSize) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return split(input, targetSize);
+        }
+    }
+
+    /**
+     * Split the part of a file from a record boundary on, such as where an earlier import
+     * stopped. Only the header and the bytes from the boundary on are read.
+     *
+     * @param file the CSV file
+     * @param start the offset of the boundary, after the header
+     * @param firstRecordNumber the number of the first record after the boundary
+     * @param targetSize the target size of a range in bytes
+     * @return the layout of the rest of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static Layout split(Path file, long start, long firstRecordNumber, long targetSize) throws IOException {
+        if (start <= 0) {
+            return split(file, targetSize);
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            long headerEnd = headerEnd(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            if (headerEnd <= 0 || start < headerEnd) {
+                throw new IOException("Offset " + start + " is not after the header of " + file.getFileName());
+            }
+            channel.position(start);
+            List<Range> ranges = scan(Channels.newInputStream(channel), start, firstRecordNumber, targetSize);
+            return new Layout(headerEnd, ranges);
+        }
+    }
+
+    static Layout split(InputStream input, long targetSize) throws IOException {
+        InputStream buffered = new BufferedInputStream(input, BUFFER_SIZE);
+        long headerEnd = headerEnd(buffered);
+        if (headerEnd <= 0) {
+            return new Layout(0, List.of());
+        }
+        // The stream is now right after the header
+        return new Layout(headerEnd, scan(buffered, headerEnd, 1, targetSize));
+    }
+
+    /**
+     * @return the offset after the first non-empty record, or 0 if there is none
+     */
+    private static long headerEnd(InputStream input) throws IOException {
+        RecordScanner scanner = new RecordScanner();
+        long position = 0;
+        int b;
+        while ((b = input.read()) >= 0) {
+            position++;
+            if (scanner.next(b)) {
+                return position;
+            }
+        }
+        return 0;
+    }
+
+    private static List<Range> scan(InputStream input, long start, long firstRecordNumber, long targetSize)
+            throws IOException {
+        List<Range> ranges = new ArrayList<>();
+        RecordScanner scanner = new RecordScanner();
+        long position = start;
+        long rangeStart = start;
+        long rangeFirstRecord = firstRecordNumber;
+        long rangeRecords = 0;
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                position++;
+                if (!scanner.next(buffer[i])) {
+                    continue;
+                }
+                rangeRecords++;
+                if (position - rangeStart >= targetSize) {
+                    ranges.add(new Range(rangeStart, position, rangeFirstRecord, rangeRecords));
+                    rangeStart = position;
+                    rangeFirstRecord += rangeRecords;
+                    rangeRecords = 0;
+                }
+            }
+        }
+
+        if (scanner.inRecord()) {
+            // The last record has no line break
+            rangeRecords++;
+        }
+        if (rangeRecords > 0) {
+            ranges.add(new Range(rangeStart, position, rangeFirstRecord, rangeRecords));
+        }
+        return ranges;
+    }
+
+    /**
+     * Follows the bytes of a file the way the CSV parser reads it, to tell where records end.
+     */
+    private static final class RecordScanner {
+
+        private int state = FIELD_START;
+        private boolean recordHasContent;
+
+        /**
+         * @return whether the byte ends a non-empty record
+         */
+        boolean next(int b) {
+            boolean lineEnd = false;
+            switch (state) {
+                case FIELD_START -> {
+                    if (b == '"') {
+                        state = QUOTED;
+                    } else if (b == '\n') {
+                        lineEnd = true;
+                    } else if (b != ',') {
+                        state = UNQUOTED;
+                    }
+                }
+                case UNQUOTED -> {
+                    if (b == ',') {
+                        state = FIELD_START;
+                    } else if (b == '\n') {
+                        lineEnd = true;
+                    }
+                }
+                case QUOTED -> {
+                    if (b == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    }
+                }
+                default -> {
+                    if (b == '"') {
+                        state = QUOTED;
+                    } else if (b == ',') {
+                        state = FIELD_START;
+                    } else if (b == '\n') {
+                        lineEnd = true;
+                    } else {
+                        state = UNQUOTED;
+                    }
+                }
+            }
+            if (!lineEnd) {
+                if (b != '\r') {
+                    recordHasContent = true;
+                }
+                return false;
+            }
+
+            state = FIELD_START;
+            boolean recordEnd = recordHasContent;
+            recordHasContent = false;
+            return recordEnd;
+        }
+
+        /**
+         * @return whether the bytes so far end inside a non-empty record
+         */
+        boolean inRecord() {
+            return recordHasContent;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.fintech.wcm.util;
+
+import org.apache.commons.csv.CSVRecord;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A record of the CSV parser read by column position, for files the {@link CsvRowDecoder}
+ * does not read.
+ */
+public final class CsvRecordRow implements CsvRow {
+
+    private final CSVRecord record;
+    private final CsvHeader header;
+
+    public CsvRecordRow(CSVRecord record, CsvHeader header) {
+        this.record = record;
+        this.header = header;
+    }
+
+    @Override
+    public int size() {
+        return record.size();
+    }
+
+    @Override
+    public String get(int column) {
+        if (column < 0 || column >= record.size()) {
+            throw header.valueMissing(column, record.size());
+        }
+        return record.get(column);
+    }
+
+    @Override
+    public boolean isEmpty(int column) {
+        return get(column).isEmpty();
+    }
+
+    @Override
+    public boolean isBlank(int column) {
+        return get(column).trim().isEmpty();
+    }
+
+    @Override
+    public BigDecimal getDecimal(int column) {
+        return new BigDecimal(get(column));
+    }
+
+    @Override
+    public int getInt(int column) {
+        return Integer.parseInt(get(column));
+    }
+
+    @Override
+    public long getLong(int column) {
+        return Long.parseLong(get(column));
+    }
+
+    @Override
+    public LocalDate getDate(int column) {
+        return LocalDate.parse(get(column), DATE_FORMATTER);
+    }
+
+    @Override
+    public <E extends Enum<E>> E getEnum(int column, E[] constants) {
+        String value = get(column);
+        for (E constant : constants) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.fintech.wcm.util;
+
+import org.apache.commons.csv.CSVFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A CSV record read by column position, with its fields parsed into the types the imports
+ * need. Positions come from a {@link CsvHeader} bound once per file.
+ *
+ * Every accessor throws an IllegalArgumentException for a column past the last value of
+ * the record.
+ */
+public interface CsvRow {
+
+    DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * @return the number of values in the record
+     */
+    int size();
+
+    /**
+     * @param column the position of the column
+     * @return the value as it appears in the file
+     */
+    String get(int column);
+
+    /**
+     * @param column the position of the column
+     * @return whether the value is empty
+     */
+    boolean isEmpty(int column);
+
+    /**
+     * @param column the position of the column
+     * @return whether the value is empty or only whitespace
+     */
+    boolean isBlank(int column);
+
+    /**
+     * @param column the position of the column
+     * @return the value as a decimal, as {@link BigDecimal#BigDecimal(String)} reads it
+     * @throws NumberFormatException if it is not a decimal
+     */
+    BigDecimal getDecimal(int column);
+
+    /**
+     * @param column the position of the column
+     * @return the value as an int, as {@link Integer#parseInt(String)} reads it
+     * @throws NumberFormatException if it is not an int
+     */
+    int getInt(int column);
+
+    /**
+     * @param column the position of the column
+     * @return the value as a long, as {@link Long#parseLong(String)} reads it
+     * @throws NumberFormatException if it is not a long
+     */
+    long getLong(int column);
+
+    /**
+     * @param column the position of the column
+     * @return the value as a date in {@link #DATE_FORMATTER}'s format
+     * @throws java.time.format.DateTimeParseException if it is not such a date
+     */
+    LocalDate getDate(int column);
+
+    /**
+     * @param column the position of the column
+     * @param constants the constants of the enum
+     * @return the constant named by the value, ignoring case, or null if none is
+     */
+    <E extends Enum<E>> E getEnum(int column, E[] constants);
+
+    /**
+     * @return the values of the record as a CSV line, quoted where needed; the original
+     *         line may have quoted more of them
+     */
+    default String toLine() {
+        Object[] values = new Object[size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = get(i);
+        }
+        return CSVFormat.DEFAULT.format(values);
+    }
+}
@@ -0,0 +1,408 @@
+package com.fintech.wcm.util;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+
+/**
+ * Decodes CSV records into one reused char buffer and reads their fields by position, without
+ * a String or a record object per field.
+ *
+ * The decoder reads the default format of the CSV parser: comma-separated fields, fields in
+ * double quotes with doubled quotes inside them, LF, CR or CRLF line endings, and empty lines
+ * skipped. It is itself the {@link CsvRow} of the current record, which the next call to
+ * {@link #next()} replaces, so a row must be mapped before the next one is read. Decimals,
+ * whole numbers, ISO dates and enum constants are parsed straight from the buffer; values in
+ * a form the fast paths do not cover are parsed from a String the way {@link CsvRecordRow}
+ * parses them, so both read a file alike.
+ */
+public final class CsvRowDecoder implements CsvRow {
+
+    private static final int INITIAL_BUFFER_SIZE = 1 << 13;
+    private static final int INITIAL_FIELDS = 16;
+
+    /** Digits of a long that cannot overflow */
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_INT_DIGITS = 9;
+    private static final long NOT_FAST = Long.MIN_VALUE;
+
+    private final Reader reader;
+    private CsvHeader header;
+
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    /** Chars of the input dropped from the front of the buffer */
+    private long discarded;
+
+    private int recordStart;
+    private int fieldStart;
+    private int write;
+    private int[] starts = new int[INITIAL_FIELDS];
+    private int[] ends = new int[INITIAL_FIELDS];
+    private int fieldCount;
+    private long recordNumber;
+
+    /**
+     * Decode CSV whose first record is its header, to be read with {@link #readHeader()}.
+     */
+    public CsvRowDecoder(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Decode records of a file whose header was read elsewhere.
+     */
+    public CsvRowDecoder(Reader reader, CsvHeader header) {
+        this.reader = reader;
+        this.header = header;
+    }
+
+    /**
+     * Read the first record as the header.
+     *
+     * @return the header, with no columns if the input is empty
+     * @throws IOException if the input cannot be read or is not valid CSV
+     */
+    public CsvHeader readHeader() throws IOException {
+        String[] names = new String[0];
+        if (next()) {
+            names = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                names[i] = new String(buffer, starts[i], ends[i] - starts[i]);
+            }
+        }
+        header = CsvHeader.of(names);
+        return header;
+    }
+
+    /**
+     * Decode the next record into the buffer.
+     *
+     * @return whether there was another record
+     * @throws IOException if the input cannot be read or is not valid CSV
+     */
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        int c;
+        do {
+            recordStart = position;
+            c = read();
+            if (c == '\r') {
+                skipLineFeed();
+            }
+        } while (c == '\n' || c == '\r');
+        if (c < 0) {
+            return false;
+        }
+        recordNumber++;
+
+        while (true) {
+            c = c == '"' ? readQuoted() : readUnquoted(c);
+            if (c != ',') {
+                if (c == '\r') {
+                    skipLineFeed();
+                }
+                return true;
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * @return the number of chars of the input up to the end of the current record, line ending included
+     */
+    public long position() {
+        return discarded + position;
+    }
+
+    /**
+     * @return the input from the first char not decoded yet, for another parser to carry on with
+     * @throws IOException if the buffered chars cannot be handed back
+     */
+    public Reader remainder() throws IOException {
+        int buffered = limit - position;
+        if (buffered == 0) {
+            return reader;
+        }
+        PushbackReader pushback = new PushbackReader(reader, buffered);
+        pushback.unread(buffer, position, buffered);
+        return pushback;
+    }
+
+    /**
+     * Reads an unquoted field whose first char was read.
+     *
+     * @return the char that ended it: a comma, a line ending or -1
+     */
+    private int readUnquoted(int c) throws IOException {
+        fieldStart = c < 0 ? position : position - 1;
+        while (c != ',' && c != '\n' && c != '\r' && c >= 0) {
+            c = read();
+        }
+        addField(fieldStart, c < 0 ? position : position - 1);
+        return c;
+    }
+
+    /**
+     * Reads a quoted field after its opening quote, unescaping doubled quotes in place.
+     *
+     * @return the char that ended it: a comma, a line ending or -1
+     */
+    private int readQuoted() throws IOException {
+        fieldStart = position;
+        write = position;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw new IOException("(record " + recordNumber + ") EOF reached before encapsulated token finished");
+            }
+            if (c != '"') {
+                buffer[write++] = (char) c;
+                continue;
+            }
+
+            c = read();
+            if (c == '"') {
+                buffer[write++] = '"';
+                continue;
+            }
+            addField(fieldStart, write);
+            // Like the CSV parser, allow whitespace between the closing quote and the delimiter
+            while (c != ',' && c != '\n' && c != '\r' && c >= 0) {
+                if (!Character.isWhitespace(c)) {
+                    throw new IOException("(record " + recordNumber + ") invalid char between encapsulated token and delimiter");
+                }
+                c = read();
+            }
+            return c;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private void skipLineFeed() throws IOException {
+        if ((position < limit || fill()) && buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    /**
+     * Reads more input into the buffer. The current record stays in it: the buffer is
+     * compacted to start at the record, or grown if the record fills it.
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        if (limit == buffer.length) {
+            if (recordStart > 0) {
+                shift(recordStart);
+            } else {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private void shift(int distance) {
+        System.arraycopy(buffer, distance, buffer, 0, limit - distance);
+        position -= distance;
+        limit -= distance;
+        discarded += distance;
+        recordStart -= distance;
+        fieldStart -= distance;
+        write -= distance;
+        for (int i = 0; i < fieldCount; i++) {
+            starts[i] -= distance;
+            ends[i] -= distance;
+        }
+    }
+
+    private int start(int column) {
+        if (column < 0 || column >= fieldCount) {
+            throw header != null ? header.valueMissing(column, fieldCount)
+                    : new IllegalArgumentException("No value " + column + " in a record of " + fieldCount + " values");
+        }
+        return starts[column];
+    }
+
+    @Override
+    public int size() {
+        return fieldCount;
+    }
+
+    @Override
+    public String get(int column) {
+        int start = start(column);
+        return new String(buffer, start, ends[column] - start);
+    }
+
+    @Override
+    public boolean isEmpty(int column) {
+        return start(column) == ends[column];
+    }
+
+    @Override
+    public boolean isBlank(int column) {
+        // Blank as String.trim() sees it
+        for (int i = start(column); i < ends[column]; i++) {
+            if (buffer[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public BigDecimal getDecimal(int column) {
+        int start = start(column);
+        int end = ends[column];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        // Plain decimals that fit a long become an unscaled value and a scale
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char ch = buffer[i];
+            if (ch >= '0' && ch <= '9') {
+                unscaled = unscaled * 10 + (ch - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (ch == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return new BigDecimal(buffer, start, end - start);
+            }
+        }
+        if (digits == 0 || digits > MAX_LONG_DIGITS) {
+            return new BigDecimal(buffer, start, end - start);
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    @Override
+    public int getInt(int column) {
+        long value = wholeNumber(column, MAX_INT_DIGITS);
+        return value != NOT_FAST ? (int) value : Integer.parseInt(get(column));
+    }
+
+    @Override
+    public long getLong(int column) {
+        long value = wholeNumber(column, MAX_LONG_DIGITS);
+        return value != NOT_FAST ? value : Long.parseLong(get(column));
+    }
+
+    /**
+     * @return the value as a signed whole number of at most the given digits, or NOT_FAST
+     */
+    private long wholeNumber(int column, int maxDigits) {
+        int start = start(column);
+        int end = ends[column];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > maxDigits) {
+            return NOT_FAST;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_FAST;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    @Override
+    public LocalDate getDate(int column) {
+        int start = start(column);
+        if (ends[column] - start == 10 && buffer[start + 4] == '-' && buffer[start + 7] == '-') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                // Like the formatter, read a day past the end of the month as its last day
+                return LocalDate.of(year, month, Math.min(day, Month.of(month).length(Year.isLeap(year))));
+            }
+        }
+        return LocalDate.parse(get(column), DATE_FORMATTER);
+    }
+
+    /**
+     * @return the value of the ASCII digits, or -1 if any of the chars is not one
+     */
+    private int digits(int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    @Override
+    public <E extends Enum<E>> E getEnum(int column, E[] constants) {
+        int start = start(column);
+        int length = ends[column] - start;
+        for (E constant : constants) {
+            String name = constant.name();
+            if (name.length() == length && matchesIgnoreCase(name, start)) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    private boolean matchesIgnoreCase(String name, int start) {
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.toUpperCase(buffer[start + i]) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -15,6 +15,7 @@ public class FinancialCalculator {
 
     private static final int DEFAULT_SCALE = 2;
     private static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_UP;
+    private static final BigDecimal TREND_TOLERANCE = new BigDecimal("0.02");
 
     /**
      * Calculate net working capital.
@@ -207,4 +208,27 @@ public class FinancialCalculator {
         
         return fixedCosts.divide(contributionMargin, DEFAULT_SCALE, DEFAULT_ROUNDING_MODE);
     }
+
+    /**
+     * Classify the movement of a metric between two periods. Changes within 2% of the
+     * previous value count as stable.
+     * 
+     * @param previousValue the value in the earlier period
+     * @param currentValue the value in the current period
+     * @param higherIsBetter whether an increase is an improvement
+     * @return IMPROVING, STABLE or DETERIORATING; STABLE if either value is missing
+     */
+    public String determineTrend(BigDecimal previousValue, BigDecimal currentValue, boolean higherIsBetter) {
+        if (previousValue == null || currentValue == null) {
+            return "STABLE";
+        }
+        
+        BigDecimal change = currentValue.subtract(previousValue);
+        if (change.abs().compareTo(previousValue.abs().multiply(TREND_TOLERANCE)) <= 0) {
+            return "STABLE";
+        }
+        
+        boolean increased = change.signum() > 0;
+        return increased == higherIsBetter ? "IMPROVING" : "DETERIORATING";
+    }
 }
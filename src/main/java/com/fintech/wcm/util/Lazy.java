@@ -0,0 +1,72 @@
+package com.fintech.wcm.util;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe holder for a value that is computed on first access and at most once.
+ * A lock rather than a monitor guards the computation, so a supplier that blocks on I/O
+ * does not pin the carrier when it runs on a virtual thread.
+ *
+ * @param <T> the value type
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Supplier<? extends T> supplier;
+    private volatile boolean computed;
+    private T value;
+
+    private Lazy(Supplier<? extends T> supplier) {
+        this.supplier = Objects.requireNonNull(supplier, "supplier");
+    }
+
+    /**
+     * Create a lazy value backed by the given supplier.
+     *
+     * @param supplier the supplier invoked on first access
+     * @param <T> the value type
+     * @return the lazy value
+     */
+    public static <T> Lazy<T> of(Supplier<? extends T> supplier) {
+        return new Lazy<>(supplier);
+    }
+
+    /**
+     * Create an already computed lazy value.
+     *
+     * @param value the value
+     * @param <T> the value type
+     * @return the lazy value
+     */
+    public static <T> Lazy<T> value(T value) {
+        Lazy<T> lazy = new Lazy<>(() -> value);
+        lazy.get();
+        return lazy;
+    }
+
+    @Override
+    public T get() {
+        if (!computed) {
+            lock.lock();
+            try {
+                if (!computed) {
+                    value = supplier.get();
+                    computed = true;
+                    supplier = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return true if the value has already been computed
+     */
+    public boolean isComputed() {
+        return computed;
+    }
+}
@@ -0,0 +1,91 @@
+package com.fintech.wcm.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe limiter that spaces out calls to an external API to a rate, allowing a burst of
+ * calls after a quiet spell. Each caller reserves the next free slot under a lock and sleeps
+ * outside it, so callers on virtual threads wait without pinning their carrier.
+ */
+public final class RateLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongSupplier nanoTime;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private long nextFree;
+
+    RateLimiter(int permitsPerMinute, int burst, LongSupplier nanoTime) {
+        if (permitsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.nanoTime = nanoTime;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+        this.burstNanos = (burst - 1) * intervalNanos;
+        this.nextFree = nanoTime.getAsLong() - burstNanos;
+    }
+
+    /**
+     * Create a limiter.
+     *
+     * @param permitsPerMinute the calls allowed per minute on average
+     * @param burst the calls allowed at once after a quiet spell
+     * @return the limiter
+     */
+    public static RateLimiter perMinute(int permitsPerMinute, int burst) {
+        return new RateLimiter(permitsPerMinute, burst, System::nanoTime);
+    }
+
+    /**
+     * Wait until a call is allowed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Hold back every call for a while, such as when the API asks to retry later.
+     *
+     * @param pause how long to wait before the next call
+     */
+    public void pause(Duration pause) {
+        lock.lock();
+        try {
+            long resume = nanoTime.getAsLong() + pause.toNanos();
+            if (resume - nextFree > 0) {
+                nextFree = resume;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserve the next free slot.
+     *
+     * @return how long to wait for it, in nanoseconds
+     */
+    long reserve() {
+        lock.lock();
+        try {
+            long now = nanoTime.getAsLong();
+            // Slots unused while idle accrue up to the burst
+            if (now - burstNanos - nextFree > 0) {
+                nextFree = now - burstNanos;
+            }
+            long wait = nextFree - now;
+            nextFree += intervalNanos;
+            return wait;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.fintech.wcm.util;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache whose entries are tagged with the data version they were computed from.
+ *
+ * An entry is only served for the version it was stored under, so bumping a version
+ * invalidates it. Within the time to live an entry is fresh. For a further stale window it
+ * is still served, but a single background refresh is started for it. After that it is
+ * recomputed on the caller's thread. The least recently used entry is evicted once the
+ * cache is full.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class VersionedCache<K, V> {
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final long staleWindowNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoTime;
+
+    private final Map<K, Entry<V>> entries;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    /**
+     * Create a cache.
+     *
+     * @param maximumSize the number of entries above which the least recently used is evicted
+     * @param timeToLive how long an entry is fresh
+     * @param staleWindow how long after that an entry is still served while it is refreshed
+     * @param refreshExecutor runs background refreshes
+     */
+    public VersionedCache(int maximumSize, Duration timeToLive, Duration staleWindow, Executor refreshExecutor) {
+        this(maximumSize, timeToLive, staleWindow, refreshExecutor, System::nanoTime);
+    }
+
+    VersionedCache(int maximumSize, Duration timeToLive, Duration staleWindow, Executor refreshExecutor,
+                   LongSupplier nanoTime) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.staleWindowNanos = staleWindow.toNanos();
+        this.refreshExecutor = Objects.requireNonNull(refreshExecutor, "refreshExecutor");
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > VersionedCache.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the value of a key for the current data version, computing it if needed.
+     *
+     * @param key the key
+     * @param version the current data version of the key, read before calling
+     * @param loader computes the value
+     * @return the value
+     */
+    public V get(K key, long version, Supplier<V> loader) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null && entry.version() == version) {
+            long age = nanoTime.getAsLong() - entry.loadedAt();
+            if (age < timeToLiveNanos) {
+                hits.increment();
+                return entry.value();
+            }
+            if (age < timeToLiveNanos + staleWindowNanos) {
+                staleHits.increment();
+                refreshAsync(key, version, loader);
+                return entry.value();
+            }
+        }
+
+        misses.increment();
+        V value = loader.get();
+        put(key, version, value);
+        return value;
+    }
+
+    /**
+     * Remove the entry of a key.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * @return a snapshot of the cache counters
+     */
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(size, hits.sum(), staleHits.sum(), misses.sum(), evictions.sum(),
+                refreshes.sum(), refreshFailures.sum());
+    }
+
+    private void refreshAsync(K key, long version, Supplier<V> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, version, loader.get());
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    // The stale entry stays until it leaves the window; the next miss reports the error
+                    refreshFailures.increment();
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            refreshFailures.increment();
+        }
+    }
+
+    private void put(K key, long version, V value) {
+        Entry<V> entry = new Entry<>(value, version, nanoTime.getAsLong());
+        synchronized (entries) {
+            Entry<V> existing = entries.get(key);
+            // Never replace a value computed from newer data
+            if (existing == null || existing.version() <= version) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long version, long loadedAt) {
+    }
+
+    /**
+     * Counters of a cache since it was created.
+     */
+    @Value
+    public static class Stats {
+        int size;
+        long hits;
+        long staleHits;
+        long misses;
+        long evictions;
+        long refreshes;
+        long refreshFailures;
+    }
+}
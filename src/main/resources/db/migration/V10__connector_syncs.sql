@@ -0,0 +1,26 @@
+-- Create connector_connections table: the accounting system a company syncs from, with the
+-- credentials scheduled syncs call it with
+CREATE TABLE IF NOT EXISTS connector_connections (
+    id BIGSERIAL PRIMARY KEY,
+    company_id BIGINT NOT NULL REFERENCES companies(id),
+    source_type VARCHAR(30) NOT NULL,
+    tenant_id VARCHAR(100) NOT NULL,
+    access_token TEXT NOT NULL,
+    refresh_token TEXT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_connector_connections_company_source UNIQUE (company_id, source_type)
+);
+
+-- Create sync_cursors table: per company, source and feed, the last-modified time of the newest
+-- record synced, from which the next sync asks for changes
+CREATE TABLE IF NOT EXISTS sync_cursors (
+    id BIGSERIAL PRIMARY KEY,
+    company_id BIGINT NOT NULL REFERENCES companies(id),
+    source_type VARCHAR(30) NOT NULL,
+    feed VARCHAR(50) NOT NULL,
+    watermark TIMESTAMP,
+    last_synced_at TIMESTAMP,
+    records_synced BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_sync_cursors_company_source_feed UNIQUE (company_id, source_type, feed)
+);
@@ -0,0 +1,11 @@
+-- Cash accounts are matched on their account number by deduplicating imports, such as the
+-- cash accounts of an import bundle uploaded again; accounts without a number never match.
+-- As with the other ledgers, a table that already repeats numbers keeps working without it.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM cash_accounts GROUP BY company_id, account_number HAVING COUNT(*) > 1 AND account_number IS NOT NULL) THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_cash_accounts_natural_key ON cash_accounts (company_id, account_number);
+    ELSE
+        RAISE WARNING 'cash_accounts holds duplicate account numbers; uk_cash_accounts_natural_key not created';
+    END IF;
+END $$;
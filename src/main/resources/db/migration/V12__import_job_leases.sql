@@ -0,0 +1,9 @@
+-- Background import jobs are shared by every node of the cluster. The node that accepted or
+-- resumed a job holds a lease on it while it is queued or running; a job whose lease runs out
+-- because its node died is claimed by another node with FOR UPDATE SKIP LOCKED. Cancellation
+-- is requested through the table, so any node can cancel a job the node running it picks up.
+ALTER TABLE import_jobs ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(100);
+ALTER TABLE import_jobs ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+ALTER TABLE import_jobs ADD COLUMN IF NOT EXISTS cancel_requested BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_import_jobs_unfinished ON import_jobs (created_at) WHERE status IN ('QUEUED', 'RUNNING');
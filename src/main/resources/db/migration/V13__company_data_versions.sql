@@ -0,0 +1,6 @@
+-- Create company_data_versions table: the version cached read models of a company are keyed
+-- on, bumped in the transaction that changes the company's data so every node sees it at once
+CREATE TABLE IF NOT EXISTS company_data_versions (
+    company_id BIGINT PRIMARY KEY REFERENCES companies(id),
+    version BIGINT NOT NULL DEFAULT 0
+);
@@ -0,0 +1,34 @@
+-- Create working_capital_snapshots table: one row per company per day
+CREATE TABLE IF NOT EXISTS working_capital_snapshots (
+    id SERIAL PRIMARY KEY,
+    company_id BIGINT NOT NULL REFERENCES companies(id),
+    snapshot_date DATE NOT NULL,
+    company_name VARCHAR(255),
+    total_current_assets DECIMAL(19, 4),
+    cash_and_equivalents DECIMAL(19, 4),
+    accounts_receivable DECIMAL(19, 4),
+    inventory DECIMAL(19, 4),
+    other_current_assets DECIMAL(19, 4),
+    total_current_liabilities DECIMAL(19, 4),
+    accounts_payable DECIMAL(19, 4),
+    short_term_debt DECIMAL(19, 4),
+    other_current_liabilities DECIMAL(19, 4),
+    net_working_capital DECIMAL(19, 4),
+    current_ratio DECIMAL(19, 4),
+    quick_ratio DECIMAL(19, 4),
+    working_capital_turnover DECIMAL(19, 4),
+    days_inventory_outstanding DECIMAL(19, 4),
+    days_sales_outstanding DECIMAL(19, 4),
+    days_payables_outstanding DECIMAL(19, 4),
+    cash_conversion_cycle DECIMAL(19, 4),
+    cash_ratio DECIMAL(19, 4),
+    operating_cash_flow DECIMAL(19, 4),
+    operating_cash_flow_ratio DECIMAL(19, 4),
+    working_capital_trend VARCHAR(20),
+    cash_conversion_cycle_trend VARCHAR(20),
+    liquidity_trend VARCHAR(20),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    -- Also serves (company_id, snapshot_date) range scans
+    CONSTRAINT uk_wc_snapshots_company_date UNIQUE (company_id, snapshot_date)
+);
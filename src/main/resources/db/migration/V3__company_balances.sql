@@ -0,0 +1,27 @@
+-- Create company_balances table: running ledger totals per company, maintained on every ledger write
+CREATE TABLE IF NOT EXISTS company_balances (
+    company_id BIGINT PRIMARY KEY REFERENCES companies(id),
+    receivables DECIMAL(19, 4) NOT NULL DEFAULT 0,
+    payables DECIMAL(19, 4) NOT NULL DEFAULT 0,
+    cash_balance DECIMAL(19, 4) NOT NULL DEFAULT 0,
+    inventory_value DECIMAL(19, 4) NOT NULL DEFAULT 0,
+    short_term_debt DECIMAL(19, 4) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Seed the counters of existing companies from the ledgers
+INSERT INTO company_balances (company_id, receivables, payables, cash_balance, inventory_value, short_term_debt, updated_at)
+SELECT c.id,
+    (SELECT COALESCE(SUM(ar.amount_base_currency), 0) FROM accounts_receivable ar
+      WHERE ar.company_id = c.id AND ar.status IN ('OPEN', 'OVERDUE', 'PARTIALLY_PAID', 'DISPUTED')),
+    (SELECT COALESCE(SUM(ap.amount_base_currency), 0) FROM accounts_payable ap
+      WHERE ap.company_id = c.id AND ap.status IN ('PENDING', 'APPROVED', 'PARTIALLY_PAID', 'OVERDUE')),
+    (SELECT COALESCE(SUM(ca.balance_base_currency), 0) FROM cash_accounts ca
+      WHERE ca.company_id = c.id AND ca.is_active = TRUE),
+    (SELECT COALESCE(SUM(i.total_value), 0) FROM inventory i
+      WHERE i.company_id = c.id AND i.currency_code = c.currency_code),
+    (SELECT COALESCE(SUM(stl.amount_base_currency), 0) FROM short_term_liabilities stl
+      WHERE stl.company_id = c.id AND stl.status = 'ACTIVE'),
+    CURRENT_TIMESTAMP
+FROM companies c
+ON CONFLICT (company_id) DO NOTHING;
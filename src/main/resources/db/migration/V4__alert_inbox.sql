@@ -0,0 +1,16 @@
+-- Create alert_inbox table: per-company alert counts and recent open alerts, maintained on every alert change.
+-- Rows are seeded from the alerts table the first time a company's inbox is read or changed.
+CREATE TABLE IF NOT EXISTS alert_inbox (
+    company_id BIGINT PRIMARY KEY REFERENCES companies(id),
+    total_count BIGINT NOT NULL DEFAULT 0,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    dismissed_count BIGINT NOT NULL DEFAULT 0,
+    severity_counts JSONB NOT NULL DEFAULT '{}',
+    type_counts JSONB NOT NULL DEFAULT '{}',
+    recent_alerts JSONB NOT NULL DEFAULT '[]',
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Serves the seed and the refill of the recent alert ring
+CREATE INDEX IF NOT EXISTS idx_alerts_company_open_created
+    ON alerts (company_id, is_dismissed, created_at DESC);
@@ -0,0 +1,7 @@
+-- Hand out IDs of the imported ledgers in blocks of 50, matching the allocationSize of their
+-- sequence generators, so Hibernate can batch inserts instead of one round trip per row
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE invoices_id_seq INCREMENT BY 50;
+ALTER SEQUENCE accounts_receivable_id_seq INCREMENT BY 50;
+ALTER SEQUENCE accounts_payable_id_seq INCREMENT BY 50;
+ALTER SEQUENCE inventory_id_seq INCREMENT BY 50;
@@ -0,0 +1,20 @@
+-- Create import_jobs table: CSV imports running in the background, with their final results
+CREATE TABLE IF NOT EXISTS import_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    company_id BIGINT NOT NULL REFERENCES companies(id),
+    import_type VARCHAR(30) NOT NULL,
+    bulk BOOLEAN NOT NULL DEFAULT FALSE,
+    status VARCHAR(20) NOT NULL,
+    file_name VARCHAR(255),
+    file_size BIGINT NOT NULL DEFAULT 0,
+    stored_path VARCHAR(1024),
+    rows_parsed BIGINT NOT NULL DEFAULT 0,
+    rows_written BIGINT NOT NULL DEFAULT 0,
+    rows_failed BIGINT NOT NULL DEFAULT 0,
+    result JSONB,
+    created_at TIMESTAMP NOT NULL,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_import_jobs_company_created ON import_jobs (company_id, created_at);
@@ -0,0 +1,17 @@
+-- Create import_checkpoints table: how far the import of each file has got, so a rerun resumes
+CREATE TABLE IF NOT EXISTS import_checkpoints (
+    id BIGSERIAL PRIMARY KEY,
+    company_id BIGINT NOT NULL REFERENCES companies(id),
+    import_type VARCHAR(30) NOT NULL,
+    file_hash VARCHAR(64) NOT NULL,
+    file_name VARCHAR(255),
+    file_size BIGINT NOT NULL,
+    byte_offset BIGINT NOT NULL DEFAULT 0,
+    row_number BIGINT NOT NULL DEFAULT 0,
+    successful_records BIGINT NOT NULL DEFAULT 0,
+    failed_records BIGINT NOT NULL DEFAULT 0,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_import_checkpoints_file UNIQUE (company_id, import_type, file_hash)
+);
@@ -0,0 +1,33 @@
+-- Natural keys that deduplicating imports match rows on. A ledger that already holds
+-- duplicates keeps working without its key; deduplicating bulk loads of it are refused
+-- until the duplicates are cleaned up and the index is created.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM invoices GROUP BY company_id, invoice_number, invoice_type HAVING COUNT(*) > 1) THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_invoices_natural_key ON invoices (company_id, invoice_number, invoice_type);
+    ELSE
+        RAISE WARNING 'invoices holds duplicate invoice numbers; uk_invoices_natural_key not created';
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM accounts_receivable GROUP BY company_id, invoice_number HAVING COUNT(*) > 1 AND invoice_number IS NOT NULL) THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_accounts_receivable_natural_key ON accounts_receivable (company_id, invoice_number);
+    ELSE
+        RAISE WARNING 'accounts_receivable holds duplicate invoice numbers; uk_accounts_receivable_natural_key not created';
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM accounts_payable GROUP BY company_id, invoice_number HAVING COUNT(*) > 1 AND invoice_number IS NOT NULL) THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_accounts_payable_natural_key ON accounts_payable (company_id, invoice_number);
+    ELSE
+        RAISE WARNING 'accounts_payable holds duplicate invoice numbers; uk_accounts_payable_natural_key not created';
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM transactions GROUP BY company_id, reference_number, transaction_date, amount
+                   HAVING COUNT(*) > 1 AND reference_number IS NOT NULL) THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_transactions_natural_key ON transactions (company_id, reference_number, transaction_date, amount);
+    ELSE
+        RAISE WARNING 'transactions holds duplicate reference numbers; uk_transactions_natural_key not created';
+    END IF;
+END $$;
+
+ALTER TABLE import_jobs ADD COLUMN IF NOT EXISTS mode VARCHAR(20) NOT NULL DEFAULT 'APPEND';
+ALTER TABLE import_checkpoints ADD COLUMN IF NOT EXISTS skipped_records BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,34 @@
+-- Create scheduled_imports table: periodic imports, shared by every node of the cluster. A node
+-- claims a due import with FOR UPDATE SKIP LOCKED and holds a lease on it while it runs
+CREATE TABLE IF NOT EXISTS scheduled_imports (
+    id VARCHAR(36) PRIMARY KEY,
+    company_id BIGINT NOT NULL REFERENCES companies(id),
+    source_type VARCHAR(30) NOT NULL,
+    cron_expression VARCHAR(120) NOT NULL,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    next_fire_at TIMESTAMP NOT NULL,
+    lease_owner VARCHAR(100),
+    lease_expires_at TIMESTAMP,
+    last_fired_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_scheduled_imports_due ON scheduled_imports (next_fire_at) WHERE active;
+CREATE INDEX IF NOT EXISTS idx_scheduled_imports_company ON scheduled_imports (company_id);
+
+-- Create scheduled_import_runs table: the run history; a fire time runs at most once
+CREATE TABLE IF NOT EXISTS scheduled_import_runs (
+    id BIGSERIAL PRIMARY KEY,
+    scheduled_import_id VARCHAR(36) NOT NULL REFERENCES scheduled_imports(id),
+    scheduled_for TIMESTAMP NOT NULL,
+    missed_fires INTEGER NOT NULL DEFAULT 0,
+    node VARCHAR(100) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    summary TEXT,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    CONSTRAINT uk_scheduled_import_runs_fire UNIQUE (scheduled_import_id, scheduled_for)
+);
+
+CREATE INDEX IF NOT EXISTS idx_scheduled_import_runs_started ON scheduled_import_runs (scheduled_import_id, started_at);
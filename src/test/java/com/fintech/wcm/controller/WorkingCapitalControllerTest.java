@@ -1,6 +1,9 @@
 package com.fintech.wcm.controller;
 
+import com.fintech.wcm.dto.ConcentrationAnalyticsDto;
 import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.service.ConcentrationAnalyticsService;
 import com.fintech.wcm.service.WorkingCapitalService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +20,11 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -28,6 +36,9 @@ public class WorkingCapitalControllerTest {
     @Mock
     private WorkingCapitalService workingCapitalService;
 
+    @Mock
+    private ConcentrationAnalyticsService concentrationAnalyticsService;
+
     @InjectMocks
     private WorkingCapitalController workingCapitalController;
 
@@ -185,4 +196,27 @@ public class WorkingCapitalControllerTest {
         assertNotNull(response.getBody());
         assertEquals(8, response.getBody().get("alertsGenerated"));
     }
+
+    @Test
+    void getConcentrationAnalytics_ShouldReturnAnalyticsUpToMaximumLimit() {
+        ConcentrationAnalyticsDto expectedAnalytics = ConcentrationAnalyticsDto.builder()
+                .companyId(companyId)
+                .companyName("Test Company")
+                .build();
+
+        when(concentrationAnalyticsService.getConcentrationAnalytics(companyId, 100)).thenReturn(expectedAnalytics);
+
+        ResponseEntity<ConcentrationAnalyticsDto> response = workingCapitalController.getConcentrationAnalytics(companyId, 100);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedAnalytics, response.getBody());
+    }
+
+    @Test
+    void getConcentrationAnalytics_ShouldRejectLimitOutsideAllowedRange() {
+        assertThrows(BadRequestException.class, () -> workingCapitalController.getConcentrationAnalytics(companyId, 0));
+        assertThrows(BadRequestException.class, () -> workingCapitalController.getConcentrationAnalytics(companyId, 101));
+
+        verify(concentrationAnalyticsService, never()).getConcentrationAnalytics(anyLong(), anyInt());
+    }
 }
@@ -0,0 +1,123 @@
+package com.fintech.wcm.model;
+
+import com.fintech.wcm.service.CompanyBalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the CompanyBalanceListener.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CompanyBalanceListenerTest {
+
+    @Mock
+    private ObjectProvider<CompanyBalanceService> companyBalanceServiceProvider;
+
+    @Mock
+    private CompanyBalanceService companyBalanceService;
+
+    private CompanyBalanceListener listener;
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        listener = new CompanyBalanceListener(companyBalanceServiceProvider);
+        company = new Company();
+        company.setId(1L);
+    }
+
+    private AccountsReceivable receivable(String amount, AccountsReceivable.ReceivableStatus status) {
+        AccountsReceivable receivable = new AccountsReceivable();
+        receivable.setCompany(company);
+        receivable.setAmountBaseCurrency(new BigDecimal(amount));
+        receivable.setStatus(status);
+        return receivable;
+    }
+
+    private static BalanceContribution receivables(String amount) {
+        return new BalanceContribution(CompanyBalance.Counter.RECEIVABLES, 1L, null, new BigDecimal(amount));
+    }
+
+    @Test
+    void onWrite_ShouldRecordNewRowWithoutEarlierContribution() {
+        when(companyBalanceServiceProvider.getObject()).thenReturn(companyBalanceService);
+        AccountsReceivable receivable = receivable("100", AccountsReceivable.ReceivableStatus.OPEN);
+
+        listener.onWrite(receivable);
+
+        verify(companyBalanceService).recordChange(null, receivables("100"));
+        assertEquals(receivables("100"), receivable.getLoadedBalanceContribution());
+    }
+
+    @Test
+    void onWrite_ShouldMoveReceivableOutOfCounterWhenItCloses() {
+        when(companyBalanceServiceProvider.getObject()).thenReturn(companyBalanceService);
+        AccountsReceivable receivable = receivable("100", AccountsReceivable.ReceivableStatus.OPEN);
+        listener.onLoad(receivable);
+
+        receivable.setStatus(AccountsReceivable.ReceivableStatus.PAID);
+        listener.onWrite(receivable);
+
+        verify(companyBalanceService).recordChange(receivables("100"), receivables("0"));
+    }
+
+    @Test
+    void onWrite_ShouldMoveReceivableBackIntoCounterWhenItReopens() {
+        when(companyBalanceServiceProvider.getObject()).thenReturn(companyBalanceService);
+        AccountsReceivable receivable = receivable("100", AccountsReceivable.ReceivableStatus.PAID);
+        listener.onLoad(receivable);
+
+        receivable.setStatus(AccountsReceivable.ReceivableStatus.OVERDUE);
+        listener.onWrite(receivable);
+
+        verify(companyBalanceService).recordChange(receivables("0"), receivables("100"));
+    }
+
+    @Test
+    void onWrite_ShouldRememberContributionSoNextWriteOnlyMovesByDifference() {
+        when(companyBalanceServiceProvider.getObject()).thenReturn(companyBalanceService);
+        AccountsReceivable receivable = receivable("100", AccountsReceivable.ReceivableStatus.OPEN);
+        listener.onLoad(receivable);
+
+        receivable.setAmountBaseCurrency(new BigDecimal("150"));
+        listener.onWrite(receivable);
+        receivable.setAmountBaseCurrency(new BigDecimal("120"));
+        listener.onWrite(receivable);
+
+        verify(companyBalanceService).recordChange(receivables("100"), receivables("150"));
+        verify(companyBalanceService).recordChange(receivables("150"), receivables("120"));
+    }
+
+    @Test
+    void onRemove_ShouldTakeLoadedContributionOutOfCounter() {
+        when(companyBalanceServiceProvider.getObject()).thenReturn(companyBalanceService);
+        AccountsReceivable receivable = receivable("100", AccountsReceivable.ReceivableStatus.OPEN);
+        listener.onLoad(receivable);
+
+        listener.onRemove(receivable);
+
+        verify(companyBalanceService).recordChange(receivables("100"), null);
+        assertNull(receivable.getLoadedBalanceContribution());
+    }
+
+    @Test
+    void onWrite_ShouldIgnoreEntitiesThatDoNotFeedCounters() {
+        listener.onWrite(new Company());
+        listener.onRemove(new Company());
+
+        verify(companyBalanceServiceProvider, never()).getObject();
+        verify(companyBalanceService, never()).recordChange(any(), any());
+    }
+}
@@ -0,0 +1,230 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.Alert;
+import com.fintech.wcm.model.AlertInbox;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.repository.AlertInboxRepository;
+import com.fintech.wcm.repository.AlertRepository;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.service.impl.AlertInboxServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the AlertInboxService implementation.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AlertInboxServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Mock
+    private AlertInboxRepository alertInboxRepository;
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private CompanyRepository companyRepository;
+
+    @Mock
+    private CompanyDataVersions companyDataVersions;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AlertInboxServiceImpl alertInboxService;
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        alertInboxService = new AlertInboxServiceImpl(alertInboxRepository, alertRepository, companyRepository,
+                companyDataVersions, entityManager, transactionManager, 4, 100, Duration.ofMinutes(5));
+        company = new Company();
+        company.setId(1L);
+    }
+
+    private Alert alert(long id, int minutesAgo, Alert.AlertSeverity severity) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setCompany(company);
+        alert.setTitle("Alert " + id);
+        alert.setAlertType(Alert.AlertType.CASH_GAP);
+        alert.setSeverity(severity);
+        alert.setCreatedAt(NOW.minusMinutes(minutesAgo));
+        return alert;
+    }
+
+    private AlertInbox inbox(long total, long unread, long dismissed, Alert... recent) {
+        AlertInbox inbox = new AlertInbox();
+        inbox.setCompanyId(1L);
+        inbox.setTotalCount(total);
+        inbox.setUnreadCount(unread);
+        inbox.setDismissedCount(dismissed);
+        inbox.setSeverityCounts(Map.of("HIGH", total));
+        inbox.setTypeCounts(Map.of("CASH_GAP", total));
+        List<AlertInbox.RecentAlert> recentAlerts = new ArrayList<>();
+        for (Alert alert : recent) {
+            recentAlerts.add(AlertInbox.RecentAlert.of(alert));
+        }
+        inbox.setRecentAlerts(recentAlerts);
+        return inbox;
+    }
+
+    private static List<Long> recentIds(AlertInbox inbox) {
+        return inbox.getRecentAlerts().stream().map(AlertInbox.RecentAlert::getId).toList();
+    }
+
+    private AlertInbox saved() {
+        ArgumentCaptor<AlertInbox> saved = ArgumentCaptor.forClass(AlertInbox.class);
+        verify(alertInboxRepository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    @Test
+    void recordCreated_ShouldCountAlertAndKeepRingNewestFirstWithinItsSize() {
+        AlertInbox inbox = inbox(4, 4, 0,
+                alert(4, 10, Alert.AlertSeverity.HIGH), alert(3, 20, Alert.AlertSeverity.HIGH),
+                alert(2, 30, Alert.AlertSeverity.HIGH), alert(1, 40, Alert.AlertSeverity.HIGH));
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(inbox));
+
+        alertInboxService.recordCreated(alert(5, 15, Alert.AlertSeverity.CRITICAL));
+
+        AlertInbox saved = saved();
+        assertEquals(5, saved.getTotalCount());
+        assertEquals(5, saved.getUnreadCount());
+        assertEquals(0, saved.getDismissedCount());
+        assertEquals(Map.of("HIGH", 4L, "CRITICAL", 1L), saved.getSeverityCounts());
+        assertEquals(Map.of("CASH_GAP", 5L), saved.getTypeCounts());
+        assertEquals(List.of(4L, 5L, 3L, 2L), recentIds(saved));
+    }
+
+    @Test
+    void recordCreated_ShouldCountDismissedAlertWithoutAddingItToRing() {
+        AlertInbox inbox = inbox(1, 1, 0, alert(1, 40, Alert.AlertSeverity.HIGH));
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(inbox));
+        Alert dismissed = alert(2, 10, Alert.AlertSeverity.HIGH);
+        dismissed.setRead(true);
+        dismissed.setDismissed(true);
+
+        alertInboxService.recordCreated(dismissed);
+
+        AlertInbox saved = saved();
+        assertEquals(2, saved.getTotalCount());
+        assertEquals(1, saved.getUnreadCount());
+        assertEquals(1, saved.getDismissedCount());
+        assertEquals(List.of(1L), recentIds(saved));
+    }
+
+    @Test
+    void recordRead_ShouldDecrementUnreadAndMarkRingCopyRead() {
+        AlertInbox inbox = inbox(2, 2, 0, alert(2, 10, Alert.AlertSeverity.HIGH), alert(1, 20, Alert.AlertSeverity.HIGH));
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(inbox));
+
+        alertInboxService.recordRead(alert(1, 20, Alert.AlertSeverity.HIGH));
+
+        AlertInbox saved = saved();
+        assertEquals(1, saved.getUnreadCount());
+        assertFalse(saved.getRecentAlerts().get(0).isRead());
+        assertTrue(saved.getRecentAlerts().get(1).isRead());
+    }
+
+    @Test
+    void recordRead_ShouldNeverTakeUnreadBelowZero() {
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(inbox(1, 0, 0)));
+
+        alertInboxService.recordRead(alert(1, 20, Alert.AlertSeverity.HIGH));
+
+        assertEquals(0, saved().getUnreadCount());
+    }
+
+    @Test
+    void recordDismissed_ShouldDropAlertFromRingWhileMoreThanHalfRemains() {
+        AlertInbox inbox = inbox(3, 3, 0, alert(3, 10, Alert.AlertSeverity.HIGH),
+                alert(2, 20, Alert.AlertSeverity.HIGH), alert(1, 30, Alert.AlertSeverity.HIGH));
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(inbox));
+
+        alertInboxService.recordDismissed(alert(2, 20, Alert.AlertSeverity.HIGH));
+
+        AlertInbox saved = saved();
+        assertEquals(1, saved.getDismissedCount());
+        assertEquals(List.of(3L, 1L), recentIds(saved));
+        verify(alertRepository, never()).findByCompanyIdAndDismissedFalseOrderByCreatedAtDescIdDesc(anyLong(), any());
+    }
+
+    @Test
+    void recordDismissed_ShouldRefillRingFromAlertsOnceHalfOfItIsDismissed() {
+        AlertInbox inbox = inbox(6, 6, 0, alert(6, 10, Alert.AlertSeverity.HIGH), alert(5, 20, Alert.AlertSeverity.HIGH));
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(inbox));
+        when(alertRepository.findByCompanyIdAndDismissedFalseOrderByCreatedAtDescIdDesc(1L, PageRequest.of(0, 4)))
+                .thenReturn(List.of(alert(5, 20, Alert.AlertSeverity.HIGH), alert(4, 30, Alert.AlertSeverity.HIGH),
+                        alert(3, 40, Alert.AlertSeverity.HIGH), alert(2, 50, Alert.AlertSeverity.HIGH)));
+
+        alertInboxService.recordDismissed(alert(6, 10, Alert.AlertSeverity.HIGH));
+
+        AlertInbox saved = saved();
+        assertEquals(1, saved.getDismissedCount());
+        assertEquals(List.of(5L, 4L, 3L, 2L), recentIds(saved));
+    }
+
+    @Test
+    void recordDismissed_ShouldNotRefillWhenNoOtherAlertIsOpen() {
+        AlertInbox inbox = inbox(2, 2, 0, alert(2, 10, Alert.AlertSeverity.HIGH), alert(1, 20, Alert.AlertSeverity.HIGH));
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(inbox));
+
+        alertInboxService.recordDismissed(alert(2, 10, Alert.AlertSeverity.HIGH));
+
+        assertEquals(List.of(1L), recentIds(saved()));
+        verify(alertRepository, never()).findByCompanyIdAndDismissedFalseOrderByCreatedAtDescIdDesc(anyLong(), any());
+    }
+
+    @Test
+    void recordCreated_ShouldApplyChangeToRowSeededConcurrentlyWhenOwnSeedLosesRace() {
+        AlertInbox seededElsewhere = inbox(1, 1, 0, alert(1, 20, Alert.AlertSeverity.HIGH));
+        when(alertInboxRepository.findByCompanyIdForUpdate(1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(seededElsewhere));
+        when(companyRepository.existsById(1L)).thenReturn(true);
+        when(alertRepository.countByCompanyIdGroupedBySeverityAndType(1L)).thenReturn(List.of());
+        when(alertRepository.findByCompanyIdAndDismissedFalseOrderByCreatedAtDescIdDesc(1L, PageRequest.of(0, 4)))
+                .thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"alert_inbox_pkey\""))
+                .when(entityManager).flush();
+        when(alertInboxRepository.findById(1L)).thenReturn(Optional.of(seededElsewhere));
+
+        alertInboxService.recordCreated(alert(2, 10, Alert.AlertSeverity.HIGH));
+
+        verify(entityManager).persist(any(AlertInbox.class));
+        verify(alertInboxRepository).findById(1L);
+        AlertInbox saved = saved();
+        assertSame(seededElsewhere, saved);
+        assertEquals(2, saved.getTotalCount());
+        assertEquals(List.of(2L, 1L), recentIds(saved));
+    }
+}
@@ -0,0 +1,187 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ChunkedImportWriter.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ChunkedImportWriterTest {
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ImportResultDto result;
+
+    @BeforeEach
+    void setUp() {
+        result = ImportResultDto.builder().build();
+    }
+
+    private ChunkedImportWriter<Transaction> writer(int chunkSize) {
+        return new ChunkedImportWriter<>(entityManager, new TransactionTemplate(transactionManager),
+                mock(CompanyDataVersions.class), 1L, chunkSize, result);
+    }
+
+    private Transaction transaction(String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+
+    @Test
+    void write_ShouldCommitOneTransactionPerChunk() {
+        try (ChunkedImportWriter<Transaction> writer = writer(2)) {
+            writer.write(transaction("1"), 1);
+            writer.write(transaction("2"), 2);
+            writer.write(transaction("3"), 3);
+        }
+
+        verify(entityManager, times(3)).persist(any(Transaction.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3, result.getSuccessfulRecords());
+        assertEquals(0, result.getFailedRecords());
+    }
+
+    @Test
+    void flush_ShouldRetryFailedChunkRowByRowAndReportRejectedRows() {
+        Transaction rejected = transaction("-1");
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == rejected) {
+                throw new PersistenceException("value too long");
+            }
+            return null;
+        }).when(entityManager).persist(any());
+
+        ChunkedImportWriter<Transaction> writer = writer(10);
+        writer.write(transaction("1"), 1);
+        writer.write(rejected, 2);
+        writer.write(transaction("3"), 3);
+        writer.flush();
+
+        assertEquals(2, result.getSuccessfulRecords());
+        assertEquals(1, result.getFailedRecords());
+        assertEquals(List.of("Error processing record 2: value too long"), result.getErrors());
+    }
+
+    @Test
+    void flush_ShouldSaveCheckpointInsideEachCommittedTransaction() {
+        Transaction rejected = transaction("-1");
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == rejected) {
+                throw new PersistenceException("value too long");
+            }
+            return null;
+        }).when(entityManager).persist(any());
+        List<String> checkpoints = new ArrayList<>();
+
+        try (ChunkedImportWriter<Transaction> writer = new ChunkedImportWriter<>(entityManager,
+                new TransactionTemplate(transactionManager), mock(CompanyDataVersions.class), 1L, 2, result,
+                (recordNumber, endOffset, successful, skipped) -> checkpoints.add(recordNumber + "@" + endOffset + "/" + successful),
+                null)) {
+            writer.write(transaction("1"), 1, 10);
+            writer.write(transaction("2"), 3, 30);
+            writer.write(transaction("4"), 4, 40);
+            writer.write(rejected, 5, 50);
+        }
+
+        // The second chunk is retried row by row: the rejected row moves no checkpoint
+        assertEquals(List.of("3@30/2", "4@40/3"), checkpoints);
+        assertEquals(3, result.getSuccessfulRecords());
+    }
+
+    @Test
+    void flush_ShouldSkipRowsWhoseNaturalKeyIsAlreadyImported() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        List<Object> existing = new ArrayList<>();
+        existing.add(new Object[]{"REF-1", date, new BigDecimal("100.0000")});
+        when(entityManager.createQuery(anyString()).setParameter(anyString(), any())
+                .setParameter(anyString(), any()).getResultList()).thenReturn(existing);
+        List<String> checkpoints = new ArrayList<>();
+
+        try (ChunkedImportWriter<Transaction> writer = new ChunkedImportWriter<>(entityManager,
+                new TransactionTemplate(transactionManager), mock(CompanyDataVersions.class), 1L, 10, result,
+                (recordNumber, endOffset, successful, skipped) -> checkpoints.add(recordNumber + "/" + successful + "/" + skipped),
+                NaturalKeyFilter.forType(ImportType.CASH_TRANSACTIONS))) {
+            writer.write(transaction("REF-1", date, "100.5"), 1, 10);
+            writer.write(transaction("REF-1", date, "100"), 2, 20);
+            writer.write(transaction("REF-2", date, "7"), 3, 30);
+            writer.write(transaction("REF-2", date, "7.00"), 4, 40);
+            writer.write(transaction(null, date, "7"), 5, 50);
+        }
+
+        verify(entityManager, times(3)).persist(any(Transaction.class));
+        assertEquals(3, result.getSuccessfulRecords());
+        assertEquals(2, result.getSkippedRecords());
+        assertEquals(0, result.getFailedRecords());
+        assertEquals(List.of("5/3/2"), checkpoints);
+    }
+
+    @Test
+    void flush_ShouldRejectRowsWhoseNaturalKeyIsTakenWhenAppending() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        List<Object> existing = new ArrayList<>();
+        existing.add(new Object[]{"REF-1", date, new BigDecimal("100.0000")});
+        when(entityManager.createQuery(anyString()).setParameter(anyString(), any())
+                .setParameter(anyString(), any()).getResultList()).thenReturn(existing);
+
+        try (ChunkedImportWriter<Transaction> writer = new ChunkedImportWriter<>(entityManager,
+                new TransactionTemplate(transactionManager), mock(CompanyDataVersions.class), 1L, 10, result, null,
+                NaturalKeyFilter.<Transaction>forType(ImportType.CASH_TRANSACTIONS).rejectingDuplicates())) {
+            writer.write(transaction("REF-1", date, "100"), 1, 10);
+            writer.write(transaction("REF-2", date, "7"), 2, 20);
+            writer.write(transaction("REF-2", date, "7.00"), 3, 30);
+            // Two identical card fees without a reference are both kept
+            writer.write(transaction("", date, "2.50"), 4, 40);
+            writer.write(transaction(" ", date, "2.50"), 5, 50);
+        }
+
+        // The duplicates fail their own rows instead of the whole chunk
+        verify(entityManager, times(3)).persist(any(Transaction.class));
+        assertEquals(3, result.getSuccessfulRecords());
+        assertEquals(0, result.getSkippedRecords());
+        assertEquals(2, result.getFailedRecords());
+        assertEquals(2, result.getErrorCounts().get(ImportErrorType.DUPLICATE_KEY));
+        assertEquals("Error processing record 1: Duplicate key: already in the ledger or earlier in the file",
+                result.getErrors().get(0));
+    }
+
+    private Transaction transaction(String referenceNumber, LocalDate date, String amount) {
+        Transaction transaction = transaction(amount);
+        transaction.setReferenceNumber(referenceNumber);
+        transaction.setTransactionDate(date);
+        return transaction;
+    }
+}
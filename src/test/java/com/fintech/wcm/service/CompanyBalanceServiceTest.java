@@ -0,0 +1,265 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.BalanceContribution;
+import com.fintech.wcm.model.CompanyBalance;
+import com.fintech.wcm.repository.*;
+import com.fintech.wcm.service.impl.CompanyBalanceServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the CompanyBalanceService implementation.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CompanyBalanceServiceTest {
+
+    private static final String APPLY_DELTA = "UPDATE company_balances SET";
+    private static final String INSERT = "INSERT INTO company_balances";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CompanyRepository companyRepository;
+
+    @Mock
+    private CompanyBalanceRepository companyBalanceRepository;
+
+    @Mock
+    private AccountsReceivableRepository accountsReceivableRepository;
+
+    @Mock
+    private AccountsPayableRepository accountsPayableRepository;
+
+    @Mock
+    private CashAccountRepository cashAccountRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private ShortTermLiabilityRepository shortTermLiabilityRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CompanyBalanceServiceImpl companyBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        companyBalanceService = new CompanyBalanceServiceImpl(jdbcTemplate, companyRepository, companyBalanceRepository,
+                accountsReceivableRepository, accountsPayableRepository, cashAccountRepository, inventoryRepository,
+                shortTermLiabilityRepository, transactionManager);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    private static BalanceContribution contribution(CompanyBalance.Counter counter, String currencyCode, String amount) {
+        return new BalanceContribution(counter, 1L, currencyCode, new BigDecimal(amount));
+    }
+
+    private void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCommit(false);
+        }
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private void completeTransaction(int status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    /**
+     * @return the arguments of the JDBC updates whose SQL starts with the prefix, in call order
+     */
+    private List<Object[]> updates(String prefix) {
+        return Mockito.mockingDetails(jdbcTemplate).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("update"))
+                .filter(invocation -> invocation.getArgument(0, String.class).startsWith(prefix))
+                .map(Invocation::getArguments)
+                .map(arguments -> Arrays.copyOfRange(arguments, 1, arguments.length))
+                .toList();
+    }
+
+    /**
+     * Asserts a counter delta: receivables, payables, cash, inventory, short-term debt, then the company.
+     */
+    private static void assertDelta(Object[] update, String... amounts) {
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(0, new BigDecimal(amounts[i]).compareTo((BigDecimal) update[i]), "counter " + i);
+        }
+        assertEquals(1L, update[5]);
+    }
+
+    @Test
+    void recordChange_ShouldTakeReceivableOutOfCounterWhenItCloses() {
+        when(jdbcTemplate.update(startsWith(APPLY_DELTA), any(Object[].class))).thenReturn(1);
+
+        companyBalanceService.recordChange(contribution(CompanyBalance.Counter.RECEIVABLES, null, "100"),
+                contribution(CompanyBalance.Counter.RECEIVABLES, null, "0"));
+        commit();
+
+        List<Object[]> updates = updates(APPLY_DELTA);
+        assertEquals(1, updates.size());
+        assertDelta(updates.get(0), "-100", "0", "0", "0", "0");
+    }
+
+    @Test
+    void recordChange_ShouldPutReceivableBackIntoCounterWhenItReopens() {
+        when(jdbcTemplate.update(startsWith(APPLY_DELTA), any(Object[].class))).thenReturn(1);
+
+        companyBalanceService.recordChange(contribution(CompanyBalance.Counter.RECEIVABLES, null, "0"),
+                contribution(CompanyBalance.Counter.RECEIVABLES, null, "100"));
+        commit();
+
+        assertDelta(updates(APPLY_DELTA).get(0), "100", "0", "0", "0", "0");
+    }
+
+    @Test
+    void recordChange_ShouldMoveCounterByDifferenceWhenAmountChanges() {
+        when(jdbcTemplate.update(startsWith(APPLY_DELTA), any(Object[].class))).thenReturn(1);
+
+        companyBalanceService.recordChange(contribution(CompanyBalance.Counter.PAYABLES, null, "100"),
+                contribution(CompanyBalance.Counter.PAYABLES, null, "150.50"));
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.CASH, null, "20"));
+        commit();
+
+        List<Object[]> updates = updates(APPLY_DELTA);
+        assertEquals(1, updates.size());
+        assertDelta(updates.get(0), "0", "50.50", "20", "0", "0");
+    }
+
+    @Test
+    void recordChange_ShouldSkipCompanyWhoseChangesCancelOut() {
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.CASH, null, "20"));
+        companyBalanceService.recordChange(contribution(CompanyBalance.Counter.CASH, null, "20"), null);
+        commit();
+
+        assertTrue(updates("").isEmpty());
+    }
+
+    @Test
+    void recordChange_ShouldCountOnlyInventoryInCompanyCurrency() {
+        when(jdbcTemplate.update(startsWith(APPLY_DELTA), any(Object[].class))).thenReturn(1);
+        when(jdbcTemplate.queryForList(startsWith("SELECT currency_code"), eq(String.class), eq(1L)))
+                .thenReturn(List.of("USD"));
+
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.INVENTORY, "USD", "10"));
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.INVENTORY, "EUR", "20"));
+        commit();
+
+        assertDelta(updates(APPLY_DELTA).get(0), "0", "0", "0", "10", "0");
+    }
+
+    @Test
+    void recordChange_ShouldDiscardPendingDeltasWhenTransactionRollsBack() {
+        when(jdbcTemplate.update(startsWith(APPLY_DELTA), any(Object[].class))).thenReturn(1);
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.RECEIVABLES, null, "100"));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        TransactionSynchronizationManager.initSynchronization();
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.PAYABLES, null, "5"));
+        commit();
+
+        List<Object[]> updates = updates(APPLY_DELTA);
+        assertEquals(1, updates.size());
+        assertDelta(updates.get(0), "0", "5", "0", "0", "0");
+    }
+
+    @Test
+    void recordChange_ShouldSeedMissingCounterRowFromLedgers() {
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.CASH, null, "20"));
+        when(jdbcTemplate.update(startsWith(APPLY_DELTA), any(Object[].class))).thenReturn(0);
+        when(jdbcTemplate.update(startsWith(INSERT), eq(1L))).thenReturn(1);
+
+        commit();
+
+        // The seed sums the ledgers, which already include this transaction's change
+        assertEquals(1, updates(APPLY_DELTA).size());
+        List<Object[]> seeds = updates(INSERT);
+        assertEquals(1, seeds.size());
+        assertTrue(Mockito.mockingDetails(jdbcTemplate).getInvocations().stream()
+                .map(invocation -> invocation.getArgument(0, String.class))
+                .anyMatch(sql -> sql.startsWith(INSERT) && sql.endsWith("ON CONFLICT (company_id) DO NOTHING")));
+    }
+
+    @Test
+    void recordChange_ShouldApplyDeltaWhenAnotherTransactionSeededRowFirst() {
+        companyBalanceService.recordChange(null, contribution(CompanyBalance.Counter.CASH, null, "20"));
+
+        // Both the update and the seed miss: the row was seeded concurrently
+        commit();
+
+        assertEquals(2, updates(APPLY_DELTA).size());
+        assertEquals(1, updates(INSERT).size());
+    }
+
+    @Test
+    void reconcile_ShouldRecalculateCompanyWhoseCountersDrifted() {
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        when(companyRepository.findAllIds()).thenReturn(List.of(1L));
+        when(companyBalanceRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(new CompanyBalance(1L,
+                new BigDecimal("100"), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, null)));
+        when(accountsReceivableRepository.sumTotalReceivablesByCompanyId(1L)).thenReturn(new BigDecimal("120"));
+        when(accountsPayableRepository.sumTotalPayablesByCompanyId(1L)).thenReturn(null);
+        when(cashAccountRepository.sumTotalCashBalanceByCompanyId(1L)).thenReturn(BigDecimal.ZERO);
+        when(inventoryRepository.sumTotalInventoryValueByCompanyId(1L)).thenReturn(new BigDecimal("0.0000"));
+        when(shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(1L)).thenReturn(BigDecimal.ZERO);
+
+        assertEquals(1, companyBalanceService.reconcile());
+
+        List<Object[]> recalculations = updates(INSERT);
+        assertEquals(1, recalculations.size());
+        assertTrue(Mockito.mockingDetails(jdbcTemplate).getInvocations().stream()
+                .map(invocation -> invocation.getArgument(0, String.class))
+                .anyMatch(sql -> sql.contains("DO UPDATE SET receivables = EXCLUDED.receivables")));
+    }
+
+    @Test
+    void reconcile_ShouldLeaveCountersThatMatchLedgersAlone() {
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        when(companyRepository.findAllIds()).thenReturn(List.of(1L));
+        when(companyBalanceRepository.findByCompanyIdForUpdate(1L)).thenReturn(Optional.of(new CompanyBalance(1L,
+                new BigDecimal("100.0000"), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, null)));
+        when(accountsReceivableRepository.sumTotalReceivablesByCompanyId(1L)).thenReturn(new BigDecimal("100"));
+        when(accountsPayableRepository.sumTotalPayablesByCompanyId(1L)).thenReturn(BigDecimal.ZERO);
+        when(cashAccountRepository.sumTotalCashBalanceByCompanyId(1L)).thenReturn(BigDecimal.ZERO);
+        when(inventoryRepository.sumTotalInventoryValueByCompanyId(1L)).thenReturn(BigDecimal.ZERO);
+        when(shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(1L)).thenReturn(BigDecimal.ZERO);
+
+        assertEquals(0, companyBalanceService.reconcile());
+
+        assertTrue(updates("").isEmpty());
+    }
+}
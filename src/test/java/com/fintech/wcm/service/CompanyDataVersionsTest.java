@@ -0,0 +1,83 @@
+package com.fintech.wcm.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the CompanyDataVersions.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CompanyDataVersionsTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CompanyDataVersions companyDataVersions;
+
+    @BeforeEach
+    void setUp() {
+        companyDataVersions = new CompanyDataVersions(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(companyDataVersions);
+    }
+
+    @Test
+    void current_ShouldReadStoredVersionOrZeroWhenCompanyHasNone() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1L))).thenReturn(List.of(7L));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2L))).thenReturn(List.of());
+
+        assertEquals(7L, companyDataVersions.current(1L));
+        assertEquals(0L, companyDataVersions.current(2L));
+    }
+
+    @Test
+    void bumpOnCommit_ShouldBumpAtOnceWithoutTransaction() {
+        companyDataVersions.bumpOnCommit(1L);
+
+        verify(jdbcTemplate).update(anyString(), eq(1L));
+    }
+
+    @Test
+    void bumpOnCommit_ShouldBumpEachCompanyOnceInIdOrderBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        companyDataVersions.bumpOnCommit(2L);
+        companyDataVersions.bumpOnCommit(1L);
+        companyDataVersions.bumpOnCommit(2L);
+        verify(jdbcTemplate, never()).update(anyString(), eq(2L));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCommit(false);
+        }
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(anyString(), eq(1L));
+        order.verify(jdbcTemplate).update(anyString(), eq(2L));
+        verify(jdbcTemplate, times(1)).update(anyString(), eq(2L));
+    }
+}
@@ -0,0 +1,120 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ConcentrationAnalyticsDto;
+import com.fintech.wcm.dto.CounterpartyConcentrationDto;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.repository.AccountsPayableRepository;
+import com.fintech.wcm.repository.AccountsReceivableRepository;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.repository.projection.CounterpartyConcentrationRow;
+import com.fintech.wcm.service.impl.ConcentrationAnalyticsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ConcentrationAnalyticsService implementation.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConcentrationAnalyticsServiceTest {
+
+    @Mock
+    private CompanyRepository companyRepository;
+
+    @Mock
+    private AccountsReceivableRepository accountsReceivableRepository;
+
+    @Mock
+    private AccountsPayableRepository accountsPayableRepository;
+
+    @InjectMocks
+    private ConcentrationAnalyticsServiceImpl concentrationAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        Company company = new Company();
+        company.setId(1L);
+        company.setName("Test Company");
+        company.setCurrencyCode("USD");
+        when(companyRepository.findById(1L)).thenReturn(Optional.of(company));
+    }
+
+    private static CounterpartyConcentrationRow row(Long rank, String name, String amount, long counterpartyCount,
+                                                    String totalAmount, String topFiveShare, String herfindahlIndex,
+                                                    long longTailCount) {
+        return new CounterpartyConcentrationRow() {
+            public String getName() { return name; }
+            public BigDecimal getAmount() { return amount == null ? null : new BigDecimal(amount); }
+            public Long getRank() { return rank; }
+            public long getCounterpartyCount() { return counterpartyCount; }
+            public BigDecimal getTotalAmount() { return new BigDecimal(totalAmount); }
+            public BigDecimal getTopFiveShare() { return new BigDecimal(topFiveShare); }
+            public BigDecimal getHerfindahlIndex() { return new BigDecimal(herfindahlIndex); }
+            public long getLongTailCount() { return longTailCount; }
+        };
+    }
+
+    private static CounterpartyConcentrationRow emptyLedgerRow() {
+        return row(null, null, null, 0, "0", "0", "0", 0);
+    }
+
+    @Test
+    void getConcentrationAnalytics_ShouldReportEmptyLedgerRowAsZeroConcentration() {
+        when(accountsReceivableRepository.findCustomerConcentration(1L, 10)).thenReturn(List.of(emptyLedgerRow()));
+        when(accountsPayableRepository.findVendorConcentration(1L, 10)).thenReturn(List.of());
+
+        ConcentrationAnalyticsDto analytics = concentrationAnalyticsService.getConcentrationAnalytics(1L, 10);
+
+        for (CounterpartyConcentrationDto ledger : List.of(analytics.getCustomers(), analytics.getVendors())) {
+            assertEquals(0, ledger.getCounterpartyCount());
+            assertEquals(0, ledger.getLongTailCount());
+            assertEquals(0, BigDecimal.ZERO.compareTo(ledger.getTotalAmount()));
+            assertEquals(0, BigDecimal.ZERO.compareTo(ledger.getTopFiveShare()));
+            assertEquals(0, BigDecimal.ZERO.compareTo(ledger.getHerfindahlIndex()));
+            assertTrue(ledger.getTopCounterparties().isEmpty());
+        }
+    }
+
+    @Test
+    void getConcentrationAnalytics_ShouldRoundSharesAndScoresToFourPlaces() {
+        when(accountsReceivableRepository.findCustomerConcentration(1L, 2)).thenReturn(List.of(
+                row(1L, "Acme", "200.00", 3, "300.00", "1.000000000", "0.333333333", 1),
+                row(2L, "Globex", "50.00", 3, "300.00", "1.000000000", "0.333333333", 1)));
+        when(accountsPayableRepository.findVendorConcentration(1L, 2)).thenReturn(List.of());
+
+        CounterpartyConcentrationDto customers =
+                concentrationAnalyticsService.getConcentrationAnalytics(1L, 2).getCustomers();
+
+        assertEquals(3, customers.getCounterpartyCount());
+        assertEquals(1, customers.getLongTailCount());
+        assertEquals(new BigDecimal("1.0000"), customers.getTopFiveShare());
+        assertEquals(new BigDecimal("0.3333"), customers.getHerfindahlIndex());
+        assertEquals(2, customers.getTopCounterparties().size());
+        assertEquals(new BigDecimal("0.6667"), customers.getTopCounterparties().get(0).getShare());
+        assertEquals(new BigDecimal("0.1667"), customers.getTopCounterparties().get(1).getShare());
+        assertEquals("Globex", customers.getTopCounterparties().get(1).getName());
+        assertEquals(2, customers.getTopCounterparties().get(1).getRank());
+    }
+
+    @Test
+    void getConcentrationAnalytics_ShouldGiveZeroSharesWhenLedgerTotalIsNotPositive() {
+        when(accountsReceivableRepository.findCustomerConcentration(1L, 10)).thenReturn(List.of());
+        when(accountsPayableRepository.findVendorConcentration(1L, 10)).thenReturn(List.of(
+                row(1L, "Initech", "0.00", 1, "0.00", "0", "0", 0)));
+
+        CounterpartyConcentrationDto vendors =
+                concentrationAnalyticsService.getConcentrationAnalytics(1L, 10).getVendors();
+
+        assertEquals(BigDecimal.ZERO, vendors.getTopCounterparties().get(0).getShare());
+    }
+}
@@ -0,0 +1,199 @@
+package com.fintech.wcm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.model.ConnectorConnection;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.SyncCursor;
+import com.fintech.wcm.repository.ConnectorConnectionRepository;
+import com.fintech.wcm.repository.SyncCursorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ConnectorSync.
+ */
+public class ConnectorSyncTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+    @TempDir
+    Path directory;
+
+    private ConnectorMockServer server;
+    private CopyImportLoader copyImportLoader;
+    private SyncCursorRepository cursorRepository;
+    private ConnectorSync connectorSync;
+    private final Map<String, SyncCursor> cursors = new ConcurrentHashMap<>();
+    private final List<String> loaded = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = ConnectorMockServer.start("token");
+        ConnectorHttpClient httpClient = new ConnectorHttpClient(new ObjectMapper(), Duration.ofSeconds(10));
+
+        ConnectorConnectionRepository connectionRepository = mock(ConnectorConnectionRepository.class);
+        ConnectorConnection connection = new ConnectorConnection();
+        connection.setCompanyId(1L);
+        connection.setTenantId("realm-1");
+        connection.setAccessToken("token");
+        when(connectionRepository.findByCompanyIdAndSourceType(eq(1L), anyString())).thenReturn(Optional.of(connection));
+
+        cursorRepository = mock(SyncCursorRepository.class);
+        when(cursorRepository.findByCompanyIdAndSourceTypeAndFeed(eq(1L), anyString(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(cursors.get(invocation.getArgument(1) + ":" + invocation.getArgument(2))));
+        when(cursorRepository.save(any())).thenAnswer(invocation -> {
+            SyncCursor cursor = invocation.getArgument(0);
+            cursors.put(cursor.getSourceType() + ":" + cursor.getFeed(), cursor);
+            return cursor;
+        });
+
+        copyImportLoader = mock(CopyImportLoader.class);
+        doAnswer(invocation -> {
+            StringWriter csv = new StringWriter();
+            invocation.<Reader>getArgument(3).transferTo(csv);
+            loaded.add(csv.toString());
+            ImportResultDto result = invocation.getArgument(4);
+            result.setTotalRecords((int) csv.toString().lines().count() - 1);
+            result.setSuccessfulRecords(result.getTotalRecords());
+            return null;
+        }).when(copyImportLoader).load(anyLong(), any(), eq(ImportMode.UPSERT), any(), any(), any(), any());
+
+        connectorSync = new ConnectorSync(
+                List.of(new QuickBooksConnector(httpClient, server.getBaseUrl(), 2, 3, 6000),
+                        new XeroConnector(httpClient, server.getBaseUrl(), 2, 3, 6000)),
+                connectionRepository, cursorRepository, copyImportLoader,
+                new RejectedRowsStore(directory.toString(), Duration.ofDays(7), true),
+                new ImportAdmission(4, 1, 20, Duration.ofSeconds(30)), Duration.ofMinutes(5));
+        connectorSync.setClock(Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private void putInvoice(String number, LocalDateTime modified) {
+        server.putQuickBooks("Invoice", number, Map.of(
+                "DocNumber", number,
+                "TxnDate", "2024-04-01",
+                "DueDate", "2099-05-01",
+                "CustomerRef", Map.of("name", "Acme"),
+                "TotalAmt", 100.00,
+                "Balance", 40.00,
+                "CurrencyRef", Map.of("value", "USD")), modified);
+    }
+
+    private List<String> loadedNumbers(int load) {
+        return loaded.get(load).lines().skip(1).map(line -> line.substring(0, line.indexOf(','))).toList();
+    }
+
+    @Test
+    void sync_ShouldFetchOnlyRecordsChangedSinceCursor() {
+        for (int i = 1; i <= 5; i++) {
+            putInvoice("INV-" + i, MODIFIED.plusMinutes(i));
+        }
+        // Modified within the settle time, so left to the next sync
+        putInvoice("INV-6", NOW.minusMinutes(1));
+
+        ImportResultDto first = connectorSync.sync(1L, "quickbooks");
+
+        assertEquals("COMPLETED", first.getStatus());
+        assertEquals(5, first.getTotalRecords());
+        assertEquals(List.of("INV-1", "INV-2", "INV-3", "INV-4", "INV-5"), loadedNumbers(0));
+        assertTrue(loaded.get(0).lines().skip(1).allMatch(line -> line.endsWith(",PARTIALLY_PAID")));
+        assertEquals(MODIFIED.plusMinutes(5), cursors.get("QUICKBOOKS:Invoice").getWatermark());
+
+        putInvoice("INV-2", MODIFIED.plusDays(1));
+        connectorSync.setClock(Clock.fixed(NOW.plusHours(1).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        ImportResultDto second = connectorSync.sync(1L, "QUICKBOOKS");
+
+        // The record at the watermark is fetched again and left unchanged by the upsert
+        assertEquals(List.of("INV-5", "INV-2", "INV-6"), loadedNumbers(1));
+        assertEquals(3, second.getTotalRecords());
+        assertEquals(NOW.minusMinutes(1), cursors.get("QUICKBOOKS:Invoice").getWatermark());
+    }
+
+    @Test
+    void sync_ShouldStreamPagesInOrderAndRetryWhenThrottled() {
+        for (int i = 1; i <= 7; i++) {
+            server.putXeroInvoice("id-" + i, Map.ofEntries(
+                    Map.entry("InvoiceNumber", "X-" + i),
+                    Map.entry("Type", i % 2 == 0 ? "ACCPAY" : "ACCREC"),
+                    Map.entry("Contact", Map.of("Name", "Globex")),
+                    Map.entry("DateString", "2024-04-01T00:00:00"),
+                    Map.entry("DueDateString", "2024-05-01T00:00:00"),
+                    Map.entry("SubTotal", 90),
+                    Map.entry("TotalTax", 10),
+                    Map.entry("Total", 100),
+                    Map.entry("CurrencyRate", 0.5),
+                    Map.entry("CurrencyCode", "EUR"),
+                    Map.entry("Status", "PAID")), MODIFIED.minusMinutes(i));
+        }
+        server.throttle(2);
+
+        ImportResultDto result = connectorSync.sync(1L, "XERO");
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(List.of("X-7", "X-6", "X-5", "X-4", "X-3", "X-2", "X-1"), loadedNumbers(0));
+        assertEquals("X-6,PURCHASE,Globex,,2024-04-01,2024-05-01,90,10,100,EUR,200.00,PAID", loaded.get(0).lines().skip(2).findFirst().orElseThrow());
+        // 2 throttled, 1 count, 4 pages and 1 count after
+        assertEquals(8, server.getRequestCount());
+        assertEquals(MODIFIED.minusMinutes(1), cursors.get("XERO:Invoices").getWatermark());
+    }
+
+    @Test
+    void sync_ShouldMoveCursorOnlyToFirstPageWhenRecordsChangeMidSync() {
+        for (int i = 1; i <= 6; i++) {
+            putInvoice("INV-" + i, MODIFIED.plusMinutes(i));
+        }
+        // Once the count and the 3 pages are fetched, an older invoice is modified and leaves the window
+        server.onRequest(request -> {
+            if (request == 5) {
+                putInvoice("INV-1", NOW.minusMinutes(1));
+            }
+        });
+
+        connectorSync.sync(1L, "QUICKBOOKS");
+
+        assertEquals(MODIFIED.plusMinutes(2), cursors.get("QUICKBOOKS:Invoice").getWatermark());
+    }
+
+    @Test
+    void sync_ShouldKeepCursorWhenFeedFails() {
+        putInvoice("INV-1", MODIFIED);
+        server.putQuickBooks("Bill", "9", Map.of(), MODIFIED);
+        server.throttle(100);
+
+        ImportResultDto result = connectorSync.sync(1L, "QUICKBOOKS");
+
+        assertEquals("FAILED", result.getStatus());
+        assertTrue(result.getErrors().get(0).startsWith("Failed to sync QUICKBOOKS Invoice: "));
+        assertTrue(cursors.isEmpty());
+        verifyNoInteractions(copyImportLoader);
+    }
+}
@@ -0,0 +1,139 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CopyImportLoader and its table definitions.
+ */
+public class CopyImportLoaderTest {
+
+    @Test
+    void writeStagingRows_ShouldNumberRecordsAndWriteMissingColumnsAsNull() throws IOException {
+        String csv = "amount,description,notes\n" +
+                "100.50,\"Rent, March\",\n" +
+                "-20,\"Said \"\"hi\"\"\"\n";
+        StringBuilder out = new StringBuilder();
+
+        try (CSVParser parser = new CSVParser(new StringReader(csv), CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+            long written = CopyImportLoader.writeStagingRows(parser, List.of("amount", "description", "notes", "category"), out,
+                    new ImportProgress(csv.length()));
+
+            assertEquals(2, written);
+        }
+        // Empty values are quoted, so COPY reads them as empty strings rather than NULL
+        assertEquals("\"1\",\"100.50\",\"Rent, March\",\"\",\n" +
+                "\"2\",\"-20\",\"Said \"\"hi\"\"\",,\n", out.toString());
+    }
+
+    @Test
+    void missingColumns_ShouldListRequiredColumnsAbsentFromHeader() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.ACCOUNTS_RECEIVABLE);
+
+        List<String> missing = table.missingColumns(List.of("customer_name", "amount", "currency_code",
+                "invoice_date", "notes"));
+
+        assertEquals(List.of("due_date", "invoice_number", "status"), missing);
+    }
+
+    @Test
+    void forType_ShouldStageEveryColumnTheRowByRowImportReads() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.CASH_TRANSACTIONS);
+
+        assertEquals("transactions_id_seq", table.getSequenceName());
+        assertEquals(List.of("transaction_date", "amount", "description", "currency_code", "transaction_type",
+                "reference_number", "category", "notes", "exchange_rate", "amount_base_currency", "cash_account_id",
+                "cash_account_number"), table.getStagedColumns());
+        assertTrue(table.createCheckedSql().contains("LEFT JOIN cash_accounts ca ON ca.id = (CASE WHEN"));
+        assertTrue(table.createCheckedSql().contains(" AND ca.company_id = ?"));
+        // Cash account IDs and account numbers are both looked up among the company's cash accounts only
+        assertEquals(2, table.getCompanyParameters());
+    }
+
+    @Test
+    void createCheckedSql_ShouldRecordKindOfErrorOfEveryCheckAlongsideItsMessage() {
+        String sql = CopyImportTable.forType(ImportType.CASH_TRANSACTIONS).createCheckedSql();
+
+        assertTrue(sql.contains("WHEN s.transaction_date IS NULL THEN 'Missing value for column transaction_date'"));
+        assertTrue(sql.contains("WHEN s.transaction_date IS NULL THEN 'MISSING_VALUE'"));
+        assertTrue(sql.contains("THEN 'Cash account not found with id: ' || s.cash_account_id"));
+        assertTrue(sql.contains("ca.id IS NULL THEN 'UNKNOWN_REFERENCE'"));
+        assertTrue(sql.contains(" END AS error, CASE WHEN "));
+        assertTrue(sql.contains(" END AS error_type"));
+    }
+
+    @Test
+    void mergeSql_ShouldDrawOneSpareSequenceBlock() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.INVENTORY);
+
+        String sql = table.mergeSql(101, 50);
+
+        assertTrue(sql.contains("generate_series(1, 4)"));
+        assertTrue(sql.contains("b.hi - 49 + c.rn % 50"));
+        assertTrue(sql.startsWith("WITH valid AS"));
+    }
+
+    @Test
+    void mergeSql_ShouldKeepFirstRowOfEachKeyAndIgnoreConflictsWhenSkipping() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.ACCOUNTS_RECEIVABLE);
+
+        String sql = table.mergeSql(10, 50, ImportMode.SKIP_EXISTING);
+
+        assertTrue(sql.contains("PARTITION BY c.invoice_number ORDER BY c.record_number)"));
+        assertTrue(sql.contains("ON CONFLICT (company_id, invoice_number) DO NOTHING"));
+        assertTrue(sql.endsWith("FROM merged"));
+    }
+
+    @Test
+    void mergeSql_ShouldKeepLastRowOfEachKeyAndUpdateOnlyChangedRowsWhenUpserting() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.INVOICES);
+
+        String sql = table.mergeSql(10, 50, ImportMode.UPSERT);
+
+        assertTrue(sql.contains("ORDER BY c.record_number DESC"));
+        assertTrue(sql.contains("ON CONFLICT (company_id, invoice_number, invoice_type) DO UPDATE SET contact_name = EXCLUDED.contact_name"));
+        assertFalse(sql.contains("invoice_number = EXCLUDED.invoice_number"));
+        assertTrue(sql.contains("IS DISTINCT FROM"));
+    }
+
+    @Test
+    void mergeSql_ShouldIgnoreConflictsWithoutDroppingRowsWhenAppending() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.ACCOUNTS_RECEIVABLE);
+
+        String sql = table.mergeSql(10, 50, ImportMode.APPEND);
+
+        assertFalse(sql.contains("PARTITION BY"));
+        assertTrue(sql.contains("ON CONFLICT (company_id, invoice_number) DO NOTHING"));
+        assertTrue(sql.endsWith("FROM merged"));
+    }
+
+    @Test
+    void duplicateKeysSql_ShouldFailRowsWhoseKeyIsInLedgerOrEarlierInFile() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.INVOICES);
+
+        String sql = table.duplicateKeysSql();
+
+        assertTrue(sql.startsWith("UPDATE import_checked c SET error = 'Duplicate key (invoice_number, invoice_type)"));
+        assertTrue(sql.contains("FROM invoices t WHERE t.company_id = ? AND t.invoice_number = c.invoice_number AND t.invoice_type = c.invoice_type"));
+        assertTrue(sql.contains("e.record_number < c.record_number"));
+        assertTrue(sql.contains("error_type = 'DUPLICATE_KEY'"));
+        assertThrows(IllegalStateException.class, () -> CopyImportTable.forType(ImportType.INVENTORY).duplicateKeysSql());
+    }
+
+    @Test
+    void mergeSql_ShouldRefuseToDeduplicateTableWithoutNaturalKey() {
+        CopyImportTable table = CopyImportTable.forType(ImportType.INVENTORY);
+
+        assertFalse(table.hasNaturalKey());
+        assertThrows(IllegalStateException.class, () -> table.mergeSql(10, 50, ImportMode.SKIP_EXISTING));
+    }
+}
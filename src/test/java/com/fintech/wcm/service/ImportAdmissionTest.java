@@ -0,0 +1,141 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.config.PoolRoutingDataSource;
+import com.fintech.wcm.config.PoolRoutingDataSource.Pool;
+import com.fintech.wcm.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImportAdmission.
+ */
+public class ImportAdmissionTest {
+
+    /**
+     * Holds the imports it is given until told to run them.
+     */
+    private static final class HeldExecutor implements Executor {
+
+        private final List<Runnable> held = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            held.add(command);
+        }
+
+        void runNext() {
+            held.remove(0).run();
+        }
+    }
+
+    @Test
+    void run_ShouldBorrowFromTheImportPool() {
+        ImportAdmission admission = new ImportAdmission(2, 1, 10, Duration.ofSeconds(1));
+
+        Pool pool = admission.run(1L, PoolRoutingDataSource::currentPool);
+
+        assertEquals(Pool.IMPORT, pool);
+        assertEquals(Pool.INTERACTIVE, PoolRoutingDataSource.currentPool());
+        assertEquals(0, admission.getStatistics().getRunning());
+        assertEquals(1, admission.getStatistics().getAdmitted());
+    }
+
+    @Test
+    void submit_ShouldPassOverCompaniesAtTheirCap() {
+        ImportAdmission admission = new ImportAdmission(2, 1, 10, Duration.ofSeconds(1));
+        HeldExecutor executor = new HeldExecutor();
+        List<String> ran = new ArrayList<>();
+
+        ImportAdmission.Ticket first = admission.submit(1L, executor, () -> ran.add("1a"));
+        ImportAdmission.Ticket second = admission.submit(1L, executor, () -> ran.add("1b"));
+        ImportAdmission.Ticket other = admission.submit(2L, executor, () -> ran.add("2a"));
+        ImportAdmission.Ticket third = admission.submit(3L, executor, () -> ran.add("3a"));
+
+        // Company 2 goes ahead of company 1, which is at its cap; then both places are taken
+        assertEquals(0, first.getPosition());
+        assertEquals(1, second.getPosition());
+        assertEquals(0, other.getPosition());
+        assertEquals(2, third.getPosition());
+        assertEquals(2, executor.held.size());
+
+        executor.runNext();
+
+        // The first in the queue takes the place freed
+        assertEquals(List.of("1a"), ran);
+        assertEquals(0, second.getPosition());
+        assertEquals(1, third.getPosition());
+        assertEquals(2, executor.held.size());
+        assertEquals(1, admission.getStatistics().getQueued());
+    }
+
+    @Test
+    void withdraw_ShouldOnlyTakeQueuedImportsOutOfTheQueue() {
+        ImportAdmission admission = new ImportAdmission(1, 1, 10, Duration.ofSeconds(1));
+        HeldExecutor executor = new HeldExecutor();
+
+        ImportAdmission.Ticket running = admission.submit(1L, executor, () -> { });
+        ImportAdmission.Ticket queued = admission.submit(2L, executor, () -> { });
+
+        assertFalse(running.withdraw());
+        assertTrue(queued.withdraw());
+        assertEquals(0, admission.getStatistics().getQueued());
+
+        executor.runNext();
+
+        assertTrue(executor.held.isEmpty());
+        assertEquals(0, admission.getStatistics().getRunning());
+    }
+
+    @Test
+    void submit_ShouldTurnAwayImportsWhenTheQueueIsFull() {
+        ImportAdmission admission = new ImportAdmission(1, 1, 1, Duration.ofSeconds(1));
+        HeldExecutor executor = new HeldExecutor();
+        admission.submit(1L, executor, () -> { });
+        admission.submit(2L, executor, () -> { });
+
+        assertThrows(RejectedExecutionException.class, () -> admission.submit(3L, executor, () -> { }));
+        assertThrows(ServiceUnavailableException.class, () -> admission.run(3L, () -> "never"));
+        assertEquals(2, admission.getStatistics().getRejected());
+    }
+
+    @Test
+    void run_ShouldGiveUpWhenNotAdmittedInTime() {
+        ImportAdmission admission = new ImportAdmission(2, 1, 10, Duration.ofMillis(50));
+        HeldExecutor executor = new HeldExecutor();
+        admission.submit(1L, executor, () -> { });
+
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                () -> admission.run(1L, () -> "never"));
+
+        assertTrue(e.getMessage().contains("running"));
+        assertEquals(1, admission.getStatistics().getTimedOut());
+        assertEquals(0, admission.getStatistics().getQueued());
+        // Other companies still get in
+        assertEquals("ran", admission.run(2L, () -> "ran"));
+    }
+
+    @Test
+    void run_ShouldWaitForAPlaceToFreeUp() throws Exception {
+        ImportAdmission admission = new ImportAdmission(1, 1, 10, Duration.ofSeconds(5));
+        HeldExecutor executor = new HeldExecutor();
+        admission.submit(1L, executor, () -> { });
+
+        Thread waiting = Thread.ofVirtual().start(() -> admission.run(2L, null, () -> "ran"));
+        while (admission.getStatistics().getQueued() == 0) {
+            Thread.sleep(1);
+        }
+        executor.runNext();
+        waiting.join(5000);
+
+        assertFalse(waiting.isAlive());
+        assertEquals(2, admission.getStatistics().getAdmitted());
+        assertEquals(0, admission.getStatistics().getRunning());
+    }
+}
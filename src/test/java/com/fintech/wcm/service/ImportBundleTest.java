@@ -0,0 +1,100 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.ImportType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImportBundle.
+ */
+public class ImportBundleTest {
+
+    private static ByteArrayInputStream zip(Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    @Test
+    void typeOf_ShouldMatchFileNamesToImportTypes() {
+        assertEquals(ImportType.CASH_ACCOUNTS, ImportBundle.typeOf("september/Cash-Accounts.CSV"));
+        assertEquals(ImportType.ACCOUNTS_RECEIVABLE, ImportBundle.typeOf("accounts receivable.csv"));
+        assertEquals(ImportType.CASH_TRANSACTIONS, ImportBundle.typeOf("transactions.csv"));
+        assertEquals(ImportType.ACCOUNTS_PAYABLE, ImportBundle.typeOf("ap.csv"));
+        assertNull(ImportBundle.typeOf("invoices.xlsx"));
+        assertNull(ImportBundle.typeOf("readme.csv"));
+    }
+
+    @Test
+    void stages_ShouldImportCashAccountsBeforeTheTransactionsReferringToThem() {
+        List<List<ImportType>> stages = ImportBundle.stages(EnumSet.allOf(ImportType.class));
+
+        assertEquals(List.of(
+                List.of(ImportType.CASH_ACCOUNTS, ImportType.INVOICES, ImportType.ACCOUNTS_RECEIVABLE,
+                        ImportType.ACCOUNTS_PAYABLE, ImportType.INVENTORY),
+                List.of(ImportType.CASH_TRANSACTIONS)), stages);
+    }
+
+    @Test
+    void stages_ShouldNotWaitForTypesMissingFromTheBundle() {
+        List<List<ImportType>> stages = ImportBundle.stages(EnumSet.of(ImportType.CASH_TRANSACTIONS, ImportType.INVENTORY));
+
+        assertEquals(List.of(List.of(ImportType.CASH_TRANSACTIONS, ImportType.INVENTORY)), stages);
+    }
+
+    @Test
+    void extract_ShouldExtractFilesOfImportTypesAndDeleteThemWhenClosed() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("close/cash_accounts.csv", "account_name\nOperating\n");
+        entries.put("close/invoices.csv", "invoice_number\nINV-1\n");
+        entries.put("close/notes.txt", "ignore me");
+        entries.put("__MACOSX/close/._invoices.csv", "resource fork");
+
+        Path path;
+        try (ImportBundle bundle = ImportBundle.extract(zip(entries))) {
+            assertEquals(EnumSet.of(ImportType.CASH_ACCOUNTS, ImportType.INVOICES), bundle.getFiles().keySet());
+            ImportBundle.BundleFile invoices = bundle.getFiles().get(ImportType.INVOICES);
+            assertEquals("close/invoices.csv", invoices.name());
+            assertEquals("invoice_number\nINV-1\n", Files.readString(invoices.path()));
+            assertEquals(List.of("close/notes.txt"), bundle.getIgnored());
+            path = invoices.path();
+        }
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void extract_ShouldRefuseBundlesItCannotImport() throws IOException {
+        BadRequestException twice = assertThrows(BadRequestException.class, () -> ImportBundle.extract(zip(Map.of(
+                "invoices.csv", "invoice_number\n", "2024/Invoices.csv", "invoice_number\n"))));
+        assertTrue(twice.getMessage().startsWith("The bundle holds two files of invoices"));
+
+        assertThrows(BadRequestException.class, () -> ImportBundle.extract(zip(Map.of("notes.txt", "nothing to import"))));
+        assertThrows(BadRequestException.class,
+                () -> ImportBundle.extract(new ByteArrayInputStream("not a zip".getBytes(StandardCharsets.UTF_8))));
+
+        BadRequestException tooLarge = assertThrows(BadRequestException.class,
+                () -> ImportBundle.extract(zip(Map.of("inventory.csv", "x".repeat(1000))), 100));
+        assertEquals("The bundle extracts to more than 100 bytes", tooLarge.getMessage());
+    }
+}
@@ -0,0 +1,138 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportJobDto;
+import com.fintech.wcm.model.ImportJob;
+import com.fintech.wcm.model.ImportJob.ImportJobStatus;
+import com.fintech.wcm.model.ImportMode;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.repository.CompanyRepository;
+import com.fintech.wcm.repository.ImportJobRepository;
+import com.fintech.wcm.service.impl.ImportJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ImportJobService implementation.
+ */
+public class ImportJobServiceTest {
+
+    @TempDir
+    private Path storageDirectory;
+
+    private ImportJobRepository importJobRepository;
+    private CompanyRepository companyRepository;
+    private ImportAdmission importAdmission;
+    private ImportJobServiceImpl importJobService;
+
+    @BeforeEach
+    void setUp() {
+        importJobRepository = mock(ImportJobRepository.class);
+        companyRepository = mock(CompanyRepository.class);
+        importAdmission = mock(ImportAdmission.class);
+        ImportScheduler importScheduler = mock(ImportScheduler.class);
+        when(importAdmission.getMaxConcurrent()).thenReturn(2);
+        when(importScheduler.getNode()).thenReturn("node-a");
+        when(importJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(importJobRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        importJobService = new ImportJobServiceImpl(importJobRepository, companyRepository, mock(DataImportService.class),
+                importAdmission, importScheduler, mock(PlatformTransactionManager.class), storageDirectory.toString(),
+                Duration.ofMinutes(2), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(importJobService, "shutdown");
+    }
+
+    private ImportJob job(String id, String node, ImportJobStatus status, String storedPath) {
+        ImportJob job = new ImportJob();
+        job.setId(id);
+        job.setCompanyId(1L);
+        job.setImportType(ImportType.INVOICES);
+        job.setMode(ImportMode.APPEND);
+        job.setStatus(status);
+        job.setFileName("invoices.csv");
+        job.setStoredPath(storedPath);
+        job.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0));
+        job.setLeaseOwner(node);
+        return job;
+    }
+
+    @Test
+    void resumeInterruptedJobs_ShouldClaimJobOfDeadNodeAndFailItWhenItsFileIsGone() {
+        ImportJob orphaned = job("job-1", "node-b", ImportJobStatus.RUNNING, storageDirectory.resolve("gone.csv").toString());
+        when(importJobRepository.lockOrphaned()).thenReturn(List.of(orphaned));
+
+        importJobService.resumeInterruptedJobs();
+
+        verify(importJobRepository).lease("node-a", List.of("job-1"), 120);
+        ArgumentCaptor<ImportJob> saved = ArgumentCaptor.forClass(ImportJob.class);
+        verify(importJobRepository).save(saved.capture());
+        assertEquals(ImportJobStatus.FAILED, saved.getValue().getStatus());
+        assertEquals("node-a", saved.getValue().getLeaseOwner());
+        verify(importAdmission, never()).submit(any(), any(), any());
+    }
+
+    @Test
+    void cancel_ShouldOnlyRequestCancellationOfJobHeldByAnotherNode() {
+        ImportJob running = job("job-1", "node-b", ImportJobStatus.RUNNING, "/imports/job-1.csv");
+        when(importJobRepository.findById("job-1")).thenReturn(Optional.of(running));
+
+        ImportJobDto dto = importJobService.cancel("job-1");
+
+        verify(importJobRepository).requestCancel("job-1");
+        verify(importJobRepository, never()).save(any());
+        assertEquals(ImportJobStatus.RUNNING, dto.getStatus());
+        assertEquals("node-b", dto.getNode());
+        assertTrue(dto.isCancelRequested());
+    }
+
+    @Test
+    void poll_ShouldRenewLeasesAndCancelQueuedJobWhoseCancellationWasRequestedElsewhere() {
+        ImportAdmission.Ticket ticket = mock(ImportAdmission.Ticket.class);
+        when(ticket.withdraw()).thenReturn(true);
+        when(importAdmission.submit(eq(1L), any(), any())).thenReturn(ticket);
+        when(companyRepository.existsById(1L)).thenReturn(true);
+        ImportJobDto submitted = importJobService.submit(1L, ImportType.INVOICES, false, ImportMode.APPEND,
+                new MockMultipartFile("file", "invoices.csv", "text/csv", "invoice_number\nINV-1\n".getBytes()));
+        String jobId = submitted.getId();
+        ImportJob queued = job(jobId, "node-a", ImportJobStatus.QUEUED, storageDirectory.resolve(jobId + ".csv").toString());
+        queued.setCancelRequested(true);
+        when(importJobRepository.findCancelRequested(Set.of(jobId))).thenReturn(List.of(jobId));
+        when(importJobRepository.findById(jobId)).thenReturn(Optional.of(queued));
+
+        importJobService.poll();
+
+        verify(importJobRepository).lease("node-a", Set.of(jobId), 120);
+        assertEquals(ImportJobStatus.CANCELLED, queued.getStatus());
+        assertNull(queued.getStoredPath());
+        assertFalse(storageDirectory.resolve(jobId + ".csv").toFile().exists());
+        // No longer held, so the next poll renews nothing: the leases taken are the submit's and the first poll's
+        importJobService.poll();
+        verify(importJobRepository, times(2)).lease(eq("node-a"), anyCollection(), anyLong());
+    }
+}
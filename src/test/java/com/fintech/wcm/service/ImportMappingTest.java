@@ -0,0 +1,163 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.exception.InvalidRowException;
+import com.fintech.wcm.model.CashAccount;
+import com.fintech.wcm.model.Company;
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Invoice;
+import com.fintech.wcm.model.Transaction;
+import com.fintech.wcm.util.CsvHeader;
+import com.fintech.wcm.util.CsvRow;
+import com.fintech.wcm.util.CsvRowDecoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImportMapping.
+ */
+public class ImportMappingTest {
+
+    private final Company company = new Company();
+
+    private <T> List<Object> map(ImportType importType, Map<String, List<String>> aliases, String csv) throws IOException {
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader(csv));
+        CsvHeader header = decoder.readHeader();
+        Function<CsvRow, T> mapper = ImportMapping.<T>forType(importType).bind(header, aliases, company);
+        List<Object> mapped = new ArrayList<>();
+        while (decoder.next()) {
+            try {
+                mapped.add(mapper.apply(decoder));
+            } catch (RuntimeException e) {
+                mapped.add(e);
+            }
+        }
+        return mapped;
+    }
+
+    @Test
+    void bind_ShouldReadColumnsByPositionAndApplyDefaults() throws IOException {
+        List<Object> mapped = map(ImportType.INVOICES, Map.of(),
+                "currency_code,total_amount,subtotal,due_date,issue_date,contact_name,invoice_type,invoice_number,status,exchange_rate\n" +
+                "EUR,110.00,100.00,2024-03-31,2024-03-01,Acme,sales,INV-1,unknown,2\n");
+
+        Invoice invoice = (Invoice) mapped.get(0);
+        assertSame(company, invoice.getCompany());
+        assertEquals("INV-1", invoice.getInvoiceNumber());
+        assertEquals(Invoice.InvoiceType.SALES, invoice.getInvoiceType());
+        assertEquals(LocalDate.of(2024, 3, 31), invoice.getDueDate());
+        assertEquals(BigDecimal.ZERO, invoice.getTaxAmount());
+        assertEquals(Invoice.InvoiceStatus.SENT, invoice.getStatus());
+        assertEquals(new BigDecimal("220.00"), invoice.getTotalAmountBaseCurrency());
+    }
+
+    @Test
+    void bind_ShouldFailRowsWithInvalidValues() throws IOException {
+        List<Object> mapped = map(ImportType.CASH_TRANSACTIONS, Map.of(),
+                "transaction_date,amount,description,transaction_type,currency_code,cash_account_id\n" +
+                "2024-13-01,1,Rent,EXPENSE,USD,\n" +
+                "2024-01-01,1,Rent,sideways,USD,\n" +
+                "2024-01-01,1,Rent,income,USD,7\n");
+
+        assertEquals("Invalid date format: 2024-13-01. Expected format: yyyy-MM-dd",
+                assertInstanceOf(BadRequestException.class, mapped.get(0)).getMessage());
+        assertEquals("Invalid transaction type: sideways",
+                assertInstanceOf(BadRequestException.class, mapped.get(1)).getMessage());
+        Transaction transaction = (Transaction) mapped.get(2);
+        assertEquals(7L, transaction.getCashAccount().getId());
+        assertEquals(BigDecimal.ONE, transaction.getAmountBaseCurrency());
+    }
+
+    @Test
+    void bind_ShouldReferToCashAccountsByNumberUnlessGivenTheirId() throws IOException {
+        List<Object> mapped = map(ImportType.CASH_TRANSACTIONS, Map.of(),
+                "transaction_date,amount,description,transaction_type,currency_code,cash_account_id,cash_account_number,reference_number\n" +
+                "2024-01-01,1,Rent,EXPENSE,USD,, 1001 , \n" +
+                "2024-01-01,1,Rent,EXPENSE,USD,7,1001,REF-7\n");
+
+        CashAccount byNumber = ((Transaction) mapped.get(0)).getCashAccount();
+        assertNull(byNumber.getId());
+        assertEquals("1001", byNumber.getAccountNumber());
+        CashAccount byId = ((Transaction) mapped.get(1)).getCashAccount();
+        assertEquals(7L, byId.getId());
+        assertNull(byId.getAccountNumber());
+        // A blank natural key column is stored as null, as the bulk import stores it
+        assertNull(((Transaction) mapped.get(0)).getReferenceNumber());
+        assertEquals("REF-7", ((Transaction) mapped.get(1)).getReferenceNumber());
+    }
+
+    @Test
+    void bind_ShouldMapCashAccounts() throws IOException {
+        List<Object> mapped = map(ImportType.CASH_ACCOUNTS, Map.of(),
+                "account_name,account_number,account_type,balance,currency_code,exchange_rate\n" +
+                "Operating,1001,checking,2500.00,EUR,1.1\n" +
+                "Reserve,1002,piggy bank,10,EUR,\n");
+
+        CashAccount cashAccount = (CashAccount) mapped.get(0);
+        assertSame(company, cashAccount.getCompany());
+        assertEquals(CashAccount.AccountType.CHECKING, cashAccount.getAccountType());
+        assertTrue(cashAccount.isActive());
+        assertEquals(new BigDecimal("2750.000"), cashAccount.getBalanceBaseCurrency());
+        assertEquals("Invalid account type: piggy bank",
+                assertInstanceOf(BadRequestException.class, mapped.get(1)).getMessage());
+    }
+
+    @Test
+    void bind_ShouldFailEveryRowWhenRequiredColumnIsMissing() throws IOException {
+        List<Object> mapped = map(ImportType.CASH_TRANSACTIONS, Map.of(),
+                "transaction_date,amount,transaction_type,currency_code\n2024-01-01,1,INCOME,USD\n");
+
+        InvalidRowException e = assertInstanceOf(InvalidRowException.class, mapped.get(0));
+        assertEquals("Mapping for description not found, expected one of [transaction_date, amount, transaction_type, currency_code]",
+                e.getMessage());
+        assertEquals(ImportErrorType.MISSING_COLUMN, e.getErrorType());
+    }
+
+    @Test
+    void bind_ShouldRejectRowsWithTheKindOfErrorFound() throws IOException {
+        List<Object> mapped = map(ImportType.CASH_TRANSACTIONS, Map.of(),
+                "transaction_date,amount,description,transaction_type,currency_code,cash_account_id\n" +
+                "2024-13-01,1,Rent,EXPENSE,USD,\n" +
+                "2024-01-01,ten,Rent,EXPENSE,USD,\n" +
+                "2024-01-01,1,Rent,sideways,USD,\n" +
+                "2024-01-01,1,Rent,EXPENSE,USD,seven\n" +
+                "2024-01-01,1,Rent\n");
+
+        List<ImportErrorType> types = mapped.stream()
+                .map(row -> assertInstanceOf(InvalidRowException.class, row).getErrorType())
+                .toList();
+        assertEquals(List.of(ImportErrorType.INVALID_DATE, ImportErrorType.INVALID_NUMBER, ImportErrorType.INVALID_VALUE,
+                ImportErrorType.INVALID_NUMBER, ImportErrorType.MISSING_VALUE), types);
+        assertEquals("Index for header 'transaction_type' is 3 but the record only has 3 values",
+                ((InvalidRowException) mapped.get(4)).getMessage());
+    }
+
+    @Test
+    void bind_ShouldFindColumnsByAliasIgnoringCase() throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "app.import.header-aliases.cash-transactions.transaction_date", "Booking Date, Value Date",
+                "app.import.header-aliases.cash-transactions.description", "Payee")));
+        Map<String, List<String>> aliases = new ImportHeaderAliases(environment).forType(ImportType.CASH_TRANSACTIONS);
+
+        List<Object> mapped = map(ImportType.CASH_TRANSACTIONS, aliases,
+                "VALUE DATE,amount,payee,transaction_type,currency_code\n2024-01-02,5,Landlord,EXPENSE,USD\n");
+
+        Transaction transaction = (Transaction) mapped.get(0);
+        assertEquals(LocalDate.of(2024, 1, 2), transaction.getTransactionDate());
+        assertEquals("Landlord", transaction.getDescription());
+    }
+}
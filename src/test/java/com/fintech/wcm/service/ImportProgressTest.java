@@ -0,0 +1,49 @@
+package com.fintech.wcm.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImportProgress.
+ */
+public class ImportProgressTest {
+
+    @Test
+    void track_ShouldCountBytesRead() throws IOException {
+        ImportProgress progress = new ImportProgress(10);
+
+        try (InputStream input = progress.track(new ByteArrayInputStream(new byte[10]))) {
+            input.read();
+            input.read(new byte[4]);
+        }
+
+        assertEquals(5, progress.getBytesRead());
+        assertEquals(0.5, progress.getFractionComplete());
+        assertNotNull(progress.getEstimatedRemaining());
+    }
+
+    @Test
+    void getEstimatedRemaining_ShouldBeUnknownWithoutFileSizeOrBeforeReading() {
+        assertNull(new ImportProgress(0).getEstimatedRemaining());
+        assertNull(new ImportProgress(0).getFractionComplete());
+        assertNull(new ImportProgress(100).getEstimatedRemaining());
+    }
+
+    @Test
+    void cancel_ShouldBeSeenByTheImport() {
+        ImportProgress progress = new ImportProgress(100);
+        progress.update(10, 8, 2);
+
+        progress.cancel();
+
+        assertTrue(progress.isCancelled());
+        assertEquals(10, progress.getRowsParsed());
+        assertEquals(8, progress.getRowsWritten());
+        assertEquals(2, progress.getRowsFailed());
+    }
+}
@@ -0,0 +1,97 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.model.CashAccount;
+import com.fintech.wcm.model.ImportType;
+import com.fintech.wcm.model.Transaction;
+import com.fintech.wcm.repository.CashAccountRepository;
+import com.fintech.wcm.repository.CurrencyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ImportReferences.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ImportReferencesTest {
+
+    @Mock
+    private CashAccountRepository cashAccountRepository;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    private Transaction transaction(Long cashAccountId) {
+        Transaction transaction = new Transaction();
+        transaction.setCurrencyCode("USD");
+        if (cashAccountId != null) {
+            CashAccount cashAccount = new CashAccount();
+            cashAccount.setId(cashAccountId);
+            transaction.setCashAccount(cashAccount);
+        }
+        return transaction;
+    }
+
+    @Test
+    void resolve_ShouldLookUpEachCashAccountOnceForTheWholeImport() {
+        CashAccount account = new CashAccount();
+        account.setId(1L);
+        account.setAccountName("Operating");
+        when(cashAccountRepository.findByCompanyIdAndIdIn(eq(1L), any())).thenReturn(List.of(account));
+        ImportReferences.Resolver<Transaction> resolver = new ImportReferences(cashAccountRepository, currencyRepository, false)
+                .forImport(1L, ImportType.CASH_TRANSACTIONS);
+
+        List<Transaction> first = List.of(transaction(1L), transaction(2L), transaction(1L), transaction(null));
+        List<String> errors = resolver.resolve(first);
+        List<String> later = resolver.resolve(List.of(transaction(2L), transaction(1L)));
+
+        assertEquals(Arrays.asList(null, "Cash account not found with id: 2", null, null), errors);
+        assertEquals(Arrays.asList("Cash account not found with id: 2", null), later);
+        assertSame(account, first.get(0).getCashAccount());
+        // The second chunk only holds keys the first already looked up
+        verify(cashAccountRepository, times(1)).findByCompanyIdAndIdIn(anyLong(), any());
+        verify(cashAccountRepository).findByCompanyIdAndIdIn(1L, Set.of(1L, 2L));
+        verifyNoInteractions(currencyRepository);
+    }
+
+    @Test
+    void resolve_ShouldLookUpCashAccountsByNumberAmongTheCompanysOwn() {
+        CashAccount first = new CashAccount();
+        first.setId(3L);
+        first.setAccountNumber("1001");
+        CashAccount repeated = new CashAccount();
+        repeated.setId(9L);
+        repeated.setAccountNumber("1001");
+        when(cashAccountRepository.findByCompanyIdAndAccountNumberIn(eq(1L), any())).thenReturn(List.of(repeated, first));
+        ImportReferences.Resolver<Transaction> resolver = new ImportReferences(cashAccountRepository, currencyRepository, false)
+                .forImport(1L, ImportType.CASH_TRANSACTIONS);
+        Transaction known = transaction(null);
+        known.setCashAccount(new CashAccount());
+        known.getCashAccount().setAccountNumber("1001");
+        Transaction unknown = transaction(null);
+        unknown.setCashAccount(new CashAccount());
+        unknown.getCashAccount().setAccountNumber("2002");
+
+        List<String> errors = resolver.resolve(List.of(known, unknown));
+
+        assertEquals(Arrays.asList(null, "Cash account not found with account number: 2002"), errors);
+        assertSame(first, known.getCashAccount());
+        verify(cashAccountRepository).findByCompanyIdAndAccountNumberIn(1L, Set.of("1001", "2002"));
+        verify(cashAccountRepository, never()).findByCompanyIdAndIdIn(anyLong(), any());
+    }
+}
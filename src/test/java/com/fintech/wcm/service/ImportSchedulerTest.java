@@ -0,0 +1,158 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.exception.BadRequestException;
+import com.fintech.wcm.model.ScheduledImport;
+import com.fintech.wcm.model.ScheduledImportRun;
+import com.fintech.wcm.model.ScheduledImportRun.RunStatus;
+import com.fintech.wcm.repository.ScheduledImportRepository;
+import com.fintech.wcm.repository.ScheduledImportRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ImportScheduler.
+ */
+public class ImportSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0, 5);
+
+    private ScheduledImportRepository scheduledImportRepository;
+    private ScheduledImportRunRepository runRepository;
+    private ImportScheduler scheduler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        scheduledImportRepository = mock(ScheduledImportRepository.class);
+        runRepository = mock(ScheduledImportRunRepository.class);
+        when(scheduledImportRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(runRepository.save(any())).thenAnswer(invocation -> {
+            ScheduledImportRun run = invocation.getArgument(0);
+            if (run.getId() == null) {
+                run.setId(1L);
+            }
+            return run;
+        });
+        when(runRepository.findByScheduledImportIdAndScheduledFor(anyString(), any())).thenReturn(Optional.empty());
+        scheduler = new ImportScheduler(scheduledImportRepository, runRepository, mock(PlatformTransactionManager.class),
+                mock(ObjectProvider.class), "node-a", 2, Duration.ofMinutes(10), true);
+        scheduler.setClock(Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private ScheduledImport scheduledImport(String cron, LocalDateTime nextFireAt) {
+        ScheduledImport scheduledImport = new ScheduledImport();
+        scheduledImport.setId("job-1");
+        scheduledImport.setCompanyId(1L);
+        scheduledImport.setSourceType("QUICKBOOKS");
+        scheduledImport.setCronExpression(cron);
+        scheduledImport.setNextFireAt(nextFireAt);
+        return scheduledImport;
+    }
+
+    @Test
+    void schedule_ShouldStoreNextFireTime() {
+        ScheduledImport scheduledImport = scheduler.schedule(1L, " xero ", "0 0 * * * *");
+
+        assertEquals("XERO", scheduledImport.getSourceType());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 13, 0), scheduledImport.getNextFireAt());
+        assertTrue(scheduledImport.isActive());
+        assertThrows(BadRequestException.class, () -> scheduler.schedule(1L, "XERO", "every hour"));
+    }
+
+    @Test
+    void claim_ShouldCoalesceMissedFireTimesIntoOneRun() {
+        // Due every minute since 11:55; the fire times up to 12:00 were missed
+        ScheduledImport scheduledImport = scheduledImport("0 * * * * *", LocalDateTime.of(2024, 3, 1, 11, 55));
+        when(scheduledImportRepository.currentTimestamp()).thenReturn(NOW);
+        when(scheduledImportRepository.lockDue(2)).thenReturn(List.of(scheduledImport));
+
+        List<ImportScheduler.Claim> claims = scheduler.claim(2);
+
+        assertEquals(1, claims.size());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 0), claims.get(0).fireTime());
+        assertEquals(5, claims.get(0).missedFires());
+        assertEquals("node-a", scheduledImport.getLeaseOwner());
+        assertEquals(NOW.plusMinutes(10), scheduledImport.getLeaseExpiresAt());
+        verify(runRepository).save(argThat(run -> run.getStatus() == RunStatus.RUNNING && run.getMissedFires() == 5));
+    }
+
+    @Test
+    void complete_ShouldReleaseLeaseAndAdvanceToNextFireTime() {
+        LocalDateTime fireTime = LocalDateTime.of(2024, 3, 1, 12, 0);
+        ScheduledImport scheduledImport = scheduledImport("0 * * * * *", fireTime);
+        scheduledImport.setLeaseOwner("node-a");
+        ScheduledImportRun run = new ScheduledImportRun();
+        run.setId(1L);
+        run.setStatus(RunStatus.RUNNING);
+        when(scheduledImportRepository.lockById("job-1")).thenReturn(Optional.of(scheduledImport));
+        when(runRepository.findById(1L)).thenReturn(Optional.of(run));
+
+        scheduler.complete(new ImportScheduler.Claim(scheduledImport, fireTime, 0, 1L), RunStatus.COMPLETED, "done", NOW);
+
+        assertEquals(RunStatus.COMPLETED, run.getStatus());
+        assertEquals(NOW, run.getFinishedAt());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 1), scheduledImport.getNextFireAt());
+        assertEquals(fireTime, scheduledImport.getLastFiredAt());
+        assertNull(scheduledImport.getLeaseOwner());
+    }
+
+    @Test
+    void complete_ShouldLeaveImportAloneWhenAnotherNodeTookItOver() {
+        LocalDateTime fireTime = LocalDateTime.of(2024, 3, 1, 12, 0);
+        ScheduledImport scheduledImport = scheduledImport("0 * * * * *", fireTime);
+        scheduledImport.setLeaseOwner("node-b");
+        when(scheduledImportRepository.lockById("job-1")).thenReturn(Optional.of(scheduledImport));
+
+        scheduler.complete(new ImportScheduler.Claim(scheduledImport, fireTime, 0, 1L), RunStatus.COMPLETED, "done", NOW);
+
+        assertEquals("node-b", scheduledImport.getLeaseOwner());
+        verify(runRepository, never()).save(any());
+        verify(scheduledImportRepository, never()).save(any());
+    }
+
+    @Test
+    void poll_ShouldClaimDueImportsAsOfDatabaseTime() {
+        when(scheduledImportRepository.currentTimestamp()).thenReturn(NOW);
+        when(scheduledImportRepository.lockDue(2)).thenReturn(List.of());
+
+        scheduler.poll();
+
+        verify(scheduledImportRepository).lockDue(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void poll_ShouldClaimNothingWhenSchedulingIsDisabled() {
+        ImportScheduler disabled = new ImportScheduler(scheduledImportRepository, runRepository,
+                mock(PlatformTransactionManager.class), mock(ObjectProvider.class), "node-a", 2, Duration.ofMinutes(10), false);
+        try {
+            disabled.poll();
+        } finally {
+            disabled.shutdown();
+        }
+
+        verify(scheduledImportRepository, never()).currentTimestamp();
+        verify(scheduledImportRepository, never()).lockDue(anyInt());
+    }
+}
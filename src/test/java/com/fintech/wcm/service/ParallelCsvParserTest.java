@@ -0,0 +1,150 @@
+package com.fintech.wcm.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ParallelCsvParser.
+ */
+public class ParallelCsvParserTest {
+
+    @TempDir
+    Path directory;
+
+    private ParallelCsvParser parser;
+
+    @AfterEach
+    void tearDown() {
+        if (parser != null) {
+            parser.shutdown();
+        }
+    }
+
+    @Test
+    void parse_ShouldReportFileWideRecordNumbersInOrder() throws IOException {
+        parser = new ParallelCsvParser(DataSize.ofBytes(0), DataSize.ofBytes(16), 4, true);
+        Path file = writeFile(200, 37);
+        ImportProgress progress = new ImportProgress(Files.size(file));
+        List<ParallelCsvParser.ParsedRow<Integer>> rows = new ArrayList<>();
+
+        parser.parse(file, progress, record -> Integer.parseInt(record.get("amount")), rows::add);
+
+        assertEquals(200, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(i + 1, rows.get(i).recordNumber());
+        }
+        ParallelCsvParser.ParsedRow<Integer> failed = rows.get(36);
+        assertTrue(failed.isFailed());
+        assertEquals("For input string: \"bad\"", failed.error());
+        assertEquals(100, rows.get(99).value());
+        assertEquals(Files.size(file), progress.getBytesRead());
+    }
+
+    @Test
+    void parse_ShouldDeliverEveryRecordOnceWhenUnordered() throws IOException {
+        parser = new ParallelCsvParser(DataSize.ofBytes(0), DataSize.ofBytes(64), 3, false);
+        Path file = writeFile(500, 0);
+        List<ParallelCsvParser.ParsedRow<Integer>> rows = new ArrayList<>();
+
+        parser.parse(file, new ImportProgress(Files.size(file)), record -> Integer.parseInt(record.get("amount")), rows::add);
+
+        rows.sort(Comparator.comparingLong(ParallelCsvParser.ParsedRow::recordNumber));
+        assertEquals(500, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(i + 1, rows.get(i).recordNumber());
+            assertEquals(i + 1, rows.get(i).value());
+        }
+    }
+
+    @Test
+    void parse_ShouldResumeFromEndOffsetOfEarlierRow() throws IOException {
+        parser = new ParallelCsvParser(DataSize.ofMegabytes(16), DataSize.ofBytes(32), 2, true);
+        Path file = directory.resolve("accented.csv");
+        Files.writeString(file, "amount,notes\n1,café\n2,\"naïve\nquote\"\n3,€ sign\n4,plain\n");
+        List<ParallelCsvParser.ParsedRow<String>> rows = new ArrayList<>();
+
+        parser.parse(file, new ImportProgress(Files.size(file)), record -> record.get("notes"), rows::add);
+
+        long afterSecond = rows.get(1).endOffset();
+        assertEquals("amount,notes\n1,café\n2,\"naïve\nquote\"\n".getBytes(StandardCharsets.UTF_8).length, afterSecond);
+        assertEquals(Files.size(file), rows.get(3).endOffset());
+
+        List<ParallelCsvParser.ParsedRow<String>> resumed = new ArrayList<>();
+        parser.parse(file, afterSecond, 3, new ImportProgress(Files.size(file)), record -> record.get("notes"), resumed::add);
+
+        assertEquals(List.of(3L, 4L), resumed.stream().map(ParallelCsvParser.ParsedRow::recordNumber).toList());
+        assertEquals("€ sign", resumed.get(0).value());
+    }
+
+    @Test
+    void parseRows_ShouldDecodeRecordsLikeTheCsvParser() throws IOException {
+        parser = new ParallelCsvParser(DataSize.ofBytes(0), DataSize.ofBytes(16), 4, true);
+        Path file = writeFile(200, 37);
+        List<ParallelCsvParser.ParsedRow<String>> parsed = new ArrayList<>();
+        List<ParallelCsvParser.ParsedRow<String>> decoded = new ArrayList<>();
+
+        parser.parse(file, new ImportProgress(Files.size(file)),
+                record -> Integer.parseInt(record.get("amount")) + ":" + record.get("notes"), parsed::add);
+        parser.parseRows(file, 0, 1, new ImportProgress(Files.size(file)), header -> {
+            int amount = header.indexOf("amount");
+            int notes = header.indexOf("notes");
+            return row -> row.getInt(amount) + ":" + row.get(notes);
+        }, decoded::add);
+
+        assertEquals(parsed, decoded);
+    }
+
+    @Test
+    void parseRows_ShouldFallBackToCsvParserForRepeatedColumnNames() throws IOException {
+        parser = new ParallelCsvParser(DataSize.ofMegabytes(16), DataSize.ofBytes(32), 2, true);
+        Path file = directory.resolve("repeated.csv");
+        Files.writeString(file, "amount,amount\n1,2\n3,4\n");
+        List<ParallelCsvParser.ParsedRow<String>> rows = new ArrayList<>();
+
+        parser.parseRows(file, 0, 1, new ImportProgress(Files.size(file)), header -> {
+            int amount = header.indexOf("amount");
+            return row -> row.get(amount);
+        }, rows::add);
+
+        assertEquals(List.of("2", "4"), rows.stream().map(ParallelCsvParser.ParsedRow::value).toList());
+        assertEquals(Files.size(file), rows.get(1).endOffset());
+    }
+
+    @Test
+    void appliesTo_ShouldRequireThresholdAndMoreThanOneThread() {
+        parser = new ParallelCsvParser(DataSize.ofMegabytes(16), DataSize.ofMegabytes(2), 1, true);
+        assertFalse(parser.appliesTo(DataSize.ofMegabytes(64).toBytes()));
+        parser.shutdown();
+
+        parser = new ParallelCsvParser(DataSize.ofMegabytes(16), DataSize.ofMegabytes(2), 4, true);
+        assertTrue(parser.appliesTo(DataSize.ofMegabytes(16).toBytes()));
+        assertFalse(parser.appliesTo(DataSize.ofMegabytes(15).toBytes()));
+    }
+
+    /**
+     * Writes records whose amount is their record number, with a multi-line note on every
+     * tenth and an unparseable amount on the given record.
+     */
+    private Path writeFile(int records, int badRecord) throws IOException {
+        StringBuilder csv = new StringBuilder("amount,notes\n");
+        for (int i = 1; i <= records; i++) {
+            csv.append(i == badRecord ? "bad" : String.valueOf(i))
+                    .append(i % 10 == 0 ? ",\"line one\nline two\"\n" : ",note\n");
+        }
+        Path file = directory.resolve("records.csv");
+        Files.writeString(file, csv);
+        return file;
+    }
+}
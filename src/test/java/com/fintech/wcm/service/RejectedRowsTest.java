@@ -0,0 +1,102 @@
+package com.fintech.wcm.service;
+
+import com.fintech.wcm.dto.ImportResultDto;
+import com.fintech.wcm.exception.InvalidRowException;
+import com.fintech.wcm.exception.ResourceNotFoundException;
+import com.fintech.wcm.model.ImportErrorType;
+import com.fintech.wcm.model.ImportType;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RejectedRows.
+ */
+public class RejectedRowsTest {
+
+    @TempDir
+    Path directory;
+
+    private RejectedRowsStore store;
+    private ImportResultDto result;
+
+    @BeforeEach
+    void setUp() {
+        store = new RejectedRowsStore(directory.toString(), Duration.ofDays(7), true);
+        result = ImportResultDto.builder().build();
+    }
+
+    @Test
+    void reject_ShouldKeepSampleOfErrorsAndCountAllByType() {
+        try (RejectedRows rejectedRows = store.open(1L, ImportType.CASH_TRANSACTIONS, result)) {
+            for (int i = 1; i <= 250; i++) {
+                if (i % 5 == 0) {
+                    rejectedRows.reject(i, new NumberFormatException("For input string: \"x\""), "x," + i);
+                } else {
+                    rejectedRows.reject(i, ImportErrorType.UNKNOWN_REFERENCE, "Cash account not found with id: " + i, null);
+                }
+            }
+        }
+
+        assertEquals(250, result.getFailedRecords());
+        assertEquals(250, result.getErrorCount());
+        assertEquals(ImportResultDto.MAX_ERRORS, result.getErrors().size());
+        assertEquals("Error processing record 1: Cash account not found with id: 1", result.getErrors().get(0));
+        assertEquals(Map.of(ImportErrorType.UNKNOWN_REFERENCE, 200, ImportErrorType.INVALID_NUMBER, 50), result.getErrorCounts());
+        assertNotNull(result.getRejectedRowsId());
+    }
+
+    @Test
+    void close_ShouldLeaveDownloadableFileOfRejectedRows() throws IOException {
+        try (RejectedRows rejectedRows = store.open(1L, ImportType.INVOICES, result)) {
+            rejectedRows.reject(3, new InvalidRowException(ImportErrorType.INVALID_DATE,
+                            "Invalid date format: 2024-13-01. Expected format: yyyy-MM-dd"),
+                    "INV-1,\"Acme, Inc\",2024-13-01");
+            rejectedRows.reject(7, ImportErrorType.REJECTED_BY_DATABASE, "value too long", null);
+        }
+
+        Path file = store.find(1L, result.getRejectedRowsId());
+        List<CSVRecord> records;
+        try (Reader reader = Files.newBufferedReader(file);
+             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.builder().setHeader().build())) {
+            assertEquals(List.of(RejectedRows.HEADER), parser.getHeaderNames());
+            records = parser.getRecords();
+        }
+        assertEquals(2, records.size());
+        assertEquals(List.of("3", "INVALID_DATE", "Invalid date format: 2024-13-01. Expected format: yyyy-MM-dd",
+                "INV-1,\"Acme, Inc\",2024-13-01"), records.get(0).toList());
+        assertEquals(List.of("7", "REJECTED_BY_DATABASE", "value too long", ""), records.get(1).toList());
+    }
+
+    @Test
+    void close_ShouldNotCreateFileWhenNoRowIsRejected() throws IOException {
+        try (RejectedRows ignored = store.open(1L, ImportType.INVENTORY, result)) {
+            // Every row imported
+        }
+
+        assertNull(result.getRejectedRowsId());
+        assertNull(result.getErrors());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void find_ShouldRejectIdsThatAreNotRejectedRowsFiles() {
+        assertThrows(ResourceNotFoundException.class, () -> store.find(1L, "../../etc/passwd"));
+        assertThrows(ResourceNotFoundException.class, () -> store.find(1L, "3f2504e0-4f89-11d3-9a0c-0305e82c3301"));
+    }
+}
@@ -1,27 +1,50 @@
 package com.fintech.wcm.service;
 
+import com.fintech.wcm.dto.AlertInboxDto;
 import com.fintech.wcm.dto.DashboardSummaryDto;
 import com.fintech.wcm.dto.WorkingCapitalMetricsDto;
+import com.fintech.wcm.model.Alert;
+import com.fintech.wcm.model.AlertInbox;
 import com.fintech.wcm.model.Company;
+import com.fintech.wcm.model.Transaction;
 import com.fintech.wcm.repository.*;
+import com.fintech.wcm.repository.projection.BalanceSheetAggregate;
+import com.fintech.wcm.repository.projection.BatchMetricsRow;
+import com.fintech.wcm.repository.projection.CashMovement;
+import com.fintech.wcm.repository.projection.LedgerEntry;
+import com.fintech.wcm.model.WorkingCapitalSnapshot;
 import com.fintech.wcm.service.impl.WorkingCapitalServiceImpl;
+import com.fintech.wcm.service.impl.WorkingCapitalSnapshotServiceImpl;
 import com.fintech.wcm.util.FinancialCalculator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Unit tests for the WorkingCapitalService implementation.
@@ -32,15 +55,15 @@ public class WorkingCapitalServiceTest {
     @Mock
     private CompanyRepository companyRepository;
     
-    @Mock
-    private CashAccountRepository cashAccountRepository;
-    
     @Mock
     private AccountsReceivableRepository accountsReceivableRepository;
     
     @Mock
     private AccountsPayableRepository accountsPayableRepository;
     
+    @Mock
+    private InvoiceRepository invoiceRepository;
+    
     @Mock
     private InventoryRepository inventoryRepository;
     
@@ -48,13 +71,16 @@ public class WorkingCapitalServiceTest {
     private ShortTermLiabilityRepository shortTermLiabilityRepository;
     
     @Mock
-    private InvoiceRepository invoiceRepository;
+    private TransactionRepository transactionRepository;
     
     @Mock
-    private TransactionRepository transactionRepository;
+    private AlertInboxService alertInboxService;
+    
+    @Mock
+    private WorkingCapitalSnapshotRepository snapshotRepository;
     
     @Mock
-    private AlertRepository alertRepository;
+    private PlatformTransactionManager transactionManager;
     
     @Mock
     private AlertService alertService;
@@ -62,40 +88,67 @@ public class WorkingCapitalServiceTest {
     @Mock
     private FinancialCalculator financialCalculator;
     
-    @InjectMocks
     private WorkingCapitalServiceImpl workingCapitalService;
     
-    private Company testCompany;
     private final Long companyId = 1L;
     
     @BeforeEach
     void setUp() {
-        testCompany = new Company();
-        testCompany.setId(companyId);
-        testCompany.setName("Test Company");
-        testCompany.setType(Company.CompanyType.SME);
-        testCompany.setCurrencyCode("USD");
-        
-        when(companyRepository.findById(companyId)).thenReturn(Optional.of(testCompany));
+        MetricsContextFactory metricsContextFactory = new MetricsContextFactory(
+                companyRepository, accountsReceivableRepository, accountsPayableRepository);
+        WorkingCapitalTimeSeries workingCapitalTimeSeries = new WorkingCapitalTimeSeries(companyRepository,
+                accountsReceivableRepository, accountsPayableRepository, invoiceRepository, inventoryRepository,
+                shortTermLiabilityRepository, transactionRepository);
+        WorkingCapitalSnapshotService snapshotService = new WorkingCapitalSnapshotServiceImpl(companyRepository,
+                snapshotRepository, workingCapitalTimeSeries, new FinancialCalculator(), transactionManager);
+        workingCapitalService = new WorkingCapitalServiceImpl(companyRepository,
+                accountsReceivableRepository, accountsPayableRepository,
+                transactionRepository, alertService, alertInboxService, metricsContextFactory,
+                snapshotService, financialCalculator, transactionManager);
+        ReflectionTestUtils.setField(workingCapitalService, "dashboardSectionTimeout", Duration.ofSeconds(5));
+    }
+    
+    /**
+     * Builds a balance sheet aggregate for the test company.
+     */
+    private BalanceSheetAggregate balanceSheet(String cash, String receivables, String inventory,
+                                               String payables, String shortTermDebt) {
+        BalanceSheetAggregate aggregate = mock(BalanceSheetAggregate.class, withSettings().strictness(Strictness.LENIENT));
+        when(aggregate.getCompanyId()).thenReturn(companyId);
+        when(aggregate.getCompanyName()).thenReturn("Test Company");
+        when(aggregate.getCompanyType()).thenReturn(Company.CompanyType.SME.name());
+        when(aggregate.getCurrencyCode()).thenReturn("USD");
+        when(aggregate.getCashBalance()).thenReturn(new BigDecimal(cash));
+        when(aggregate.getReceivables()).thenReturn(new BigDecimal(receivables));
+        when(aggregate.getInventoryValue()).thenReturn(new BigDecimal(inventory));
+        when(aggregate.getPayables()).thenReturn(new BigDecimal(payables));
+        when(aggregate.getShortTermDebt()).thenReturn(new BigDecimal(shortTermDebt));
+        when(aggregate.getOpenSalesInvoices()).thenReturn(new BigDecimal("90000.00"));
+        when(aggregate.getOpenPurchaseInvoices()).thenReturn(new BigDecimal("180000.00"));
+        return aggregate;
+    }
+    
+    private LedgerEntry ledgerEntry(LocalDate openDate, LocalDateTime closedAt, String amount) {
+        LedgerEntry entry = mock(LedgerEntry.class, withSettings().strictness(Strictness.LENIENT));
+        when(entry.getOpenDate()).thenReturn(openDate);
+        when(entry.getClosedAt()).thenReturn(closedAt);
+        when(entry.getAmount()).thenReturn(new BigDecimal(amount));
+        return entry;
+    }
+    
+    private CashMovement cashMovement(LocalDate date, Transaction.TransactionType type, String amount) {
+        CashMovement movement = mock(CashMovement.class, withSettings().strictness(Strictness.LENIENT));
+        when(movement.getTransactionDate()).thenReturn(date);
+        when(movement.getTransactionType()).thenReturn(type);
+        when(movement.getAmount()).thenReturn(new BigDecimal(amount));
+        return movement;
     }
     
     @Test
     void calculateWorkingCapitalMetrics_ShouldReturnCorrectMetrics() {
-        // Mock repositories to return test data
-        when(cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId))
-                .thenReturn(new BigDecimal("50000.00"));
-        
-        when(accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("75000.00"));
-        
-        when(inventoryRepository.sumTotalInventoryValueByCompanyId(companyId))
-                .thenReturn(new BigDecimal("100000.00"));
-        
-        when(accountsPayableRepository.sumTotalPayablesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("60000.00"));
-        
-        when(shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("40000.00"));
+        // Mock the consolidated balance sheet query to return test data
+        BalanceSheetAggregate aggregate = balanceSheet("50000.00", "75000.00", "100000.00", "60000.00", "40000.00");
+        when(companyRepository.findBalanceSheetAggregateByCompanyId(companyId)).thenReturn(Optional.of(aggregate));
         
         // Calculate metrics
         WorkingCapitalMetricsDto metrics = workingCapitalService.calculateWorkingCapitalMetrics(companyId);
@@ -125,24 +178,44 @@ public class WorkingCapitalServiceTest {
         
         // The quick ratio should be 1.25 (225000 - 100000) / 100000
         assertEquals(new BigDecimal("1.25"), metrics.getQuickRatio());
+        
+        // DSO = 75000 / (90000 / 90), DPO = 60000 / (180000 / 90), DIO = 100000 / (180000 / 90)
+        assertEquals(new BigDecimal("75.00"), metrics.getDaysSalesOutstanding());
+        assertEquals(new BigDecimal("30.00"), metrics.getDaysPayablesOutstanding());
+        assertEquals(new BigDecimal("50.00"), metrics.getDaysInventoryOutstanding());
+        assertEquals(new BigDecimal("95.00"), metrics.getCashConversionCycle());
+        
+        // Without an earlier snapshot the trends are stable
+        assertEquals("STABLE", metrics.getWorkingCapitalTrend());
+        assertEquals("STABLE", metrics.getCashConversionCycleTrend());
+        assertEquals("STABLE", metrics.getLiquidityTrend());
+        
+        // Every input comes from a single round trip
+        verify(companyRepository, times(1)).findBalanceSheetAggregateByCompanyId(companyId);
     }
     
     @Test
     void getDashboardSummary_ShouldReturnCorrectSummary() {
-        // Mock repositories to return test data
-        when(cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId))
-                .thenReturn(new BigDecimal("50000.00"));
-        
-        when(accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("75000.00"));
-        
-        when(inventoryRepository.sumTotalInventoryValueByCompanyId(companyId))
-                .thenReturn(new BigDecimal("100000.00"));
-        
-        when(accountsPayableRepository.sumTotalPayablesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("60000.00"));
-        
-        when(alertRepository.countByCompanyIdAndReadFalse(companyId)).thenReturn(5L);
+        // Mock the consolidated balance sheet query to return test data
+        BalanceSheetAggregate aggregate = balanceSheet("50000.00", "75000.00", "100000.00", "60000.00", "40000.00");
+        when(companyRepository.findBalanceSheetAggregateByCompanyId(companyId)).thenReturn(Optional.of(aggregate));
+        
+        AlertInbox.RecentAlert recentAlert = AlertInbox.RecentAlert.builder()
+                .id(7L)
+                .title("Cash gap")
+                .message("Projected cash balance is negative")
+                .alertType(Alert.AlertType.CASH_GAP)
+                .severity(Alert.AlertSeverity.CRITICAL)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(alertInboxService.getInbox(companyId)).thenReturn(AlertInboxDto.builder()
+                .companyId(companyId)
+                .totalCount(9)
+                .unreadCount(5)
+                .severityCounts(Map.of("CRITICAL", 2L, "HIGH", 3L))
+                .typeCounts(Map.of("CASH_GAP", 9L))
+                .recentAlerts(List.of(recentAlert))
+                .build());
         
         // Get dashboard summary
         DashboardSummaryDto summary = workingCapitalService.getDashboardSummary(companyId);
@@ -167,25 +240,74 @@ public class WorkingCapitalServiceTest {
         
         // Verify alerts count
         assertEquals(5, summary.getTotalAlerts());
+        assertEquals(2, summary.getCriticalAlerts());
+        assertEquals(3, summary.getHighAlerts());
+        assertEquals(1, summary.getRecentAlerts().size());
+        assertEquals(7L, summary.getRecentAlerts().get(0).get("id"));
+        
+        // Every section is present
+        assertFalse(summary.isPartial());
+        assertNull(summary.getUnavailableSections());
+        
+        // Metrics, CCC components and recommendations share one balance sheet load
+        verify(companyRepository, times(1)).findBalanceSheetAggregateByCompanyId(companyId);
     }
     
     @Test
-    void calculateLiquidityRatios_ShouldReturnCorrectRatios() {
-        // Mock repositories to return test data
-        when(cashAccountRepository.sumTotalCashBalanceByCompanyId(companyId))
-                .thenReturn(new BigDecimal("50000.00"));
+    void getDashboardSummary_ShouldFlagSectionsWhoseQueriesFail() {
+        BalanceSheetAggregate aggregate = balanceSheet("50000.00", "75000.00", "100000.00", "60000.00", "40000.00");
+        when(companyRepository.findBalanceSheetAggregateByCompanyId(companyId)).thenReturn(Optional.of(aggregate));
+        when(accountsReceivableRepository.findCustomerConcentration(companyId, 5))
+                .thenThrow(new IllegalStateException("connection reset"));
         
-        when(accountsReceivableRepository.sumTotalReceivablesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("75000.00"));
+        DashboardSummaryDto summary = workingCapitalService.getDashboardSummary(companyId);
         
-        when(inventoryRepository.sumTotalInventoryValueByCompanyId(companyId))
-                .thenReturn(new BigDecimal("100000.00"));
+        // The rest of the dashboard is still returned
+        assertEquals(new BigDecimal("165000.00"), summary.getNetWorkingCapital());
+        assertNotNull(summary.getTopVendors());
+        assertNull(summary.getTopCustomers());
+        assertTrue(summary.isPartial());
+        assertEquals(List.of("topCustomers"), summary.getUnavailableSections());
+    }
+    
+    @Test
+    void getDashboardSummary_ShouldMeasureWorkingCapitalTrendAgainstSnapshotOneTrendPeriodEarlier() {
+        BalanceSheetAggregate aggregate = balanceSheet("50000.00", "75000.00", "100000.00", "60000.00", "40000.00");
+        when(companyRepository.findBalanceSheetAggregateByCompanyId(companyId)).thenReturn(Optional.of(aggregate));
+        WorkingCapitalSnapshot baseline = snapshot(LocalDate.now().minusDays(31), "100000.00", "STABLE");
+        baseline.setTotalCurrentAssets(new BigDecimal("200000.00"));
+        baseline.setAccountsPayable(new BigDecimal("50000.00"));
+        when(snapshotRepository.findFirstByCompanyIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(
+                companyId, LocalDate.now().minusDays(WorkingCapitalSnapshotService.TREND_LOOKBACK_DAYS)))
+                .thenReturn(Optional.of(baseline));
+        when(financialCalculator.determineTrend(new BigDecimal("150000.00"), new BigDecimal("165000.00"), true))
+                .thenReturn("IMPROVING");
+        
+        Map<String, Object> trend = workingCapitalService.getDashboardSummary(companyId).getWorkingCapitalTrend();
+        
+        // The baseline leaves short-term debt out, as the dashboard does
+        assertEquals(new BigDecimal("165000.00"), trend.get("current"));
+        assertEquals(new BigDecimal("150000.00"), trend.get("previous"));
+        assertEquals("IMPROVING", trend.get("trend"));
+    }
+    
+    @Test
+    void getDashboardSummary_ShouldReportStableWorkingCapitalTrendWithoutSnapshot() {
+        BalanceSheetAggregate aggregate = balanceSheet("50000.00", "75000.00", "100000.00", "60000.00", "40000.00");
+        when(companyRepository.findBalanceSheetAggregateByCompanyId(companyId)).thenReturn(Optional.of(aggregate));
+        when(financialCalculator.determineTrend(null, new BigDecimal("165000.00"), true)).thenReturn("STABLE");
         
-        when(accountsPayableRepository.sumTotalPayablesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("60000.00"));
+        Map<String, Object> trend = workingCapitalService.getDashboardSummary(companyId).getWorkingCapitalTrend();
         
-        when(shortTermLiabilityRepository.sumTotalLiabilitiesByCompanyId(companyId))
-                .thenReturn(new BigDecimal("40000.00"));
+        assertNull(trend.get("previous"));
+        assertEquals("STABLE", trend.get("trend"));
+    }
+    
+    @Test
+    void calculateLiquidityRatios_ShouldReturnCorrectRatios() {
+        // Mock the consolidated balance sheet query to return test data
+        BalanceSheetAggregate aggregate = balanceSheet("50000.00", "75000.00", "100000.00", "60000.00", "40000.00");
+        when(companyRepository.findBalanceSheetAggregateByCompanyId(companyId)).thenReturn(Optional.of(aggregate));
         
         // Calculate liquidity ratios
         Map<String, Double> ratios = workingCapitalService.calculateLiquidityRatios(companyId);
@@ -203,18 +325,144 @@ public class WorkingCapitalServiceTest {
         assertEquals(0.50, ratios.get("cashRatio"));
     }
     
+    @Test
+    void getHistoricalMetrics_ShouldReconstructEachDateFromOneLoadPerLedger() {
+        LocalDate today = LocalDate.now();
+        BalanceSheetAggregate aggregate = balanceSheet("50000.00", "75000.00", "100000.00", "60000.00", "40000.00");
+        when(companyRepository.findBalanceSheetAggregateByCompanyId(companyId)).thenReturn(Optional.of(aggregate));
+        
+        // One receivable open throughout, one open for a single day
+        List<LedgerEntry> receivables = List.of(
+                ledgerEntry(today.minusDays(10), null, "1000.00"),
+                ledgerEntry(today.minusDays(2), today.minusDays(1).atTime(12, 0), "500.00"));
+        when(accountsReceivableRepository.findLedgerEntries(eq(companyId), eq(today.minusDays(1)), any()))
+                .thenReturn(receivables);
+        
+        // Cash received and spent after the first point is rolled back from today's balance
+        List<CashMovement> movements = List.of(
+                cashMovement(today.minusDays(2), Transaction.TransactionType.INCOME, "200.00"),
+                cashMovement(today.minusDays(1), Transaction.TransactionType.EXPENSE, "50.00"),
+                cashMovement(today.minusDays(1), Transaction.TransactionType.TRANSFER, "999.00"));
+        // The sweep starts one trend period before the first date
+        when(transactionRepository.findCashMovementsAfter(companyId, today.minusDays(33))).thenReturn(movements);
+        
+        Map<LocalDate, WorkingCapitalMetricsDto> history = workingCapitalService.getHistoricalMetrics(
+                companyId, today.minusDays(3), today.minusDays(1), "DAILY");
+        
+        assertEquals(List.of(today.minusDays(3), today.minusDays(2), today.minusDays(1)), List.copyOf(history.keySet()));
+        
+        assertEquals(new BigDecimal("1000.00"), history.get(today.minusDays(3)).getAccountsReceivable());
+        assertEquals(new BigDecimal("1500.00"), history.get(today.minusDays(2)).getAccountsReceivable());
+        assertEquals(new BigDecimal("1000.00"), history.get(today.minusDays(1)).getAccountsReceivable());
+        
+        assertEquals(new BigDecimal("49850.00"), history.get(today.minusDays(3)).getCashAndEquivalents());
+        assertEquals(new BigDecimal("50050.00"), history.get(today.minusDays(2)).getCashAndEquivalents());
+        assertEquals(new BigDecimal("50000.00"), history.get(today.minusDays(1)).getCashAndEquivalents());
+        assertEquals(today.minusDays(2), history.get(today.minusDays(2)).getCalculationDate());
+        assertEquals("IMPROVING", history.get(today.minusDays(2)).getWorkingCapitalTrend());
+        
+        // The number of queries does not depend on the number of dates
+        verify(companyRepository, times(1)).findBalanceSheetAggregateByCompanyId(companyId);
+        verify(accountsReceivableRepository, times(1)).findLedgerEntries(eq(companyId), any(), any());
+        verify(transactionRepository, times(1)).findCashMovementsAfter(eq(companyId), any());
+    }
+    
+    @Test
+    void getHistoricalMetrics_ShouldServeStoredSnapshots() {
+        LocalDate startDate = LocalDate.now().minusMonths(3).withDayOfMonth(1);
+        LocalDate endDate = startDate.plusMonths(2);
+        List<WorkingCapitalSnapshot> snapshots = List.of(
+                snapshot(startDate, "100000.00", "IMPROVING"),
+                snapshot(startDate.plusMonths(1), "110000.00", "IMPROVING"),
+                snapshot(startDate.plusMonths(2), "105000.00", "DETERIORATING"));
+        when(snapshotRepository.findByCompanyIdAndSnapshotDateBetweenOrderBySnapshotDateAsc(companyId, startDate, endDate))
+                .thenReturn(snapshots);
+        
+        Map<LocalDate, WorkingCapitalMetricsDto> history = workingCapitalService.getHistoricalMetrics(
+                companyId, startDate, endDate, "MONTHLY");
+        
+        assertEquals(3, history.size());
+        assertEquals(new BigDecimal("110000.00"), history.get(startDate.plusMonths(1)).getNetWorkingCapital());
+        assertEquals("DETERIORATING", history.get(startDate.plusMonths(2)).getWorkingCapitalTrend());
+        
+        // Nothing is recomputed from the ledgers
+        verify(companyRepository, never()).findBalanceSheetAggregateByCompanyId(any());
+    }
+    
+    private WorkingCapitalSnapshot snapshot(LocalDate date, String netWorkingCapital, String trend) {
+        WorkingCapitalSnapshot snapshot = new WorkingCapitalSnapshot();
+        snapshot.setSnapshotDate(date);
+        snapshot.setCompanyName("Test Company");
+        snapshot.setNetWorkingCapital(new BigDecimal(netWorkingCapital));
+        snapshot.setWorkingCapitalTrend(trend);
+        return snapshot;
+    }
+    
+    private BatchMetricsRow batchRow(Long id, String cash, String payables, String previousNetWorkingCapital) {
+        BatchMetricsRow row = mock(BatchMetricsRow.class, withSettings().strictness(Strictness.LENIENT));
+        when(row.getCompanyId()).thenReturn(id);
+        when(row.getCompanyName()).thenReturn("Company " + id);
+        when(row.getCurrencyCode()).thenReturn("USD");
+        when(row.getCashBalance()).thenReturn(new BigDecimal(cash));
+        when(row.getReceivables()).thenReturn(BigDecimal.ZERO);
+        when(row.getInventoryValue()).thenReturn(BigDecimal.ZERO);
+        when(row.getPayables()).thenReturn(new BigDecimal(payables));
+        when(row.getShortTermDebt()).thenReturn(BigDecimal.ZERO);
+        when(row.getOpenSalesInvoices()).thenReturn(BigDecimal.ZERO);
+        when(row.getOpenPurchaseInvoices()).thenReturn(BigDecimal.ZERO);
+        when(row.getPreviousNetWorkingCapital())
+                .thenReturn(previousNetWorkingCapital != null ? new BigDecimal(previousNetWorkingCapital) : null);
+        return row;
+    }
+    
+    @Test
+    void streamBatchMetrics_ShouldAssembleEveryCompanyFromOneQuery() {
+        BatchMetricsRow first = batchRow(1L, "150000.00", "50000.00", "80000.00");
+        BatchMetricsRow second = batchRow(2L, "20000.00", "10000.00", null);
+        List<Long> companyIds = List.of(1L, 2L);
+        LocalDate baselineDate = LocalDate.now().minusDays(WorkingCapitalSnapshotService.TREND_LOOKBACK_DAYS);
+        when(companyRepository.streamBatchMetricsByCompanyIds(companyIds, baselineDate))
+                .thenReturn(Stream.of(first, second));
+        
+        List<WorkingCapitalMetricsDto> metrics = new ArrayList<>();
+        workingCapitalService.streamBatchMetrics(companyIds, null, metrics::add);
+        
+        assertEquals(2, metrics.size());
+        assertEquals(1L, metrics.get(0).getCompanyId());
+        assertEquals(new BigDecimal("100000.00"), metrics.get(0).getNetWorkingCapital());
+        assertEquals(new BigDecimal("3.00"), metrics.get(0).getCurrentRatio());
+        // Net working capital grew from the baseline snapshot
+        assertEquals("IMPROVING", metrics.get(0).getWorkingCapitalTrend());
+        // Without a baseline snapshot the trends are stable
+        assertEquals(2L, metrics.get(1).getCompanyId());
+        assertEquals("STABLE", metrics.get(1).getWorkingCapitalTrend());
+        
+        // Nothing is loaded per company
+        verify(companyRepository, never()).findBalanceSheetAggregateByCompanyId(any());
+        verify(snapshotRepository, never()).findFirstByCompanyIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(any(), any());
+    }
+    
     @Test
     void generateAlerts_ShouldCallAlertServices() {
         // Mock alert service methods to return counts
-        when(alertService.generateCashGapAlerts(companyId)).thenReturn(2);
-        when(alertService.generateLiquidityAlerts(companyId)).thenReturn(1);
-        when(alertService.generateWorkingCapitalRatioAlerts(companyId)).thenReturn(3);
-        when(alertService.generateCCCAlerts(companyId)).thenReturn(2);
+        when(alertService.generateCashGapAlerts(any(MetricsContext.class))).thenReturn(2);
+        when(alertService.generateLiquidityAlerts(any(MetricsContext.class))).thenReturn(1);
+        when(alertService.generateWorkingCapitalRatioAlerts(any(MetricsContext.class))).thenReturn(3);
+        when(alertService.generateCCCAlerts(any(MetricsContext.class))).thenReturn(2);
         
         // Generate alerts
         int alertsGenerated = workingCapitalService.generateAlerts(companyId);
         
         // Verify the result
         assertEquals(8, alertsGenerated);
+        
+        // Every generator receives the same context
+        ArgumentCaptor<MetricsContext> contextCaptor = ArgumentCaptor.forClass(MetricsContext.class);
+        verify(alertService).generateCashGapAlerts(contextCaptor.capture());
+        MetricsContext context = contextCaptor.getValue();
+        assertEquals(companyId, context.getCompanyId());
+        verify(alertService).generateLiquidityAlerts(context);
+        verify(alertService).generateWorkingCapitalRatioAlerts(context);
+        verify(alertService).generateCCCAlerts(context);
     }
 }
@@ -0,0 +1,79 @@
+package com.fintech.wcm.util;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CsvInputs.
+ */
+public class CsvInputsTest {
+
+    private static final String CSV = "invoice_number,contact_name\nINV-1,Müller GmbH\n";
+
+    private static String read(Reader reader) throws IOException {
+        StringWriter out = new StringWriter();
+        reader.transferTo(out);
+        return out.toString();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] zstd(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream zstd = new ZstdOutputStream(out)) {
+            zstd.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static String decode(byte[] body, String contentEncoding, Charset charset) throws IOException {
+        return read(CsvInputs.reader(CsvInputs.decompress(new ByteArrayInputStream(body), contentEncoding), charset));
+    }
+
+    @Test
+    void decompress_ShouldDetectCompressionFromFirstBytes() throws IOException {
+        byte[] csv = CSV.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(CSV, decode(csv, null, StandardCharsets.UTF_8));
+        assertEquals(CSV, decode(gzip(csv), null, StandardCharsets.UTF_8));
+        assertEquals(CSV, decode(zstd(csv), null, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decompress_ShouldFollowContentEncoding() throws IOException {
+        byte[] csv = CSV.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(CSV, decode(gzip(csv), "gzip", StandardCharsets.UTF_8));
+        assertEquals(CSV, decode(zstd(csv), "ZSTD", StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> decode(csv, "br", StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reader_ShouldDecodeCharsetAndDropByteOrderMark() throws IOException {
+        byte[] latin1 = CSV.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] withBom = ("\uFEFF" + CSV).getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(CSV, decode(latin1, null, CsvInputs.charset("ISO-8859-1")));
+        assertEquals(CSV, decode(withBom, null, StandardCharsets.UTF_8));
+        assertEquals("", decode(new byte[0], null, StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> CsvInputs.charset("no-such-charset"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.fintech.wcm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CsvRangeSplitter utility class.
+ */
+public class CsvRangeSplitterTest {
+
+    @Test
+    void split_ShouldNotEndRangeOnNewlineInsideQuotes() throws IOException {
+        String csv = "id,notes\n" +
+                "1,\"first line\nsecond line\"\n" +
+                "2,plain\n";
+
+        CsvRangeSplitter.Layout layout = split(csv, 1);
+
+        assertEquals("id,notes\n".length(), layout.headerEnd());
+        assertEquals(2, layout.ranges().size());
+        CsvRangeSplitter.Range first = layout.ranges().get(0);
+        assertEquals("1,\"first line\nsecond line\"\n", csv.substring((int) first.start(), (int) first.end()));
+        assertEquals(2, layout.ranges().get(1).firstRecordNumber());
+    }
+
+    @Test
+    void split_ShouldNumberRecordsAcrossRangesSkippingEmptyLines() throws IOException {
+        String csv = "id,name\r\n" +
+                "1,a\r\n" +
+                "\r\n" +
+                "2,\"b \"\"quoted\"\"\"\r\n" +
+                "3,c\r\n" +
+                "4,d";
+
+        CsvRangeSplitter.Layout layout = split(csv, 10);
+
+        assertEquals(4, layout.recordCount());
+        List<CsvRangeSplitter.Range> ranges = layout.ranges();
+        assertEquals(1, ranges.get(0).firstRecordNumber());
+        for (int i = 1; i < ranges.size(); i++) {
+            CsvRangeSplitter.Range previous = ranges.get(i - 1);
+            assertEquals(previous.end(), ranges.get(i).start());
+            assertEquals(previous.firstRecordNumber() + previous.recordCount(), ranges.get(i).firstRecordNumber());
+        }
+        assertEquals(csv.length(), ranges.get(ranges.size() - 1).end());
+    }
+
+    @Test
+    void split_ShouldKeepSmallFileInOneRange() throws IOException {
+        CsvRangeSplitter.Layout layout = split("a,b\n1,2\n3,4\n", 1 << 20);
+
+        assertEquals(1, layout.ranges().size());
+        assertEquals(2, layout.ranges().get(0).recordCount());
+        assertTrue(split("a,b", 1 << 20).ranges().isEmpty());
+    }
+
+    private static CsvRangeSplitter.Layout split(String csv, long targetSize) throws IOException {
+        return CsvRangeSplitter.split(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), targetSize);
+    }
+}
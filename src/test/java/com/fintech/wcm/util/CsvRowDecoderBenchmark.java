@@ -0,0 +1,104 @@
+package com.fintech.wcm.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Measures the heap allocated per row when a cash transaction file is read, before and after
+ * the {@link CsvRowDecoder}: with the CSV parser, looking each column up by name and parsing
+ * it from a String, and with the decoder, reading bound column positions from its buffer.
+ *
+ * Not a unit test; run it on its own, for example from the IDE or with
+ * {@code java -cp target/classes:target/test-classes:<commons-csv jar> com.fintech.wcm.util.CsvRowDecoderBenchmark}.
+ * Only what the mapping reads is counted; the entities and the strings they keep are
+ * allocated the same either way and are left out.
+ */
+public class CsvRowDecoderBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int ROUNDS = 5;
+
+    private enum TransactionType { INFLOW, OUTFLOW }
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws IOException {
+        String csv = transactions(ROWS);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            long started = System.nanoTime();
+            readWithCsvParser(csv);
+            long parserBytes = threads.getCurrentThreadAllocatedBytes() - before;
+            long parserNanos = System.nanoTime() - started;
+
+            before = threads.getCurrentThreadAllocatedBytes();
+            started = System.nanoTime();
+            readWithDecoder(csv);
+            long decoderBytes = threads.getCurrentThreadAllocatedBytes() - before;
+            long decoderNanos = System.nanoTime() - started;
+
+            System.out.printf(Locale.ROOT, "round %d: CSV parser %6.0f B/row %5.0f ns/row | decoder %6.0f B/row %5.0f ns/row%n",
+                    round, (double) parserBytes / ROWS, (double) parserNanos / ROWS,
+                    (double) decoderBytes / ROWS, (double) decoderNanos / ROWS);
+        }
+    }
+
+    private static void readWithCsvParser(String csv) throws IOException {
+        try (CSVParser parser = new CSVParser(new StringReader(csv), CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+            for (CSVRecord record : parser) {
+                LocalDate date = LocalDate.parse(record.get("transaction_date"), CsvRow.DATE_FORMATTER);
+                BigDecimal amount = new BigDecimal(record.get("amount"));
+                TransactionType type = TransactionType.valueOf(record.get("transaction_type").toUpperCase());
+                BigDecimal rate = record.isMapped("exchange_rate") ? new BigDecimal(record.get("exchange_rate")) : null;
+                long account = record.isMapped("cash_account_id") ? Long.parseLong(record.get("cash_account_id")) : 0;
+                sink = consume(date, amount, type, rate, account);
+            }
+        }
+    }
+
+    private static void readWithDecoder(String csv) throws IOException {
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader(csv));
+        CsvHeader header = decoder.readHeader();
+        int dateColumn = header.indexOf("transaction_date");
+        int amountColumn = header.indexOf("amount");
+        int typeColumn = header.indexOf("transaction_type");
+        int rateColumn = header.indexOf("exchange_rate");
+        int accountColumn = header.indexOf("cash_account_id");
+        TransactionType[] types = TransactionType.values();
+
+        while (decoder.next()) {
+            LocalDate date = decoder.getDate(dateColumn);
+            BigDecimal amount = decoder.getDecimal(amountColumn);
+            TransactionType type = decoder.getEnum(typeColumn, types);
+            BigDecimal rate = rateColumn >= 0 ? decoder.getDecimal(rateColumn) : null;
+            long account = accountColumn >= 0 ? decoder.getLong(accountColumn) : 0;
+            sink = consume(date, amount, type, rate, account);
+        }
+    }
+
+    private static Object consume(LocalDate date, BigDecimal amount, TransactionType type, BigDecimal rate, long account) {
+        return date.getDayOfMonth() + amount.scale() + type.ordinal() + rate.scale() + account > 0 ? date : amount;
+    }
+
+    private static String transactions(int rows) {
+        StringBuilder csv = new StringBuilder("transaction_date,amount,description,transaction_type,currency_code,exchange_rate,cash_account_id\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("2024-").append(String.format(Locale.ROOT, "%02d-%02d", i % 12 + 1, i % 28 + 1))
+                    .append(',').append(i % 100_000).append('.').append(String.format(Locale.ROOT, "%02d", i % 100))
+                    .append(",\"Payment ").append(i).append(", batch\"")
+                    .append(',').append(i % 2 == 0 ? "inflow" : "OUTFLOW")
+                    .append(",USD,1.0825,").append(i % 40 + 1).append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package com.fintech.wcm.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CsvRowDecoder.
+ */
+public class CsvRowDecoderTest {
+
+    private enum Kind { INFLOW, OUTFLOW }
+
+    private static List<List<String>> decode(String csv) throws IOException {
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        records.add(List.of(decoder.readHeader().names()));
+        while (decoder.next()) {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < decoder.size(); i++) {
+                values.add(decoder.get(i));
+            }
+            records.add(values);
+        }
+        return records;
+    }
+
+    private static List<List<String>> parse(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CSVParser parser = new CSVParser(new StringReader(csv), CSVFormat.DEFAULT)) {
+            for (CSVRecord record : parser) {
+                records.add(record.toList());
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void next_ShouldSplitRecordsLikeTheCsvParser() throws IOException {
+        String csv = "\nname,notes,amount\r\n"
+                + "\"Müller, \"\"GmbH\"\"\",\"line one\nline two\" ,1.50\r\n"
+                + "\n"
+                + "  \"spaced\",,\n"
+                + "plain,\"\",-3\r"
+                + "last,end,7";
+
+        assertEquals(parse(csv), decode(csv));
+    }
+
+    @Test
+    void next_ShouldKeepRecordsLongerThanTheBuffer() throws IOException {
+        StringBuilder csv = new StringBuilder("id,notes\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(",\"").append("x".repeat(i % 97)).append("\"\"\"\n");
+        }
+        csv.append("long,").append("y".repeat(50_000)).append('\n');
+
+        assertEquals(parse(csv.toString()), decode(csv.toString()));
+    }
+
+    @Test
+    void next_ShouldRejectTextAfterClosingQuote() throws IOException {
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader("notes\n\"quoted\"text\n"));
+        decoder.readHeader();
+
+        assertThrows(IOException.class, decoder::next);
+    }
+
+    @Test
+    void position_ShouldBeAfterLineEndingOfRecord() throws IOException {
+        String csv = "a,b\r\n1,2\r\n\r\n3,4";
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader(csv));
+        decoder.readHeader();
+
+        assertTrue(decoder.next());
+        assertEquals("a,b\r\n1,2\r\n".length(), decoder.position());
+        assertTrue(decoder.next());
+        assertEquals(csv.length(), decoder.position());
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    void getDecimal_ShouldReadDecimalsLikeBigDecimal() throws IOException {
+        String[] decimals = {"1.50", "-0.00", "+12", ".5", "7.", "123456789012345678", "1234567890123456789.25", "1e3"};
+        StringBuilder csv = new StringBuilder("amount\n");
+        for (String decimal : decimals) {
+            csv.append(decimal).append('\n');
+        }
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader(csv.toString()));
+        decoder.readHeader();
+
+        for (String decimal : decimals) {
+            assertTrue(decoder.next());
+            BigDecimal expected = new BigDecimal(decimal);
+            assertEquals(expected, decoder.getDecimal(0));
+            assertEquals(expected.scale(), decoder.getDecimal(0).scale());
+        }
+    }
+
+    @Test
+    void getters_ShouldReadDatesNumbersAndConstants() throws IOException {
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader("date,count,kind,id\n2024-02-30,-42,outflow, \n2024-13-01,+7,other,9\n"));
+        decoder.readHeader();
+        assertTrue(decoder.next());
+        assertEquals(LocalDate.of(2024, 2, 29), decoder.getDate(0));
+        assertEquals(-42, decoder.getInt(1));
+        assertEquals(Kind.OUTFLOW, decoder.getEnum(2, Kind.values()));
+        assertTrue(decoder.isBlank(3));
+        assertFalse(decoder.isEmpty(3));
+
+        assertTrue(decoder.next());
+        assertThrows(DateTimeParseException.class, () -> decoder.getDate(0));
+        assertEquals(7, decoder.getInt(1));
+        assertNull(decoder.getEnum(2, Kind.values()));
+        assertEquals(9L, decoder.getLong(3));
+    }
+
+    @Test
+    void get_ShouldRejectColumnsPastTheLastValue() throws IOException {
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader("amount,notes\n12\n"));
+        decoder.readHeader();
+        assertTrue(decoder.next());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decoder.get(1));
+        assertEquals("Index for header 'notes' is 1 but the record only has 1 values", e.getMessage());
+    }
+
+    @Test
+    void remainder_ShouldReturnInputNotDecodedYet() throws IOException {
+        CsvRowDecoder decoder = new CsvRowDecoder(new StringReader("a,a\n1,2\n3,4\n"));
+        CsvHeader header = decoder.readHeader();
+
+        assertFalse(header.isDistinct());
+        assertEquals(1, header.indexOf("a"));
+        assertEquals(List.of(List.of("1", "2"), List.of("3", "4")), parseRest(decoder));
+    }
+
+    private static List<List<String>> parseRest(CsvRowDecoder decoder) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CSVParser parser = new CSVParser(decoder.remainder(), CSVFormat.DEFAULT)) {
+            for (CSVRecord record : parser) {
+                records.add(record.toList());
+            }
+        }
+        return records;
+    }
+}
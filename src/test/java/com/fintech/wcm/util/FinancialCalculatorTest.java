@@ -256,6 +256,26 @@ public class FinancialCalculatorTest {
         assertNull(result);
     }
 
+    @Test
+    void determineTrend_ShouldClassifyChangeAgainstPreviousPeriod() {
+        // Higher is better, e.g. net working capital
+        assertEquals("IMPROVING", calculator.determineTrend(new BigDecimal("100.00"), new BigDecimal("110.00"), true));
+        assertEquals("DETERIORATING", calculator.determineTrend(new BigDecimal("100.00"), new BigDecimal("90.00"), true));
+        
+        // Lower is better, e.g. cash conversion cycle
+        assertEquals("IMPROVING", calculator.determineTrend(new BigDecimal("60.00"), new BigDecimal("50.00"), false));
+        assertEquals("DETERIORATING", calculator.determineTrend(new BigDecimal("60.00"), new BigDecimal("70.00"), false));
+        
+        // Changes within 2% are stable
+        assertEquals("STABLE", calculator.determineTrend(new BigDecimal("100.00"), new BigDecimal("101.50"), true));
+        
+        // Negative values are compared by magnitude
+        assertEquals("IMPROVING", calculator.determineTrend(new BigDecimal("-100.00"), new BigDecimal("-50.00"), true));
+        
+        // Missing values are stable
+        assertEquals("STABLE", calculator.determineTrend(null, new BigDecimal("100.00"), true));
+    }
+
     @Test
     void calculateFutureValue_ShouldReturnCorrectValue() {
         // Test with positive interest rate
@@ -0,0 +1,43 @@
+package com.fintech.wcm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RateLimiter.
+ */
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void reserve_ShouldAllowBurstThenSpaceOutCalls() {
+        AtomicLong now = new AtomicLong(1_000 * SECOND);
+        RateLimiter rateLimiter = new RateLimiter(60, 3, now::get);
+
+        assertEquals(-2 * SECOND, rateLimiter.reserve());
+        assertEquals(-SECOND, rateLimiter.reserve());
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(SECOND, rateLimiter.reserve());
+
+        // A quiet spell refills the burst, but no further
+        now.addAndGet(60 * SECOND);
+        assertEquals(-2 * SECOND, rateLimiter.reserve());
+    }
+
+    @Test
+    void pause_ShouldHoldBackTheNextCalls() {
+        AtomicLong now = new AtomicLong(0);
+        RateLimiter rateLimiter = new RateLimiter(60, 3, now::get);
+
+        rateLimiter.pause(Duration.ofSeconds(10));
+
+        assertEquals(10 * SECOND, rateLimiter.reserve());
+        assertEquals(11 * SECOND, rateLimiter.reserve());
+    }
+}
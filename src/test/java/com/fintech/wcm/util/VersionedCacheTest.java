@@ -0,0 +1,102 @@
+package com.fintech.wcm.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the VersionedCache utility class.
+ */
+public class VersionedCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Runnable> pendingRefreshes = new ArrayList<>();
+
+    private VersionedCache<Long, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VersionedCache<>(2, Duration.ofMinutes(5), Duration.ofMinutes(10),
+                pendingRefreshes::add, now::get);
+    }
+
+    @Test
+    void get_ShouldServeFreshEntryForSameVersion() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v0", cache.get(1L, 0, () -> "v" + loads.getAndIncrement()));
+        assertEquals("v0", cache.get(1L, 0, () -> "v" + loads.getAndIncrement()));
+
+        assertEquals(1, loads.get());
+        VersionedCache.Stats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void get_ShouldRecomputeWhenVersionChanges() {
+        cache.get(1L, 0, () -> "old");
+
+        assertEquals("new", cache.get(1L, 1, () -> "new"));
+        assertEquals(2, cache.stats().getMisses());
+    }
+
+    @Test
+    void get_ShouldServeStaleEntryAndRefreshOnceInBackground() {
+        cache.get(1L, 0, () -> "old");
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        assertEquals("old", cache.get(1L, 0, () -> "new"));
+        assertEquals("old", cache.get(1L, 0, () -> "new"));
+        assertEquals(1, pendingRefreshes.size());
+
+        pendingRefreshes.get(0).run();
+
+        assertEquals("new", cache.get(1L, 0, () -> "newer"));
+        VersionedCache.Stats stats = cache.stats();
+        assertEquals(2, stats.getStaleHits());
+        assertEquals(1, stats.getRefreshes());
+        assertEquals(1, stats.getHits());
+    }
+
+    @Test
+    void get_ShouldRecomputeOnCallerThreadAfterStaleWindow() {
+        cache.get(1L, 0, () -> "old");
+        now.addAndGet(Duration.ofMinutes(16).toNanos());
+
+        assertEquals("new", cache.get(1L, 0, () -> "new"));
+        assertTrue(pendingRefreshes.isEmpty());
+    }
+
+    @Test
+    void get_ShouldNotReplaceEntryOfNewerVersion() {
+        cache.get(1L, 0, () -> "old");
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+        cache.get(1L, 0, () -> "refreshed from old data");
+        cache.get(1L, 1, () -> "new");
+
+        pendingRefreshes.get(0).run();
+
+        assertEquals("new", cache.get(1L, 1, () -> "reloaded"));
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedEntry() {
+        cache.get(1L, 0, () -> "one");
+        cache.get(2L, 0, () -> "two");
+        cache.get(1L, 0, () -> "one again");
+        cache.get(3L, 0, () -> "three");
+
+        assertEquals("one", cache.get(1L, 0, () -> "reloaded"));
+        assertEquals("reloaded", cache.get(2L, 0, () -> "reloaded"));
+        assertTrue(cache.stats().getEvictions() >= 1);
+        assertEquals(2, cache.stats().getSize());
+    }
+}